@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * 벤치마크용 로그 말뭉치. 시드를 고정해 실행마다 같은 줄이 만들어진다.
+ */
+public enum Corpus {
+
+    /** PII 키워드가 전혀 없는 줄 */
+    NO_PII,
+    /** 한 줄에 PII key/value가 가끔(약 10%) 하나 섞인 줄 */
+    SPARSE_PII,
+    /** 한 줄에 PII key/value와 금지 키가 여러 개 있는 줄 */
+    DENSE_PII,
+    /** 수 KB 길이의 payload dump 줄(중간에 PII 몇 개) */
+    LONG_LINE,
+    /** 한글 key를 쓰는 줄 */
+    HANGUL_KEYS,
+    /** 쿼리 문자열·퍼센트 인코딩 폼 본문·헤더가 있는 접근 로그 줄 */
+    ACCESS_LOG;
+
+    static final int LINES = 1024;
+
+    private static final String[] PLAIN = {
+            "order 8812736 shipped in 35 ms",
+            "GET /api/v1/products?page=3 200 12ms",
+            "cache refresh completed: entries=1834 evicted=12",
+            "user session started sessionId=7f3a9c2e region=kr-central",
+            "batch job SETTLEMENT finished status=OK elapsed=1532ms",
+            "retrying downstream call attempt=2 backoff=200ms",
+    };
+
+    String[] lines() {
+        Random rnd = new Random(20240101L + ordinal());
+        String[] out = new String[LINES];
+        for (int i = 0; i < LINES; i++) out[i] = line(rnd);
+        return out;
+    }
+
+    private String line(Random rnd) {
+        return switch (this) {
+            case NO_PII -> PLAIN[rnd.nextInt(PLAIN.length)];
+            case SPARSE_PII -> rnd.nextInt(10) == 0
+                    ? "transfer requested userId=" + rnd.nextInt(100000) + " account=" + account(rnd) + " amount=" + rnd.nextInt(1_000_000)
+                    : PLAIN[rnd.nextInt(PLAIN.length)];
+            case DENSE_PII -> "customer verified rrn=" + rrn(rnd)
+                    + ", phone=" + phone(rnd)
+                    + ", card=" + card(rnd)
+                    + ", account=" + account(rnd)
+                    + ", password=" + Long.toHexString(rnd.nextLong())
+                    + ", otp=" + (100000 + rnd.nextInt(900000));
+            case LONG_LINE -> longLine(rnd);
+            case HANGUL_KEYS -> "고객 인증 완료 주민번호=" + rrn(rnd)
+                    + " 휴대폰: " + phone(rnd)
+                    + " 계좌번호=" + account(rnd)
+                    + " 비밀번호=" + Long.toHexString(rnd.nextLong());
+            case ACCESS_LOG -> switch (rnd.nextInt(3)) {
+                case 0 -> "GET /api/v1/transfer?phone=" + phone(rnd) + "&acct=" + account(rnd) + "&amount=" + rnd.nextInt(1_000_000) + " 200 12ms";
+                case 1 -> "POST /login 302 body=phone=" + phone(rnd).replace("-", "%2D") + "&pwd=" + Long.toHexString(rnd.nextLong()) + "&next=%2Fhome";
+                default -> "X-Customer-Phone: " + phone(rnd) + "\r\nX-Request-Id: " + Long.toHexString(rnd.nextLong());
+            };
+        };
+    }
+
+    private static String longLine(Random rnd) {
+        StringBuilder sb = new StringBuilder(8192);
+        sb.append("response body dump: ");
+        while (sb.length() < 6000) {
+            switch (rnd.nextInt(8)) {
+                case 0 -> sb.append("phone=").append(phone(rnd)).append(' ');
+                case 1 -> sb.append("status=OK code=").append(rnd.nextInt(1000)).append(' ');
+                default -> sb.append("item").append(rnd.nextInt(100)).append("=").append(Long.toHexString(rnd.nextLong())).append(", ");
+            }
+        }
+        return sb.toString();
+    }
+
+    static String phone(Random rnd) {
+        return String.format("010-%04d-%04d", rnd.nextInt(10000), rnd.nextInt(10000));
+    }
+
+    static String rrn(Random rnd) {
+        return String.format("%02d%02d%02d-%d%06d", rnd.nextInt(100), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28),
+                1 + rnd.nextInt(4), rnd.nextInt(1_000_000));
+    }
+
+    static String card(Random rnd) {
+        return String.format("%04d-%04d-%04d-%04d", rnd.nextInt(10000), rnd.nextInt(10000), rnd.nextInt(10000), rnd.nextInt(10000));
+    }
+
+    static String account(Random rnd) {
+        return String.format("%03d-%03d-%06d", rnd.nextInt(1000), rnd.nextInt(1000), rnd.nextInt(1_000_000));
+    }
+}
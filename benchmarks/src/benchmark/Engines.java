@@ -0,0 +1,51 @@
+package benchmark;
+
+import core.KeywordBasedLogMaskingEngine;
+import core.PiiMasker;
+import core.PiiType;
+import dictionary.ForbiddenKeywordPolicy;
+import dictionary.PiiKeywordDictionary;
+import strategy.masking.AccountNumber;
+import strategy.masking.PhoneNumber;
+import strategy.masking.PrimaryAccountNumber;
+import strategy.masking.ResidentNumber;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** 벤치마크 공통 엔진 구성: 기본 사전 + 한글 alias, 기본 금지 키 + 한글 금지 키. */
+final class Engines {
+
+    private Engines() {}
+
+    static KeywordBasedLogMaskingEngine defaultEngine() {
+        return defaultBuilder().build();
+    }
+
+    static KeywordBasedLogMaskingEngine.Builder defaultBuilder() {
+        Map<String, PiiType> aliases = new HashMap<>(PiiKeywordDictionary.defaultDictionary().mappings());
+        aliases.put("주민번호", PiiType.RRN);
+        aliases.put("휴대폰", PiiType.PHONE);
+        aliases.put("계좌번호", PiiType.ACCOUNT);
+        aliases.put("카드번호", PiiType.CARD);
+
+        Set<String> forbidden = new HashSet<>(ForbiddenKeywordPolicy.defaultForbiddenKeys());
+        forbidden.add("비밀번호");
+
+        return KeywordBasedLogMaskingEngine.builder(
+                new PiiKeywordDictionary(aliases),
+                new ForbiddenKeywordPolicy(forbidden, ForbiddenKeywordPolicy.Mode.REDACT),
+                maskers());
+    }
+
+    static List<PiiMasker> maskers() {
+        return List.of(
+                ResidentNumber.getInstance(),
+                PhoneNumber.getInstance(),
+                AccountNumber.getInstance(),
+                PrimaryAccountNumber.getInstance());
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import strategy.masking.AccountNumber;
+import strategy.masking.PhoneNumber;
+import strategy.masking.PrimaryAccountNumber;
+import strategy.masking.PseudonymMasker;
+import strategy.masking.ResidentNumber;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** 내장 MaskConvertor 각각의 value 하나 처리량(문자열 API와, 엔진이 쓰는 범위 API). */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MaskConvertorBenchmark {
+
+    private static final int VALUES = 256;
+
+    private final PhoneNumber phoneNumber = PhoneNumber.getInstance();
+    private final AccountNumber accountNumber = AccountNumber.getInstance();
+    private final ResidentNumber residentNumber = ResidentNumber.getInstance();
+    private final PrimaryAccountNumber primaryAccountNumber = PrimaryAccountNumber.getInstance();
+
+    private final PseudonymMasker phonePseudonym =
+            new PseudonymMasker(phoneNumber, "benchmark-pseudonym-key-0123456789".getBytes());
+
+    private final StringBuilder out = new StringBuilder(64);
+
+    private String[] phones, accounts, rrns, cards;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        phones = new String[VALUES];
+        accounts = new String[VALUES];
+        rrns = new String[VALUES];
+        cards = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            phones[i] = (i & 1) == 0 ? Corpus.phone(rnd) : Corpus.phone(rnd).replace("-", "");
+            accounts[i] = Corpus.account(rnd);
+            rrns[i] = Corpus.rrn(rnd);
+            cards[i] = Corpus.card(rnd);
+        }
+    }
+
+    private int index() {
+        int i = next;
+        next = (i + 1) & (VALUES - 1);
+        return i;
+    }
+
+    @Benchmark
+    public String phoneNumber() {
+        return phoneNumber.convert(phones[index()]);
+    }
+
+    @Benchmark
+    public String accountNumber() {
+        return accountNumber.convert(accounts[index()]);
+    }
+
+    @Benchmark
+    public String residentNumber() {
+        return residentNumber.convert(rrns[index()]);
+    }
+
+    @Benchmark
+    public String primaryAccountNumber() {
+        return primaryAccountNumber.convert(cards[index()]);
+    }
+
+    /** 엔진 경로: 중간 문자열 없이 재사용 버퍼에 바로 쓴다. */
+    @Benchmark
+    public int phoneNumberMaskTo() {
+        String value = phones[index()];
+        out.setLength(0);
+        phoneNumber.maskTo(value, 0, value.length(), out);
+        return out.length();
+    }
+
+    /** 값 256개가 반복되므로 첫 바퀴 뒤로는 가명 캐시 조회만 남는다. */
+    @Benchmark
+    public String phonePseudonym() {
+        return phonePseudonym.mask(phones[index()]);
+    }
+
+    @Benchmark
+    public int accountNumberMaskTo() {
+        String value = accounts[index()];
+        out.setLength(0);
+        accountNumber.maskTo(value, 0, value.length(), out);
+        return out.length();
+    }
+}
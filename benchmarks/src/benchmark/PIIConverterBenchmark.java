@@ -0,0 +1,83 @@
+package benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.*;
+import strategy.masking.PIIConverter;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실제 PatternLayout에 PIIConverter를 %msg로 등록해 이벤트 한 건을 문자열로 만드는 처리량.
+ * 이벤트 생성과 메시지 포맷 비용을 포함한다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PIIConverterBenchmark {
+
+    private static final int EVENTS = 256;
+    private static final String FQCN = PIIConverterBenchmark.class.getName();
+
+    /** %msg 옵션: "" = 전체 메시지 마스킹, "arguments" = 인자 단위 마스킹, logger:... = 이 로거의 라우팅 규칙 */
+    @Param({"", "arguments", "logger:benchmark=FORBIDDEN_ONLY", "logger:benchmark=BYPASS"})
+    public String msgOption;
+
+    private PatternLayout layout;
+    private Logger logger;
+    private String[] templates;
+    private Object[][] arguments;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = new LoggerContext();
+        logger = context.getLogger("benchmark.PIIConverter");
+
+        layout = new PatternLayout();
+        layout.setContext(context);
+        layout.getInstanceConverterMap().put("msg", PIIConverter.class.getName());
+        String msg = msgOption.isEmpty() ? "%msg" : "%msg{" + msgOption + "}";
+        layout.setPattern("%d{HH:mm:ss.SSS} [%-5level] [%thread] [%logger{36}] - " + msg + "%n");
+        layout.start();
+
+        Random rnd = new Random(7);
+        templates = new String[EVENTS];
+        arguments = new Object[EVENTS][];
+        for (int i = 0; i < EVENTS; i++) {
+            switch (i % 4) {
+                case 0 -> {
+                    templates[i] = "order {} shipped in {} ms";
+                    arguments[i] = new Object[] {rnd.nextInt(1_000_000), rnd.nextInt(500)};
+                }
+                case 1 -> {
+                    templates[i] = "mobile: {}, card={}";
+                    arguments[i] = new Object[] {Corpus.phone(rnd), Corpus.card(rnd)};
+                }
+                case 2 -> {
+                    templates[i] = "transfer from account={} amount={} pwd={}";
+                    arguments[i] = new Object[] {Corpus.account(rnd), rnd.nextInt(1_000_000), "s3cr3t"};
+                }
+                default -> {
+                    templates[i] = "cache refresh completed: entries={} evicted={}";
+                    arguments[i] = new Object[] {rnd.nextInt(5000), rnd.nextInt(50)};
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public String layoutEvent() {
+        int i = next;
+        next = (i + 1) & (EVENTS - 1);
+        LoggingEvent event = new LoggingEvent(FQCN, logger, Level.INFO, templates[i], null, arguments[i]);
+        return layout.doLayout(event);
+    }
+}
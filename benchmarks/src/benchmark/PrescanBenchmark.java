@@ -0,0 +1,88 @@
+package benchmark;
+
+import core.KeywordBasedLogMaskingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 줄 길이별 전진 스캔과 구분자 prescan 비교. 세 결과가 교차하는 길이가 {@code prescan} 설정값의 근거다.
+ *
+ * <ul>
+ *   <li>scan: prescan 끔</li>
+ *   <li>prescanScalar: 벡터 모듈 없는 JVM(스칼라 대체 구현)</li>
+ *   <li>prescanVector: {@code --add-modules jdk.incubator.vector}로 띄운 JVM</li>
+ * </ul>
+ * 줄은 구분자가 드문 payload 덤프(base64 조각 사이에 key=value 몇 개와 PII)다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrescanBenchmark {
+
+    private static final int LINES = 64;
+    private static final String BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    @Param({"64", "256", "1024", "4096", "16384"})
+    public int lineLength;
+
+    @Param({"false", "true"})
+    public boolean keyless;
+
+    private KeywordBasedLogMaskingEngine scanEngine;
+    private KeywordBasedLogMaskingEngine prescanEngine;
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        scanEngine = Engines.defaultBuilder().keylessDetection(keyless).build();
+        prescanEngine = Engines.defaultBuilder().keylessDetection(keyless).prescan(1).build();
+
+        Random rnd = new Random(7);
+        lines = new String[LINES];
+        for (int i = 0; i < LINES; i++) lines[i] = payloadLine(rnd, lineLength);
+    }
+
+    private String line() {
+        String line = lines[next];
+        next = (next + 1) & (LINES - 1);
+        return line;
+    }
+
+    @Benchmark
+    public String scan() {
+        return scanEngine.mask(line());
+    }
+
+    @Benchmark
+    public String prescanScalar() {
+        return prescanEngine.mask(line());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public String prescanVector() {
+        return prescanEngine.mask(line());
+    }
+
+    static String payloadLine(Random rnd, int length) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        sb.append("payload ");
+        while (sb.length() < length) {
+            switch (rnd.nextInt(16)) {
+                case 0 -> sb.append(" phone=").append(Corpus.phone(rnd)).append(' ');
+                case 1 -> sb.append(" seq:").append(rnd.nextInt(1_000_000)).append(' ');
+                default -> {
+                    for (int k = 0; k < 48; k++) sb.append(BASE64.charAt(rnd.nextInt(BASE64.length())));
+                }
+            }
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import core.KeywordBasedLogMaskingEngine;
+import core.SecretBlocklist;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 값 차단 목록 크기별 줄 마스킹 비용. none은 목록 없는 엔진(기준선)이고, 나머지는 같은 줄에 목록을 더한 것이다.
+ * 목록은 내부 토큰 모양의 임의 값이며, 줄 8개 중 하나에 목록의 값이 하나 들어 있다.
+ * {@code -prof gc}로 보면 목록 크기와 무관하게 줄당 할당이 기준선과 같아야 한다(오토마톤은 힙 밖에 있다).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SecretBlocklistBenchmark {
+
+    @Param({"SPARSE_PII", "DENSE_PII", "LONG_LINE"})
+    public Corpus corpus;
+
+    @Param({"1000", "100000", "500000"})
+    public int secrets;
+
+    private KeywordBasedLogMaskingEngine none;
+    private KeywordBasedLogMaskingEngine blocked;
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(11);
+        List<String> values = new ArrayList<>(secrets);
+        for (int i = 0; i < secrets; i++) values.add(token(rnd));
+        SecretBlocklist list = SecretBlocklist.build(values);
+
+        none = Engines.defaultEngine();
+        blocked = Engines.defaultBuilder().secrets(() -> list).build();
+
+        lines = corpus.lines();
+        for (int i = 0; i < lines.length; i += 8) lines[i] = lines[i] + " token=" + values.get(rnd.nextInt(secrets));
+    }
+
+    private String line() {
+        String line = lines[next];
+        next = (next + 1) & (Corpus.LINES - 1);
+        return line;
+    }
+
+    @Benchmark
+    public String none() {
+        return none.mask(line());
+    }
+
+    @Benchmark
+    public String blocklist() {
+        return blocked.mask(line());
+    }
+
+    private static String token(Random rnd) {
+        return "tk_" + Long.toString(rnd.nextLong() & Long.MAX_VALUE, 36) + Integer.toString(rnd.nextInt(1 << 20), 36);
+    }
+}
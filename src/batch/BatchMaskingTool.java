@@ -0,0 +1,444 @@
+package batch;
+
+import core.KeywordBasedLogMaskingEngine;
+import core.MaskingListener;
+import core.PiiType;
+import strategy.masking.MaskingEngines;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 이미 쌓인 로그 파일을 사후 마스킹하는 배치 도구.
+ *
+ * <p>
+ * 입력을 줄 경계에 맞춘 청크(기본 8MB)로 나눠 ForkJoinPool에서 병렬로 마스킹하고,
+ * 결과는 입력 순서대로 {@link FileChannel}에 쓴다. 동시에 처리 중인 청크 수를 제한하므로
+ * 파일 크기와 무관하게 메모리는 (청크 크기 × 동시 청크 수) 정도로 유지된다.
+ * <ul>
+ *   <li>일반 파일: 청크마다 {@link FileChannel#map}으로 매핑해 읽는다. 바뀐 줄이 없는 청크는 매핑한 바이트를 그대로 쓴다.</li>
+ *   <li>gzip 입력(매직 바이트로 판별): 스트림으로 풀면서 같은 방식으로 청크를 만든다.</li>
+ *   <li>gzip 출력: 출력 파일 이름이 {@code .gz}로 끝나면 압축해서 쓴다.</li>
+ * </ul>
+ * 줄 구분은 '\n' 바이트이며 '\r'은 줄 내용으로 취급해 그대로 보존한다. 그래서 문자셋은 ASCII 호환(UTF-8, EUC-KR 등)만 받는다.
+ * 줄은 따로 디코딩해 마스킹하고, 바뀌지 않은 줄은 원래 바이트를 그대로 쓴다(디코딩할 수 없는 바이트도 보존).
+ * 끝나면 처리량(MB/s)과 PiiType별 마스킹 건수를 출력한다.
+ * </p>
+ *
+ * <pre>
+ * java -cp log-masking.jar batch.BatchMaskingTool [--threads N] [--chunk-mb M] [--charset C] [--keyless] &lt;input&gt; &lt;output&gt;
+ * </pre>
+ */
+public final class BatchMaskingTool {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private static final byte NEWLINE = '\n';
+
+    private final int threads;
+    private final int chunkSize;
+    private final Charset charset;
+    private final boolean keyless;
+
+    public BatchMaskingTool(int threads, int chunkSize, Charset charset, boolean keyless) {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive: " + threads);
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        if (!isAsciiCompatible(Objects.requireNonNull(charset))) {
+            throw new IllegalArgumentException("Charset must be ASCII-compatible (lines are split on the 0x0A byte): " + charset);
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.charset = charset;
+        this.keyless = keyless;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        Charset charset = StandardCharsets.UTF_8;
+        boolean keyless = false;
+
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("--"); i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--chunk-mb" -> chunkSize = chunkBytes(args[++i]);
+                case "--charset" -> charset = Charset.forName(args[++i]);
+                case "--keyless" -> keyless = true;
+                default -> usage("Unknown option: " + args[i]);
+            }
+        }
+        if (args.length - i != 2) usage(null);
+
+        Result result = null;
+        try {
+            result = new BatchMaskingTool(threads, chunkSize, charset, keyless)
+                    .run(Paths.get(args[i]), Paths.get(args[i + 1]));
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+        }
+        System.out.println(result.summary());
+    }
+
+    /** --chunk-mb 값을 바이트로. int 범위를 넘으면(2048MB 이상) 거부한다. */
+    private static int chunkBytes(String mb) {
+        try {
+            return Math.multiplyExact(Integer.parseInt(mb), 1 << 20);
+        } catch (ArithmeticException e) {
+            usage("--chunk-mb too large (max 2047): " + mb);
+            return 0;
+        }
+    }
+
+    /** ASCII 문자를 1바이트 그대로 인코딩하는 문자셋인지('\n' 바이트로 줄을 나눌 수 있는지). */
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) return false;
+        byte[] ascii = new byte[0x80];
+        for (int b = 0; b < ascii.length; b++) ascii[b] = (byte) b;
+        return Arrays.equals(ascii, new String(ascii, StandardCharsets.US_ASCII).getBytes(charset));
+    }
+
+    private static void usage(String error) {
+        if (error != null) System.err.println(error);
+        System.err.println("usage: BatchMaskingTool [--threads N] [--chunk-mb M] [--charset C] [--keyless] <input> <output>");
+        System.exit(2);
+    }
+
+    /**
+     * input 을 마스킹해 output 에 쓴다(덮어씀).
+     *
+     * @throws IllegalArgumentException output 이 input 과 같은 파일인 경우(열 때 비워져 입력을 잃는다)
+     */
+    public Result run(Path input, Path output) throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException("Output is the same file as input: " + output);
+        }
+        Map<PiiType, LongAdder> counts = new EnumMap<>(PiiType.class);
+        for (PiiType t : PiiType.values()) counts.put(t, new LongAdder());
+        LongAdder forbidden = new LongAdder();
+
+        KeywordBasedLogMaskingEngine engine = MaskingEngines.defaultBuilder()
+                .keylessDetection(keyless)
+                .listener(new MaskingListener() {
+                    @Override
+                    public void onMasked(PiiType type) {
+                        counts.get(type).increment();
+                    }
+
+                    @Override
+                    public void onForbidden() {
+                        forbidden.increment();
+                    }
+                })
+                .build();
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long[] bytes;
+        try (FileChannel out = FileChannel.open(output,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Sink sink = output.getFileName().toString().endsWith(".gz") ? new GzipSink(out) : new ChannelSink(out);
+            Pipeline pipeline = new Pipeline(engine, pool, sink);
+            if (isGzip(input)) {
+                readGzip(input, pipeline);
+            } else {
+                readMapped(input, pipeline);
+            }
+            pipeline.finish();
+            sink.close();
+            bytes = new long[] {pipeline.bytesIn, pipeline.bytesOut};
+        } finally {
+            pool.shutdown();
+        }
+        long nanos = System.nanoTime() - start;
+
+        Map<PiiType, Long> masked = new EnumMap<>(PiiType.class);
+        counts.forEach((t, n) -> masked.put(t, n.sum()));
+        return new Result(bytes[0], bytes[1], nanos, masked, forbidden.sum());
+    }
+
+    // ---- 입력 ----
+
+    /** 일반 파일: 청크 하나씩 매핑. 청크 끝은 다음 '\n' 뒤로 늘린다. */
+    private void readMapped(Path input, Pipeline pipeline) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = in.size();
+            long pos = 0;
+            while (pos < size) {
+                long want = Math.min(chunkSize, size - pos);
+                MappedByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, pos, want);
+                long end = pos + want;
+                if (end < size && chunk.get((int) want - 1) != NEWLINE) {
+                    // 줄 경계까지 늘려서 다시 매핑(한 줄이 아주 길면 여러 번 늘어날 수 있다)
+                    long extra = Math.min(Math.max(want, 64 << 10), Integer.MAX_VALUE - want);
+                    while (true) {
+                        long len = Math.min(want + extra, size - pos);
+                        MappedByteBuffer wider = in.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                        int nl = indexOf(wider, (int) want, (int) len);
+                        if (nl >= 0 || pos + len == size) {
+                            int cut = nl >= 0 ? nl + 1 : (int) len;
+                            chunk = wider;
+                            chunk.limit(cut);
+                            end = pos + cut;
+                            break;
+                        }
+                        if (want + extra * 2 > Integer.MAX_VALUE) {
+                            throw new IOException("Line longer than 2GB at offset " + pos);
+                        }
+                        extra *= 2;
+                    }
+                }
+                pipeline.submit(chunk);
+                pos = end;
+            }
+        }
+    }
+
+    /** gzip 입력: 청크 크기만큼 풀고, 마지막 불완전한 줄은 다음 청크 앞으로 넘긴다. */
+    private void readGzip(Path input, Pipeline pipeline) throws IOException {
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(input), 1 << 16), 1 << 16)) {
+            byte[] carry = new byte[0];
+            while (true) {
+                byte[] buf = new byte[Math.max(chunkSize, carry.length * 2)];
+                System.arraycopy(carry, 0, buf, 0, carry.length);
+                int n = carry.length;
+                int r;
+                while (n < buf.length && (r = in.read(buf, n, buf.length - n)) > 0) n += r;
+                if (n == 0) break;
+
+                boolean eof = n < buf.length;
+                int cut = n;
+                if (!eof) {
+                    int nl = lastIndexOf(buf, n);
+                    if (nl < 0) {
+                        carry = Arrays.copyOf(buf, n); // 청크보다 긴 줄: 버퍼를 늘려서 계속
+                        continue;
+                    }
+                    cut = nl + 1;
+                }
+                carry = Arrays.copyOfRange(buf, cut, n);
+                pipeline.submit(ByteBuffer.wrap(buf, 0, cut));
+                if (eof) {
+                    if (carry.length > 0) pipeline.submit(ByteBuffer.wrap(carry));
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean isGzip(Path input) throws IOException {
+        try (InputStream in = Files.newInputStream(input)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    private static int indexOf(ByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) if (buf.get(i) == NEWLINE) return i;
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] buf, int to) {
+        for (int i = to - 1; i >= 0; i--) if (buf[i] == NEWLINE) return i;
+        return -1;
+    }
+
+    // ---- 처리/출력 ----
+
+    /** 병렬 마스킹과 순서 보장 출력. 처리 중인 청크는 스레드 수의 2배까지만 둔다. */
+    private final class Pipeline {
+        private final KeywordBasedLogMaskingEngine engine;
+        private final ForkJoinPool pool;
+        private final Sink sink;
+        private final int maxInFlight;
+        private final ArrayDeque<ForkJoinTask<ByteBuffer>> inFlight = new ArrayDeque<>();
+        long bytesIn, bytesOut;
+
+        Pipeline(KeywordBasedLogMaskingEngine engine, ForkJoinPool pool, Sink sink) {
+            this.engine = engine;
+            this.pool = pool;
+            this.sink = sink;
+            this.maxInFlight = threads * 2;
+        }
+
+        void submit(ByteBuffer chunk) throws IOException {
+            if (inFlight.size() >= maxInFlight) writeOldest();
+            bytesIn += chunk.remaining();
+            inFlight.add(pool.submit(() -> maskChunk(chunk)));
+        }
+
+        void finish() throws IOException {
+            while (!inFlight.isEmpty()) writeOldest();
+        }
+
+        private void writeOldest() throws IOException {
+            ByteBuffer masked = inFlight.poll().join();
+            bytesOut += masked.remaining();
+            sink.write(masked);
+        }
+
+        /**
+         * 청크의 줄마다 엔진 적용. 줄은 바이트 구간 단위로 디코딩하고, 바뀐 줄만 다시 인코딩해 쓴다.
+         * 바뀐 줄이 없으면 입력 버퍼를 그대로 반환한다.
+         */
+        private ByteBuffer maskChunk(ByteBuffer chunk) {
+            int start = chunk.position();
+            int limit = chunk.limit();
+            ByteArrayOutputStream out = null;
+            int copied = start; // chunk[copied, lineStart) 는 아직 out에 옮기지 않은 원래 바이트
+            int lineStart = start;
+            while (lineStart < limit) {
+                int nl = indexOf(chunk, lineStart, limit);
+                int lineEnd = nl < 0 ? limit : nl;
+                String line = charset.decode(chunk.duplicate().limit(lineEnd).position(lineStart)).toString();
+                String masked = engine.mask(line);
+                if (masked != line) {
+                    if (out == null) out = new ByteArrayOutputStream(limit - start + 64);
+                    copy(chunk, copied, lineStart, out);
+                    out.writeBytes(masked.getBytes(charset));
+                    copied = lineEnd;
+                }
+                lineStart = nl < 0 ? limit : nl + 1;
+            }
+            if (out == null) return chunk.duplicate();
+            copy(chunk, copied, limit, out);
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+
+        private void copy(ByteBuffer chunk, int from, int to, ByteArrayOutputStream out) {
+            byte[] bytes = new byte[to - from];
+            chunk.get(from, bytes);
+            out.writeBytes(bytes);
+        }
+    }
+
+    private interface Sink {
+        void write(ByteBuffer buf) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private static final class ChannelSink implements Sink {
+        private final FileChannel channel;
+
+        ChannelSink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(ByteBuffer buf) throws IOException {
+            while (buf.hasRemaining()) channel.write(buf);
+        }
+
+        @Override
+        public void close() {
+            // 채널은 run()에서 닫는다
+        }
+    }
+
+    private static final class GzipSink implements Sink {
+        private final GZIPOutputStream out;
+        private final byte[] copy = new byte[1 << 16];
+
+        GzipSink(FileChannel channel) throws IOException {
+            OutputStream raw = Channels.newOutputStream(channel);
+            this.out = new GZIPOutputStream(raw, 1 << 16);
+        }
+
+        @Override
+        public void write(ByteBuffer buf) throws IOException {
+            if (buf.hasArray()) {
+                out.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+                buf.position(buf.limit());
+                return;
+            }
+            while (buf.hasRemaining()) {
+                int n = Math.min(copy.length, buf.remaining());
+                buf.get(copy, 0, n);
+                out.write(copy, 0, n);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.finish();
+            out.flush();
+        }
+    }
+
+    /** 배치 실행 결과 */
+    public static final class Result {
+        private final long bytesIn;
+        private final long bytesOut;
+        private final long nanos;
+        private final Map<PiiType, Long> maskedByType;
+        private final long forbidden;
+
+        Result(long bytesIn, long bytesOut, long nanos, Map<PiiType, Long> maskedByType, long forbidden) {
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.nanos = nanos;
+            this.maskedByType = maskedByType;
+            this.forbidden = forbidden;
+        }
+
+        /** 처리한(압축 해제 후) 입력 바이트 수 */
+        public long bytesIn() {
+            return bytesIn;
+        }
+
+        /** 압축 전 출력 바이트 수 */
+        public long bytesOut() {
+            return bytesOut;
+        }
+
+        public long elapsedNanos() {
+            return nanos;
+        }
+
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : (bytesIn / (1024.0 * 1024.0)) / (nanos / 1e9);
+        }
+
+        public long maskedCount(PiiType type) {
+            return maskedByType.getOrDefault(type, 0L);
+        }
+
+        public long forbiddenCount() {
+            return forbidden;
+        }
+
+        public String summary() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%,d bytes in, %,d bytes out, %.2f s, %.1f MB/s%n",
+                    bytesIn, bytesOut, nanos / 1e9, megabytesPerSecond()));
+            for (Map.Entry<PiiType, Long> e : maskedByType.entrySet()) {
+                sb.append(String.format("  %-9s %,d%n", e.getKey(), e.getValue()));
+            }
+            sb.append(String.format("  %-9s %,d", "FORBIDDEN", forbidden));
+            return sb.toString();
+        }
+    }
+}
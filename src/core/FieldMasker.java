@@ -0,0 +1,148 @@
+package core;
+
+import dictionary.CompiledKeyIndex;
+import util.BoundedCache;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 이미 key와 value로 나뉘어 있는 구조화 데이터(MDC, SLF4J 2 key-value pair 등)를 마스킹한다.
+ *
+ * <p>
+ * 문자열을 파싱하지 않는다. key마다 금지 키/PII 타입/해당 없음을 한 번 판별해 캐시하고,
+ * 이후에는 판별 결과대로 value에 마스커를 바로 적용한다.
+ * 판별 캐시는 크기 상한이 있어 동적으로 만들어지는 key가 많아도 무한히 커지지 않는다.
+ * </p>
+ *
+ * <p>
+ * key 판별은 먼저 key 전체로 사전을 조회하고, 없으면 camelCase·'_'·'-'·'.'로 나눈 단어를 이어 붙인
+ * 구간을 긴 것부터(같은 길이면 뒤쪽부터) 조회한다. 예: {@code customerPhone} → phone,
+ * {@code acctNo} → acct, {@code user.pin_code} → pin.
+ * </p>
+ */
+public final class FieldMasker {
+
+    /** key 판별 캐시 상한 */
+    static final int MAX_CACHED_KEYS = 4096;
+
+    private static final Decision NONE = new Decision(null, null);
+    private static final Map<PiiType, Decision> BY_TYPE = new EnumMap<>(PiiType.class);
+
+    static {
+        for (PiiType type : PiiType.values()) BY_TYPE.put(type, new Decision(null, type));
+    }
+
+    private final KeywordBasedLogMaskingEngine engine;
+    private final CompiledKeyIndex keyIndex;
+    private final BoundedCache<String, Decision> decisions = new BoundedCache<>(MAX_CACHED_KEYS);
+
+    FieldMasker(KeywordBasedLogMaskingEngine engine) {
+        this.engine = engine;
+        this.keyIndex = engine.keyIndex();
+    }
+
+    /**
+     * key에 해당하는 규칙으로 value를 마스킹. 값 차단 목록의 비밀 값은 key와 무관하게 먼저 치환한다.
+     * 바뀌지 않으면 value 자신을 반환한다.
+     */
+    public String mask(String key, String value) {
+        if (key == null || value == null || value.isEmpty()) return value;
+        String v = engine.maskSecrets(value);
+
+        Decision d = decisions.get(key, this::decide);
+        if (d == NONE) return v;
+
+        String replacement;
+        if (d.forbiddenKey != null) {
+            replacement = engine.forbiddenReplacement();
+            if (replacement != null) engine.forbiddenApplied(d.forbiddenKey);
+        } else {
+            replacement = engine.maskValue(d.type, v);
+        }
+        return replacement == null || replacement.equals(v) ? v : replacement;
+    }
+
+    /** 맵의 모든 value를 마스킹. 바뀐 것이 없으면 입력 맵을 그대로 반환하고, 있으면 순서를 유지한 새 맵을 만든다. */
+    public Map<String, String> maskAll(Map<String, String> fields) {
+        if (fields == null || fields.isEmpty()) return fields;
+
+        Map<String, String> out = null;
+        for (Map.Entry<String, String> e : fields.entrySet()) {
+            String value = e.getValue();
+            String masked = mask(e.getKey(), value);
+            if (masked != value) {
+                if (out == null) out = new LinkedHashMap<>(fields);
+                out.put(e.getKey(), masked);
+            }
+        }
+        return out == null ? fields : out;
+    }
+
+    /** key가 마스킹 대상(금지 키 또는 PII 타입)인지. */
+    public boolean isSensitive(String key) {
+        return key != null && decisions.get(key, this::decide) != NONE;
+    }
+
+    /** key 판별 캐시(히트/미스/제거 수 조회용). */
+    public BoundedCache<String, ?> decisionCache() {
+        return decisions;
+    }
+
+    private Decision decide(String key) {
+        Decision whole = decisionOf(keyIndex.lookup(key, 0, key.length()));
+        if (whole != NONE) return whole;
+
+        int[] bounds = wordBounds(key);
+        int words = bounds.length / 2;
+        for (int n = words - 1; n >= 1; n--) {
+            for (int first = words - n; first >= 0; first--) {
+                int start = bounds[first * 2];
+                int end = bounds[(first + n - 1) * 2 + 1];
+                Decision d = decisionOf(keyIndex.lookup(key, start, end));
+                if (d != NONE) return d;
+            }
+        }
+        return NONE;
+    }
+
+    private Decision decisionOf(int entry) {
+        if (entry == CompiledKeyIndex.NOT_FOUND) return NONE;
+        if (keyIndex.isForbidden(entry)) return new Decision(keyIndex.keyOf(entry), null);
+        PiiType type = keyIndex.typeOf(entry);
+        return type == null ? NONE : BY_TYPE.get(type);
+    }
+
+    /** 단어별 [start, end) 쌍. 구분자('_', '-', '.', 공백)와 소문자→대문자 전환에서 나눈다. */
+    private static int[] wordBounds(String key) {
+        int[] bounds = new int[8];
+        int count = 0;
+        int start = -1;
+        for (int i = 0, len = key.length(); i <= len; i++) {
+            char c = i < len ? key.charAt(i) : '_';
+            boolean separator = c == '_' || c == '-' || c == '.' || Character.isWhitespace(c);
+            boolean camel = start >= 0 && Character.isUpperCase(c) && Character.isLowerCase(key.charAt(i - 1));
+            if (start >= 0 && (separator || camel)) {
+                if (count + 2 > bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                bounds[count++] = start;
+                bounds[count++] = i;
+                start = -1;
+            }
+            if (!separator && start < 0) start = i;
+        }
+        return count == bounds.length ? bounds : Arrays.copyOf(bounds, count);
+    }
+
+    /** key 하나에 대한 판별 결과. 금지 키이면 forbiddenKey(일치한 금지 키), 아니면 type. */
+    private static final class Decision {
+        final String forbiddenKey;
+        final PiiType type;
+
+        Decision(String forbiddenKey, PiiType type) {
+            this.forbiddenKey = forbiddenKey;
+            this.type = type;
+        }
+    }
+}
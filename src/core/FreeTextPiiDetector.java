@@ -0,0 +1,426 @@
+package core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * key 없이 본문에 그대로 등장하는 PII(주민번호·전화번호·카드번호·계좌번호)를 찾는다.
+ *
+ * <p>
+ * 타입별 형태를 하나의 NFA로 합친 뒤 부분집합 구성으로 DFA 하나를 만들어 두고,
+ * 숫자로 시작하는 후보 위치마다 이 DFA를 한 번 돌려 모든 타입을 동시에 판별한다(타입별 정규식 반복 없음).
+ * 입력 문자는 숫자 10개·'-'·' '의 12개 클래스로 나뉘며, 그 외 문자는 즉시 dead 상태다.
+ * <ul>
+ *   <li>RRN: {@code \d{6}-\d{7}} + 생년월일·성별 자리·검증 숫자</li>
+ *   <li>CARD: {@code \d{4}-\d{4}-\d{4}-\d{4}} + Luhn</li>
+ *   <li>PHONE: 휴대폰 {@code 01[016789][- ]?\d{3,4}[- ]?\d{4}}, 유선 {@code 0\d{1,2}[- ]\d{3,4}[- ]\d{4}}(구분자 필수)</li>
+ *   <li>ACCOUNT: {@code \d{2,6}(-\d{2,6}){2,3}}, 숫자 합계 10~14자리</li>
+ * </ul>
+ * 같은 구간이 여러 타입에 해당하면 RRN → CARD → PHONE → ACCOUNT 순으로 검증을 통과한 첫 타입을 쓴다.
+ * 후보의 앞은 영문/숫자가 아니고 "숫자-" 뒤가 아니어야 하며, 뒤는 숫자나 "-숫자"가 아니어야 한다.
+ * </p>
+ */
+final class FreeTextPiiDetector {
+
+    /** 우선순위 순서 */
+    private static final PiiType[] PRIORITY = {PiiType.RRN, PiiType.CARD, PiiType.PHONE, PiiType.ACCOUNT};
+
+    private static final int HYPHEN = 10;
+    private static final int SPACE = 11;
+    private static final int CLASSES = 12;
+    private static final int DEAD = -1;
+
+    /** transitions[state * CLASSES + class] */
+    private final int[] transitions;
+    /** 상태별 수락 타입 비트(PRIORITY 인덱스 기준) */
+    private final int[] acceptMask;
+    private final int enabledMask;
+
+    private final KeywordBasedLogMaskingEngine engine;
+
+    FreeTextPiiDetector(KeywordBasedLogMaskingEngine engine, Iterable<PiiType> types) {
+        this.engine = engine;
+        int enabled = 0;
+        for (PiiType t : types) enabled |= 1 << priorityOf(t);
+        this.enabledMask = enabled;
+
+        Nfa nfa = new Nfa();
+        for (Shape shape : shapes()) {
+            if ((enabled & (1 << priorityOf(shape.type))) != 0) nfa.add(shape);
+        }
+        int[][] dfa = nfa.toDfa();
+        this.transitions = dfa[0];
+        this.acceptMask = dfa[1];
+    }
+
+    /** 적용할 타입이 하나라도 있는지. */
+    boolean isEnabled() {
+        return enabledMask != 0;
+    }
+
+    /** line 안의 후보를 찾아 마스킹. 바뀐 것이 없으면 line 인스턴스를 그대로 반환한다. */
+    String mask(String line) {
+        return mask(line, null);
+    }
+
+    /**
+     * {@link #mask(String)}와 같되, prescan이 있으면 그것으로 모은 숫자 묶음 시작 위치에서만 후보를 판별한다
+     * (문자마다 숫자인지 보지 않는다). 후보는 항상 숫자 묶음의 시작이므로 결과는 같다.
+     */
+    String mask(String line, LinePrescan prescan) {
+        if (line == null || enabledMask == 0) return line;
+
+        LinePrescan.Positions starts = null;
+        if (prescan != null) {
+            starts = LinePrescan.acquire();
+            prescan.digitRunStarts(line, starts);
+        }
+
+        final int len = line.length();
+        StringBuilder out = null;
+        int copied = 0;
+        int[] match = new int[2];
+        int i = 0;
+
+        while ((i = starts == null ? nextMatch(line, i, match) : nextMatch(line, i, match, starts)) >= 0) {
+            int end = match[0];
+            PiiType type = PRIORITY[match[1]];
+            String value = line.substring(i, end);
+            String masked = engine.maskValue(type, value);
+            if (masked != null && !masked.equals(value)) {
+                if (out == null) out = new StringBuilder(len + 16);
+                out.append(line, copied, i).append(masked);
+                copied = end;
+            }
+            i = end;
+        }
+        if (starts != null) LinePrescan.release(starts);
+
+        if (out == null) return line;
+        return out.append(line, copied, len).toString();
+    }
+
+    /**
+     * s[from..) 에서 다음 후보의 시작 위치. 없으면 -1.
+     * match[0]에 끝 위치, match[1]에 타입 번호(PRIORITY 인덱스, {@link #typeAt(int)})를 담는다.
+     * 후보 구간은 ASCII 숫자·'-'·' '로만 이루어지므로 UTF-8 바이트를 문자로 본 입력에도 그대로 쓸 수 있다.
+     */
+    int nextMatch(CharSequence s, int from, int[] match) {
+        if (enabledMask == 0) return -1;
+        final int len = s.length();
+        int i = from;
+
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9' || !leftBoundary(s, i)) {
+                i++;
+                continue;
+            }
+
+            if (matchAt(s, i, match)) return i;
+            // 이 숫자 묶음에서 시작하는 후보는 없다
+            while (i < len && isDigit(s.charAt(i))) i++;
+        }
+        return -1;
+    }
+
+    /** {@link #nextMatch(CharSequence, int, int[])}와 같되, 미리 모은 숫자 묶음 시작 위치만 본다. */
+    private int nextMatch(CharSequence s, int from, int[] match, LinePrescan.Positions starts) {
+        int k = Arrays.binarySearch(starts.at, 0, starts.size, from);
+        for (k = k < 0 ? -k - 1 : k; k < starts.size; k++) {
+            int i = starts.at[k];
+            if (leftBoundary(s, i) && matchAt(s, i, match)) return i;
+        }
+        return -1;
+    }
+
+    /** 숫자 위치 i에서 시작하는 가장 긴, 오른쪽 경계와 검증을 통과한 후보. 있으면 match를 채우고 true. */
+    private boolean matchAt(CharSequence s, int i, int[] match) {
+        final int len = s.length();
+        int state = 0;
+        int bestEnd = -1;
+        int bestType = -1;
+        for (int p = i; p < len; p++) {
+            int cls = classOf(s.charAt(p));
+            if (cls < 0) break;
+            state = transitions[state * CLASSES + cls];
+            if (state == DEAD) break;
+            int accepts = acceptMask[state];
+            if (accepts != 0 && rightBoundary(s, p + 1)) {
+                int t = validate(s, i, p + 1, accepts);
+                if (t >= 0) {
+                    bestEnd = p + 1;
+                    bestType = t;
+                }
+            }
+        }
+
+        if (bestType < 0) return false;
+        match[0] = bestEnd;
+        match[1] = bestType;
+        return true;
+    }
+
+    static PiiType typeAt(int typeIndex) {
+        return PRIORITY[typeIndex];
+    }
+
+    private static int classOf(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c == '-') return HYPHEN;
+        if (c == ' ') return SPACE;
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean leftBoundary(CharSequence s, int start) {
+        if (start == 0) return true;
+        char prev = s.charAt(start - 1);
+        if (isAsciiLetterOrDigit(prev)) return false;
+        return !(prev == '-' && start >= 2 && isDigit(s.charAt(start - 2)));
+    }
+
+    private static boolean rightBoundary(CharSequence s, int end) {
+        if (end == s.length()) return true;
+        char next = s.charAt(end);
+        if (isDigit(next)) return false;
+        return !(next == '-' && end + 1 < s.length() && isDigit(s.charAt(end + 1)));
+    }
+
+    /** 수락 타입 중 우선순위가 높고 검증을 통과한 타입의 PRIORITY 인덱스. 없으면 -1. */
+    private static int validate(CharSequence s, int start, int end, int accepts) {
+        for (int k = 0; k < PRIORITY.length; k++) {
+            if ((accepts & (1 << k)) == 0) continue;
+            boolean ok = switch (PRIORITY[k]) {
+                case RRN -> isValidRrn(s, start);
+                case CARD -> isLuhnValid(s, start, end);
+                case PHONE -> true;
+                case ACCOUNT -> {
+                    int digits = countDigits(s, start, end);
+                    yield digits >= 10 && digits <= 14;
+                }
+            };
+            if (ok) return k;
+        }
+        return -1;
+    }
+
+    /** YYMMDD-GNNNNNC: 월/일 범위, 성별 자리 1~8, 가중치 2..9,2..5 검증 숫자. */
+    static boolean isValidRrn(CharSequence s, int start) {
+        int month = (s.charAt(start + 2) - '0') * 10 + (s.charAt(start + 3) - '0');
+        int day = (s.charAt(start + 4) - '0') * 10 + (s.charAt(start + 5) - '0');
+        int gender = s.charAt(start + 7) - '0';
+        if (month < 1 || month > 12 || day < 1 || day > 31 || gender < 1 || gender > 8) return false;
+
+        int sum = 0;
+        int k = 0;
+        for (int p = start; p < start + 14; p++) {
+            char c = s.charAt(p);
+            if (c == '-') continue;
+            int d = c - '0';
+            if (k == 12) return (11 - sum % 11) % 10 == d;
+            sum += d * (k < 8 ? k + 2 : k - 6);
+            k++;
+        }
+        return false;
+    }
+
+    /** 구분자를 건너뛴 숫자들의 Luhn 검사. */
+    static boolean isLuhnValid(CharSequence s, int start, int end) {
+        int sum = 0;
+        boolean doubleIt = false;
+        for (int p = end - 1; p >= start; p--) {
+            char c = s.charAt(p);
+            if (!isDigit(c)) continue;
+            int d = c - '0';
+            if (doubleIt) {
+                d *= 2;
+                if (d > 9) d -= 9;
+            }
+            sum += d;
+            doubleIt = !doubleIt;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static int countDigits(CharSequence s, int start, int end) {
+        int n = 0;
+        for (int p = start; p < end; p++) if (isDigit(s.charAt(p))) n++;
+        return n;
+    }
+
+    private static int priorityOf(PiiType type) {
+        for (int k = 0; k < PRIORITY.length; k++) if (PRIORITY[k] == type) return k;
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    // ---- 형태 정의 ----
+
+    /** 문자 클래스 비트 집합(bit = class) */
+    private static final int ANY_DIGIT = (1 << 10) - 1;
+    private static final int DASH = 1 << HYPHEN;
+    private static final int SEP = DASH | (1 << SPACE);
+
+    private static int digits(char... ds) {
+        int m = 0;
+        for (char d : ds) m |= 1 << (d - '0');
+        return m;
+    }
+
+    /** 원자(클래스 집합, 최소, 최대 반복)의 나열 */
+    private record Atom(int classes, int min, int max) {}
+
+    private record Shape(PiiType type, List<Atom> atoms) {}
+
+    private static List<Shape> shapes() {
+        List<Shape> shapes = new ArrayList<>();
+        shapes.add(new Shape(PiiType.RRN, List.of(
+                new Atom(ANY_DIGIT, 6, 6), new Atom(DASH, 1, 1), new Atom(ANY_DIGIT, 7, 7))));
+        shapes.add(new Shape(PiiType.CARD, List.of(
+                new Atom(ANY_DIGIT, 4, 4), new Atom(DASH, 1, 1), new Atom(ANY_DIGIT, 4, 4), new Atom(DASH, 1, 1),
+                new Atom(ANY_DIGIT, 4, 4), new Atom(DASH, 1, 1), new Atom(ANY_DIGIT, 4, 4))));
+        shapes.add(new Shape(PiiType.PHONE, List.of(
+                new Atom(digits('0'), 1, 1), new Atom(digits('1'), 1, 1), new Atom(digits('0', '1', '6', '7', '8', '9'), 1, 1),
+                new Atom(SEP, 0, 1), new Atom(ANY_DIGIT, 3, 4), new Atom(SEP, 0, 1), new Atom(ANY_DIGIT, 4, 4))));
+        shapes.add(new Shape(PiiType.PHONE, List.of(
+                new Atom(digits('0'), 1, 1), new Atom(ANY_DIGIT & ~digits('0', '1'), 1, 1), new Atom(ANY_DIGIT, 0, 1),
+                new Atom(SEP, 1, 1), new Atom(ANY_DIGIT, 3, 4), new Atom(SEP, 1, 1), new Atom(ANY_DIGIT, 4, 4))));
+        for (int groups = 3; groups <= 4; groups++) {
+            List<Atom> atoms = new ArrayList<>();
+            for (int g = 0; g < groups; g++) {
+                if (g > 0) atoms.add(new Atom(DASH, 1, 1));
+                atoms.add(new Atom(ANY_DIGIT, 2, 6));
+            }
+            shapes.add(new Shape(PiiType.ACCOUNT, atoms));
+        }
+        return shapes;
+    }
+
+    /** 형태들을 합친 ε-NFA. 상태 0이 공통 시작 상태. */
+    private static final class Nfa {
+        private final List<int[]> edges = new ArrayList<>();      // {classes, target}의 나열(상태별)
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+        private final List<Integer> accepts = new ArrayList<>();  // 상태별 수락 타입 비트
+
+        Nfa() {
+            newState();
+        }
+
+        private int newState() {
+            edges.add(new int[0]);
+            epsilons.add(new ArrayList<>());
+            accepts.add(0);
+            return edges.size() - 1;
+        }
+
+        private void edge(int from, int classes, int to) {
+            int[] old = edges.get(from);
+            int[] grown = Arrays.copyOf(old, old.length + 2);
+            grown[old.length] = classes;
+            grown[old.length + 1] = to;
+            edges.set(from, grown);
+        }
+
+        void add(Shape shape) {
+            int cur = newState();
+            epsilons.get(0).add(cur);
+            for (Atom atom : shape.atoms) {
+                int end = newState();
+                for (int r = 0; r < atom.max; r++) {
+                    if (r >= atom.min) epsilons.get(cur).add(end);
+                    int next = (r == atom.max - 1) ? end : newState();
+                    edge(cur, atom.classes, next);
+                    cur = next;
+                }
+                if (atom.max == 0) epsilons.get(cur).add(end);
+                cur = end;
+            }
+            accepts.set(cur, accepts.get(cur) | (1 << priorityOf(shape.type)));
+        }
+
+        /** 부분집합 구성. {transitions, acceptMask} */
+        int[][] toDfa() {
+            Map<BitSet, Integer> ids = new HashMap<>();
+            List<BitSet> sets = new ArrayList<>();
+            ArrayDeque<Integer> work = new ArrayDeque<>();
+            BitSet start = closure(single(0));
+            ids.put(start, 0);
+            sets.add(start);
+            work.add(0);
+
+            List<int[]> rows = new ArrayList<>();
+            while (!work.isEmpty()) {
+                int id = work.poll();
+                BitSet set = sets.get(id);
+                int[] row = new int[CLASSES];
+                for (int cls = 0; cls < CLASSES; cls++) {
+                    BitSet next = new BitSet();
+                    for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                        int[] e = edges.get(s);
+                        for (int k = 0; k < e.length; k += 2) {
+                            if ((e[k] & (1 << cls)) != 0) next.set(e[k + 1]);
+                        }
+                    }
+                    if (next.isEmpty()) {
+                        row[cls] = DEAD;
+                        continue;
+                    }
+                    next = closure(next);
+                    Integer target = ids.get(next);
+                    if (target == null) {
+                        target = sets.size();
+                        ids.put(next, target);
+                        sets.add(next);
+                        work.add(target);
+                    }
+                    row[cls] = target;
+                }
+                while (rows.size() <= id) rows.add(null);
+                rows.set(id, row);
+            }
+
+            int n = sets.size();
+            int[] transitions = new int[n * CLASSES];
+            int[] acceptMask = new int[n];
+            for (int id = 0; id < n; id++) {
+                System.arraycopy(rows.get(id), 0, transitions, id * CLASSES, CLASSES);
+                BitSet set = sets.get(id);
+                for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) acceptMask[id] |= accepts.get(s);
+            }
+            return new int[][] {transitions, acceptMask};
+        }
+
+        private static BitSet single(int s) {
+            BitSet b = new BitSet();
+            b.set(s);
+            return b;
+        }
+
+        private BitSet closure(BitSet set) {
+            BitSet result = (BitSet) set.clone();
+            ArrayDeque<Integer> stack = new ArrayDeque<>();
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) stack.push(s);
+            while (!stack.isEmpty()) {
+                for (int t : epsilons.get(stack.pop())) {
+                    if (!result.get(t)) {
+                        result.set(t);
+                        stack.push(t);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package core;
+
+import dictionary.CompiledKeyIndex;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 접근 로그 형태의 줄(URL 쿼리 문자열, {@code application/x-www-form-urlencoded} 본문, HTTP 헤더 줄)을 위한 key/value 토크나이저.
+ *
+ * <p>
+ * 문법은 {@link KeywordBasedLogMaskingEngine#mask(String)}의 전진 스캔에 다음 규칙을 더한 것이다.
+ * <ul>
+ *   <li>쿼리·폼 파라미터: value는 {@code &key=} 앞에서 끝난다({@code ?phone=010-1234-5678&acct=...}).
+ *       '?'나 '&' 바로 뒤의 key, 또는 value가 {@code &key=}로 끝난 key를 파라미터로 보며, '?'·'&' 뒤 파라미터 value는 '#'(fragment)에서도 끝난다.</li>
+ *   <li>퍼센트 인코딩: value에 {@code %XX}(ASCII)가 있으면 디코딩한 값으로 마스커를 판별·적용하고,
+ *       바뀌지 않은 문자는 원래 표기({@code %2D} 등)를 그대로 쓴다. 파라미터 value의 '+'는 공백으로 읽는다.
+ *       값 전체를 디코딩한 문자열로 바꾸지 않으므로 결과는 여전히 인코딩된 쿼리다({@code 010%2D****%2D5678}).</li>
+ *   <li>헤더: {@code X-Customer-Phone: value}처럼 '-'가 든 헤더 이름 바로 뒤에 ':'가 오면
+ *       금지 키 value는 줄 끝까지, PII value는 일반 value 구간(마스킹하지 못하면 줄 끝까지)이다. 이름은 전체 → {@code X-}를 뗀 이름 →
+ *       '-'를 뺀 이름 → 마지막 '-' 뒤 단어 순으로 사전을 찾는다. 그래도 마스킹하지 못하면 그 줄은 일반 규칙으로 스캔한다.
+ *       이름은 줄 첫머리뿐 아니라 공백, '{', ',' 뒤에서도 찾으며({@code INFO X-Customer-Phone: ...}),
+ *       앞이 '{'나 ','이면({@code {X-Auth-Token: a, X-Request-Id: b}}) value는 ','나 '}' 앞에서도 끝난다.</li>
+ *   <li>폼 본문이나 헤더 맵이 모르는 key의 value로 들어 있으면({@code body=phone=...&pwd=...}, {@code headers={X-...: ...}})
+ *       그 value 안에서 다시 찾는다.</li>
+ * </ul>
+ * 이 규칙이 필요한 줄은 {@link #sniff(CharSequence, int, int)}가 한 번 훑어 고르며,
+ * 그렇지 않은 줄은 엔진의 기존 스캔을 그대로 쓴다. key 자체의 퍼센트 인코딩은 풀지 않는다.
+ * </p>
+ */
+final class HttpFormatMasker {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final KeywordBasedLogMaskingEngine engine;
+    private final CompiledKeyIndex keyIndex;
+
+    HttpFormatMasker(KeywordBasedLogMaskingEngine engine, CompiledKeyIndex keyIndex) {
+        this.engine = engine;
+        this.keyIndex = keyIndex;
+    }
+
+    /**
+     * s[start, end) 에 쿼리 파라미터({@code ?key=}, {@code &key=}), 퍼센트 인코딩({@code %XX}),
+     * 헤더({@code Name-With-Dash:}, 줄 첫머리 또는 공백·'{'·',' 뒤)가 있는지. false이면 이 토크나이저와 엔진 기본 스캔의 결과가 같다.
+     */
+    static boolean sniff(CharSequence s, int start, int end) {
+        if (headerColon(s, start, end) >= 0) return true;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '%') {
+                if (i + 2 < end && isHex(s.charAt(i + 1)) && isHex(s.charAt(i + 2))) return true;
+            } else if (c == '?' || c == '&') {
+                if (isParameterAt(s, i + 1, end)) return true;
+            } else if (isHeaderBoundary(c)) {
+                if (headerColon(s, i + 1, end) >= 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * UTF-8 줄에 대한 {@link #sniff(CharSequence, int, int)}. 판별에 쓰는 문자가 모두 ASCII라 바이트로 본다
+     * (파라미터 key는 ASCII key 문자만 확인하므로, 한글 key는 '='까지 이어지는 바이트로 판별한다).
+     */
+    static boolean sniff(byte[] b) {
+        int end = b.length;
+        if (headerColon(b, 0, end) >= 0) return true;
+        for (int i = 0; i < end; i++) {
+            byte c = b[i];
+            if (c == '%') {
+                if (i + 2 < end && isHex((char) b[i + 1]) && isHex((char) b[i + 2])) return true;
+            } else if (c == '?' || c == '&') {
+                int k = i + 1;
+                while (k < end && (b[k] < 0 || KeywordBasedLogMaskingEngine.isKeyChar((char) b[k]))) k++;
+                if (k > i + 1 && k < end && b[k] == '=') return true;
+            } else if (isHeaderBoundary((char) c)) {
+                if (headerColon(b, i + 1, end) >= 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /** 바뀐 것이 없으면 s 자신을 반환한다. forbiddenOnly면 금지 키 value만 치환한다. */
+    String mask(String s, boolean forbiddenOnly) {
+        StringBuilder out = new StringBuilder(s.length() + 16);
+        return maskTo(s, 0, s.length(), out, forbiddenOnly) ? out.toString() : s;
+    }
+
+    /**
+     * s[start, end) 를 마스킹해 out 뒤에 덧붙인다. 퍼센트 인코딩된 value를 치환할 때만 작업 버퍼를 만든다.
+     *
+     * @return 바뀐 것이 있으면 true
+     */
+    boolean maskTo(CharSequence s, int start, int end, StringBuilder out, boolean forbiddenOnly) {
+        int copied = start; // s[copied, end) 는 아직 out에 옮겨지지 않은 구간
+        int i = start;
+        boolean changed = false;
+
+        while (i < end) {
+            // 헤더: 이름 뒤 value는 줄 끝까지('{'·',' 뒤의 헤더는 ','·'}' 앞까지)
+            if (i == start || isHeaderBoundary(s.charAt(i - 1))) {
+                int colon = headerColon(s, i, end);
+                int entry = colon < 0 ? CompiledKeyIndex.NOT_FOUND : headerEntry(s, i, colon);
+                if (entry != CompiledKeyIndex.NOT_FOUND && (!forbiddenOnly || keyIndex.isForbidden(entry))) {
+                    boolean inMap = inHeaderMap(s, start, i);
+                    int valueStart = colon + 1;
+                    while (valueStart < end && (s.charAt(valueStart) == ' ' || s.charAt(valueStart) == '\t')) valueStart++;
+                    int valueEnd = valueStart;
+                    while (valueEnd < end && s.charAt(valueEnd) != '\n' && s.charAt(valueEnd) != '\r'
+                            && !(inMap && (s.charAt(valueEnd) == ',' || s.charAt(valueEnd) == '}'))) {
+                        valueEnd++;
+                    }
+                    while (valueEnd > valueStart && KeywordBasedLogMaskingEngine.isWhitespace(s.charAt(valueEnd - 1))) valueEnd--;
+
+                    // 금지 키는 줄 끝까지 가린다. PII는 일반 value 구간을 먼저 보고, 아니면 줄 끝까지(공백 든 값)를 본다
+                    int tokenEnd = valueStart;
+                    while (tokenEnd < valueEnd && KeywordBasedLogMaskingEngine.isValueChar(s.charAt(tokenEnd))) tokenEnd++;
+                    int masked = keyIndex.isForbidden(entry) ? -1 : appendHeaderValue(entry, s, copied, valueStart, tokenEnd, out);
+                    if (masked < 0 && (tokenEnd < valueEnd || keyIndex.isForbidden(entry))) {
+                        masked = appendHeaderValue(entry, s, copied, valueStart, valueEnd, out);
+                    }
+                    if (masked >= 0) {
+                        copied = i = masked;
+                        changed = true;
+                        continue;
+                    }
+                }
+            }
+
+            if (!KeywordBasedLogMaskingEngine.isKeyChar(s.charAt(i))) {
+                i++;
+                continue;
+            }
+
+            int keyStart = i;
+            do {
+                i++;
+            } while (i < end && KeywordBasedLogMaskingEngine.isKeyChar(s.charAt(i)));
+            int keyEnd = i;
+
+            int p = skipWhitespace(s, keyEnd, end);
+            if (p == end) break;
+            char delimiter = s.charAt(p);
+            if (delimiter != '=' && delimiter != ':') continue;
+
+            boolean parameter = delimiter == '=' && p == keyEnd && keyStart > start
+                    && (s.charAt(keyStart - 1) == '?' || s.charAt(keyStart - 1) == '&');
+            int valueStart = skipWhitespace(s, p + 1, end);
+            int valueEnd = valueStart;
+            while (valueEnd < end && KeywordBasedLogMaskingEngine.isValueChar(s.charAt(valueEnd))) {
+                if (parameter && s.charAt(valueEnd) == '#') break; // URL fragment
+                if (s.charAt(valueEnd) == '&' && isParameterAt(s, valueEnd + 1, end)) {
+                    parameter |= delimiter == '=';
+                    break;
+                }
+                valueEnd++;
+            }
+            if (valueEnd == valueStart) continue;
+
+            i = valueEnd;
+
+            int entry = keyIndex.lookup(s, keyStart, keyEnd);
+            if (entry == CompiledKeyIndex.NOT_FOUND) {
+                // body=phone=...&pwd=... 처럼 모르는 key의 value가 폼 본문이나 헤더 맵({X-...: ...})이면 그 안에서 다시 찾는다
+                if (isParameterAt(s, valueStart, valueEnd)
+                        || (s.charAt(valueStart) == '{' && headerColon(s, valueStart + 1, end) >= 0)) {
+                    i = valueStart;
+                }
+                continue;
+            }
+            if (forbiddenOnly && !keyIndex.isForbidden(entry)) continue;
+
+            int mark = out.length();
+            out.append(s, copied, valueStart);
+            boolean replaced = !keyIndex.isForbidden(entry) && isEncoded(s, valueStart, valueEnd, parameter)
+                    ? appendEncodedReplacement(entry, s, valueStart, valueEnd, parameter, out)
+                    : engine.appendReplacement(entry, s, valueStart, valueEnd, out);
+            if (!replaced) {
+                out.setLength(mark);
+                continue;
+            }
+            copied = valueEnd;
+            changed = true;
+        }
+
+        out.append(s, copied, end);
+        return changed;
+    }
+
+    /** 헤더 value s[start, end) 를 마스킹해 (s[copied, start) 와 함께) out에 쓰고 end를 반환한다. 바뀌지 않으면 -1. */
+    private int appendHeaderValue(int entry, CharSequence s, int copied, int start, int end, StringBuilder out) {
+        if (end == start) return -1;
+        int mark = out.length();
+        out.append(s, copied, start);
+        if (engine.appendReplacement(entry, s, start, end, out)) return end;
+        out.setLength(mark);
+        return -1;
+    }
+
+    /**
+     * 퍼센트 인코딩된 value s[start, end) 를 디코딩해 마스커를 적용하고, 결과를 원래 표기로 다시 인코딩해 out에 쓴다.
+     * 길이가 같으면 바뀌지 않은 자리와 마스커가 구분자만 바꾼 자리({@code +} → '-' 등)는 원래 표기를 그대로 옮기고,
+     * 길이가 바뀌면 입력에 있던 문자는 입력과 같은 표기로 쓴다.
+     */
+    private boolean appendEncodedReplacement(int entry, CharSequence s, int start, int end, boolean form, StringBuilder out) {
+        StringBuilder decoded = new StringBuilder(end - start);
+        int[] from = new int[end - start + 1]; // 디코딩한 k번째 문자의 원래 표기는 s[from[k], from[k + 1])
+        for (int r = start; r < end; ) {
+            from[decoded.length()] = r;
+            char c = s.charAt(r);
+            if (c == '%' && isAsciiEscape(s, r, end)) {
+                decoded.append((char) (hexValue(s.charAt(r + 1)) << 4 | hexValue(s.charAt(r + 2))));
+                r += 3;
+            } else {
+                decoded.append(form && c == '+' ? ' ' : c);
+                r++;
+            }
+        }
+        int n = decoded.length();
+        from[n] = end;
+
+        StringBuilder masked = new StringBuilder(n + 8);
+        if (!engine.appendReplacement(entry, decoded, 0, n, masked)) return false;
+
+        int m = masked.length();
+        for (int k = 0; k < m; k++) {
+            char c = masked.charAt(k);
+            int same = -1;
+            if (m == n) {
+                char d = decoded.charAt(k);
+                if (d == c || (isSeparator(d) && isSeparator(c))) same = k;
+            } else {
+                for (int j = 0; j < n && same < 0; j++) {
+                    if (decoded.charAt(j) == c) same = j;
+                }
+            }
+            if (same >= 0) out.append(s, from[same], from[same + 1]);
+            else appendEscaped(c, form, out);
+        }
+        return true;
+    }
+
+    /** 영문·숫자·마스킹 문자('*')가 아닌 ASCII 문자. */
+    private static boolean isSeparator(char c) {
+        return c < 0x80 && c != '*' && !isAsciiLetter(c) && !(c >= '0' && c <= '9');
+    }
+
+    /** 입력에 없던 문자(마스킹 문자 등)를 쿼리 값으로 쓴다. 비예약 문자와 '*'는 그대로, 나머지는 UTF-8 퍼센트 인코딩. */
+    private static void appendEscaped(char c, boolean form, StringBuilder out) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~' || c == '*') {
+            out.append(c);
+        } else if (c == ' ' && form) {
+            out.append('+');
+        } else {
+            for (byte b : String.valueOf(c).getBytes(StandardCharsets.UTF_8)) {
+                out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+        }
+    }
+
+    /** value에 디코딩할 표기(ASCII {@code %XX}, 파라미터면 '+')가 있는지. */
+    private static boolean isEncoded(CharSequence s, int start, int end, boolean form) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if ((c == '%' && isAsciiEscape(s, i, end)) || (c == '+' && form)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 헤더 이름 s[start, end) 의 색인 항목: 이름 전체, "X-"를 뗀 이름, 거기서 '-'를 모두 뺀 이름({@code Account-No} → accountno),
+     * 마지막 '-' 뒤 단어 순.
+     */
+    private int headerEntry(CharSequence s, int start, int end) {
+        int entry = keyIndex.lookup(s, start, end);
+        if (entry != CompiledKeyIndex.NOT_FOUND) return entry;
+        if (end - start > 2 && (s.charAt(start) == 'x' || s.charAt(start) == 'X') && s.charAt(start + 1) == '-') {
+            start += 2;
+            entry = keyIndex.lookup(s, start, end);
+            if (entry != CompiledKeyIndex.NOT_FOUND) return entry;
+        }
+        StringBuilder joined = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) != '-') joined.append(s.charAt(i));
+        }
+        if (joined.length() < end - start) {
+            entry = keyIndex.lookup(joined, 0, joined.length());
+            if (entry != CompiledKeyIndex.NOT_FOUND) return entry;
+        }
+        int dash = end - 1;
+        while (dash > start && s.charAt(dash) != '-') dash--;
+        return dash > start && dash < end - 1 ? keyIndex.lookup(s, dash + 1, end) : CompiledKeyIndex.NOT_FOUND;
+    }
+
+    /**
+     * s[start, end) 에 헤더 이름({@code Name-With-Dash:})이 될 수 있는 자리가 있는지. 헤더 경계 문자뿐 아니라
+     * ')' ']' '}' 뒤도 본다(그 뒤에서 줄을 나누면 조각 첫머리가 헤더가 된다). {@link MaskingBudget}이 조각 경계를 고를 때 쓴다.
+     */
+    static boolean mayContainHeader(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (i == start || isHeaderBoundary(s.charAt(i - 1)) || s.charAt(i - 1) == ')' || s.charAt(i - 1) == ']'
+                    || s.charAt(i - 1) == '}') {
+                if (headerColon(s, i, end) >= 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /** 이 문자 뒤에서 헤더 이름을 찾는다: 공백(줄바꿈 포함), '{', ','. */
+    private static boolean isHeaderBoundary(char c) {
+        return KeywordBasedLogMaskingEngine.isWhitespace(c) || c == '{' || c == ',';
+    }
+
+    /** s[at] 앞(같은 줄, 공백 건너뜀)이 '{'나 ','인지: 헤더 맵 안의 항목이면 value가 ','·'}' 앞에서 끝난다. */
+    private static boolean inHeaderMap(CharSequence s, int start, int at) {
+        int k = at - 1;
+        while (k >= start && (s.charAt(k) == ' ' || s.charAt(k) == '\t')) k--;
+        return k >= start && (s.charAt(k) == '{' || s.charAt(k) == ',');
+    }
+
+    /** s[from]부터 '-'가 든 헤더 이름(영문으로 시작, 영문·숫자·'-')이 있고 바로 뒤가 ':'이면 그 위치, 아니면 -1. */
+    private static int headerColon(CharSequence s, int from, int end) {
+        if (from >= end || !isAsciiLetter(s.charAt(from))) return -1;
+        boolean dash = false;
+        int i = from + 1;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '-') dash = true;
+            else if (!isAsciiLetter(c) && !(c >= '0' && c <= '9')) break;
+        }
+        return dash && i < end && s.charAt(i) == ':' ? i : -1;
+    }
+
+    private static int headerColon(byte[] b, int from, int end) {
+        if (from >= end || !isAsciiLetter((char) b[from])) return -1;
+        boolean dash = false;
+        int i = from + 1;
+        for (; i < end; i++) {
+            byte c = b[i];
+            if (c == '-') dash = true;
+            else if (!isAsciiLetter((char) c) && !(c >= '0' && c <= '9')) break;
+        }
+        return dash && i < end && b[i] == ':' ? i : -1;
+    }
+
+    /** s[from]부터 key 문자가 하나 이상 이어지고 바로 뒤가 '='인지. */
+    private static boolean isParameterAt(CharSequence s, int from, int end) {
+        int k = from;
+        while (k < end && KeywordBasedLogMaskingEngine.isKeyChar(s.charAt(k))) k++;
+        return k > from && k < end && s.charAt(k) == '=';
+    }
+
+    /** s[i]의 '%' 뒤에 ASCII 문자(00~7F)를 나타내는 16진수 두 자리가 있는지. */
+    private static boolean isAsciiEscape(CharSequence s, int i, int end) {
+        return i + 2 < end && isHex(s.charAt(i + 1)) && isHex(s.charAt(i + 2)) && hexValue(s.charAt(i + 1)) < 8;
+    }
+
+    private static int skipWhitespace(CharSequence s, int from, int to) {
+        while (from < to && KeywordBasedLogMaskingEngine.isWhitespace(s.charAt(from))) from++;
+        return from;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static int hexValue(char c) {
+        return c <= '9' ? c - '0' : (c | 0x20) - 'a' + 10;
+    }
+}
@@ -0,0 +1,635 @@
+package core;
+
+import dictionary.CompiledKeyIndex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * JSON 요청/응답 본문을 구조 단위로 마스킹한다.
+ *
+ * <p>
+ * DOM을 만들지 않는 스트리밍 토크나이저로 입력을 한 번만 훑는다.
+ * 멤버 이름을 엔진의 {@link CompiledKeyIndex}로 판별해(경로 규칙이 있으면 경로 우선)
+ * string/number 값을 제자리에서 마스킹하고, 나머지 문자(공백, 순서, 이스케이프)는 그대로 복사한다.
+ * <ul>
+ *   <li>PII 타입 key: 값에 타입 마스커 적용. 마스킹된 number는 string으로 출력한다.
+ *       마스커가 받을 수 없을 만큼 긴 string 값은 원문 대신 {@value SecretBlocklist#REPLACEMENT}로 바꾼다.</li>
+ *   <li>배열 값: 원소마다 key의 규칙을 그대로 적용한다({@code "phones": ["010...", ...]}).</li>
+ *   <li>객체 값: 하위 멤버 이름으로 다시 판별한다.</li>
+ *   <li>금지 key: 값(객체/배열이면 하위 트리 전체)을 금지 키 정책의 치환 문자열로 바꾼다.</li>
+ *   <li>그 밖의 string 값: 이스케이프를 푼 내용을 평문 줄처럼 key=value 마스킹하고({@code "memo":"call phone=010-..."}),
+ *       바뀌었으면 다시 이스케이프해 쓴다. 상한보다 긴 값은 {@link MaskingWriter}로 흘려 보낸다.</li>
+ * </ul>
+ * 엔진에 값 차단 목록({@link SecretBlocklist})이 있으면 PII 마스커를 적용하기 전에 모든 string 값의 해제본에서 비밀 값을 치환한다
+ * (멤버 이름과 number 값은 보지 않는다).
+ * 추가 메모리는 입출력 버퍼, 멤버 이름 1개, 마스킹 대상 값 1개(상한 있음)와 중첩 깊이만큼의 재귀 프레임이다.
+ * </p>
+ *
+ * <p>
+ * 입력이 올바른 JSON이 아니면(잘린 본문, 앞에 평문이 붙은 줄 등) 문제가 된 지점부터 끝까지를
+ * {@link MaskingWriter}로 흘려 key=value 마스킹해 이어 쓴다. 나머지를 모아 두지 않으므로 이때도 메모리는 일정하다.
+ * </p>
+ */
+public final class JsonMasker {
+
+    /** 이보다 깊게 중첩된 문서는 JSON 마스킹을 포기하고 key=value 마스킹으로 넘긴다 */
+    static final int MAX_DEPTH = 512;
+    /** 이보다 긴 멤버 이름은 판별하지 않는다 */
+    static final int MAX_NAME_LENGTH = 1024;
+    /** 이보다 긴 값은 마스커가 지원하는 형식일 수 없으므로 모으지 않고 그대로 복사한다 */
+    static final int MAX_HELD_VALUE_LENGTH = 4096;
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+
+    /** 금지 규칙 표식(경로 규칙과 같은 객체를 쓴다) */
+    private static final Object FORBIDDEN = JsonPathRules.Builder.FORBIDDEN;
+
+    private final KeywordBasedLogMaskingEngine engine;
+    private final CompiledKeyIndex keyIndex;
+    private final JsonPathRules rules;
+    private final String forbiddenReplacement;
+
+    JsonMasker(KeywordBasedLogMaskingEngine engine, JsonPathRules rules) {
+        this.engine = Objects.requireNonNull(engine);
+        this.keyIndex = engine.keyIndex();
+        this.rules = Objects.requireNonNull(rules);
+        this.forbiddenReplacement = engine.forbiddenReplacement();
+    }
+
+    /** JSON 문서를 마스킹. 바뀐 것이 없으면 입력 인스턴스를 그대로 반환한다. */
+    public String mask(String json) {
+        if (json == null) return null;
+        StringWriter out = new StringWriter(json.length() + 16);
+        boolean changed;
+        try {
+            changed = new Scan(new StringReader(json), out).run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringReader/StringWriter는 던지지 않는다
+        }
+        if (!changed) return json;
+        // 스트리밍으로 넘긴 구간(긴 값, 복구)은 바뀌었는지 모르는 채 다시 쓰므로 결과로 확인한다
+        String masked = out.toString();
+        return masked.equals(json) ? json : masked;
+    }
+
+    /** in 의 JSON 문서(여러 개가 이어져 있어도 됨)를 마스킹해 out 에 쓴다. 스트림은 닫지 않는다. */
+    public void mask(Reader in, Writer out) throws IOException {
+        new Scan(Objects.requireNonNull(in), Objects.requireNonNull(out)).run();
+    }
+
+    /** 멤버 이름 name[0, len) 의 규칙: null / FORBIDDEN / PiiType */
+    private Object ruleForName(CharSequence name, int len) {
+        int entry = keyIndex.lookup(name, 0, len);
+        if (entry == CompiledKeyIndex.NOT_FOUND) return null;
+        if (keyIndex.isForbidden(entry)) return forbiddenReplacement == null ? null : FORBIDDEN;
+        return keyIndex.typeOf(entry);
+    }
+
+    private static final class MalformedJson extends RuntimeException {
+        MalformedJson() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** 호출 한 번의 상태. 스레드 간에 공유하지 않는다. */
+    private final class Scan {
+        private final Reader in;
+        private final Writer out;
+
+        private final char[] inBuf = new char[BUFFER_SIZE];
+        private int inPos, inLimit;
+        private final char[] outBuf = new char[BUFFER_SIZE];
+        private int outPos;
+
+        /** 현재 멤버 이름(이스케이프 해제) */
+        private final StringBuilder name = new StringBuilder(32);
+        /** 마스킹 여부를 정하기 전까지 붙잡아 둔 값의 원문 */
+        private final StringBuilder held = new StringBuilder(32);
+        private boolean holding;
+        /** held 의 이스케이프 해제본 */
+        private final StringBuilder decoded = new StringBuilder(32);
+        /** MaskingWriter 출력을 그대로 / string 내용으로 이스케이프해 출력에 잇는 어댑터 */
+        private final Writer rawSink = new Sink(false);
+        private final Writer stringSink = new Sink(true);
+
+        /** 금지 key의 하위 트리를 건너뛰는 중이면 true (오류 시 치환 문자열을 대신 쓴다) */
+        private boolean skipping;
+        /** 이번 값에 적용 중인 금지 키(멤버 이름 규칙일 때만, 경로 규칙이면 null) — 건수 집계용 */
+        private String forbiddenKey;
+        private boolean changed;
+
+        Scan(Reader in, Writer out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        boolean run() throws IOException {
+            try {
+                while (true) {
+                    whitespace();
+                    if (peek() == EOF) break;
+                    value(null, JsonPathRules.ROOT, 0);
+                }
+            } catch (MalformedJson e) {
+                recover();
+            }
+            flush();
+            return changed;
+        }
+
+        // ---- 값 ----
+
+        private void value(Object rule, int node, int depth) throws IOException {
+            int c = peek();
+            switch (c) {
+                case '{', '[' -> {
+                    if (rule == FORBIDDEN) {
+                        skipping = true;
+                        skipContainer();
+                        skipping = false;
+                        writeForbidden();
+                    } else if (depth >= MAX_DEPTH) {
+                        throw new MalformedJson();
+                    } else if (c == '{') {
+                        object(node, depth + 1);
+                    } else {
+                        array(rule, node, depth + 1);
+                    }
+                }
+                case '"' -> {
+                    if (rule == null) maskText();
+                    else if (rule == FORBIDDEN) {
+                        skipping = true;
+                        skipString();
+                        skipping = false;
+                        writeForbidden();
+                    } else maskString((PiiType) rule);
+                }
+                case 't', 'f', 'n' -> literal();
+                default -> {
+                    if (c == '-' || (c >= '0' && c <= '9')) number(rule);
+                    else throw new MalformedJson();
+                }
+            }
+        }
+
+        private void object(int node, int depth) throws IOException {
+            write((char) read()); // '{'
+            whitespace();
+            if (peek() == '}') {
+                write((char) read());
+                return;
+            }
+            while (true) {
+                if (peek() != '"') throw new MalformedJson();
+                boolean nameFits = memberName();
+                whitespace();
+                if (peek() != ':') throw new MalformedJson();
+                write((char) read());
+                whitespace();
+
+                int nameLen = nameFits ? name.length() : 0;
+                int child = nameFits ? rules.member(node, name, nameLen) : JsonPathRules.NO_NODE;
+                Object rule = rules.ruleAt(child);
+                if (rule == FORBIDDEN && forbiddenReplacement == null) rule = null;
+                forbiddenKey = null;
+                if (rule == null && nameFits) {
+                    rule = ruleForName(name, nameLen);
+                    if (rule == FORBIDDEN) forbiddenKey = keyIndex.keyOf(keyIndex.lookup(name, 0, nameLen));
+                }
+                value(rule, child, depth);
+
+                whitespace();
+                int c = peek();
+                if (c == ',') {
+                    write((char) read());
+                    whitespace();
+                } else if (c == '}') {
+                    write((char) read());
+                    return;
+                } else {
+                    throw new MalformedJson();
+                }
+            }
+        }
+
+        private void array(Object rule, int node, int depth) throws IOException {
+            write((char) read()); // '['
+            int child = rules.element(node);
+            Object elementRule = rules.ruleAt(child);
+            if (elementRule == FORBIDDEN && forbiddenReplacement == null) elementRule = null;
+            if (elementRule == null) elementRule = rule;
+
+            whitespace();
+            if (peek() == ']') {
+                write((char) read());
+                return;
+            }
+            while (true) {
+                forbiddenKey = null;
+                value(elementRule, child, depth);
+                whitespace();
+                int c = peek();
+                if (c == ',') {
+                    write((char) read());
+                    whitespace();
+                } else if (c == ']') {
+                    write((char) read());
+                    return;
+                } else {
+                    throw new MalformedJson();
+                }
+            }
+        }
+
+        /** 멤버 이름을 그대로 복사하면서 name 에 해제본을 담는다. 상한을 넘으면 false. */
+        private boolean memberName() throws IOException {
+            name.setLength(0);
+            boolean fits = true;
+            write((char) read()); // '"'
+            while (true) {
+                int c = read();
+                if (c == EOF || c < 0x20) throw new MalformedJson();
+                write((char) c);
+                if (c == '"') return fits;
+                if (c == '\\') c = escape(true);
+                if (fits) {
+                    if (name.length() < MAX_NAME_LENGTH) name.append((char) c);
+                    else fits = false;
+                }
+            }
+        }
+
+        /** 규칙 없는 string 값: 해제한 내용을 평문 줄처럼(값 차단 목록 포함) 마스킹한다. 바뀔 것이 없으면 원문 그대로. */
+        private void maskText() throws IOException {
+            hold((char) read()); // '"'
+            decoded.setLength(0);
+            while (true) {
+                int c = read();
+                if (c == EOF || c < 0x20) throw new MalformedJson();
+                hold((char) c);
+                if (c == '"') break;
+                if (c == '\\') c = escapeInto();
+                decoded.append((char) c);
+                if (held.length() > MAX_HELD_VALUE_LENGTH) {
+                    streamTextRest();
+                    return;
+                }
+            }
+
+            if (!engine.isKeylessDetection() && !engine.hasSecrets() && !engine.mayContainKeyword(decoded)) {
+                release();
+                return;
+            }
+            String value = decoded.toString();
+            String masked = engine.maskSegment(engine.maskSecrets(value), false);
+            if (masked == value) {
+                release();
+            } else {
+                drop();
+                writeQuoted(masked);
+            }
+        }
+
+        /** 상한을 넘은 string 값: 지금까지의 해제본과 나머지를 MaskingWriter로 흘려 다시 이스케이프해 쓴다. */
+        private void streamTextRest() throws IOException {
+            drop();
+            changed = true;
+            write('"');
+            MaskingWriter text = engine.maskingWriter(stringSink);
+            text.append(decoded);
+            while (true) {
+                int c = read();
+                if (c == EOF || c < 0x20) throw new MalformedJson();
+                if (c == '"') break;
+                if (c == '\\') c = escape(false);
+                text.write(c);
+            }
+            text.finish();
+            write('"');
+        }
+
+        private void skipString() throws IOException {
+            read(); // '"'
+            while (true) {
+                int c = read();
+                if (c == EOF) throw new MalformedJson();
+                if (c == '"') return;
+                if (c == '\\' && read() == EOF) throw new MalformedJson();
+            }
+        }
+
+        /** 금지 key의 객체/배열 하위 트리를 출력 없이 건너뛴다. */
+        private void skipContainer() throws IOException {
+            int depth = 0;
+            do {
+                int c = peek();
+                switch (c) {
+                    case EOF -> throw new MalformedJson();
+                    case '"' -> skipString();
+                    case '{', '[' -> {
+                        read();
+                        depth++;
+                    }
+                    case '}', ']' -> {
+                        read();
+                        depth--;
+                    }
+                    default -> read();
+                }
+            } while (depth > 0);
+        }
+
+        private void maskString(PiiType type) throws IOException {
+            hold((char) read()); // '"'
+            decoded.setLength(0);
+            boolean escaped = false;
+            while (true) {
+                int c = read();
+                if (c == EOF || c < 0x20) throw new MalformedJson();
+                hold((char) c);
+                if (c == '"') break;
+                if (c == '\\') {
+                    escaped = true;
+                    c = escapeInto();
+                }
+                decoded.append((char) c);
+                if (held.length() > MAX_HELD_VALUE_LENGTH) {
+                    // 마스커가 지원할 수 없는 길이: 원문을 내보내지 않고 값 전체를 가린다
+                    redactStringRest(type);
+                    return;
+                }
+            }
+
+            String value = escaped ? decoded.toString() : held.substring(1, held.length() - 1);
+            String redacted = engine.maskSecrets(value);
+            String masked = engine.maskValue(type, redacted);
+            if (masked == null) masked = redacted;
+            if (masked.equals(value)) {
+                release();
+            } else {
+                drop();
+                writeQuoted(masked);
+            }
+        }
+
+        /** 상한을 넘은 PII 값: 붙잡은 원문과 나머지를 버리고 {@value SecretBlocklist#REPLACEMENT}를 쓴다. */
+        private void redactStringRest(PiiType type) throws IOException {
+            drop();
+            while (true) {
+                int c = read();
+                if (c == EOF || c < 0x20) throw new MalformedJson();
+                if (c == '"') break;
+                if (c == '\\') escape(false);
+            }
+            engine.maskedApplied(type);
+            writeQuoted(SecretBlocklist.REPLACEMENT);
+        }
+
+        private void number(Object rule) throws IOException {
+            if (rule == null) {
+                int c;
+                while ((c = peek()) != EOF && isNumberChar(c)) write((char) read());
+                return;
+            }
+            int c;
+            while ((c = peek()) != EOF && isNumberChar(c)) {
+                hold((char) read());
+                if (held.length() > MAX_HELD_VALUE_LENGTH) {
+                    release();
+                    while ((c = peek()) != EOF && isNumberChar(c)) write((char) read());
+                    return;
+                }
+            }
+            if (rule == FORBIDDEN) {
+                drop();
+                writeForbidden();
+                return;
+            }
+            String value = held.toString();
+            String masked = engine.maskValue((PiiType) rule, value);
+            if (masked == null || masked.equals(value)) {
+                release();
+            } else {
+                drop();
+                writeQuoted(masked);
+            }
+        }
+
+        private void literal() throws IOException {
+            int c;
+            while ((c = peek()) >= 'a' && c <= 'z') write((char) read());
+        }
+
+        /**
+         * '\' 다음 이스케이프를 읽는다. copy 이면 원문을 그대로 출력한다.
+         * 해제된 문자를 반환한다.
+         */
+        private int escape(boolean copy) throws IOException {
+            int c = read();
+            if (c == EOF) throw new MalformedJson();
+            if (copy) write((char) c);
+            if (c != 'u') return unescape(c);
+            int cp = 0;
+            for (int k = 0; k < 4; k++) {
+                int h = read();
+                int d = Character.digit(h, 16);
+                if (h == EOF || d < 0) throw new MalformedJson();
+                if (copy) write((char) h);
+                cp = (cp << 4) | d;
+            }
+            return cp;
+        }
+
+        /** maskString 용: 이스케이프 원문을 held 에 붙잡고 해제된 문자를 반환한다. */
+        private int escapeInto() throws IOException {
+            int c = read();
+            if (c == EOF) throw new MalformedJson();
+            hold((char) c);
+            if (c != 'u') return unescape(c);
+            int cp = 0;
+            for (int k = 0; k < 4; k++) {
+                int h = read();
+                int d = Character.digit(h, 16);
+                if (h == EOF || d < 0) throw new MalformedJson();
+                hold((char) h);
+                cp = (cp << 4) | d;
+            }
+            return cp;
+        }
+
+        private int unescape(int c) {
+            return switch (c) {
+                case '"', '\\', '/' -> c;
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                default -> throw new MalformedJson();
+            };
+        }
+
+        private void whitespace() throws IOException {
+            int c;
+            while ((c = peek()) == ' ' || c == '\t' || c == '\n' || c == '\r') write((char) read());
+        }
+
+        // ---- 출력 ----
+
+        private void writeForbidden() throws IOException {
+            engine.forbiddenApplied(forbiddenKey);
+            forbiddenKey = null;
+            writeQuoted(forbiddenReplacement);
+        }
+
+        private void writeQuoted(String s) throws IOException {
+            changed = true;
+            write('"');
+            for (int i = 0; i < s.length(); i++) writeEscaped(s.charAt(i));
+            write('"');
+        }
+
+        /** string 내용 문자 하나를 JSON 이스케이프해 출력. */
+        private void writeEscaped(char c) throws IOException {
+            switch (c) {
+                case '"', '\\' -> {
+                    write('\\');
+                    write(c);
+                }
+                case '\n' -> writeEscape('n');
+                case '\r' -> writeEscape('r');
+                case '\t' -> writeEscape('t');
+                case '\b' -> writeEscape('b');
+                case '\f' -> writeEscape('f');
+                default -> {
+                    if (c < 0x20) {
+                        write('\\');
+                        write('u');
+                        String hex = Integer.toHexString(c);
+                        for (int k = hex.length(); k < 4; k++) write('0');
+                        for (int k = 0; k < hex.length(); k++) write(hex.charAt(k));
+                    } else {
+                        write(c);
+                    }
+                }
+            }
+        }
+
+        private void writeEscape(char c) throws IOException {
+            write('\\');
+            write(c);
+        }
+
+        private void hold(char c) {
+            holding = true;
+            held.append(c);
+        }
+
+        /** 붙잡은 원문을 그대로 출력 */
+        private void release() throws IOException {
+            for (int i = 0; i < held.length(); i++) write(held.charAt(i));
+            drop();
+        }
+
+        /** 붙잡은 원문을 버린다(치환 문자열을 대신 출력) */
+        private void drop() {
+            held.setLength(0);
+            holding = false;
+        }
+
+        private void write(char c) throws IOException {
+            if (outPos == outBuf.length) flush();
+            outBuf[outPos++] = c;
+        }
+
+        private void flush() throws IOException {
+            if (outPos > 0) {
+                out.write(outBuf, 0, outPos);
+                outPos = 0;
+            }
+        }
+
+        // ---- 입력 ----
+
+        private int peek() throws IOException {
+            if (inPos == inLimit && !fill()) return EOF;
+            return inBuf[inPos];
+        }
+
+        private int read() throws IOException {
+            if (inPos == inLimit && !fill()) return EOF;
+            return inBuf[inPos++];
+        }
+
+        private boolean fill() throws IOException {
+            int n;
+            do {
+                n = in.read(inBuf, 0, inBuf.length);
+            } while (n == 0);
+            if (n < 0) return false;
+            inPos = 0;
+            inLimit = n;
+            return true;
+        }
+
+        /**
+         * 올바르지 않은 JSON: 붙잡은 원문과 남은 입력을 입력 버퍼 단위로 {@link MaskingWriter}에 흘려 key=value 마스킹해 이어 쓴다.
+         * 금지 key의 하위 트리를 건너뛰던 중이면 그 나머지는 버리고 치환 문자열만 쓴다.
+         */
+        private void recover() throws IOException {
+            if (skipping) {
+                writeForbidden();
+                while (inPos < inLimit || fill()) inPos = inLimit;
+                return;
+            }
+            changed = true;
+            MaskingWriter rest = engine.maskingWriter(rawSink);
+            if (holding) {
+                rest.append(held);
+                drop();
+            }
+            while (inPos < inLimit || fill()) {
+                rest.write(inBuf, inPos, inLimit - inPos);
+                inPos = inLimit;
+            }
+            rest.finish();
+        }
+
+        /** MaskingWriter 출력을 이 스캔의 출력 버퍼로 잇는다. escape면 string 내용으로 이스케이프한다. */
+        private final class Sink extends Writer {
+            private final boolean escape;
+
+            Sink(boolean escape) {
+                this.escape = escape;
+            }
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                for (int i = off, end = off + len; i < end; i++) {
+                    if (escape) writeEscaped(cbuf[i]);
+                    else Scan.this.write(cbuf[i]);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }
+    }
+
+    private static boolean isNumberChar(int c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+}
@@ -0,0 +1,173 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * JSON 경로 기반 마스킹 규칙. key 이름 사전보다 우선 적용된다.
+ *
+ * <p>
+ * 경로 문법: {@code $} 루트, {@code .name} 멤버, {@code .*} 임의 멤버, {@code [*]} 배열 원소.
+ * 예) {@code $.customer.mobile}, {@code $.accounts[*].number}, {@code $.*.token}
+ * 같은 위치에서 이름 일치와 {@code *}가 모두 가능하면 이름 일치를 따른다.
+ * </p>
+ *
+ * <p>
+ * 경로는 세그먼트 트라이로 컴파일되며, 스캐너는 깊이마다 트라이 노드 번호 하나만 들고 다닌다.
+ * </p>
+ */
+public final class JsonPathRules {
+
+    static final int NO_NODE = -1;
+    static final int ROOT = 0;
+
+    private static final String ANY_MEMBER = "*";
+    private static final String ANY_ELEMENT = "[*]";
+
+    private static final JsonPathRules NONE = new JsonPathRules(new Builder());
+
+    /** 노드별 자식 세그먼트(이름, "*", "[*]")와 자식 노드 번호 */
+    private final String[][] childSegments;
+    private final int[][] childNodes;
+    /** 노드에서 끝나는 규칙: null(없음) / FORBIDDEN / PiiType */
+    private final Object[] ruleAt;
+
+    private JsonPathRules(Builder b) {
+        int n = b.segments.size();
+        this.childSegments = new String[n][];
+        this.childNodes = new int[n][];
+        for (int i = 0; i < n; i++) {
+            childSegments[i] = b.segments.get(i).toArray(new String[0]);
+            childNodes[i] = b.children.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.ruleAt = b.rules.toArray();
+    }
+
+    public static JsonPathRules none() {
+        return NONE;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    boolean isEmpty() {
+        return childSegments[ROOT].length == 0;
+    }
+
+    /** node의 멤버 name[0, len) 자식. 없으면 NO_NODE. */
+    int member(int node, CharSequence name, int len) {
+        if (node == NO_NODE) return NO_NODE;
+        int wildcard = NO_NODE;
+        String[] segs = childSegments[node];
+        for (int i = 0; i < segs.length; i++) {
+            String seg = segs[i];
+            if (seg.equals(ANY_ELEMENT)) continue;
+            if (seg.equals(ANY_MEMBER)) {
+                wildcard = childNodes[node][i];
+            } else if (seg.length() == len && regionEquals(seg, name, len)) {
+                return childNodes[node][i];
+            }
+        }
+        return wildcard;
+    }
+
+    /** node의 배열 원소 자식. 없으면 NO_NODE. */
+    int element(int node) {
+        if (node == NO_NODE) return NO_NODE;
+        String[] segs = childSegments[node];
+        for (int i = 0; i < segs.length; i++) {
+            if (segs[i].equals(ANY_ELEMENT)) return childNodes[node][i];
+        }
+        return NO_NODE;
+    }
+
+    /** node에서 끝나는 규칙(FORBIDDEN 표식 또는 PiiType). 없으면 null. */
+    Object ruleAt(int node) {
+        return node == NO_NODE ? null : ruleAt[node];
+    }
+
+    private static boolean regionEquals(String seg, CharSequence name, int len) {
+        for (int i = 0; i < len; i++) {
+            if (seg.charAt(i) != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    public static final class Builder {
+        /** 금지 규칙 표식 */
+        static final Object FORBIDDEN = new Object();
+
+        private final List<List<String>> segments = new ArrayList<>();
+        private final List<List<Integer>> children = new ArrayList<>();
+        private final List<Object> rules = new ArrayList<>();
+
+        private Builder() {
+            newNode();
+        }
+
+        /** path의 값을 type 마스커로 마스킹 */
+        public Builder mask(String path, PiiType type) {
+            return add(path, Objects.requireNonNull(type));
+        }
+
+        /** path의 값을 금지 키 정책(REDACT/DROP_VALUE/PASS)으로 처리 */
+        public Builder forbid(String path) {
+            return add(path, FORBIDDEN);
+        }
+
+        public JsonPathRules build() {
+            return new JsonPathRules(this);
+        }
+
+        private Builder add(String path, Object rule) {
+            int node = ROOT;
+            for (String seg : parse(path)) {
+                int idx = segments.get(node).indexOf(seg);
+                if (idx >= 0) {
+                    node = children.get(node).get(idx);
+                } else {
+                    int child = newNode();
+                    segments.get(node).add(seg);
+                    children.get(node).add(child);
+                    node = child;
+                }
+            }
+            rules.set(node, rule);
+            return this;
+        }
+
+        private int newNode() {
+            segments.add(new ArrayList<>());
+            children.add(new ArrayList<>());
+            rules.add(null);
+            return segments.size() - 1;
+        }
+
+        private static List<String> parse(String path) {
+            if (path == null || !path.startsWith("$")) {
+                throw new IllegalArgumentException("JSON path must start with '$': " + path);
+            }
+            List<String> segs = new ArrayList<>();
+            int i = 1, len = path.length();
+            while (i < len) {
+                char c = path.charAt(i);
+                if (c == '.') {
+                    int end = i + 1;
+                    while (end < len && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+                    if (end == i + 1) throw new IllegalArgumentException("Empty member name in JSON path: " + path);
+                    segs.add(path.substring(i + 1, end));
+                    i = end;
+                } else if (path.startsWith(ANY_ELEMENT, i)) {
+                    segs.add(ANY_ELEMENT);
+                    i += ANY_ELEMENT.length();
+                } else {
+                    throw new IllegalArgumentException("Unsupported JSON path syntax at " + i + ": " + path);
+                }
+            }
+            if (segs.isEmpty()) throw new IllegalArgumentException("JSON path has no segments: " + path);
+            return segs;
+        }
+    }
+}
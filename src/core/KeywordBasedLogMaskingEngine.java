@@ -1,86 +1,672 @@
 package core;
 
+import dictionary.CompiledKeyIndex;
 import dictionary.ForbiddenKeywordPolicy;
 import dictionary.PiiKeywordDictionary;
-import util.StringUtils;
 
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * 평문 로그에서 key=value(또는 key: value) 형태를 파싱하고,
  * key에 따라 금지 키 처리 또는 PII 타입 판별 후 해당 마스커를 적용해 한 줄을 마스킹한다.
+ *
+ * <p>
+ * 파싱은 정규식 없이 한 번의 전진 스캔으로 수행한다. 문법은 기존 정규식
+ * {@code (?i)([a-z0-9_\-가-힣]+)\s*(=|:)\s*([^\s,\)\]\}]+)} 와 동일하다.
+ * <ul>
+ *   <li>key: 영문·숫자·밑줄·하이픈·한글의 최장 연속 구간</li>
+ *   <li>구분자: key 뒤 공백을 건너뛴 '=' 또는 ':'</li>
+ *   <li>value: 구분자 뒤 공백을 건너뛴 뒤, 공백/쉼표/닫는 괄호 전까지</li>
+ * </ul>
+ * 치환이 처음 발생할 때만 출력 버퍼를 만들고, 치환이 없으면 입력 문자열을 그대로 반환한다.
+ * </p>
+ *
+ * <p>
+ * 파싱 전에 사전 alias와 금지 키로 만든 Aho-Corasick 오토마톤({@link KeywordPrefilter})으로
+ * 줄을 한 번 훑어, 어떤 키워드도 등장하지 않으면 파싱 없이 원본을 그대로 반환한다(fast path).
+ * key 판별은 {@link CompiledKeyIndex} 한 번의 조회로 금지 키/PII 타입/미등록을 함께 결정한다.
+ * </p>
+ *
+ * <p>
+ * URL 쿼리({@code ?phone=...&acct=...}), 폼 본문, 퍼센트 인코딩 값({@code 010%2D1234%2D5678}), HTTP 헤더
+ * ({@code X-Customer-Phone: ...})이 있는 줄은 한 번 훑어({@link HttpFormatMasker#sniff(CharSequence, int, int)}) 골라
+ * 그 형식을 아는 토크나이저({@link HttpFormatMasker})로 파싱한다. 인코딩은 풀지 않고 바뀐 자리만 다시 쓴다.
+ * 스트리밍({@link MaskingWriter})에는 적용하지 않는다.
+ * </p>
+ *
+ * <p>
+ * {@link Builder#keylessDetection(boolean)}을 켜면 key=value 마스킹 뒤에 key 없이 등장한 PII도
+ * {@link FreeTextPiiDetector}로 찾아 마스킹한다(예: {@code 고객 연락처 010-1234-5678 확인}).
+ * </p>
+ *
+ * <p>
+ * {@link Builder#prescan(int)}로 길이 기준을 주면 그보다 긴 줄은 구분자와 숫자 묶음 위치를
+ * 먼저 모은 뒤({@link LinePrescan}, 가능하면 Vector API) 그 주변에서만 파싱한다. 결과는 같다.
+ * </p>
+ *
+ * <p>
+ * {@link Builder#budget(MaskingBudget)}를 주면 긴 줄은 조각 단위로 나눠 마스킹하며,
+ * 최대 길이나 시간 예산을 넘은 나머지는 {@link MaskingBudget.OversizePolicy}대로 처리한다.
+ * </p>
+ *
+ * <p>
+ * {@link Builder#secrets(Supplier)}로 값 차단 목록({@link SecretBlocklist})을 주면 key=value 마스킹 전에
+ * 줄 어디에 있든 목록의 비밀 값을 먼저 치환한다. 목록은 줄마다 supplier에서 받으므로 supplier 쪽에서 원자적으로 교체할 수 있다.
+ * JSON 마스커({@link #maskJson(String)})는 string 값의 이스케이프를 푼 내용에 적용한다.
+ * </p>
  */
 public final class KeywordBasedLogMaskingEngine {
 
-    /** key=value / key: value 토큰 파싱. key: 영문·숫자·밑줄·하이픈·한글. value: 공백/쉼표/괄호에서 종료. */
-    private static final Pattern KV =
-            Pattern.compile("(?i)([a-z0-9_\\-가-힣]+)\\s*(=|:)\\s*([^\\s,\\)\\]\\}]+)");
-
-    private final PiiKeywordDictionary dict;
     private final ForbiddenKeywordPolicy forbiddenPolicy;
+    private final CompiledKeyIndex keyIndex;
     private final Map<PiiType, PiiMasker> maskerByType;
+    private final KeywordPrefilter prefilter;
+    /** 금지 키만 보는 prefilter({@link #maskForbiddenOnly(String)}용) */
+    private final KeywordPrefilter forbiddenPrefilter;
+    private final FreeTextPiiDetector freeTextDetector;
+    private final Utf8Masker utf8Masker;
+    private final HttpFormatMasker httpFormats;
+    private final FieldMasker fieldMasker;
+    private final boolean keylessDetection;
+    /** null이면 prescan 사용 안 함 */
+    private final LinePrescan prescan;
+    private final int prescanMinLength;
+    /** null이면 예산 없음 */
+    private final MaskingBudget budget;
+    /** null이면 값 차단 목록 없음 */
+    private final Supplier<SecretBlocklist> secrets;
+    private final MaskingListener listener;
+    /** null이면 지표 비활성 */
+    private final MaskingMetrics metrics;
+    private final LongAdder fastPathLines = new LongAdder();
 
     public KeywordBasedLogMaskingEngine(
             PiiKeywordDictionary dict,
             ForbiddenKeywordPolicy forbiddenPolicy,
             List<PiiMasker> maskers
     ) {
-        this.dict = Objects.requireNonNull(dict);
-        this.forbiddenPolicy = Objects.requireNonNull(forbiddenPolicy);
+        this(builder(dict, forbiddenPolicy, maskers));
+    }
+
+    private KeywordBasedLogMaskingEngine(Builder b) {
+        PiiKeywordDictionary dict = Objects.requireNonNull(b.dict);
+        this.forbiddenPolicy = Objects.requireNonNull(b.forbiddenPolicy);
+        this.keyIndex = CompiledKeyIndex.compile(dict, forbiddenPolicy);
 
         EnumMap<PiiType, PiiMasker> tmp = new EnumMap<>(PiiType.class);
-        for (PiiMasker m : maskers) tmp.put(m.type(), m);
+        for (PiiMasker m : b.maskers) tmp.put(m.type(), m);
         this.maskerByType = Collections.unmodifiableMap(tmp);
+
+        Set<String> keywords = new HashSet<>(dict.keys());
+        keywords.addAll(forbiddenPolicy.forbiddenKeys());
+        this.prefilter = KeywordPrefilter.build(keywords);
+        this.forbiddenPrefilter = KeywordPrefilter.build(forbiddenPolicy.forbiddenKeys());
+
+        this.freeTextDetector = new FreeTextPiiDetector(this, maskerByType.keySet());
+        this.httpFormats = new HttpFormatMasker(this, keyIndex);
+        this.utf8Masker = new Utf8Masker(this, keyIndex, KeywordPrefilter.buildUtf8(keywords), freeTextDetector);
+        this.keylessDetection = b.keylessDetection;
+        this.prescan = b.prescanMinLength > 0 ? LinePrescan.best() : null;
+        this.prescanMinLength = b.prescanMinLength;
+        this.budget = b.budget;
+        this.secrets = b.secrets;
+        this.metrics = b.metrics;
+        this.listener = metrics == null ? b.listener : MaskingListener.compose(b.listener, metrics);
+        this.fieldMasker = new FieldMasker(this);
+    }
+
+    public static Builder builder(PiiKeywordDictionary dict, ForbiddenKeywordPolicy forbiddenPolicy, List<PiiMasker> maskers) {
+        return new Builder(dict, forbiddenPolicy, maskers);
     }
 
     public String mask(String rawLog) {
         if (rawLog == null) return null;
 
-        Matcher matcher = KV.matcher(rawLog);
-        StringBuilder out = new StringBuilder(rawLog);
-        int offset = 0;
-
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            String originalValueToken = matcher.group(3);
-
-            int start = matcher.start(3) + offset;
-            int end = matcher.end(3) + offset;
-
-            // 1) 금지 키 처리
-            if (forbiddenPolicy.isForbidden(key)) {
-                String replacement = switch (forbiddenPolicy.mode()) {
-                    case REDACT -> "<REDACTED>";
-                    case DROP_VALUE -> "";
-                    case PASS -> originalValueToken;
-                };
-                out.replace(start, end, replacement);
-                offset += replacement.length() - (end - start);
+        MaskingMetrics m = metrics;
+        if (m == null) return maskLine(rawLog);
+
+        m.lineProcessed();
+        if (!m.sample()) return maskLine(rawLog);
+        long start = System.nanoTime();
+        String masked = maskLine(rawLog);
+        m.recordLatency(rawLog.length(), System.nanoTime() - start);
+        return masked;
+    }
+
+    /**
+     * s[start, end) 를 마스킹해 out 뒤에 덧붙인다(바뀔 것이 없으면 그대로 복사한다). 결과는
+     * {@code mask(s.subSequence(start, end).toString())}와 같다.
+     *
+     * <p>
+     * 중간 문자열을 만들지 않으므로, 출력 버퍼를 재사용하는 로깅 프레임워크(Log4j2 garbage-free 모드 등)에서
+     * 범위 마스커({@link RangePiiMasker})만 쓰면 이벤트마다 할당이 없다. keyless 탐지가 켜져 있거나
+     * 예산이 적용되는 긴 구간, 값 차단 목록의 비밀 값이 든 구간은 {@link #mask(String)} 경로로 처리한다(그때만 할당).
+     * 퍼센트 인코딩된 쿼리 value를 치환할 때도 디코딩용 작업 버퍼를 만든다.
+     * </p>
+     *
+     * @return 바뀐 것이 있으면 true
+     */
+    public boolean maskTo(CharSequence s, int start, int end, StringBuilder out) {
+        if (keylessDetection || (budget != null && budget.appliesTo(end - start)) || containsSecret(s, start, end)) {
+            String text = s.subSequence(start, end).toString();
+            String masked = mask(text);
+            out.append(masked);
+            return masked != text;
+        }
+
+        MaskingMetrics m = metrics;
+        if (m == null) return scanTo(s, start, end, out);
+
+        m.lineProcessed();
+        if (!m.sample()) return scanTo(s, start, end, out);
+        long begin = System.nanoTime();
+        boolean changed = scanTo(s, start, end, out);
+        m.recordLatency(end - start, System.nanoTime() - begin);
+        return changed;
+    }
+
+    private String maskLine(String rawLog) {
+        // 비밀 값은 예산 조각 경계에 걸칠 수 있으므로 줄 전체에서 먼저 치환한다
+        String line = secrets == null ? rawLog : maskSecrets(rawLog);
+        if (budget != null && budget.appliesTo(line.length())) return budget.apply(this, line);
+        return maskSegment(line, true);
+    }
+
+    /** 한 줄 또는 예산으로 나눈 조각 하나를 마스킹. countFastPath면 키워드 없는 줄을 fast path 건수에 넣는다. */
+    String maskSegment(String rawLog, boolean countFastPath) {
+        LinePrescan p = prescan != null && rawLog.length() >= prescanMinLength ? prescan : null;
+
+        // 0) 사전/금지 키가 하나도 등장하지 않는 줄은 파싱 없이 통과
+        String masked;
+        if (!prefilter.matchesAny(rawLog)) {
+            if (countFastPath) {
+                fastPathLines.increment();
+                if (metrics != null) metrics.lineWithoutKeyword();
+            }
+            masked = rawLog;
+        } else if (HttpFormatMasker.sniff(rawLog, 0, rawLog.length())) {
+            masked = httpFormats.mask(rawLog, false);
+        } else {
+            masked = p == null ? scan(rawLog, false) : scanDelimiters(rawLog, p);
+        }
+
+        // 1) key 없이 등장한 PII (선택)
+        return keylessDetection ? freeTextDetector.mask(masked, p) : masked;
+    }
+
+    /**
+     * 금지 키 value와 값 차단 목록의 비밀 값만 치환하고 PII 값은 그대로 둔다(PII를 남기지 않는다고 확인된 로거용).
+     * 금지 키가 없는 줄은 파싱 없이 그대로 반환한다. 예산·prescan·keyless 설정은 적용하지 않는다.
+     */
+    public String maskForbiddenOnly(String rawLog) {
+        if (rawLog == null) return null;
+        String line = secrets == null ? rawLog : maskSecrets(rawLog);
+        if (!forbiddenPrefilter.matchesAny(line)) return line;
+        return HttpFormatMasker.sniff(line, 0, line.length()) ? httpFormats.mask(line, true) : scan(line, true);
+    }
+
+    /**
+     * 값 차단 목록의 비밀 값만 {@value SecretBlocklist#REPLACEMENT}로 바꾼다. 목록이 없거나 바뀐 것이 없으면 text 자신을 반환한다.
+     * key=value 마스킹을 따로 거치는 경로(인자 단위 마스킹 등)에서 쓴다.
+     */
+    public String maskSecrets(String text) {
+        SecretBlocklist b = secrets == null ? null : secrets.get();
+        return b == null || text == null ? text : b.redact(text, listener);
+    }
+
+    /** 값 차단 목록이 설정되어 있는지. */
+    public boolean hasSecrets() {
+        return secretBlocklist() != null;
+    }
+
+    /** 현재 값 차단 목록. 없으면 null. */
+    SecretBlocklist secretBlocklist() {
+        return secrets == null ? null : secrets.get();
+    }
+
+    private boolean containsSecret(CharSequence s, int start, int end) {
+        SecretBlocklist b = secretBlocklist();
+        return b != null && b.matchesAny(s, start, end);
+    }
+
+    /** 비밀 값은 ASCII 목록이면 바이트 그대로 찾고, 아니면 디코딩해야 하므로 있다고 본다. */
+    private boolean mayContainSecret(byte[] line) {
+        SecretBlocklist b = secretBlocklist();
+        return b != null && (!b.isAsciiOnly() || b.matchesAny(line));
+    }
+
+    /**
+     * key 없이 본문에 등장한 주민번호·전화번호·카드번호·계좌번호를 마스킹한다({@link FreeTextPiiDetector}).
+     * 엔진의 keyless 설정과 무관하게 동작하며, key=value 마스킹을 마친 문자열에 적용하는 용도다.
+     */
+    public String maskKeyless(String text) {
+        return freeTextDetector.mask(text);
+    }
+
+    /**
+     * UTF-8로 인코딩된 한 줄을 디코딩 없이 마스킹한다. 결과는 {@code mask(new String(line, UTF_8))}를
+     * 다시 인코딩한 것과 같고, 바뀐 것이 없으면 line 배열을 그대로 반환한다.
+     */
+    public byte[] maskUtf8(byte[] line) {
+        return maskUtf8(line, keylessDetection);
+    }
+
+    /** {@link #maskUtf8(byte[])}와 같되, keyless 탐지 여부를 엔진 설정 대신 keyless 로 정한다. */
+    public byte[] maskUtf8(byte[] line, boolean keyless) {
+        if (line != null && ((budget != null && budget.appliesTo(line.length)) || mayContainSecret(line)
+                || HttpFormatMasker.sniff(line))) {
+            // 예산 경로, 비밀 값 치환, 쿼리·헤더 토크나이저는 문자 단위라 한 번 디코딩한다(해당하는 줄에서만)
+            String text = new String(line, StandardCharsets.UTF_8);
+            String masked = mask(text);
+            if (keyless && !keylessDetection) masked = freeTextDetector.mask(masked);
+            return masked == text ? line : masked.getBytes(StandardCharsets.UTF_8);
+        }
+        return utf8Masker.mask(line, keyless);
+    }
+
+    /** 긴 줄 prescan이 Vector API로 동작하는지(실행 시 {@code --add-modules jdk.incubator.vector}). */
+    public static boolean isVectorPrescanAvailable() {
+        return LinePrescan.best().isVectorized();
+    }
+
+    /** {@link #mask(String)}가 key=value 마스킹 뒤에 keyless 탐지도 수행하는지. */
+    public boolean isKeylessDetection() {
+        return keylessDetection;
+    }
+
+    /**
+     * s에 사전 alias나 금지 키가 (대소문자 무관) 부분 문자열로 등장할 수 있는지.
+     * false이면 s 안의 어떤 key 토큰도 마스킹 대상이 아니다.
+     */
+    public boolean mayContainKeyword(CharSequence s) {
+        return s != null && prefilter.matchesAny(s);
+    }
+
+    /** 한 줄의 일부(템플릿 리터럴, 인자 등)를 마스킹. fast path 카운트에는 포함하지 않는다. */
+    String maskFragment(String fragment) {
+        if (fragment == null) return null;
+        if (!prefilter.matchesAny(fragment)) return fragment;
+        return scan(fragment, false);
+    }
+
+    /** forbiddenOnly면 금지 키 value만 치환한다. */
+    private String scan(String rawLog, boolean forbiddenOnly) {
+
+        final int len = rawLog.length();
+        StringBuilder out = null; // 첫 사전 key 시점에 생성
+        int copied = 0;           // rawLog[copied, len) 은 아직 out에 옮겨지지 않은 구간
+        int i = 0;
+
+        while (i < len) {
+            if (!isKeyChar(rawLog.charAt(i))) {
+                i++;
                 continue;
             }
 
-            // 2) PII 키워드 사전으로 타입 판별
-            PiiType type = dict.resolve(key);
-            if (type == null) continue;
+            // key: 최장 연속 구간
+            int keyStart = i;
+            do {
+                i++;
+            } while (i < len && isKeyChar(rawLog.charAt(i)));
+            int keyEnd = i;
 
-            // 3) 타입별 마스커 적용
-            PiiMasker masker = maskerByType.get(type);
-            if (masker == null) continue;
+            // 구분자('=' 또는 ':') 앞뒤 공백 허용
+            int p = skipWhitespace(rawLog, keyEnd, len);
+            if (p == len) break;
+            char delimiter = rawLog.charAt(p);
+            if (delimiter != '=' && delimiter != ':') continue;
 
-            String cleaned = StringUtils.stripQuotes(originalValueToken);
-            if (!masker.supportsValue(cleaned)) continue;
+            int valueStart = skipWhitespace(rawLog, p + 1, len);
+            int valueEnd = valueStart;
+            while (valueEnd < len && isValueChar(rawLog.charAt(valueEnd))) valueEnd++;
+            if (valueEnd == valueStart) continue; // value 없음: key 다음 위치부터 계속 탐색
 
-            String masked = masker.mask(cleaned);
-            if (masked == null) continue;
+            i = valueEnd;
 
-            String replacement = StringUtils.reapplyOriginalQuotes(originalValueToken, masked);
+            int entry = keyIndex.lookup(rawLog, keyStart, keyEnd);
+            if (entry == CompiledKeyIndex.NOT_FOUND) continue;
+            if (forbiddenOnly && !keyIndex.isForbidden(entry)) continue;
 
-            out.replace(start, end, replacement);
-            offset += replacement.length() - (end - start);
+            if (out == null) out = new StringBuilder(len + 16);
+            int mark = out.length();
+            out.append(rawLog, copied, valueStart);
+            if (!appendReplacement(entry, rawLog, valueStart, valueEnd, out)) {
+                out.setLength(mark);
+                continue;
+            }
+            copied = valueEnd;
         }
 
-        return out.toString();
+        if (out == null || copied == 0) return rawLog;
+        return out.append(rawLog, copied, len).toString();
+    }
+
+    /**
+     * {@link #scan(String, boolean)}와 같은 토큰 규칙으로 s[start, end) 를 out에 바로 쓴다.
+     * 바뀌지 않은 구간도 복사해야 하므로 원본을 그대로 돌려주는 scan과 나눠 둔다.
+     */
+    private boolean scanTo(CharSequence s, int start, int end, StringBuilder out) {
+        if (!prefilter.matchesAny(s, start, end)) {
+            fastPathLines.increment();
+            if (metrics != null) metrics.lineWithoutKeyword();
+            out.append(s, start, end);
+            return false;
+        }
+        if (HttpFormatMasker.sniff(s, start, end)) return httpFormats.maskTo(s, start, end, out, false);
+
+        int copied = start; // s[copied, end) 는 아직 out에 옮겨지지 않은 구간
+        int i = start;
+        boolean changed = false;
+
+        while (i < end) {
+            if (!isKeyChar(s.charAt(i))) {
+                i++;
+                continue;
+            }
+
+            int keyStart = i;
+            do {
+                i++;
+            } while (i < end && isKeyChar(s.charAt(i)));
+            int keyEnd = i;
+
+            int p = skipWhitespace(s, keyEnd, end);
+            if (p == end) break;
+            char delimiter = s.charAt(p);
+            if (delimiter != '=' && delimiter != ':') continue;
+
+            int valueStart = skipWhitespace(s, p + 1, end);
+            int valueEnd = valueStart;
+            while (valueEnd < end && isValueChar(s.charAt(valueEnd))) valueEnd++;
+            if (valueEnd == valueStart) continue;
+
+            i = valueEnd;
+
+            int entry = keyIndex.lookup(s, keyStart, keyEnd);
+            if (entry == CompiledKeyIndex.NOT_FOUND) continue;
+
+            int mark = out.length();
+            out.append(s, copied, valueStart);
+            if (!appendReplacement(entry, s, valueStart, valueEnd, out)) {
+                out.setLength(mark);
+                continue;
+            }
+            copied = valueEnd;
+            changed = true;
+        }
+
+        out.append(s, copied, end);
+        return changed;
+    }
+
+    /**
+     * {@link #scan(String, boolean)}와 같은 결과를 구분자 위치에서 출발해 만든다.
+     * 구분자마다 앞쪽 공백과 key 문자를 거슬러 key를 찾고, 이전 value 안에 든 구분자는 건너뛴다.
+     * 전진 스캔이 만나는 key는 모두 바로 뒤(공백 제외)에 구분자가 있으므로 빠뜨리는 key가 없다.
+     */
+    private String scanDelimiters(String rawLog, LinePrescan p) {
+        LinePrescan.Positions delimiters = LinePrescan.acquire();
+        p.delimiters(rawLog, delimiters);
+
+        final int len = rawLog.length();
+        StringBuilder out = null;
+        int copied = 0;
+        int i = 0; // 이전 value 끝: 이보다 앞은 이미 처리했다
+
+        for (int k = 0; k < delimiters.size; k++) {
+            int delimiter = delimiters.at[k];
+            if (delimiter < i) continue;
+
+            int keyEnd = delimiter;
+            while (keyEnd > i && isWhitespace(rawLog.charAt(keyEnd - 1))) keyEnd--;
+            int keyStart = keyEnd;
+            while (keyStart > i && isKeyChar(rawLog.charAt(keyStart - 1))) keyStart--;
+            if (keyStart == keyEnd) continue;
+
+            int valueStart = skipWhitespace(rawLog, delimiter + 1, len);
+            int valueEnd = valueStart;
+            while (valueEnd < len && isValueChar(rawLog.charAt(valueEnd))) valueEnd++;
+            if (valueEnd == valueStart) continue;
+
+            i = valueEnd;
+
+            int entry = keyIndex.lookup(rawLog, keyStart, keyEnd);
+            if (entry == CompiledKeyIndex.NOT_FOUND) continue;
+
+            if (out == null) out = new StringBuilder(len + 16);
+            int mark = out.length();
+            out.append(rawLog, copied, valueStart);
+            if (!appendReplacement(entry, rawLog, valueStart, valueEnd, out)) {
+                out.setLength(mark);
+                continue;
+            }
+            copied = valueEnd;
+        }
+        LinePrescan.release(delimiters);
+
+        if (out == null || copied == 0) return rawLog;
+        return out.append(rawLog, copied, len).toString();
+    }
+
+    /**
+     * 청크 단위 입력을 마스킹해 out 으로 내보내는 Writer. 청크 경계에 걸친 key=value도
+     * {@link #mask(String)}와 같게 처리된다. 마지막에 {@link MaskingWriter#finish()} 또는 close()를 호출해야 한다.
+     */
+    public MaskingWriter maskingWriter(Writer out) {
+        return new MaskingWriter(this, out);
+    }
+
+    /** JSON 문서를 구조 단위로 마스킹(경로 규칙 없음). {@link JsonMasker#mask(String)} 참고. */
+    public String maskJson(String json) {
+        return jsonMasker(JsonPathRules.none()).mask(json);
+    }
+
+    /** 이 엔진의 사전/금지 키/마스커와 경로 규칙을 쓰는 JSON 마스커. */
+    public JsonMasker jsonMasker(JsonPathRules rules) {
+        return new JsonMasker(this, rules);
+    }
+
+    /** MDC·key-value pair 처럼 key와 value가 이미 나뉜 데이터용 마스커(key별 판별 캐시를 엔진과 함께 공유). */
+    public FieldMasker fieldMasker() {
+        return fieldMasker;
+    }
+
+    /** 키워드가 하나도 없어 파싱 없이 통과한(fast path) 줄 수. */
+    public long fastPathLineCount() {
+        return fastPathLines.sum();
+    }
+
+    CompiledKeyIndex keyIndex() {
+        return keyIndex;
+    }
+
+    /** key/value 토큰 s[start, end) 에 대한 치환 문자열. 변경이 없으면 null. */
+    String replacementFor(int entry, CharSequence s, int start, int end) {
+        StringBuilder out = new StringBuilder(end - start + 8);
+        return appendReplacement(entry, s, start, end, out) ? out.toString() : null;
+    }
+
+    /**
+     * key/value 토큰 s[start, end) 의 치환 결과를 out에 덧붙인다. 변경이 없으면 out을 건드리지 않고 false.
+     * 따옴표로 감싼 value는 안쪽 구간만 마스킹하고 같은 따옴표를 다시 씌운다.
+     */
+    boolean appendReplacement(int entry, CharSequence s, int start, int end, StringBuilder out) {
+        // 1) 금지 키 처리
+        if (keyIndex.isForbidden(entry)) {
+            String replacement = forbiddenReplacement();
+            if (replacement == null) return false;
+            listener.onForbidden(keyIndex.keyOf(entry));
+            out.append(replacement);
+            return true;
+        }
+
+        // 2) PII 키워드 사전으로 타입 판별
+        PiiType type = keyIndex.typeOf(entry);
+        if (type == null) return false;
+        PiiMasker masker = maskerByType.get(type);
+        if (masker == null) return false;
+
+        // 3) 따옴표 제거는 구간 조정으로
+        char quote = 0;
+        if (end - start >= 2) {
+            char first = s.charAt(start);
+            if ((first == '"' || first == '\'') && s.charAt(end - 1) == first) {
+                quote = first;
+                start++;
+                end--;
+            }
+        }
+
+        // 4) 타입별 마스커 적용: 범위 마스커는 out에 바로 쓴다
+        int mark = out.length();
+        if (quote != 0) out.append(quote);
+        boolean masked;
+        if (masker instanceof RangePiiMasker range) {
+            masked = start < end && range.maskTo(s, start, end, out);
+        } else {
+            String value = s.subSequence(start, end).toString();
+            String replacement = masker.supportsValue(value) ? masker.mask(value) : null;
+            masked = replacement != null && !replacement.equals(value);
+            if (masked) out.append(replacement);
+        }
+        if (!masked) {
+            out.setLength(mark);
+            return false;
+        }
+        if (quote != 0) out.append(quote);
+        listener.onMasked(type);
+        return true;
+    }
+
+    /** 금지 키 value의 치환 문자열. PASS 모드면 null. */
+    String forbiddenReplacement() {
+        return switch (forbiddenPolicy.mode()) {
+            case REDACT -> "<REDACTED>";
+            case DROP_VALUE -> "";
+            case PASS -> null;
+        };
+    }
+
+    /** 따옴표를 벗긴 value에 type 마스커 적용. 마스커가 없거나 지원하지 않는 값이면 null. */
+    String maskValue(PiiType type, String value) {
+        PiiMasker masker = maskerByType.get(type);
+        if (masker == null) return null;
+        if (!masker.supportsValue(value)) return null;
+        String masked = masker.mask(value);
+        if (masked != null && !masked.equals(value)) listener.onMasked(type);
+        return masked;
+    }
+
+    /** 예산을 넘어 나머지를 policy로 처리했음을 리스너에 알린다. */
+    void oversized(MaskingBudget.OversizePolicy policy) {
+        listener.onOversized(policy);
+    }
+
+    /** 비밀 값 구간 치환을 리스너에 알린다(MaskingWriter용). */
+    void secretApplied() {
+        listener.onSecret();
+    }
+
+    /** 마스커 대신 값 전체를 가린 PII 값을 리스너에 알린다(JsonMasker의 상한 초과 값). */
+    void maskedApplied(PiiType type) {
+        listener.onMasked(type);
+    }
+
+    /** 금지 키 key(모르면 null) 치환을 리스너에 알린다(치환 문자열을 미리 받아 쓰는 JsonMasker, FieldMasker용). */
+    void forbiddenApplied(String key) {
+        listener.onForbidden(key);
+    }
+
+    /** key 문자: 영문(대소문자)·숫자·밑줄·하이픈·한글 음절(가-힣). */
+    static boolean isKeyChar(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '_' || c == '-'
+                || (c >= '가' && c <= '힣');
+    }
+
+    /** value 문자: 공백·쉼표·닫는 괄호가 아닌 모든 문자. */
+    static boolean isValueChar(char c) {
+        return !isWhitespace(c) && c != ',' && c != ')' && c != ']' && c != '}';
+    }
+
+    /** 정규식 \s 와 동일한 공백 집합: [ \t\n\x0B\f\r]. */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipWhitespace(CharSequence s, int from, int to) {
+        while (from < to && isWhitespace(s.charAt(from))) from++;
+        return from;
+    }
+
+    public static final class Builder {
+        private final PiiKeywordDictionary dict;
+        private final ForbiddenKeywordPolicy forbiddenPolicy;
+        private final List<PiiMasker> maskers;
+        private boolean keylessDetection;
+        private MaskingListener listener = MaskingListener.NONE;
+        private MaskingMetrics metrics;
+        private int prescanMinLength;
+        private MaskingBudget budget;
+        private Supplier<SecretBlocklist> secrets;
+
+        private Builder(PiiKeywordDictionary dict, ForbiddenKeywordPolicy forbiddenPolicy, List<PiiMasker> maskers) {
+            this.dict = dict;
+            this.forbiddenPolicy = forbiddenPolicy;
+            this.maskers = List.copyOf(maskers);
+        }
+
+        /** true이면 mask()가 key=value 마스킹 뒤에 key 없는 PII 탐지도 수행한다. 기본 false. */
+        public Builder keylessDetection(boolean keylessDetection) {
+            this.keylessDetection = keylessDetection;
+            return this;
+        }
+
+        /** 치환 건수 콜백. 기본 {@link MaskingListener#NONE}. */
+        public Builder listener(MaskingListener listener) {
+            this.listener = Objects.requireNonNull(listener);
+            return this;
+        }
+
+        /** 처리 건수·지연 시간 지표. 기본 null(지표 코드를 거치지 않음). listener와 함께 쓸 수 있다. */
+        public Builder metrics(MaskingMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * minLineLength자 이상인 줄은 구분자·숫자 묶음 위치를 먼저 모아 그 주변만 파싱한다.
+         * 0이면 끈다(기본). 짧은 줄은 전진 스캔이 더 빠르므로 기준은 PrescanBenchmark로 교차점을 재서 정한다.
+         */
+        public Builder prescan(int minLineLength) {
+            if (minLineLength < 0) throw new IllegalArgumentException("minLineLength must be >= 0: " + minLineLength);
+            this.prescanMinLength = minLineLength;
+            return this;
+        }
+
+        /** 긴 줄의 최대 길이·시간 예산. 기본 null(예산 없음: 줄 전체를 한 번에 마스킹). */
+        public Builder budget(MaskingBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * 줄 어디에 나오든 치환할 비밀 값 목록. 줄마다 get()을 호출하므로 가볍고 스레드 안전해야 하며,
+         * 목록을 교체하려면 supplier가 새 목록을 돌려주면 된다. get()이 null이면 그 줄은 건너뛴다. 기본 null(없음).
+         */
+        public Builder secrets(Supplier<SecretBlocklist> secrets) {
+            this.secrets = secrets;
+            return this;
+        }
+
+        public KeywordBasedLogMaskingEngine build() {
+            return new KeywordBasedLogMaskingEngine(this);
+        }
     }
 }
@@ -0,0 +1,182 @@
+package core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 사전 alias와 금지 키 전체로 한 번 만들어 두는 Aho-Corasick 오토마톤.
+ *
+ * <p>
+ * 로그 한 줄에 어떤 키워드도 부분 문자열로 등장하지 않으면, 그 줄의 어떤 key 토큰도
+ * 사전/금지 키와 일치할 수 없으므로 key/value 파싱 자체를 건너뛸 수 있다.
+ * 영문은 대소문자를 구분하지 않고(ASCII 기준), 한글 등 그 외 문자는 그대로 비교한다.
+ * 스캔은 입력 길이에 선형이며 호출 중 객체를 할당하지 않는다.
+ * </p>
+ *
+ * <p>
+ * {@link #buildUtf8(Collection)}로 만든 오토마톤은 키워드의 UTF-8 바이트를 문자 하나씩으로 보고 만든 것으로,
+ * 디코딩 없이 UTF-8 바이트 배열을 바로 훑는다({@link #matchesAny(byte[], int, int)}).
+ * </p>
+ *
+ * <p>
+ * 전이는 노드별로 정렬된 배열(edgeChar/edgeTarget)에 평탄화해 두고,
+ * 노드 n의 전이는 [edgeOffset[n], edgeOffset[n + 1]) 구간에 있다.
+ * </p>
+ */
+final class KeywordPrefilter {
+
+    private static final int ROOT = 0;
+
+    private final int[] edgeOffset;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    private final int[] fail;
+    /** 해당 노드(또는 실패 링크 체인)에서 끝나는 키워드가 있는지. */
+    private final boolean[] output;
+
+    private KeywordPrefilter(int[] edgeOffset, char[] edgeChar, int[] edgeTarget, int[] fail, boolean[] output) {
+        this.edgeOffset = edgeOffset;
+        this.edgeChar = edgeChar;
+        this.edgeTarget = edgeTarget;
+        this.fail = fail;
+        this.output = output;
+    }
+
+    /**
+     * 키워드 집합으로 오토마톤을 만든다.
+     * key 문자(영문·숫자·밑줄·하이픈·한글)가 아닌 글자를 포함한 키워드는
+     * 로그의 key 토큰과 일치할 수 없으므로 제외한다.
+     */
+    static KeywordPrefilter build(Collection<String> keywords) {
+        return build(keywords, false);
+    }
+
+    /** UTF-8 바이트 입력용 오토마톤. 키워드 선택 기준은 {@link #build(Collection)}와 같다. */
+    static KeywordPrefilter buildUtf8(Collection<String> keywords) {
+        return build(keywords, true);
+    }
+
+    private static KeywordPrefilter build(Collection<String> keywords, boolean utf8) {
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminal.add(false);
+
+        for (String keyword : keywords) {
+            if (!isMatchable(keyword)) continue;
+            if (utf8) keyword = new String(keyword.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+            int node = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = fold(keyword.charAt(i));
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminal.add(false);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            terminal.set(node, true);
+        }
+
+        int size = children.size();
+        int edges = 0;
+        for (Map<Character, Integer> m : children) edges += m.size();
+
+        int[] edgeOffset = new int[size + 1];
+        char[] edgeChar = new char[edges];
+        int[] edgeTarget = new int[edges];
+        int e = 0;
+        for (int n = 0; n < size; n++) {
+            edgeOffset[n] = e;
+            for (Map.Entry<Character, Integer> entry : children.get(n).entrySet()) { // TreeMap: 정렬 순
+                edgeChar[e] = entry.getKey();
+                edgeTarget[e] = entry.getValue();
+                e++;
+            }
+        }
+        edgeOffset[size] = e;
+
+        int[] fail = new int[size];
+        boolean[] output = new boolean[size];
+        for (int n = 0; n < size; n++) output[n] = terminal.get(n);
+
+        KeywordPrefilter automaton = new KeywordPrefilter(edgeOffset, edgeChar, edgeTarget, fail, output);
+
+        // BFS로 실패 링크 계산 (부모가 먼저 처리되므로 fail[parent]는 항상 확정 상태)
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int k = edgeOffset[ROOT]; k < edgeOffset[ROOT + 1]; k++) {
+            fail[edgeTarget[k]] = ROOT;
+            queue.add(edgeTarget[k]);
+        }
+        while (!queue.isEmpty()) {
+            int n = queue.poll();
+            for (int k = edgeOffset[n]; k < edgeOffset[n + 1]; k++) {
+                int child = edgeTarget[k];
+                fail[child] = automaton.next(fail[n], edgeChar[k]);
+                output[child] |= output[fail[child]];
+                queue.add(child);
+            }
+        }
+        return automaton;
+    }
+
+    /** s 안에 키워드가 하나라도 (대소문자 무관) 부분 문자열로 등장하면 true. */
+    boolean matchesAny(CharSequence s) {
+        return matchesAny(s, 0, s.length());
+    }
+
+    /** s[from, to) 안에 키워드가 등장하면 true. */
+    boolean matchesAny(CharSequence s, int from, int to) {
+        int state = ROOT;
+        for (int i = from; i < to; i++) {
+            state = next(state, fold(s.charAt(i)));
+            if (output[state]) return true;
+        }
+        return false;
+    }
+
+    /** UTF-8 바이트 b[off, off + len) 에 키워드가 등장하면 true. {@link #buildUtf8}로 만든 오토마톤 전용. */
+    boolean matchesAny(byte[] b, int off, int len) {
+        int state = ROOT;
+        for (int i = off, end = off + len; i < end; i++) {
+            state = next(state, fold((char) (b[i] & 0xFF)));
+            if (output[state]) return true;
+        }
+        return false;
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int target = child(state, c);
+            if (target >= 0) return target;
+            if (state == ROOT) return ROOT;
+            state = fail[state];
+        }
+    }
+
+    private int child(int node, char c) {
+        int lo = edgeOffset[node], hi = edgeOffset[node + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char m = edgeChar[mid];
+            if (m < c) lo = mid + 1;
+            else if (m > c) hi = mid - 1;
+            else return edgeTarget[mid];
+        }
+        return -1;
+    }
+
+    private static boolean isMatchable(String keyword) {
+        if (keyword.isEmpty()) return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (!KeywordBasedLogMaskingEngine.isKeyChar(keyword.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static char fold(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,114 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * 긴 줄을 파싱하기 전에 구분자('=' / ':') 위치와 숫자 묶음 시작 위치를 한 번에 모아 두는 단계.
+ *
+ * <p>
+ * 엔진은 모은 위치만 보고 key/value 파싱({@link KeywordBasedLogMaskingEngine})과
+ * key 없는 PII 후보 판별({@link FreeTextPiiDetector})을 그 주변에서만 수행한다.
+ * 구분자가 드문 수 KB짜리 payload 덤프에서 문자마다 key 문자 판별을 하지 않게 하는 것이 목적이다.
+ * </p>
+ *
+ * <p>
+ * 실행 환경에 {@value #VECTOR_MODULE} 모듈이 있으면(JVM 옵션 {@code --add-modules jdk.incubator.vector})
+ * SIMD 레지스터 폭 단위로 비교하는 구현을 리플렉션으로 적재하고, 없으면 같은 결과를 내는 스칼라 구현을 쓴다.
+ * 두 구현은 결과가 같으므로 모듈 유무는 속도에만 영향을 준다.
+ * </p>
+ */
+abstract class LinePrescan {
+
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final LinePrescan SCALAR = new Scalar();
+    private static final LinePrescan BEST = load();
+
+    private static final ThreadLocal<Positions> POSITIONS = new ThreadLocal<>();
+
+    /** 쓸 수 있는 가장 빠른 구현(벡터 모듈이 없으면 스칼라). */
+    static LinePrescan best() {
+        return BEST;
+    }
+
+    static LinePrescan scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * 스레드별 재사용 위치 버퍼를 빌린다. 다 쓰면 {@link #release(Positions)}로 돌려준다.
+     * 마스커나 리스너가 같은 스레드에서 다시 마스킹해도(로깅 등) 빌려 간 동안은 새 버퍼를 받으므로 섞이지 않는다.
+     */
+    static Positions acquire() {
+        Positions p = POSITIONS.get();
+        if (p == null) return new Positions();
+        POSITIONS.set(null);
+        return p;
+    }
+
+    static void release(Positions p) {
+        POSITIONS.set(p);
+    }
+
+    abstract boolean isVectorized();
+
+    /** s의 '=' / ':' 위치를 오름차순으로 out에 채운다. */
+    abstract void delimiters(String s, Positions out);
+
+    /** 앞 문자가 ASCII 숫자가 아닌 ASCII 숫자(숫자 묶음의 시작) 위치를 오름차순으로 out에 채운다. */
+    abstract void digitRunStarts(String s, Positions out);
+
+    private static LinePrescan load() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) return SCALAR;
+        try {
+            // 벡터 구현은 모듈이 있을 때만 적재해야 하므로 이름으로만 참조한다
+            return (LinePrescan) Class.forName("core.VectorLinePrescan").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    /** 오름차순 위치 목록(길이 상한 없음, 재사용 시 {@link #clear()}). */
+    static final class Positions {
+        int[] at = new int[64];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int position) {
+            if (size == at.length) at = Arrays.copyOf(at, size * 2);
+            at[size++] = position;
+        }
+    }
+
+    private static final class Scalar extends LinePrescan {
+
+        @Override
+        boolean isVectorized() {
+            return false;
+        }
+
+        @Override
+        void delimiters(String s, Positions out) {
+            out.clear();
+            for (int i = 0, len = s.length(); i < len; i++) {
+                char c = s.charAt(i);
+                if (c == '=' || c == ':') out.add(i);
+            }
+        }
+
+        @Override
+        void digitRunStarts(String s, Positions out) {
+            out.clear();
+            boolean previousDigit = false;
+            for (int i = 0, len = s.length(); i < len; i++) {
+                char c = s.charAt(i);
+                boolean digit = c >= '0' && c <= '9';
+                if (digit && !previousDigit) out.add(i);
+                previousDigit = digit;
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package core;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 한 줄 마스킹의 최악 지연 시간과 메모리 상한.
+ *
+ * <p>
+ * {@link KeywordBasedLogMaskingEngine.Builder#budget(MaskingBudget)}로 연결하면 조각 길이보다 긴 줄은
+ * 안전한 경계(',' ')' ']' '}' 바로 뒤: key/value와 key 없는 PII 후보가 걸칠 수 없는 문자)에서 나눠
+ * 조각별로 마스킹하고, 조각 사이마다 시간 예산을 확인한다. 조각별 결과를 이어 붙인 것은 줄 전체를 마스킹한 것과 같다.
+ * 헤더 value({@code X-Password: a,b})는 줄 끝까지 이어지므로, 헤더가 있을 수 있는 입력은 줄바꿈('\n') 뒤에서만 나눈다.
+ * </p>
+ *
+ * <p>
+ * 줄이 {@link Builder#maxScanLength(int) 최대 길이}를 넘거나 시간 예산을 다 쓰면, 그때까지 마스킹한 앞부분 뒤의
+ * 나머지는 {@link OversizePolicy}대로 처리한다. 어느 정책도 마스킹하지 않은 원문을 내보내지 않는다.
+ * 시간 예산은 조각 단위로만 확인하므로, 안전한 경계가 없는 거대한 토큰 하나는 최대 길이로만 제한된다.
+ * </p>
+ */
+public final class MaskingBudget implements Closeable {
+
+    /** 예산을 넘은 나머지 처리 방식 */
+    public enum OversizePolicy {
+        /** 나머지를 버리고 버린 길이만 표시한다. */
+        TRUNCATE,
+        /** 나머지를 같은 길이로 가린다(공백과 ASCII 구두점은 남기고 그 외 문자는 '*'). 줄 모양이 유지된다. */
+        REDACT_REMAINDER,
+        /**
+         * 앞부분과 자리표시자를 바로 반환하고, 줄 전체는 백그라운드 작업자가 예산 없이 마스킹해
+         * {@link Builder#backgroundSink(BiConsumer) sink}로 넘긴다. 대기열이 차 있으면 TRUNCATE로 처리한다.
+         * sink가 예외를 던지면 {@link Builder#backgroundFailureHandler(BiConsumer) 실패 처리기}로 넘기고
+         * {@link #failedDeliveries()}를 센다.
+         */
+        BACKGROUND
+    }
+
+    /** 조각 길이 기본값 */
+    static final int DEFAULT_CHUNK_LENGTH = 16 * 1024;
+
+    private final int maxScanLength;
+    private final long maxNanosPerLine;
+    private final OversizePolicy policy;
+    private final int chunkLength;
+    private final BiConsumer<Long, String> backgroundSink;
+    private final BiConsumer<Long, RuntimeException> backgroundFailureHandler;
+    /** BACKGROUND일 때만. 스레드 하나, 대기열 상한이 있어 로깅 스레드를 막지 않는다 */
+    private final ThreadPoolExecutor worker;
+    private final AtomicLong deferredIds = new AtomicLong();
+    private final AtomicLong failedDeliveries = new AtomicLong();
+
+    private MaskingBudget(Builder b) {
+        this.maxScanLength = b.maxScanLength;
+        this.maxNanosPerLine = b.maxNanosPerLine;
+        this.policy = b.policy;
+        this.chunkLength = b.chunkLength;
+        this.backgroundSink = b.backgroundSink;
+        this.backgroundFailureHandler = b.backgroundFailureHandler;
+        if (policy == OversizePolicy.BACKGROUND) {
+            this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(b.backgroundQueueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, "masking-oversize-worker");
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+        } else {
+            this.worker = null;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * properties 설정의 예산. {@code budget.maxLength}(문자 수), {@code budget.maxMillis}(줄당 밀리초),
+     * {@code budget.policy}(TRUNCATE | REDACT_REMAINDER)를 읽는다. 셋 다 없으면 null(예산 없음).
+     * BACKGROUND는 sink가 필요하므로 코드({@link #builder()})로만 구성한다.
+     */
+    public static MaskingBudget fromProperties(Properties props) {
+        String maxLength = props.getProperty("budget.maxLength");
+        String maxMillis = props.getProperty("budget.maxMillis");
+        String policy = props.getProperty("budget.policy");
+        if (maxLength == null && maxMillis == null && policy == null) return null;
+
+        Builder b = builder();
+        if (maxLength != null) b.maxScanLength(Integer.parseInt(maxLength.trim()));
+        if (maxMillis != null) b.maxTimePerLine(Duration.ofMillis(Long.parseLong(maxMillis.trim())));
+        if (policy != null) {
+            OversizePolicy p = OversizePolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+            if (p == OversizePolicy.BACKGROUND) {
+                throw new IllegalArgumentException("budget.policy=BACKGROUND requires a sink; use MaskingBudget.builder()");
+            }
+            b.oversizePolicy(p);
+        }
+        return b.build();
+    }
+
+    public OversizePolicy oversizePolicy() {
+        return policy;
+    }
+
+    /** BACKGROUND에서 sink가 예외를 던져 전달하지 못한 줄 수. */
+    public long failedDeliveries() {
+        return failedDeliveries.get();
+    }
+
+    /** 백그라운드 작업자를 멈춘다(대기 중인 줄은 마저 처리). */
+    @Override
+    public void close() {
+        if (worker != null) worker.shutdown();
+    }
+
+    /** length자 줄을 예산 경로로 처리해야 하는지. */
+    boolean appliesTo(int length) {
+        return length > chunkLength || length > maxScanLength;
+    }
+
+    /** 조각별로 마스킹하고, 예산을 넘으면 나머지를 정책대로 처리한다. */
+    String apply(KeywordBasedLogMaskingEngine engine, String line) {
+        final int len = line.length();
+        final int limit = Math.min(len, maxScanLength);
+        final long deadline = maxNanosPerLine > 0 ? System.nanoTime() + maxNanosPerLine : 0;
+
+        // 헤더가 있으면 value가 ','·')'를 넘으므로 줄바꿈에서만 나눈다
+        final boolean lineCuts = HttpFormatMasker.mayContainHeader(line, 0, limit);
+
+        StringBuilder out = null; // null이면 line[0, pos)는 바뀌지 않았다
+        int pos = 0;
+        while (pos < len) {
+            int end;
+            if (limit == len && len - pos <= chunkLength) {
+                end = len;
+            } else {
+                int window = Math.min(pos + chunkLength, limit);
+                end = lastSafeCut(line, pos, window, lineCuts);
+                if (end < 0) end = nextSafeCut(line, window, limit, lineCuts); // 조각 안에 경계가 없으면 다음 경계까지
+                if (end < 0 && limit == len) end = len;
+                if (end < 0) break; // 최대 길이 안에 경계가 없다: 나머지는 정책대로
+            }
+
+            String chunk = line.substring(pos, end);
+            String masked = engine.maskSegment(chunk, false);
+            if (out == null && masked != chunk) {
+                out = new StringBuilder(Math.min(len, limit + 64) + 16).append(line, 0, pos);
+            }
+            if (out != null) out.append(masked);
+            pos = end;
+
+            if (pos < len && deadline != 0 && System.nanoTime() - deadline > 0) break;
+        }
+
+        if (pos == len) return out == null ? line : out.toString();
+        if (out == null) out = new StringBuilder(pos + 64).append(line, 0, pos);
+        return remainder(engine, line, pos, out);
+    }
+
+    private String remainder(KeywordBasedLogMaskingEngine engine, String line, int pos, StringBuilder out) {
+        int rest = line.length() - pos;
+        OversizePolicy applied = policy;
+        if (applied == OversizePolicy.BACKGROUND) {
+            long id = deferredIds.incrementAndGet();
+            try {
+                worker.execute(() -> deliver(engine, id, line));
+                engine.oversized(applied);
+                return out.append(" ...[masking deferred id=").append(id).append(", ").append(rest).append(" chars]").toString();
+            } catch (RejectedExecutionException e) {
+                applied = OversizePolicy.TRUNCATE;
+            }
+        }
+
+        engine.oversized(applied);
+        if (applied == OversizePolicy.REDACT_REMAINDER) {
+            out.ensureCapacity(out.length() + rest);
+            for (int i = pos, len = line.length(); i < len; i++) {
+                char c = line.charAt(i);
+                out.append(c <= 0x7F && !Character.isLetterOrDigit(c) ? c : '*');
+            }
+            return out.toString();
+        }
+        return out.append(" ...[truncated ").append(rest).append(" chars]").toString();
+    }
+
+    private void deliver(KeywordBasedLogMaskingEngine engine, long id, String line) {
+        try {
+            backgroundSink.accept(id, engine.maskSegment(line, false));
+        } catch (RuntimeException e) {
+            failedDeliveries.incrementAndGet();
+            if (backgroundFailureHandler != null) backgroundFailureHandler.accept(id, e);
+        }
+    }
+
+    /** line[from, to) 에서 첫 안전 경계. 없으면 -1. */
+    private static int nextSafeCut(String line, int from, int to, boolean lineCuts) {
+        for (int i = from; i < to; i++) {
+            if (isSafeCut(line, i, lineCuts)) return i + 1;
+        }
+        return -1;
+    }
+
+    /** line[from, to) 에서 마지막 안전 경계. from보다 뒤에 없으면 -1. */
+    private static int lastSafeCut(String line, int from, int to, boolean lineCuts) {
+        for (int i = to - 1; i >= from; i--) {
+            if (isSafeCut(line, i, lineCuts)) return i + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * line[i] 바로 뒤에서 나눌 수 있는지. 평소에는 ',' ')' ']' '}', lineCuts면 '\n'
+     * (다음 줄이 공백 뒤 '='·':'로 시작하면 앞 줄 끝의 key와 이어지므로 제외).
+     */
+    private static boolean isSafeCut(String line, int i, boolean lineCuts) {
+        char c = line.charAt(i);
+        if (!lineCuts) return c == ',' || c == ')' || c == ']' || c == '}';
+        if (c != '\n') return false;
+        int k = i + 1;
+        while (k < line.length() && KeywordBasedLogMaskingEngine.isWhitespace(line.charAt(k))) k++;
+        return k == line.length() || (line.charAt(k) != '=' && line.charAt(k) != ':');
+    }
+
+    public static final class Builder {
+        private int maxScanLength = 1 << 20;
+        private long maxNanosPerLine;
+        private OversizePolicy policy = OversizePolicy.TRUNCATE;
+        private int chunkLength = DEFAULT_CHUNK_LENGTH;
+        private BiConsumer<Long, String> backgroundSink;
+        private BiConsumer<Long, RuntimeException> backgroundFailureHandler;
+        private int backgroundQueueCapacity = 64;
+
+        private Builder() {}
+
+        /** 한 줄에서 마스킹할 최대 문자 수. 넘는 부분은 정책대로 처리한다. 기본 1M자. */
+        public Builder maxScanLength(int maxScanLength) {
+            if (maxScanLength <= 0) throw new IllegalArgumentException("maxScanLength must be > 0: " + maxScanLength);
+            this.maxScanLength = maxScanLength;
+            return this;
+        }
+
+        /** 긴 줄 하나에 쓸 시간. 조각 사이마다 확인한다. 0이면 시간 제한 없음(기본). */
+        public Builder maxTimePerLine(Duration maxTime) {
+            if (maxTime.isNegative()) throw new IllegalArgumentException("maxTime must be >= 0: " + maxTime);
+            this.maxNanosPerLine = maxTime.toNanos();
+            return this;
+        }
+
+        /** 기본 TRUNCATE. */
+        public Builder oversizePolicy(OversizePolicy policy) {
+            this.policy = Objects.requireNonNull(policy);
+            return this;
+        }
+
+        /** 조각 길이(시간 예산 확인 단위). 이보다 짧은 줄은 예산 경로를 거치지 않는다. 기본 16K자. */
+        public Builder chunkLength(int chunkLength) {
+            if (chunkLength <= 0) throw new IllegalArgumentException("chunkLength must be > 0: " + chunkLength);
+            this.chunkLength = chunkLength;
+            return this;
+        }
+
+        /** BACKGROUND 정책에서 전체를 마스킹한 줄을 (자리표시자 id, 줄)로 받는다. 작업자 스레드에서 호출된다. */
+        public Builder backgroundSink(BiConsumer<Long, String> sink) {
+            this.backgroundSink = sink;
+            return this;
+        }
+
+        /** BACKGROUND에서 sink가 던진 예외를 (자리표시자 id, 예외)로 받는다. 작업자 스레드에서 호출된다. 없으면 세기만 한다. */
+        public Builder backgroundFailureHandler(BiConsumer<Long, RuntimeException> handler) {
+            this.backgroundFailureHandler = handler;
+            return this;
+        }
+
+        /** BACKGROUND 대기열 상한. 기본 64줄. */
+        public Builder backgroundQueueCapacity(int capacity) {
+            if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+            this.backgroundQueueCapacity = capacity;
+            return this;
+        }
+
+        public MaskingBudget build() {
+            if (policy == OversizePolicy.BACKGROUND && backgroundSink == null) {
+                throw new IllegalArgumentException("BACKGROUND policy requires a backgroundSink");
+            }
+            return new MaskingBudget(this);
+        }
+    }
+}
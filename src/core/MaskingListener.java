@@ -0,0 +1,69 @@
+package core;
+
+/**
+ * 엔진이 값을 치환할 때마다 호출되는 콜백(건수 집계용).
+ * 여러 스레드에서 동시에 호출되므로 구현은 스레드 안전해야 하며, 로깅 경로에서 호출되므로 가벼워야 한다.
+ */
+public interface MaskingListener {
+
+	/** 아무것도 하지 않는 리스너(기본값) */
+	MaskingListener NONE = new MaskingListener() {
+		@Override
+		public void onMasked(PiiType type) {
+		}
+	};
+
+	/** type 마스커로 값 하나를 마스킹했다. */
+	void onMasked(PiiType type);
+
+	/** 금지 키의 값 하나를 치환(REDACT/DROP_VALUE)했다. */
+	default void onForbidden() {
+	}
+
+	/**
+	 * 금지 키 key의 값 하나를 치환했다. key는 정규화된 금지 키이며, JSON 경로 규칙처럼 금지 키와 무관하면 null.
+	 * 기본 구현은 {@link #onForbidden()}을 호출한다.
+	 */
+	default void onForbidden(String key) {
+		onForbidden();
+	}
+
+	/** 예산(최대 길이·시간)을 넘은 줄의 나머지를 policy로 처리했다. */
+	default void onOversized(MaskingBudget.OversizePolicy policy) {
+	}
+
+	/** 값 차단 목록({@link SecretBlocklist})의 비밀 값 구간 하나를 치환했다. */
+	default void onSecret() {
+	}
+
+	/** 두 리스너에 차례로 알리는 리스너. 한쪽이 {@link #NONE}이면 다른 쪽을 그대로 반환한다. */
+	static MaskingListener compose(MaskingListener first, MaskingListener second) {
+		if (first == NONE) return second;
+		if (second == NONE) return first;
+		return new MaskingListener() {
+			@Override
+			public void onMasked(PiiType type) {
+				first.onMasked(type);
+				second.onMasked(type);
+			}
+
+			@Override
+			public void onForbidden(String key) {
+				first.onForbidden(key);
+				second.onForbidden(key);
+			}
+
+			@Override
+			public void onOversized(MaskingBudget.OversizePolicy policy) {
+				first.onOversized(policy);
+				second.onOversized(policy);
+			}
+
+			@Override
+			public void onSecret() {
+				first.onSecret();
+				second.onSecret();
+			}
+		};
+	}
+}
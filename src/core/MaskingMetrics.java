@@ -0,0 +1,275 @@
+package core;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔진의 처리 건수와 지연 시간을 모으는 운영용 지표.
+ *
+ * <p>
+ * {@link KeywordBasedLogMaskingEngine.Builder#metrics(MaskingMetrics)}로 엔진에 연결한다.
+ * 연결하지 않은 엔진은 지표 코드를 전혀 거치지 않는다(null 검사 한 번).
+ * 카운터는 모두 {@link LongAdder}라 여러 스레드가 동시에 올려도 경합하지 않으며,
+ * 지연 시간은 {@link #setLatencySampleRate(int) 표본 비율}만큼만 {@code System.nanoTime()}으로 재서
+ * 줄 길이 구간별 log2 히스토그램에 넣는다. 엔진이 재적재로 교체돼도 같은 인스턴스를 넘기면 값이 이어진다.
+ * </p>
+ *
+ * <p>
+ * 집계 대상: {@link KeywordBasedLogMaskingEngine#mask(String)} 줄 수·키워드 없는 줄 수·지연 시간,
+ * 그리고 모든 경로(JSON, 스트리밍, UTF-8, MDC 등)의 PII 타입별/금지 키별 치환 건수와 예산 초과 줄 수.
+ * {@link #registerMBean()}으로 플랫폼 MBean 서버에 {@value #OBJECT_NAME} 으로 공개한다.
+ * </p>
+ */
+public final class MaskingMetrics implements MaskingListener, MaskingMetricsMXBean {
+
+    /** 지표를 켜고 지연 시간 표본 비율을 정하는 시스템 프로퍼티(0이면 카운터만). 없으면 지표를 쓰지 않는다. */
+    public static final String SAMPLE_RATE_PROPERTY = "masking.metrics.sampleRate";
+
+    public static final String OBJECT_NAME = "log-masking:type=MaskingMetrics";
+
+    /** JSON 경로 규칙처럼 금지 키 없이 치환된 건의 집계 key */
+    static final String PATH_RULE_KEY = "(path)";
+
+    /** 줄 길이 구간 상한(마지막 구간은 그 이상 전부) */
+    private static final int[] LENGTH_BOUNDS = {64, 256, 1024, 4096, 16384};
+    private static final String[] LENGTH_LABELS = {"<=64", "<=256", "<=1K", "<=4K", "<=16K", ">16K"};
+
+    /** 첫 칸 상한 2^7 = 128ns, 칸마다 2배, 마지막 칸은 2^24ns(약 16.8ms) 초과 전부 */
+    private static final int MIN_LATENCY_SHIFT = 7;
+    private static final int LATENCY_BUCKETS = 19;
+
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder linesWithoutKeyword = new LongAdder();
+    private final LongAdder sampledLines = new LongAdder();
+    private final LongAdder[] maskedByType = adders(PiiType.values().length);
+    private final LongAdder[] oversizedByPolicy = adders(MaskingBudget.OversizePolicy.values().length);
+    private final LongAdder secretsRedacted = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> forbiddenByKey = new ConcurrentHashMap<>();
+    private final LongAdder[][] latencyHistogram = new LongAdder[LENGTH_LABELS.length][];
+    private final LongAdder[] latencySumNanos = adders(LENGTH_LABELS.length);
+
+    private volatile int latencySampleRate;
+    /** 마지막 MBean 등록 실패(성공하면 null) */
+    private volatile JMException registrationFailure;
+
+    /** @param latencySampleRate 약 N줄에 한 줄 지연 시간 측정, 0이면 측정 안 함 */
+    public MaskingMetrics(int latencySampleRate) {
+        setLatencySampleRate(latencySampleRate);
+        for (int i = 0; i < latencyHistogram.length; i++) latencyHistogram[i] = adders(LATENCY_BUCKETS);
+    }
+
+    /**
+     * {@value #SAMPLE_RATE_PROPERTY}가 있으면 지표를 만들어 MBean으로 등록하고, 없으면 null(지표 비활성).
+     * MBean 등록에 실패해도 지표는 그대로 쓰고, 실패는 {@link #registrationFailure()}로 남긴다.
+     */
+    public static MaskingMetrics fromSystemProperties() {
+        String rate = System.getProperty(SAMPLE_RATE_PROPERTY);
+        if (rate == null || rate.isBlank()) return null;
+
+        MaskingMetrics metrics = new MaskingMetrics(Integer.parseInt(rate.trim()));
+        try {
+            metrics.registerMBean();
+        } catch (JMException e) {
+            metrics.registrationFailure = e;
+        }
+        return metrics;
+    }
+
+    /** 플랫폼 MBean 서버에 {@value #OBJECT_NAME}으로 등록한다. 같은 이름이 있으면 교체한다. */
+    public ObjectName registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        try {
+            server.registerMBean(this, name);
+        } catch (InstanceAlreadyExistsException e) {
+            server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        }
+        registrationFailure = null;
+        return name;
+    }
+
+    /** {@link #fromSystemProperties()}에서 MBean 등록에 실패했으면 그 원인, 아니면 null. */
+    public JMException registrationFailure() {
+        return registrationFailure;
+    }
+
+    // ---- 엔진에서 호출 ----
+
+    /** 이번 줄의 지연 시간을 잴지. */
+    boolean sample() {
+        int rate = latencySampleRate;
+        return rate > 0 && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    void lineProcessed() {
+        lines.increment();
+    }
+
+    void lineWithoutKeyword() {
+        linesWithoutKeyword.increment();
+    }
+
+    void recordLatency(int lineLength, long nanos) {
+        int row = lengthBucket(lineLength);
+        latencyHistogram[row][latencyBucket(nanos)].increment();
+        latencySumNanos[row].add(nanos);
+        sampledLines.increment();
+    }
+
+    @Override
+    public void onMasked(PiiType type) {
+        maskedByType[type.ordinal()].increment();
+    }
+
+    @Override
+    public void onForbidden(String key) {
+        String k = key == null ? PATH_RULE_KEY : key;
+        LongAdder counter = forbiddenByKey.get(k);
+        if (counter == null) counter = forbiddenByKey.computeIfAbsent(k, x -> new LongAdder());
+        counter.increment();
+    }
+
+    @Override
+    public void onOversized(MaskingBudget.OversizePolicy policy) {
+        oversizedByPolicy[policy.ordinal()].increment();
+    }
+
+    @Override
+    public void onSecret() {
+        secretsRedacted.increment();
+    }
+
+    // ---- 조회 ----
+
+    @Override
+    public long getLines() {
+        return lines.sum();
+    }
+
+    @Override
+    public long getLinesWithoutKeyword() {
+        return linesWithoutKeyword.sum();
+    }
+
+    @Override
+    public Map<String, Long> getMaskedByType() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (PiiType type : PiiType.values()) out.put(type.name(), maskedByType[type.ordinal()].sum());
+        return out;
+    }
+
+    /** PII 타입 하나의 마스킹 건수. */
+    public long maskedCount(PiiType type) {
+        return maskedByType[type.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getForbiddenByKey() {
+        Map<String, Long> out = new TreeMap<>();
+        forbiddenByKey.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    @Override
+    public Map<String, Long> getOversizedByPolicy() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (MaskingBudget.OversizePolicy p : MaskingBudget.OversizePolicy.values()) {
+            out.put(p.name(), oversizedByPolicy[p.ordinal()].sum());
+        }
+        return out;
+    }
+
+    @Override
+    public long getSecretsRedacted() {
+        return secretsRedacted.sum();
+    }
+
+    @Override
+    public int getLatencySampleRate() {
+        return latencySampleRate;
+    }
+
+    @Override
+    public void setLatencySampleRate(int rate) {
+        if (rate < 0) throw new IllegalArgumentException("latencySampleRate must be >= 0: " + rate);
+        this.latencySampleRate = rate;
+    }
+
+    @Override
+    public long getSampledLines() {
+        return sampledLines.sum();
+    }
+
+    @Override
+    public Map<String, Long> getMeanLatencyNanosByLineLength() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (int row = 0; row < LENGTH_LABELS.length; row++) {
+            long count = 0;
+            for (LongAdder a : latencyHistogram[row]) count += a.sum();
+            out.put(LENGTH_LABELS[row], count == 0 ? 0 : latencySumNanos[row].sum() / count);
+        }
+        return out;
+    }
+
+    @Override
+    public Map<String, long[]> getLatencyHistogramByLineLength() {
+        Map<String, long[]> out = new LinkedHashMap<>();
+        for (int row = 0; row < LENGTH_LABELS.length; row++) {
+            long[] counts = new long[LATENCY_BUCKETS];
+            for (int b = 0; b < LATENCY_BUCKETS; b++) counts[b] = latencyHistogram[row][b].sum();
+            out.put(LENGTH_LABELS[row], counts);
+        }
+        return out;
+    }
+
+    @Override
+    public long[] getLatencyBucketUpperBoundsNanos() {
+        long[] bounds = new long[LATENCY_BUCKETS];
+        for (int b = 0; b < LATENCY_BUCKETS - 1; b++) bounds[b] = 1L << (MIN_LATENCY_SHIFT + b);
+        bounds[LATENCY_BUCKETS - 1] = Long.MAX_VALUE;
+        return bounds;
+    }
+
+    @Override
+    public void reset() {
+        lines.reset();
+        linesWithoutKeyword.reset();
+        sampledLines.reset();
+        for (LongAdder a : maskedByType) a.reset();
+        for (LongAdder a : oversizedByPolicy) a.reset();
+        secretsRedacted.reset();
+        forbiddenByKey.clear();
+        for (LongAdder[] row : latencyHistogram) for (LongAdder a : row) a.reset();
+        for (LongAdder a : latencySumNanos) a.reset();
+    }
+
+    private static int lengthBucket(int length) {
+        for (int i = 0; i < LENGTH_BOUNDS.length; i++) {
+            if (length <= LENGTH_BOUNDS[i]) return i;
+        }
+        return LENGTH_BOUNDS.length;
+    }
+
+    /** nanos 이하 상한을 가진 첫 칸. */
+    static int latencyBucket(long nanos) {
+        if (nanos <= 1L << MIN_LATENCY_SHIFT) return 0;
+        int bits = 64 - Long.numberOfLeadingZeros(nanos - 1); // nanos <= 2^bits
+        return Math.min(bits - MIN_LATENCY_SHIFT, LATENCY_BUCKETS - 1);
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+}
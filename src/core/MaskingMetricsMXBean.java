@@ -0,0 +1,47 @@
+package core;
+
+import java.util.Map;
+
+/**
+ * {@link MaskingMetrics}의 JMX 뷰. 맵 속성은 JConsole 등에서 표(TabularData)로 보인다.
+ */
+public interface MaskingMetricsMXBean {
+
+    /** mask()로 처리한 줄 수 */
+    long getLines();
+
+    /** 사전 alias/금지 키가 하나도 없어 파싱 없이 통과한 줄 수 */
+    long getLinesWithoutKeyword();
+
+    /** PII 타입별 마스킹 건수 */
+    Map<String, Long> getMaskedByType();
+
+    /** 금지 키별 치환 건수(JSON 경로 규칙에 의한 치환은 "(path)") */
+    Map<String, Long> getForbiddenByKey();
+
+    /** 예산(최대 길이·시간)을 넘어 나머지를 처리한 줄 수(실제 적용된 정책별) */
+    Map<String, Long> getOversizedByPolicy();
+
+    /** 값 차단 목록의 비밀 값을 치환한 구간 수 */
+    long getSecretsRedacted();
+
+    /** 지연 시간 표본 비율: N이면 약 N줄에 한 줄 측정, 0이면 측정 안 함 */
+    int getLatencySampleRate();
+
+    void setLatencySampleRate(int rate);
+
+    /** 지연 시간을 측정한 줄 수 */
+    long getSampledLines();
+
+    /** 줄 길이 구간별 평균 지연 시간(ns) */
+    Map<String, Long> getMeanLatencyNanosByLineLength();
+
+    /** 줄 길이 구간별 지연 시간 히스토그램. 각 칸의 상한은 {@link #getLatencyBucketUpperBoundsNanos()} */
+    Map<String, long[]> getLatencyHistogramByLineLength();
+
+    /** 히스토그램 칸별 상한(ns). 마지막 칸은 그 이상 전부 */
+    long[] getLatencyBucketUpperBoundsNanos();
+
+    /** 모든 카운터와 히스토그램을 0으로 */
+    void reset();
+}
@@ -0,0 +1,343 @@
+package core;
+
+import dictionary.CompiledKeyIndex;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * 청크 단위로 들어오는 텍스트를 마스킹해 다른 {@link Writer}로 내보내는 스트리밍 마스커.
+ *
+ * <p>
+ * {@link KeywordBasedLogMaskingEngine#mask(String)}의 전진 스캔을 문자 단위 상태 기계로 옮긴 것이다.
+ * 진행 중인 key/구분자/value 후보만 붙잡아 두고 나머지는 바로 내보내므로,
+ * {@code "phone=010-12"} + {@code "34-5678"} 처럼 청크 경계에 걸친 값도 마스킹되고
+ * 메모리는 가장 긴 key=value 토큰 하나 크기로 유지된다.
+ * 청크를 어떻게 나누든 결과는 전체를 이어 붙여 {@code mask(String)}에 넣은 것과 같다.
+ * </p>
+ *
+ * <p>
+ * 엔진의 keyless 탐지가 켜져 있으면 출력도 같은 방식으로 이어서 처리한다:
+ * 후보 구간(숫자·'-'·' ')에 들어갈 수 없는 문자까지 모은 뒤 탐지기를 적용해 내보낸다.
+ * </p>
+ *
+ * <p>
+ * 엔진에 값 차단 목록이 있으면 입력을 먼저 그 오토마톤에 통과시킨다. 비밀 값의 일부일 수 있는 문자
+ * (현재 오토마톤 상태 깊이만큼, 최대 가장 긴 값 길이)만 붙잡아 두고, 확정된 문자와 치환 결과를 key=value 단계로 넘긴다.
+ * 목록은 Writer를 만들 때의 것을 끝까지 쓴다.
+ * </p>
+ *
+ * <p>
+ * 쿼리·폼·헤더 형식 토크나이저({@link HttpFormatMasker})는 줄 전체를 보고 고르므로 적용하지 않는다.
+ * 그런 입력은 기본 key=value 규칙으로 마스킹된다.
+ * </p>
+ *
+ * <p>
+ * {@link #finish()}를 호출해야 마지막 토큰이 확정된다. {@link #close()}는 finish 후 대상 Writer도 닫는다.
+ * </p>
+ */
+public final class MaskingWriter extends Writer {
+
+    private static final int NEUTRAL = 0;
+    private static final int KEY = 1;
+    private static final int KEY_WS = 2;
+    private static final int DELIM_WS = 3;
+    private static final int VALUE = 4;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final KeywordBasedLogMaskingEngine engine;
+    private final CompiledKeyIndex keyIndex;
+    private final Writer out;
+    private final boolean keyless;
+
+    /** 값 차단 목록(없으면 null)과 아직 확정하지 못한 입력, 그 안의 치환 구간(start, end 쌍) */
+    private final SecretBlocklist secrets;
+    private final StringBuilder secretPending;
+    private final LinePrescan.Positions secretRanges;
+    private int secretState = SecretBlocklist.ROOT;
+
+    private int state = NEUTRAL;
+    /** 진행 중인 후보: key + 공백 + 구분자 + 공백 + value */
+    private final StringBuilder pending = new StringBuilder(64);
+    private int keyLength;
+    private int valueStart;
+
+    /** keyless 단계로 넘길 출력(후보 구간에 들어갈 수 없는 문자가 나올 때까지 모은다) */
+    private final StringBuilder keylessPending;
+    private final char[] outBuf = new char[BUFFER_SIZE];
+    private int outPos;
+    private boolean keylessContext;
+    private boolean keylessHasDigit;
+    private boolean finished;
+
+    MaskingWriter(KeywordBasedLogMaskingEngine engine, Writer out) {
+        this.engine = engine;
+        this.keyIndex = engine.keyIndex();
+        this.out = Objects.requireNonNull(out);
+        this.keyless = engine.isKeylessDetection();
+        this.keylessPending = keyless ? new StringBuilder(64) : null;
+        this.secrets = engine.secretBlocklist();
+        this.secretPending = secrets != null ? new StringBuilder(64) : null;
+        this.secretRanges = secrets != null ? new LinePrescan.Positions() : null;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, cbuf.length);
+        synchronized (lock) {
+            ensureOpen();
+            for (int i = off, end = off + len; i < end; i++) accept(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, str.length());
+        synchronized (lock) {
+            ensureOpen();
+            for (int i = off, end = off + len; i < end; i++) accept(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            accept((char) c);
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        CharSequence s = csq == null ? "null" : csq;
+        return append(s, 0, s.length());
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        CharSequence s = csq == null ? "null" : csq;
+        Objects.checkFromToIndex(start, end, s.length());
+        synchronized (lock) {
+            ensureOpen();
+            for (int i = start; i < end; i++) accept(s.charAt(i));
+        }
+        return this;
+    }
+
+    /** 확정된 출력을 대상 Writer로 내보낸다. 진행 중인 후보는 붙잡아 둔다. */
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            drainOut();
+            out.flush();
+        }
+    }
+
+    /** 입력 끝: 진행 중인 후보를 확정하고 모두 내보낸다. 대상 Writer는 닫지 않는다. 여러 번 호출해도 된다. */
+    public void finish() throws IOException {
+        synchronized (lock) {
+            if (finished) return;
+            finished = true;
+            if (secrets != null) releaseSecrets(secretPending.length() + 1);
+            if (state == VALUE) completeValue();
+            else releasePending();
+            state = NEUTRAL;
+            if (keyless) emitKeyless(false);
+            drainOut();
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            finish();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) throw new IOException("MaskingWriter already finished");
+    }
+
+    // ---- 값 차단 목록 (SecretBlocklist.redact 와 같은 결과) ----
+
+    private void accept(char c) throws IOException {
+        if (secrets == null) {
+            scanKeyValue(c);
+            return;
+        }
+        secretPending.append(c);
+        secretState = secrets.next(secretState, c);
+        int end = secretPending.length();
+        int matched = secrets.matchLength(secretState);
+        if (matched > 0) SecretBlocklist.addRange(secretRanges, end - matched, end);
+        releaseSecrets(end - secrets.depth(secretState));
+    }
+
+    /**
+     * secretPending 에서 safe 앞쪽을 key=value 단계로 넘긴다. 앞으로 찾을 값은 safe 이후에서 시작하므로,
+     * safe 전에 끝난 치환 구간은 확정이고 그 밖의 구간은 시작 위치부터 붙잡아 둔다.
+     */
+    private void releaseSecrets(int safe) throws IOException {
+        int from = 0;
+        int k = 0;
+        int[] r = secretRanges.at;
+        for (; k < secretRanges.size && r[k + 1] < safe; k += 2) {
+            for (int i = from; i < r[k]; i++) scanKeyValue(secretPending.charAt(i));
+            for (int i = 0; i < SecretBlocklist.REPLACEMENT.length(); i++) scanKeyValue(SecretBlocklist.REPLACEMENT.charAt(i));
+            engine.secretApplied();
+            from = r[k + 1];
+        }
+        int limit = Math.min(safe, k < secretRanges.size ? r[k] : secretPending.length());
+        for (int i = from; i < limit; i++) scanKeyValue(secretPending.charAt(i));
+        from = Math.max(from, limit);
+        if (from == 0) return;
+
+        secretPending.delete(0, from);
+        int kept = secretRanges.size - k;
+        for (int j = 0; j < kept; j++) r[j] = r[k + j] - from;
+        secretRanges.size = kept;
+    }
+
+    // ---- key=value 상태 기계 (KeywordBasedLogMaskingEngine.scan 과 같은 문법) ----
+
+    private void scanKeyValue(char c) throws IOException {
+        switch (state) {
+            case NEUTRAL -> neutral(c);
+            case KEY -> {
+                if (KeywordBasedLogMaskingEngine.isKeyChar(c)) {
+                    pending.append(c);
+                } else {
+                    keyLength = pending.length();
+                    afterKey(c);
+                }
+            }
+            case KEY_WS -> afterKey(c);
+            case DELIM_WS -> {
+                if (KeywordBasedLogMaskingEngine.isWhitespace(c)) {
+                    pending.append(c);
+                } else if (KeywordBasedLogMaskingEngine.isValueChar(c)) {
+                    valueStart = pending.length();
+                    pending.append(c);
+                    state = VALUE;
+                } else {
+                    // value 없음: key 다음부터 다시 스캔(남은 문자는 모두 key 문자가 아니다)
+                    releasePending();
+                    neutral(c);
+                }
+            }
+            case VALUE -> {
+                if (KeywordBasedLogMaskingEngine.isValueChar(c)) {
+                    pending.append(c);
+                } else {
+                    completeValue();
+                    neutral(c);
+                }
+            }
+            default -> throw new IllegalStateException();
+        }
+    }
+
+    private void neutral(char c) throws IOException {
+        if (KeywordBasedLogMaskingEngine.isKeyChar(c)) {
+            pending.append(c);
+            state = KEY;
+        } else {
+            state = NEUTRAL;
+            emit(c);
+        }
+    }
+
+    /** key 뒤: 공백이면 계속, '='/':'이면 구분자, 그 밖이면 후보 실패. */
+    private void afterKey(char c) throws IOException {
+        if (KeywordBasedLogMaskingEngine.isWhitespace(c)) {
+            pending.append(c);
+            state = KEY_WS;
+        } else if (c == '=' || c == ':') {
+            pending.append(c);
+            state = DELIM_WS;
+        } else {
+            releasePending();
+            neutral(c);
+        }
+    }
+
+    private void completeValue() throws IOException {
+        int entry = keyIndex.lookup(pending, 0, keyLength);
+        String replacement = entry == CompiledKeyIndex.NOT_FOUND
+                ? null
+                : engine.replacementFor(entry, pending, valueStart, pending.length());
+        if (replacement == null) {
+            releasePending();
+        } else {
+            pending.setLength(valueStart);
+            pending.append(replacement);
+            releasePending();
+        }
+        state = NEUTRAL;
+    }
+
+    private void releasePending() throws IOException {
+        for (int i = 0, n = pending.length(); i < n; i++) emit(pending.charAt(i));
+        pending.setLength(0);
+        state = NEUTRAL;
+    }
+
+    // ---- 출력 (keyless 단계 포함) ----
+
+    private void emit(char c) throws IOException {
+        if (!keyless) {
+            write0(c);
+            return;
+        }
+        keylessPending.append(c);
+        if (c >= '0' && c <= '9') keylessHasDigit = true;
+        // 후보 구간은 구간 문자가 아닌 c를 넘을 수 없으므로 c까지 확정할 수 있다
+        if (!isKeylessSpanChar(c)) emitKeyless(true);
+    }
+
+    /**
+     * keylessPending 에 탐지기를 적용해 내보낸다(숫자가 없으면 그대로).
+     * keepContext 이면 마지막 문자를 다음 구간의 왼쪽 경계 판단용 문맥으로 남긴다
+     * (이미 출력한 문자이며 구간 문자가 아니므로 탐지 결과에서 바뀌지 않는다).
+     */
+    private void emitKeyless(boolean keepContext) throws IOException {
+        int n = keylessPending.length();
+        int from = keylessContext ? 1 : 0;
+        if (keylessHasDigit) {
+            String masked = engine.maskKeyless(keylessPending.toString());
+            for (int i = from; i < masked.length(); i++) write0(masked.charAt(i));
+        } else {
+            for (int i = from; i < n; i++) write0(keylessPending.charAt(i));
+        }
+        keylessHasDigit = false;
+        if (keepContext && n > 0) {
+            char last = keylessPending.charAt(n - 1);
+            keylessPending.setLength(0);
+            keylessPending.append(last);
+            keylessContext = true;
+        } else {
+            keylessPending.setLength(0);
+            keylessContext = false;
+        }
+    }
+
+    private static boolean isKeylessSpanChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == ' ';
+    }
+
+    private void write0(char c) throws IOException {
+        if (outPos == outBuf.length) drainOut();
+        outBuf[outPos++] = c;
+    }
+
+    private void drainOut() throws IOException {
+        if (outPos > 0) {
+            out.write(outBuf, 0, outPos);
+            outPos = 0;
+        }
+    }
+}
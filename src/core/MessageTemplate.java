@@ -0,0 +1,319 @@
+package core;
+
+import dictionary.CompiledKeyIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SLF4J 형식 메시지 템플릿({@code "mobile: {}, card={}"})을 한 번 분석해 두고,
+ * 이후에는 인자(argument)만 마스킹해 완성된 메시지를 만든다.
+ *
+ * <p>
+ * 분석 시 템플릿의 리터럴 구간은 엔진으로 미리 마스킹해 두고, 각 리터럴 끝에서
+ * key/value 스캐너가 어떤 상태인지(예: {@code "mobile: "} → mobile 값 위치)를 기록한다.
+ * 실행 시에는 리터럴을 다시 스캔하지 않고, 값 위치의 인자는 해당 key의 마스커로,
+ * 그 외 인자는 엔진으로 마스킹한다.
+ * </p>
+ *
+ * <p>
+ * 결과는 "포맷된 전체 메시지를 엔진으로 마스킹한 결과"와 같아야 하므로,
+ * key/value 토큰이 리터럴과 인자 경계를 넘나들어 상태를 확정할 수 없는 경우
+ * {@link #format(Object[])}는 null을 반환하고 호출자는 전체 메시지 마스킹으로 되돌아간다.
+ * 다음 템플릿은 처음부터 인자 단위 마스킹 대상에서 제외한다.
+ * <ul>
+ *   <li>이스케이프된 자리표시자({@code \{}})가 있는 템플릿</li>
+ *   <li>자리표시자가 붙어 있는 템플릿({@code "{}{}"})</li>
+ *   <li>PII/금지 key의 값이 리터럴에서 시작해 자리표시자로 이어지는 템플릿({@code "phone=010-{}"})</li>
+ *   <li>'?'·'&'·'%'나 헤더 줄이 있어 쿼리·헤더 토크나이저({@link HttpFormatMasker})가 고를 수 있는 템플릿</li>
+ * </ul>
+ * 인자가 그 토크나이저를 고르게 하는 형태이면 {@link #format(Object[])}가 null을 반환한다.
+ * </p>
+ */
+public final class MessageTemplate {
+
+    private static final String PLACEHOLDER = "{}";
+    private static final String FAILED_TO_STRING = "[FAILED toString()]";
+
+    /** 리터럴 끝(다음 자리표시자 직전)에서의 스캐너 상태. */
+    private enum EndState {
+        /** 진행 중인 key/value 없음 */
+        NEUTRAL,
+        /** key가 리터럴 끝에 닿아 있음(다음 글자가 key를 이어갈 수 있음) */
+        IN_KEY,
+        /** key 뒤 공백까지 읽고 구분자를 기다리는 중 */
+        AFTER_KEY,
+        /** 구분자까지 읽고 value 시작을 기다리는 중 */
+        AFTER_DELIMITER,
+        /** value가 리터럴 끝에 닿아 있음 */
+        IN_VALUE
+    }
+
+    private final KeywordBasedLogMaskingEngine engine;
+    private final boolean argumentMaskable;
+    private final String[] maskedLiterals;
+    private final EndState[] endStates;
+    /** endStates[k]가 AFTER_DELIMITER/IN_VALUE일 때 해당 key의 색인 항목. */
+    private final int[] pendingEntries;
+    private final LiteralHead[] heads;
+
+    private MessageTemplate(KeywordBasedLogMaskingEngine engine, String template) {
+        this.engine = engine;
+
+        List<String> literals = splitLiterals(template);
+        int n = literals.size();
+        this.maskedLiterals = new String[n];
+        this.endStates = new EndState[n];
+        this.pendingEntries = new int[n];
+        this.heads = new LiteralHead[n];
+
+        boolean maskable = template != null && !hasEscapedPlaceholder(template) && !mayUseHttpFormat(template);
+        for (int k = 0; k < n && maskable; k++) {
+            String literal = literals.get(k);
+            if (k > 0 && k < n - 1 && literal.isEmpty()) maskable = false;
+
+            maskedLiterals[k] = engine.maskFragment(literal);
+            heads[k] = new LiteralHead(literal, k == n - 1);
+            endStates[k] = scanEndState(engine.keyIndex(), literal, 0, pendingEntries, k);
+
+            if (k < n - 1 && endStates[k] == EndState.IN_VALUE
+                    && pendingEntries[k] != CompiledKeyIndex.NOT_FOUND) {
+                maskable = false;
+            }
+        }
+        this.argumentMaskable = maskable;
+    }
+
+    /** 템플릿을 분석한다. 엔진이 바뀌면 다시 분석해야 한다. */
+    public static MessageTemplate analyze(KeywordBasedLogMaskingEngine engine, String template) {
+        return new MessageTemplate(engine, template);
+    }
+
+    public KeywordBasedLogMaskingEngine engine() {
+        return engine;
+    }
+
+    /**
+     * 인자 내용과 무관하게 템플릿 자체가 마스킹 대상 key를 만들 수 없는지 판별한다.
+     *
+     * <p>
+     * 리터럴에 사전/금지 키워드가 없고, 모든 자리표시자 앞뒤가 key 문자가 아니며
+     * 자리표시자끼리 붙어 있지 않으면 true. 이 경우 마스킹 대상 key는 인자 하나의
+     * 내부에만 생길 수 있으므로, 호출자는 인자만 검사하면 된다.
+     * </p>
+     */
+    public static boolean isKeywordFree(KeywordBasedLogMaskingEngine engine, String template) {
+        if (template == null || engine.mayContainKeyword(template)) return false;
+        int len = template.length();
+        for (int j = template.indexOf(PLACEHOLDER); j >= 0; j = template.indexOf(PLACEHOLDER, j + 1)) {
+            int after = j + PLACEHOLDER.length();
+            if (j > 0 && KeywordBasedLogMaskingEngine.isKeyChar(template.charAt(j - 1))) return false;
+            if (after < len && KeywordBasedLogMaskingEngine.isKeyChar(template.charAt(after))) return false;
+            if (template.startsWith(PLACEHOLDER, after)) return false;
+        }
+        return true;
+    }
+
+    /** 인자 단위 마스킹이 가능한 템플릿인지. */
+    public boolean isArgumentMaskable() {
+        return argumentMaskable;
+    }
+
+    /** 템플릿의 자리표시자 수. */
+    public int placeholderCount() {
+        return maskedLiterals.length - 1;
+    }
+
+    /**
+     * 인자를 마스킹해 메시지를 완성한다.
+     *
+     * @param args 템플릿 인자(SLF4J와 동일하게 자리표시자 순서대로 적용)
+     * @return 마스킹된 메시지. 인자 단위로 확정할 수 없으면 null
+     */
+    public String format(Object[] args) {
+        if (!argumentMaskable) return null;
+        int count = args == null ? 0 : args.length;
+        if (count != placeholderCount()) return null;
+        if (count == 0) return maskedLiterals[0];
+
+        StringBuilder out = new StringBuilder(maskedLiterals[0].length() + count * 16 + 16);
+        out.append(maskedLiterals[0]);
+
+        int[] entryHolder = new int[1];
+        for (int k = 0; k < count; k++) {
+            String arg = render(args[k]);
+            if (arg == null || HttpFormatMasker.sniff(arg, 0, arg.length())) return null;
+
+            LiteralHead next = heads[k + 1];
+            int len = arg.length();
+            int from = 0;
+
+            // 1) 직전 리터럴에서 이어지는 key/value 처리
+            switch (endStates[k]) {
+                case NEUTRAL -> { }
+                case IN_KEY, AFTER_KEY -> {
+                    int fs = firstNonWhitespace(arg, 0);
+                    if (fs == len) return null;
+                    if (endStates[k] == EndState.IN_KEY && fs == 0
+                            && KeywordBasedLogMaskingEngine.isKeyChar(arg.charAt(0))) return null;
+                    char c = arg.charAt(fs);
+                    if (c == '=' || c == ':') return null;
+                }
+                case AFTER_DELIMITER -> {
+                    int vs = firstNonWhitespace(arg, 0);
+                    if (vs == len) return null;
+                    if (KeywordBasedLogMaskingEngine.isValueChar(arg.charAt(vs))) {
+                        int ve = valueEnd(arg, vs);
+                        if (ve == len && !next.terminatesValue) return null;
+
+                        out.append(arg, 0, vs);
+                        if (pendingEntries[k] == CompiledKeyIndex.NOT_FOUND
+                                || !engine.appendReplacement(pendingEntries[k], arg, vs, ve, out)) {
+                            out.append(arg, vs, ve);
+                        }
+                        from = ve;
+                    }
+                }
+                case IN_VALUE -> {
+                    // 등록되지 않은 key의 value가 이어짐: 종료 문자까지는 스캔 대상이 아님
+                    int ve = valueEnd(arg, 0);
+                    if (ve == len && !next.terminatesValue) return null;
+                    out.append(arg, 0, ve);
+                    from = ve;
+                }
+            }
+
+            // 2) 인자 나머지는 새 줄처럼 스캔하되, 끝 상태가 다음 리터럴로 이어지면 포기
+            String rest = from == 0 ? arg : arg.substring(from);
+            EndState argEnd = scanEndState(engine.keyIndex(), rest, 0, entryHolder, 0);
+            boolean continues = switch (argEnd) {
+                case NEUTRAL -> false;
+                case IN_KEY -> next.startsWithKeyChar || next.startsWithDelimiter || next.blankInMiddle;
+                case AFTER_KEY -> next.startsWithDelimiter || next.blankInMiddle;
+                case AFTER_DELIMITER -> !next.terminatesValueAfterWhitespace;
+                case IN_VALUE -> !next.terminatesValue;
+            };
+            if (continues) return null;
+
+            out.append(engine.maskFragment(rest));
+            out.append(maskedLiterals[k + 1]);
+        }
+        return out.toString();
+    }
+
+    /**
+     * s[from, len)를 엔진과 같은 규칙으로 스캔했을 때 끝에서의 상태.
+     * AFTER_DELIMITER/IN_VALUE이면 entries[slot]에 해당 key의 색인 항목을 기록한다.
+     */
+    private static EndState scanEndState(CompiledKeyIndex index, String s, int from, int[] entries, int slot) {
+        final int len = s.length();
+        int i = from;
+        while (i < len) {
+            if (!KeywordBasedLogMaskingEngine.isKeyChar(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            int keyStart = i;
+            do {
+                i++;
+            } while (i < len && KeywordBasedLogMaskingEngine.isKeyChar(s.charAt(i)));
+            int keyEnd = i;
+            if (keyEnd == len) return EndState.IN_KEY;
+
+            int p = firstNonWhitespace(s, keyEnd);
+            if (p == len) return EndState.AFTER_KEY;
+            char delimiter = s.charAt(p);
+            if (delimiter != '=' && delimiter != ':') continue;
+
+            int vs = firstNonWhitespace(s, p + 1);
+            if (vs == len) {
+                entries[slot] = index.lookup(s, keyStart, keyEnd);
+                return EndState.AFTER_DELIMITER;
+            }
+            int ve = valueEnd(s, vs);
+            if (ve == vs) continue;
+            if (ve == len) {
+                entries[slot] = index.lookup(s, keyStart, keyEnd);
+                return EndState.IN_VALUE;
+            }
+            i = ve;
+        }
+        return EndState.NEUTRAL;
+    }
+
+    /** 리터럴 앞부분의 특성. 앞선 인자의 끝 상태가 이 리터럴로 이어지는지 판단하는 데 쓴다. */
+    private static final class LiteralHead {
+        final boolean startsWithKeyChar;
+        /** 공백 뒤 '=' 또는 ':'로 시작 */
+        final boolean startsWithDelimiter;
+        /** 첫 글자가 value를 끝내는 문자이거나, 템플릿 끝 */
+        final boolean terminatesValue;
+        /** 공백을 건너뛴 첫 글자가 value를 끝내는 문자이거나, 템플릿 끝 */
+        final boolean terminatesValueAfterWhitespace;
+        /** 중간 리터럴인데 공백뿐이라 상태가 다음 인자까지 이어질 수 있음 */
+        final boolean blankInMiddle;
+
+        LiteralHead(String literal, boolean last) {
+            int len = literal.length();
+            int fs = firstNonWhitespace(literal, 0);
+            this.startsWithKeyChar = len > 0 && KeywordBasedLogMaskingEngine.isKeyChar(literal.charAt(0));
+            this.startsWithDelimiter = fs < len && (literal.charAt(fs) == '=' || literal.charAt(fs) == ':');
+            this.terminatesValue = len == 0 ? last : !KeywordBasedLogMaskingEngine.isValueChar(literal.charAt(0));
+            this.terminatesValueAfterWhitespace = fs == len ? last
+                    : !KeywordBasedLogMaskingEngine.isValueChar(literal.charAt(fs));
+            this.blankInMiddle = fs == len && !last;
+        }
+    }
+
+    /** SLF4J MessageFormatter와 같은 방식으로 문자열화. 배열은 포맷 규칙이 달라 null(포기). */
+    private static String render(Object arg) {
+        if (arg == null) return "null";
+        if (arg.getClass().isArray()) return null;
+        try {
+            return arg.toString();
+        } catch (Throwable t) {
+            return FAILED_TO_STRING;
+        }
+    }
+
+    private static List<String> splitLiterals(String template) {
+        List<String> literals = new ArrayList<>();
+        if (template == null) {
+            literals.add("");
+            return literals;
+        }
+        int i = 0, j;
+        while ((j = template.indexOf(PLACEHOLDER, i)) >= 0) {
+            literals.add(template.substring(i, j));
+            i = j + PLACEHOLDER.length();
+        }
+        literals.add(template.substring(i));
+        return literals;
+    }
+
+    private static boolean hasEscapedPlaceholder(String template) {
+        int j = -1;
+        while ((j = template.indexOf(PLACEHOLDER, j + 1)) >= 0) {
+            if (j > 0 && template.charAt(j - 1) == '\\') return true;
+        }
+        return false;
+    }
+
+    /** 리터럴과 인자를 이어 붙였을 때 쿼리·헤더 토크나이저가 고를 수 있는지(자리표시자 앞뒤를 모르므로 넉넉하게 본다). */
+    private static boolean mayUseHttpFormat(String template) {
+        return template.indexOf('?') >= 0 || template.indexOf('&') >= 0 || template.indexOf('%') >= 0
+                || HttpFormatMasker.sniff(template, 0, template.length());
+    }
+
+    private static int firstNonWhitespace(String s, int from) {
+        int len = s.length();
+        while (from < len && KeywordBasedLogMaskingEngine.isWhitespace(s.charAt(from))) from++;
+        return from;
+    }
+
+    private static int valueEnd(String s, int from) {
+        int len = s.length();
+        while (from < len && KeywordBasedLogMaskingEngine.isValueChar(s.charAt(from))) from++;
+        return from;
+    }
+}
@@ -0,0 +1,28 @@
+package core;
+
+/**
+ * 문자열 일부 구간을 호출자가 준 버퍼에 바로 마스킹해 넣는 마스커.
+ *
+ * <p>
+ * 엔진은 로그 줄에서 value 구간을 잘라내지 않고(따옴표 제거도 구간 조정으로) 이 메서드를 호출하며,
+ * 결과는 출력 버퍼에 곧바로 이어 쓴다. 그래서 value마다 중간 문자열이 생기지 않는다.
+ * 범위 경로에서는 {@link #supportsValue(String)}를 부르지 않으므로 처리할 수 없는 값이면 maskTo가 false를 반환한다.
+ * </p>
+ */
+public interface RangePiiMasker extends PiiMasker {
+
+	/**
+	 * s[start, end) 를 마스킹해 out 뒤에 덧붙인다.
+	 *
+	 * @return 덧붙였으면 true. 처리할 수 없거나 바뀔 것이 없으면 out을 건드리지 않고 false
+	 */
+	boolean maskTo(CharSequence s, int start, int end, StringBuilder out);
+
+	/** 문자열 API 호환: 바뀌지 않으면 value 자신을 반환한다. */
+	@Override
+	default String mask(String value) {
+		if (value == null) return null;
+		StringBuilder out = new StringBuilder(value.length() + 8);
+		return maskTo(value, 0, value.length(), out) ? out.toString() : value;
+	}
+}
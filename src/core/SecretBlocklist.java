@@ -0,0 +1,383 @@
+package core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * key와 무관하게 줄 어디에 나오든 치환할 비밀 값 목록(내부 API 토큰, VIP 고객 ID, 테스트 카드번호 등).
+ *
+ * <p>
+ * 값 전체로 Aho-Corasick 오토마톤을 만들어 힙 밖 {@link ByteBuffer}(direct 또는 파일 매핑)에 평탄화해 둔다.
+ * 수십만 개를 넣어도 힙에는 버퍼 객체 하나만 남으므로 GC가 훑을 객체가 늘지 않는다.
+ * 한 줄을 한 번 훑어 모든 등장 위치를 찾고, 겹치거나 붙은 등장은 하나로 합쳐 {@value #REPLACEMENT}로 바꾼다.
+ * 값은 대소문자를 포함해 정확히 일치해야 한다. 스캔은 입력 길이에 선형이며, 치환할 것이 없으면 할당하지 않는다.
+ * </p>
+ *
+ * <p>
+ * 버퍼 배치(빅 엔디언):
+ * <pre>
+ * header : magic, version, nodeCount, edgeCount, secretCount, maxLength, flags, denseCount (32바이트)
+ * nodes  : (nodeCount + 1) × [edgeStart, fail, matchLength, depth, dense]        (20바이트씩, 마지막은 edgeStart 경계용)
+ * edges  : edgeCount × [char, target]                                           (6바이트씩, 노드별로 문자 오름차순)
+ * dense  : denseCount × 128 × [target]                                          (ASCII 문자별 전이, 없으면 -1)
+ * </pre>
+ * matchLength는 그 노드(또는 실패 링크 체인)에서 끝나는 가장 긴 값의 길이이며, 없으면 0이다.
+ * 전이가 {@value #DENSE_MIN_EDGES}개 이상인 노드(대개 얕은 노드)는 ASCII 전이표(dense 번호, 없으면 -1)를 따로 두어
+ * 이진 탐색 없이 한 번에 읽는다. 실패 링크를 따라 자주 거치는 노드가 이런 노드다.
+ * {@link #save(Path)}로 저장한 이미지는 {@link #map(Path)}로 다시 만들지 않고 매핑해 쓸 수 있다
+ * (여러 JVM이 같은 페이지 캐시를 공유한다). 매핑 중인 파일은 제자리에서 고쳐 쓰지 말고 새 파일을 쓴 뒤 rename으로 바꾼다.
+ * </p>
+ */
+public final class SecretBlocklist {
+
+    /** 비밀 값 자리에 넣는 문자열(금지 키 REDACT와 같다) */
+    public static final String REPLACEMENT = "<REDACTED>";
+
+    static final int ROOT = 0;
+
+    /** 첫 바이트 0x8A는 UTF-8 텍스트의 첫 바이트가 될 수 없으므로 값 목록 파일과 헷갈리지 않는다 */
+    private static final int MAGIC = 0x8A4D5342;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int NODE_BYTES = 20;
+    private static final int DENSE_BYTES = 128 * 4;
+    static final int DENSE_MIN_EDGES = 8;
+    private static final int EDGE_BYTES = 6;
+    private static final int FLAG_ASCII_ONLY = 1;
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int edgeBase;
+    private final int denseBase;
+    private final int secretCount;
+    private final int maxLength;
+    private final boolean asciiOnly;
+    /**
+     * 루트에서 ASCII 문자 하나로 가는 상태(없으면 ROOT). 줄의 문자 대부분은 루트에서 출발하므로
+     * 버퍼를 읽지 않고 배열 하나(512바이트)로 처리한다.
+     */
+    private final int[] rootAscii = new int[128];
+
+    private SecretBlocklist(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.nodeCount = buffer.getInt(8);
+        this.secretCount = buffer.getInt(16);
+        this.maxLength = buffer.getInt(20);
+        this.asciiOnly = (buffer.getInt(24) & FLAG_ASCII_ONLY) != 0;
+        this.edgeBase = HEADER_BYTES + (nodeCount + 1) * NODE_BYTES;
+        this.denseBase = edgeBase + buffer.getInt(12) * EDGE_BYTES;
+        for (char c = 0; c < rootAscii.length; c++) rootAscii[c] = Math.max(ROOT, child(ROOT, c));
+    }
+
+    /**
+     * 값 목록으로 오토마톤을 만든다. 빈 값과 중복은 무시한다.
+     * 만드는 동안만 값 길이 합에 비례하는 임시 배열을 쓰고, 결과는 direct 버퍼에 둔다.
+     *
+     * @throws IllegalArgumentException 결과가 2GB를 넘는 경우
+     */
+    public static SecretBlocklist build(Collection<String> secrets) {
+        String[] sorted = secrets.stream()
+                .filter(s -> s != null && !s.isEmpty())
+                .distinct()
+                .sorted() // UTF-16 단위 순서: 같은 부모의 자식이 문자 오름차순으로 만들어진다
+                .toArray(String[]::new);
+
+        // 1) 정렬 순서대로 트라이를 만든다. 앞 값과의 공통 접두사까지는 경로를 재사용한다
+        TrieBuilder trie = new TrieBuilder();
+        int maxLength = 0;
+        boolean asciiOnly = true;
+        for (String s : sorted) maxLength = Math.max(maxLength, s.length());
+        int[] path = new int[maxLength + 1];
+        String prev = "";
+        for (String s : sorted) {
+            int common = 0;
+            int limit = Math.min(prev.length(), s.length());
+            while (common < limit && prev.charAt(common) == s.charAt(common)) common++;
+            for (int d = common; d < s.length(); d++) {
+                char c = s.charAt(d);
+                if (c >= 0x80) asciiOnly = false;
+                path[d + 1] = trie.add(path[d], c, d + 1);
+            }
+            trie.terminal[path[s.length()]] = true;
+            prev = s;
+        }
+
+        // 2) 노드별 전이 구간: 부모 기준 계수 정렬(생성 순서 = 부모 안에서 문자 오름차순)
+        int nodes = trie.size;
+        int edges = nodes - 1;
+        int[] edgeStart = new int[nodes + 1];
+        for (int v = 1; v < nodes; v++) edgeStart[trie.parent[v] + 1]++;
+        for (int n = 0; n < nodes; n++) edgeStart[n + 1] += edgeStart[n];
+        int dense = 0;
+        for (int n = 0; n < nodes; n++) {
+            if (edgeStart[n + 1] - edgeStart[n] >= DENSE_MIN_EDGES) dense++;
+        }
+
+        long bytes = HEADER_BYTES + (long) (nodes + 1) * NODE_BYTES + (long) edges * EDGE_BYTES + (long) dense * DENSE_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Secret blocklist too large: " + bytes + " bytes");
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect((int) bytes);
+        buf.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, nodes).putInt(12, edges)
+                .putInt(16, sorted.length).putInt(20, maxLength).putInt(24, asciiOnly ? FLAG_ASCII_ONLY : 0)
+                .putInt(28, dense);
+
+        int base = HEADER_BYTES + (nodes + 1) * NODE_BYTES;
+        int denseAt = base + edges * EDGE_BYTES;
+        int table = 0;
+        for (int n = 0; n <= nodes; n++) {
+            int at = HEADER_BYTES + n * NODE_BYTES;
+            buf.putInt(at, edgeStart[n]);
+            if (n == nodes) break;
+            buf.putInt(at + 12, trie.depth[n]);
+            boolean isDense = edgeStart[n + 1] - edgeStart[n] >= DENSE_MIN_EDGES;
+            buf.putInt(at + 16, isDense ? table : -1);
+            if (isDense) {
+                for (int c = 0; c < 128; c++) buf.putInt(denseAt + table * DENSE_BYTES + c * 4, -1);
+                table++;
+            }
+        }
+        int[] cursor = Arrays.copyOf(edgeStart, nodes);
+        for (int v = 1; v < nodes; v++) {
+            int p = trie.parent[v];
+            int at = base + cursor[p]++ * EDGE_BYTES;
+            buf.putChar(at, trie.label[v]).putInt(at + 2, v);
+            int t = buf.getInt(HEADER_BYTES + p * NODE_BYTES + 16);
+            if (t >= 0 && trie.label[v] < 128) buf.putInt(denseAt + t * DENSE_BYTES + trie.label[v] * 4, v);
+        }
+
+        // 3) 깊이 순(BFS와 같은 효과)으로 실패 링크와 matchLength 계산
+        SecretBlocklist automaton = new SecretBlocklist(buf);
+        int[] byDepth = new int[maxLength + 2];
+        for (int v = 1; v < nodes; v++) byDepth[trie.depth[v] + 1]++;
+        for (int d = 0; d <= maxLength; d++) byDepth[d + 1] += byDepth[d];
+        int[] order = new int[Math.max(0, nodes - 1)];
+        for (int v = 1; v < nodes; v++) order[byDepth[trie.depth[v]]++] = v;
+        for (int v : order) {
+            int parent = trie.parent[v];
+            int fail = parent == ROOT ? ROOT : automaton.next(automaton.fail(parent), trie.label[v]);
+            int at = HEADER_BYTES + v * NODE_BYTES;
+            buf.putInt(at + 4, fail);
+            buf.putInt(at + 8, trie.terminal[v] ? trie.depth[v] : automaton.matchLength(fail));
+        }
+        return automaton;
+    }
+
+    /**
+     * 파일에서 연다. {@link #save(Path)}로 저장한 이미지면 매핑하고, 아니면 UTF-8 텍스트로 보고
+     * 한 줄을 값 하나로 읽어 만든다(빈 줄은 무시, 앞뒤 공백도 값에 포함).
+     */
+    public static SecretBlocklist open(Path file) throws IOException {
+        byte[] head = new byte[4];
+        int n;
+        try (InputStream in = Files.newInputStream(file)) {
+            n = in.readNBytes(head, 0, head.length);
+        }
+        if (n == head.length && ByteBuffer.wrap(head).getInt() == MAGIC) return map(file);
+
+        List<String> secrets = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) secrets.add(line);
+            }
+        }
+        return build(secrets);
+    }
+
+    /** {@link #save(Path)}로 저장한 이미지를 읽기 전용으로 매핑한다. */
+    public static SecretBlocklist map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a compiled secret blocklist: " + file);
+            }
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+                throw new IOException("Not a compiled secret blocklist: " + file);
+            }
+            long expected = HEADER_BYTES + (long) (buf.getInt(8) + 1) * NODE_BYTES + (long) buf.getInt(12) * EDGE_BYTES
+                    + (long) buf.getInt(28) * DENSE_BYTES;
+            if (buf.getInt(8) <= 0 || expected != size) {
+                throw new IOException("Corrupted secret blocklist image: " + file);
+            }
+            return new SecretBlocklist(buf);
+        }
+    }
+
+    /** 오토마톤 이미지를 파일로 저장한다({@link #map(Path)}, {@link #open(Path)}로 다시 연다). */
+    public void save(Path file) throws IOException {
+        ByteBuffer b = buffer.duplicate();
+        b.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (b.hasRemaining()) channel.write(b);
+        }
+    }
+
+    /** 값 개수(중복·빈 값 제외). */
+    public int size() {
+        return secretCount;
+    }
+
+    /** 가장 긴 값의 길이. */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /** 힙 밖 버퍼 크기(바이트). */
+    public long offHeapBytes() {
+        return buffer.capacity();
+    }
+
+    /** 모든 값이 ASCII이면 true. 이때는 UTF-8 바이트를 디코딩 없이 바로 훑을 수 있다. */
+    boolean isAsciiOnly() {
+        return asciiOnly;
+    }
+
+    /** s의 비밀 값을 모두 {@value #REPLACEMENT}로 바꾼다. 바뀐 것이 없으면 s 자신을 반환한다. */
+    public String redact(String s) {
+        return redact(s, MaskingListener.NONE);
+    }
+
+    /** 치환한 구간마다 listener에 알린다. */
+    String redact(String s, MaskingListener listener) {
+        if (s == null) return null;
+        LinePrescan.Positions ranges = null;
+        int state = ROOT;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            state = next(state, s.charAt(i));
+            int m = state == ROOT ? 0 : matchLength(state);
+            if (m == 0) continue;
+            if (ranges == null) {
+                ranges = LinePrescan.acquire();
+                ranges.clear();
+            }
+            addRange(ranges, i + 1 - m, i + 1);
+        }
+        if (ranges == null) return s;
+
+        StringBuilder out = new StringBuilder(s.length());
+        int copied = 0;
+        for (int k = 0; k < ranges.size; k += 2) {
+            out.append(s, copied, ranges.at[k]).append(REPLACEMENT);
+            copied = ranges.at[k + 1];
+            listener.onSecret();
+        }
+        LinePrescan.release(ranges);
+        return out.append(s, copied, s.length()).toString();
+    }
+
+    /** s[from, to)에 비밀 값이 있으면 true. */
+    public boolean matchesAny(CharSequence s, int from, int to) {
+        int state = ROOT;
+        for (int i = from; i < to; i++) {
+            state = next(state, s.charAt(i));
+            if (state != ROOT && matchLength(state) != 0) return true;
+        }
+        return false;
+    }
+
+    /** UTF-8 바이트 b에 비밀 값이 있으면 true. {@link #isAsciiOnly()}일 때만 정확하다(비ASCII 바이트는 어떤 값과도 맞지 않는다). */
+    boolean matchesAny(byte[] b) {
+        int state = ROOT;
+        for (byte x : b) {
+            state = next(state, (char) (x & 0xFF));
+            if (state != ROOT && matchLength(state) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 찾은 구간 [start, end)를 오름차순 구간 목록(start, end 쌍)에 넣는다. 구간 끝은 찾은 순서대로 늘어나므로
+     * 뒤에서부터 겹치거나 붙은 구간을 흡수하면 목록이 항상 서로 떨어진 구간으로 유지된다.
+     */
+    static void addRange(LinePrescan.Positions ranges, int start, int end) {
+        while (ranges.size > 0 && start <= ranges.at[ranges.size - 1]) {
+            start = Math.min(start, ranges.at[ranges.size - 2]);
+            ranges.size -= 2;
+        }
+        ranges.add(start);
+        ranges.add(end);
+    }
+
+    int next(int state, char c) {
+        while (state != ROOT) {
+            int target = child(state, c);
+            if (target >= 0) return target;
+            state = fail(state);
+        }
+        return c < rootAscii.length ? rootAscii[c] : Math.max(ROOT, child(ROOT, c));
+    }
+
+    /** state에서 끝나는 가장 긴 값의 길이(없으면 0). */
+    int matchLength(int state) {
+        return buffer.getInt(HEADER_BYTES + state * NODE_BYTES + 8);
+    }
+
+    /** state까지 읽은 문자 수. 이보다 앞의 입력은 앞으로 어떤 값의 일부도 될 수 없다. */
+    int depth(int state) {
+        return buffer.getInt(HEADER_BYTES + state * NODE_BYTES + 12);
+    }
+
+    private int fail(int state) {
+        return buffer.getInt(HEADER_BYTES + state * NODE_BYTES + 4);
+    }
+
+    private int child(int node, char c) {
+        int at = HEADER_BYTES + node * NODE_BYTES;
+        if (c < 128) {
+            int table = buffer.getInt(at + 16);
+            if (table >= 0) return buffer.getInt(denseBase + table * DENSE_BYTES + c * 4);
+        }
+        int lo = buffer.getInt(at), hi = buffer.getInt(at + NODE_BYTES) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int edge = edgeBase + mid * EDGE_BYTES;
+            char m = buffer.getChar(edge);
+            if (m < c) lo = mid + 1;
+            else if (m > c) hi = mid - 1;
+            else return buffer.getInt(edge + 2);
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "SecretBlocklist[size=" + secretCount + ", nodes=" + nodeCount + ", offHeapBytes=" + offHeapBytes() + "]";
+    }
+
+    /** 만드는 동안만 쓰는 힙 트라이(노드마다 부모·문자·깊이). */
+    private static final class TrieBuilder {
+        int[] parent = new int[1024];
+        char[] label = new char[1024];
+        int[] depth = new int[1024];
+        boolean[] terminal = new boolean[1024];
+        int size = 1; // 0 = ROOT
+
+        int add(int parentNode, char c, int d) {
+            if (size == parent.length) {
+                int capacity = size * 2;
+                parent = Arrays.copyOf(parent, capacity);
+                label = Arrays.copyOf(label, capacity);
+                depth = Arrays.copyOf(depth, capacity);
+                terminal = Arrays.copyOf(terminal, capacity);
+            }
+            parent[size] = parentNode;
+            label[size] = c;
+            depth[size] = d;
+            return size++;
+        }
+    }
+}
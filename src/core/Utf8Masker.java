@@ -0,0 +1,204 @@
+package core;
+
+import dictionary.CompiledKeyIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * UTF-8로 인코딩된 한 줄(바이트 배열)을 문자열로 디코딩하지 않고 바로 마스킹한다.
+ *
+ * <p>
+ * 문법과 결과는 {@link KeywordBasedLogMaskingEngine#mask(String)}와 같다.
+ * key 문자 중 한글 음절(가-힣)은 UTF-8에서 3바이트(EA B0 80 ~ ED 9E A3)이므로 그 자리에서 디코딩해 판별하고,
+ * 공백·구분자·종료 문자는 모두 ASCII라 바이트 하나로 판별한다.
+ * 치환이 일어날 때만 value 바이트를 문자열로 만들어 마스커에 넘긴다.
+ * </p>
+ *
+ * <p>
+ * 출력은 스레드별로 재사용하는 작업 버퍼에 만든 뒤 정확한 길이로 한 번 복사한다.
+ * 바뀐 것이 없으면 입력 배열을 그대로 반환한다.
+ * </p>
+ */
+final class Utf8Masker {
+
+    /** 이보다 커진 작업 버퍼는 스레드에 남겨 두지 않는다 */
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private final KeywordBasedLogMaskingEngine engine;
+    private final CompiledKeyIndex keyIndex;
+    private final KeywordPrefilter prefilter;
+    private final FreeTextPiiDetector freeTextDetector;
+
+    Utf8Masker(KeywordBasedLogMaskingEngine engine, CompiledKeyIndex keyIndex,
+               KeywordPrefilter prefilter, FreeTextPiiDetector freeTextDetector) {
+        this.engine = engine;
+        this.keyIndex = keyIndex;
+        this.prefilter = prefilter;
+        this.freeTextDetector = freeTextDetector;
+    }
+
+    byte[] mask(byte[] line, boolean keyless) {
+        if (line == null) return null;
+        byte[] masked = prefilter.matchesAny(line, 0, line.length) ? scan(line) : line;
+        return keyless ? maskKeyless(masked) : masked;
+    }
+
+    private byte[] scan(byte[] b) {
+        final int len = b.length;
+        Output out = null;
+        int copied = 0;
+        int i = 0;
+
+        while (i < len) {
+            int k = keyCharLength(b, i, len);
+            if (k == 0) {
+                i++;
+                continue;
+            }
+
+            // key: 최장 연속 구간
+            int keyStart = i;
+            do {
+                i += k;
+            } while (i < len && (k = keyCharLength(b, i, len)) > 0);
+            int keyEnd = i;
+
+            // 구분자('=' 또는 ':') 앞뒤 공백 허용
+            int p = skipWhitespace(b, keyEnd, len);
+            if (p == len) break;
+            byte delimiter = b[p];
+            if (delimiter != '=' && delimiter != ':') continue;
+
+            int valueStart = skipWhitespace(b, p + 1, len);
+            int valueEnd = valueStart;
+            while (valueEnd < len && isValueByte(b[valueEnd])) valueEnd++;
+            if (valueEnd == valueStart) continue; // value 없음: key 다음 위치부터 계속 탐색
+
+            i = valueEnd;
+
+            int entry = keyIndex.lookupUtf8(b, keyStart, keyEnd);
+            if (entry == CompiledKeyIndex.NOT_FOUND) continue;
+
+            String value = new String(b, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+            String replacement = engine.replacementFor(entry, value, 0, value.length());
+            if (replacement == null) continue;
+
+            if (out == null) out = new Output(len + 16);
+            out.append(b, copied, valueStart).append(replacement.getBytes(StandardCharsets.UTF_8));
+            copied = valueEnd;
+        }
+
+        if (out == null) return b;
+        return out.append(b, copied, len).toArray();
+    }
+
+    private byte[] maskKeyless(byte[] b) {
+        Latin1View view = new Latin1View(b);
+        int[] match = new int[2];
+        Output out = null;
+        int copied = 0;
+        int i = 0;
+
+        while ((i = freeTextDetector.nextMatch(view, i, match)) >= 0) {
+            int end = match[0];
+            // 후보 구간은 ASCII 숫자·'-'·' '뿐이므로 Latin-1 디코딩이 곧 UTF-8 디코딩이다
+            String value = new String(b, i, end - i, StandardCharsets.ISO_8859_1);
+            String masked = engine.maskValue(FreeTextPiiDetector.typeAt(match[1]), value);
+            if (masked != null && !masked.equals(value)) {
+                if (out == null) out = new Output(b.length + 16);
+                out.append(b, copied, i).append(masked.getBytes(StandardCharsets.UTF_8));
+                copied = end;
+            }
+            i = end;
+        }
+
+        if (out == null) return b;
+        return out.append(b, copied, b.length).toArray();
+    }
+
+    /** b[i]의 key 문자 바이트 수(ASCII key 문자 1, 한글 음절 3). key 문자가 아니면 0. */
+    private static int keyCharLength(byte[] b, int i, int len) {
+        int b0 = b[i] & 0xFF;
+        if (b0 < 0x80) return KeywordBasedLogMaskingEngine.isKeyChar((char) b0) ? 1 : 0;
+        // 가(U+AC00) ~ 힣(U+D7A3): 리드 바이트 0xEA ~ 0xED
+        if (b0 < 0xEA || b0 > 0xED || i + 2 >= len) return 0;
+        int b1 = b[i + 1] & 0xFF, b2 = b[i + 2] & 0xFF;
+        if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80) return 0;
+        int c = ((b0 & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F);
+        return (c >= '가' && c <= '힣') ? 3 : 0;
+    }
+
+    /** value 바이트: ASCII 공백·쉼표·닫는 괄호가 아닌 모든 바이트(멀티바이트 문자 포함). */
+    private static boolean isValueByte(byte c) {
+        return c < 0 || KeywordBasedLogMaskingEngine.isValueChar((char) c);
+    }
+
+    private static int skipWhitespace(byte[] b, int from, int to) {
+        while (from < to && b[from] >= 0 && KeywordBasedLogMaskingEngine.isWhitespace((char) b[from])) from++;
+        return from;
+    }
+
+    /** 스레드별 작업 버퍼 위의 출력. toArray()에서 정확한 길이로 복사한다. */
+    private static final class Output {
+        private byte[] buf;
+        private int size;
+
+        Output(int expected) {
+            byte[] scratch = SCRATCH.get();
+            this.buf = scratch.length >= expected ? scratch : new byte[expected];
+        }
+
+        Output append(byte[] src, int from, int to) {
+            return put(src, from, to - from);
+        }
+
+        Output append(byte[] src) {
+            return put(src, 0, src.length);
+        }
+
+        private Output put(byte[] src, int off, int n) {
+            if (size + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+            System.arraycopy(src, off, buf, size, n);
+            size += n;
+            return this;
+        }
+
+        byte[] toArray() {
+            byte[] result = Arrays.copyOf(buf, size);
+            if (buf.length <= MAX_RETAINED_BUFFER && buf != SCRATCH.get()) SCRATCH.set(buf);
+            return result;
+        }
+    }
+
+    /** 바이트를 Latin-1 문자로 보는 CharSequence (복사 없음). */
+    private static final class Latin1View implements CharSequence {
+        private final byte[] b;
+
+        Latin1View(byte[] b) {
+            this.b = b;
+        }
+
+        @Override
+        public int length() {
+            return b.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (b[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(b, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(b, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package core;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link LinePrescan}의 Vector API 구현. {@link LinePrescan#best()}가 모듈이 있을 때만 리플렉션으로 만든다.
+ *
+ * <p>
+ * String 내부 배열은 직접 읽을 수 없으므로 {@value #BLOCK}자씩 스레드별 char 버퍼에 복사한 뒤
+ * 플랫폼 선호 폭(AVX2면 16자, AVX-512면 32자)으로 비교해 일치 비트를 한꺼번에 얻는다.
+ * 버퍼 크기가 고정이라 줄이 아무리 길어도 추가 메모리는 일정하다.
+ * </p>
+ */
+final class VectorLinePrescan extends LinePrescan {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    /** 복사 단위. LANES의 배수 */
+    static final int BLOCK = 1024;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[BLOCK]);
+
+    VectorLinePrescan() {
+        // 모듈은 있어도 벡터 폭이 long 마스크에 담기지 않는 플랫폼이면 스칼라를 쓰게 실패시킨다
+        if (LANES > Long.SIZE || BLOCK % LANES != 0) throw new IllegalStateException("Unsupported vector shape: " + SPECIES);
+    }
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void delimiters(String s, Positions out) {
+        out.clear();
+        char[] buf = BUFFER.get();
+        for (int base = 0, len = s.length(); base < len; base += BLOCK) {
+            int n = Math.min(BLOCK, len - base);
+            s.getChars(base, base + n, buf, 0);
+
+            int i = 0;
+            for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+                ShortVector v = ShortVector.fromCharArray(SPECIES, buf, i);
+                VectorMask<Short> hits = v.eq((short) '=').or(v.eq((short) ':'));
+                addAll(out, base + i, hits.toLong());
+            }
+            for (; i < n; i++) {
+                if (buf[i] == '=' || buf[i] == ':') out.add(base + i);
+            }
+        }
+    }
+
+    @Override
+    void digitRunStarts(String s, Positions out) {
+        out.clear();
+        char[] buf = BUFFER.get();
+        long previousDigit = 0; // 직전 문자가 숫자면 1
+        for (int base = 0, len = s.length(); base < len; base += BLOCK) {
+            int n = Math.min(BLOCK, len - base);
+            s.getChars(base, base + n, buf, 0);
+
+            int i = 0;
+            for (int bound = SPECIES.loopBound(n); i < bound; i += LANES) {
+                ShortVector v = ShortVector.fromCharArray(SPECIES, buf, i);
+                long digits = v.compare(VectorOperators.GE, (short) '0')
+                        .and(v.compare(VectorOperators.LE, (short) '9'))
+                        .toLong();
+                // 숫자이면서 바로 앞 lane(첫 lane은 직전 블록의 마지막 문자)이 숫자가 아닌 위치
+                addAll(out, base + i, digits & ~(digits << 1 | previousDigit));
+                previousDigit = digits >>> (LANES - 1) & 1;
+            }
+            for (; i < n; i++) {
+                boolean digit = buf[i] >= '0' && buf[i] <= '9';
+                if (digit && previousDigit == 0) out.add(base + i);
+                previousDigit = digit ? 1 : 0;
+            }
+        }
+    }
+
+    private static void addAll(Positions out, int offset, long bits) {
+        while (bits != 0) {
+            out.add(offset + Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+        }
+    }
+}
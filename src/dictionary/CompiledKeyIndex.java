@@ -0,0 +1,208 @@
+package dictionary;
+
+import core.PiiType;
+
+import java.util.*;
+
+/**
+ * 금지 키와 PII alias를 한 번에 판별하는 컴파일된 key 색인.
+ *
+ * <p>
+ * 로그 줄의 {@code (CharSequence, start, end)} 구간을 그대로 받아
+ * trim·소문자 변환 결과와 같은 기준으로 비교하되, 부분 문자열이나 소문자 사본을 만들지 않는다.
+ * 해시를 대소문자 접기(case folding)한 문자로 계산하는 open addressing 테이블이라
+ * alias가 수만 개로 늘어나도 조회 비용은 key 길이에만 비례한다.
+ * </p>
+ *
+ * <p>
+ * 조회 결과는 항목 번호(0 이상) 또는 {@link #NOT_FOUND}이며,
+ * {@link #isForbidden(int)} / {@link #typeOf(int)}로 판별 결과를 꺼낸다.
+ * 같은 key가 금지 키이면서 PII alias이면 금지 키가 우선한다.
+ * </p>
+ */
+public final class CompiledKeyIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    /** 모든 key의 접힌 문자를 이어 붙인 배열. 항목 e의 key는 [keyOffset[e], keyOffset[e + 1]). */
+    private final char[] keyChars;
+    private final int[] keyOffset;
+    private final int[] keyHash;
+    /** 항목별 접힌 key 문자열(건수 집계 등에서 key 이름이 필요할 때) */
+    private final String[] keys;
+    private final boolean[] forbidden;
+    private final PiiType[] types;
+    /** 항목 번호 + 1 (0은 빈 슬롯). */
+    private final int[] slots;
+    private final int mask;
+
+    private CompiledKeyIndex(Map<String, PiiType> typeByKey, Set<String> forbiddenKeys) {
+        LinkedHashMap<String, Integer> entryByKey = new LinkedHashMap<>();
+        for (String k : forbiddenKeys) entryByKey.putIfAbsent(foldAll(k), entryByKey.size());
+        for (String k : typeByKey.keySet()) entryByKey.putIfAbsent(foldAll(k), entryByKey.size());
+
+        int n = entryByKey.size();
+        int totalChars = 0;
+        for (String k : entryByKey.keySet()) totalChars += k.length();
+
+        this.keyChars = new char[totalChars];
+        this.keyOffset = new int[n + 1];
+        this.keyHash = new int[n];
+        this.keys = entryByKey.keySet().toArray(new String[0]);
+        this.forbidden = new boolean[n];
+        this.types = new PiiType[n];
+
+        int capacity = Integer.highestOneBit(Math.max(4, n * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+
+        int e = 0, off = 0;
+        for (String k : entryByKey.keySet()) {
+            keyOffset[e] = off;
+            k.getChars(0, k.length(), keyChars, off);
+            off += k.length();
+            keyHash[e] = hash(k, 0, k.length());
+
+            int slot = keyHash[e] & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = e + 1;
+            e++;
+        }
+        keyOffset[n] = off;
+
+        for (String k : forbiddenKeys) forbidden[entryByKey.get(foldAll(k))] = true;
+        typeByKey.forEach((k, type) -> types[entryByKey.get(foldAll(k))] = type);
+    }
+
+    /** 사전 alias와 금지 키를 하나의 색인으로 컴파일. */
+    public static CompiledKeyIndex compile(PiiKeywordDictionary dict, ForbiddenKeywordPolicy forbiddenPolicy) {
+        return new CompiledKeyIndex(dict.mappings(), forbiddenPolicy.forbiddenKeys());
+    }
+
+    static CompiledKeyIndex of(Map<String, PiiType> typeByKey, Set<String> forbiddenKeys) {
+        return new CompiledKeyIndex(typeByKey, forbiddenKeys);
+    }
+
+    /**
+     * s[start, end) 구간을 key로 조회한다. 앞뒤 공백은 무시하고 대소문자는 구분하지 않는다.
+     *
+     * @return 항목 번호, 없으면 {@link #NOT_FOUND}
+     */
+    public int lookup(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') start++;
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+
+        int h = hash(s, start, end);
+        int len = end - start;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) return NOT_FOUND;
+            if (keyHash[entry] == h && keyOffset[entry + 1] - keyOffset[entry] == len
+                    && regionEquals(entry, s, start)) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * UTF-8 바이트 b[start, end) 구간을 key로 조회한다({@link #lookup(CharSequence, int, int)}와 같은 기준).
+     * 문자열로 디코딩하지 않고 바이트에서 바로 문자를 읽는다. 4바이트(BMP 밖) 문자가 있으면 {@link #NOT_FOUND}.
+     */
+    public int lookupUtf8(byte[] b, int start, int end) {
+        while (start < end && (b[start] & 0xFF) <= ' ') start++;
+        while (end > start && (b[end - 1] & 0xFF) <= ' ') end--;
+
+        int h = 0x811C9DC5;
+        int len = 0;
+        for (int i = start; i < end; ) {
+            int decoded = decodeUtf8(b, i, end);
+            if (decoded < 0) return NOT_FOUND;
+            h = (h ^ fold((char) decoded)) * 0x01000193;
+            i += decoded >>> 16;
+            len++;
+        }
+        h ^= h >>> 16;
+
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) return NOT_FOUND;
+            if (keyHash[entry] == h && keyOffset[entry + 1] - keyOffset[entry] == len
+                    && regionEqualsUtf8(entry, b, start)) {
+                return entry;
+            }
+        }
+    }
+
+    public boolean isForbidden(int entry) {
+        return entry >= 0 && forbidden[entry];
+    }
+
+    /** 항목의 PII 타입. 금지 키 전용 항목이거나 NOT_FOUND이면 null. */
+    public PiiType typeOf(int entry) {
+        return entry >= 0 ? types[entry] : null;
+    }
+
+    /** 항목의 key(trim + 소문자로 접힌 형태). NOT_FOUND이면 null. */
+    public String keyOf(int entry) {
+        return entry >= 0 ? keys[entry] : null;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    private boolean regionEquals(int entry, CharSequence s, int start) {
+        for (int k = keyOffset[entry], end = keyOffset[entry + 1]; k < end; k++, start++) {
+            if (keyChars[k] != fold(s.charAt(start))) return false;
+        }
+        return true;
+    }
+
+    private boolean regionEqualsUtf8(int entry, byte[] b, int i) {
+        for (int k = keyOffset[entry], end = keyOffset[entry + 1]; k < end; k++) {
+            int decoded = decodeUtf8(b, i, b.length);
+            if (keyChars[k] != fold((char) decoded)) return false;
+            i += decoded >>> 16;
+        }
+        return true;
+    }
+
+    /** b[i]에서 시작하는 1~3바이트 UTF-8 문자: (바이트 수 << 16) | 문자. 잘못된 시퀀스나 4바이트 문자면 -1. */
+    private static int decodeUtf8(byte[] b, int i, int end) {
+        int b0 = b[i] & 0xFF;
+        if (b0 < 0x80) return (1 << 16) | b0;
+        if (b0 >= 0xC2 && b0 < 0xE0 && i + 1 < end) {
+            int b1 = b[i + 1] & 0xFF;
+            if ((b1 & 0xC0) == 0x80) return (2 << 16) | ((b0 & 0x1F) << 6) | (b1 & 0x3F);
+        } else if (b0 >= 0xE0 && b0 < 0xF0 && i + 2 < end) {
+            int b1 = b[i + 1] & 0xFF, b2 = b[i + 2] & 0xFF;
+            if ((b1 & 0xC0) == 0x80 && (b2 & 0xC0) == 0x80) {
+                int c = ((b0 & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F);
+                if (c >= 0x800) return (3 << 16) | c;
+            }
+        }
+        return -1;
+    }
+
+    /** 접힌 문자 기준 FNV-1a 해시 + 비트 섞기. */
+    private static int hash(CharSequence s, int start, int end) {
+        int h = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            h = (h ^ fold(s.charAt(i))) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /** ASCII는 직접, 그 외는 Character.toLowerCase로 소문자 접기. */
+    private static char fold(char c) {
+        if (c < 0x80) return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        return Character.toLowerCase(c);
+    }
+
+    private static String foldAll(String s) {
+        String t = s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+        char[] cs = t.toCharArray();
+        for (int i = 0; i < cs.length; i++) cs[i] = fold(cs[i]);
+        return new String(cs);
+    }
+}
@@ -1,7 +1,10 @@
 package dictionary;
 
+import java.util.Arrays;
 import java.util.Locale;
+import java.util.Properties;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 로그에서 노출을 막을 "금지 키" 정책. key는 정규화(trim + 소문자) 후 비교.
@@ -19,29 +22,56 @@ public final class ForbiddenKeywordPolicy {
     }
 
     private final Set<String> forbiddenKeys;
+    private final CompiledKeyIndex index;
     private final Mode mode;
 
     public ForbiddenKeywordPolicy(Set<String> forbiddenKeys, Mode mode) {
         this.forbiddenKeys = forbiddenKeys.stream()
                 .map(ForbiddenKeywordPolicy::normalize)
                 .collect(java.util.stream.Collectors.toUnmodifiableSet());
+        this.index = CompiledKeyIndex.of(java.util.Map.of(), this.forbiddenKeys);
         this.mode = mode == null ? Mode.REDACT : mode; // 모드 기본값: REDACT
     }
 
     /** 금지 키인지 확인 */ 
     public boolean isForbidden(String key) {
-        return forbiddenKeys.contains(normalize(key));
+        return key != null && isForbidden(key, 0, key.length());
+    }
+
+    /** s[start, end) 구간이 금지 키인지 확인. 부분 문자열/소문자 사본을 만들지 않는다. */
+    public boolean isForbidden(CharSequence s, int start, int end) {
+        return index.isForbidden(index.lookup(s, start, end));
     }
 
     public Mode mode() {
         return mode;
     }
 
+    /** 정규화된(trim + 소문자) 금지 키 전체. */
+    public Set<String> forbiddenKeys() {
+        return forbiddenKeys;
+    }
+
     /** keys 정제 (소문자로 변환) */ 
     private static String normalize(String s) {
         return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
     }
 
+    /**
+     * properties의 {@code forbidden}(콤마 구분 금지 키, 없으면 기본 셋)과
+     * {@code forbidden.mode}(REDACT|DROP_VALUE|PASS, 없으면 REDACT)로 정책을 만든다.
+     */
+    public static ForbiddenKeywordPolicy fromProperties(Properties props) {
+        String keys = props.getProperty("forbidden");
+        Set<String> forbidden = keys == null
+                ? defaultForbiddenKeys()
+                : Arrays.stream(keys.split(",")).map(String::trim).filter(k -> !k.isEmpty()).collect(Collectors.toSet());
+
+        String mode = props.getProperty("forbidden.mode");
+        return new ForbiddenKeywordPolicy(forbidden,
+                mode == null || mode.isBlank() ? Mode.REDACT : Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)));
+    }
+
     /** 권장 기본 금지 키 셋 */
     public static Set<String> defaultForbiddenKeys() {
         return Set.of(
@@ -4,29 +4,57 @@ import core.PiiType;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 로그에서 추출한 key(정규화: trim + 소문자)를 PiiType으로 매핑하는 사전.
  * fromProperties로 properties 로드 시, 왼쪽 키는 PiiType 이름(rrn, phone 등), 오른쪽은 콤마 구분 alias 목록.
+ * 같은 파일의 사전 외 설정 key({@link #RESERVED_KEYS})는 건너뛴다.
  */
 public final class PiiKeywordDictionary {
 
+    /** 같은 properties 파일에서 사전이 아닌 설정으로 쓰는 key(금지 키 목록/모드, keyless, 마스커 목록 등). 설정 파일 표기 그대로 */
+    public static final Set<String> RESERVED_KEYS = Set.of("forbidden", "forbidden.mode", "keyless", "maskers", "prescan",
+            "budget.maxLength", "budget.maxMillis", "budget.policy", "pseudonym", "pseudonym.keyFile", "secrets.file");
+
+    /** 사전 key처럼 대소문자 없이 비교하기 위한 {@link #RESERVED_KEYS}의 소문자 사본 */
+    private static final Set<String> RESERVED_NORMALIZED = RESERVED_KEYS.stream()
+            .map(PiiKeywordDictionary::normalize)
+            .collect(Collectors.toUnmodifiableSet());
+
     private final Map<String, PiiType> keyToType;
+    private final CompiledKeyIndex index;
 
     public PiiKeywordDictionary(Map<String, PiiType> mappings) {
         Map<String, PiiType> tmp = new HashMap<>();
         mappings.forEach((k, v) -> tmp.put(normalize(k), v));
         this.keyToType = Collections.unmodifiableMap(tmp);
+        this.index = CompiledKeyIndex.of(keyToType, Set.of());
     }
 
     public PiiType resolve(String key) {
-        return keyToType.get(normalize(key));
+        return key == null ? null : resolve(key, 0, key.length());
+    }
+
+    /** s[start, end) 구간을 key로 보고 PiiType 판별. 부분 문자열/소문자 사본을 만들지 않는다. */
+    public PiiType resolve(CharSequence s, int start, int end) {
+        return index.typeOf(index.lookup(s, start, end));
     }
 
     public boolean contains(String key) {
         return resolve(key) != null;
     }
 
+    /** 정규화된(trim + 소문자) alias 전체. */
+    public Set<String> keys() {
+        return keyToType.keySet();
+    }
+
+    /** 정규화된 alias → PiiType 매핑(읽기 전용). */
+    public Map<String, PiiType> mappings() {
+        return keyToType;
+    }
+
     private static String normalize(String s) {
         return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
     }
@@ -53,8 +81,14 @@ public final class PiiKeywordDictionary {
             throw new IllegalStateException("Failed to load keyword properties: " + classpathResource, e);
         }
 
+        return fromProperties(props);
+    }
+
+    /** 이미 읽어 둔 properties에서 사전을 만든다. {@link #RESERVED_KEYS}는 건너뛰고, 그 밖의 key는 PiiType 이름이어야 한다. */
+    public static PiiKeywordDictionary fromProperties(Properties props) {
         Map<String, PiiType> map = new HashMap<>();
         for (String typeKey : props.stringPropertyNames()) {
+            if (RESERVED_NORMALIZED.contains(normalize(typeKey))) continue;
             PiiType type = PiiType.valueOf(typeKey.trim().toUpperCase(Locale.ROOT));
             String aliasesCsv = props.getProperty(typeKey, "");
             for (String alias : aliasesCsv.split(",")) {
@@ -0,0 +1,125 @@
+package log4j2;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.pattern.ConverterKeys;
+import org.apache.logging.log4j.core.pattern.LogEventPatternConverter;
+import org.apache.logging.log4j.core.pattern.PatternConverter;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.apache.logging.log4j.util.Constants;
+import org.apache.logging.log4j.util.PerformanceSensitive;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+import core.KeywordBasedLogMaskingEngine;
+import strategy.masking.ReloadableMaskingEngine;
+
+/**
+ * 메시지를 마스킹해 레이아웃 버퍼에 바로 쓰는 Log4j2 패턴 컨버터({@code %maskedMsg}, {@code %mm}).
+ *
+ * <p>
+ * {@link StringBuilderFormattable} 메시지(ParameterizedMessage 등)는 스레드별로 재사용하는 작업 버퍼에 포맷한 뒤,
+ * {@link KeywordBasedLogMaskingEngine#maskTo(CharSequence, int, int, StringBuilder)}로 레이아웃이 넘겨준 버퍼에
+ * 마스킹 결과를 이어 쓴다. 내장 마스커만 쓰면 이벤트마다 할당이 없어 Log4j2 garbage-free 모드를 깨지 않는다.
+ * 다른 메시지는 {@code getFormattedMessage()} 문자열을 같은 방식으로 쓴다.
+ * </p>
+ *
+ * <p>
+ * {@code %maskedMsg{keyless}}는 key 없이 등장한 PII도 마스킹한다(문자열 경로라 할당이 생긴다).
+ * 엔진은 Logback 연동과 같은 설정({@code masking.keywords.file} 또는 클래스패스 {@code masking-keywords.properties})으로
+ * 만들고, 설정 파일이 바뀌면 교체한다.
+ * </p>
+ *
+ * <pre>{@code
+ * <PatternLayout pattern="%d %-5level %logger - %maskedMsg%n"/>
+ * }</pre>
+ */
+@Plugin(name = "MaskingMessagePatternConverter", category = PatternConverter.CATEGORY)
+@ConverterKeys({"maskedMsg", "mm"})
+@PerformanceSensitive("allocation")
+public final class MaskingMessagePatternConverter extends LogEventPatternConverter {
+
+	/** 엔진 재적재·감시 실패는 Log4j2 StatusLogger로 알린다 */
+	private static final ReloadableMaskingEngine engines = ReloadableMaskingEngine.fromSystemProperty()
+			.onError((message, e) -> StatusLogger.getLogger().error(message, e));
+
+	/** key 없는 PII 탐지 옵션 값 */
+	static final String KEYLESS_OPTION = "keyless";
+
+	/** 스레드별 작업 버퍼. 쓰는 동안은 비워 두어, 포맷 중 같은 스레드에서 다시 로깅해도 섞이지 않는다 */
+	private static final ThreadLocal<StringBuilder> SCRATCH = new ThreadLocal<>();
+
+	private final boolean keylessMode;
+
+	private MaskingMessagePatternConverter(String[] options) {
+		super("MaskedMessage", "message");
+		boolean keyless = false;
+		if (options != null) {
+			for (String option : options) {
+				if (option != null && KEYLESS_OPTION.equalsIgnoreCase(option.trim())) keyless = true;
+			}
+		}
+		this.keylessMode = keyless;
+	}
+
+	/** Log4j2 플러그인 팩토리. */
+	public static MaskingMessagePatternConverter newInstance(Configuration config, String[] options) {
+		return new MaskingMessagePatternConverter(options);
+	}
+
+	/** 이 컨버터가 쓰는 현재 마스킹 엔진(Log4j2 연동 구성요소끼리 공유). */
+	public static KeywordBasedLogMaskingEngine engine() {
+		return engines.get();
+	}
+
+	/** 엔진 홀더(필요할 때 {@link ReloadableMaskingEngine#reload()}로 즉시 재적재). */
+	public static ReloadableMaskingEngine engines() {
+		return engines;
+	}
+
+	@Override
+	public void format(LogEvent event, StringBuilder toAppendTo) {
+		Message message = event.getMessage();
+		if (message == null) return;
+		KeywordBasedLogMaskingEngine engine = engines.get();
+
+		// 설정 파일의 keyless=true는 engine.mask()에 이미 들어 있다
+		if (keylessMode && !engine.isKeylessDetection()) {
+			toAppendTo.append(engine.maskKeyless(engine.mask(message.getFormattedMessage())));
+			return;
+		}
+		if (!(message instanceof StringBuilderFormattable)) {
+			String text = message.getFormattedMessage();
+			if (text != null) engine.maskTo(text, 0, text.length(), toAppendTo);
+			return;
+		}
+
+		StringBuilder scratch = acquire();
+		try {
+			((StringBuilderFormattable) message).formatTo(scratch);
+			engine.maskTo(scratch, 0, scratch.length(), toAppendTo);
+		} finally {
+			release(scratch);
+		}
+	}
+
+	private static StringBuilder acquire() {
+		if (!Constants.ENABLE_THREADLOCALS) return new StringBuilder(Constants.MAX_REUSABLE_MESSAGE_SIZE);
+		StringBuilder sb = SCRATCH.get();
+		if (sb == null) return new StringBuilder(Constants.MAX_REUSABLE_MESSAGE_SIZE);
+		SCRATCH.set(null);
+		return sb;
+	}
+
+	private static void release(StringBuilder sb) {
+		if (!Constants.ENABLE_THREADLOCALS) return;
+		// 큰 메시지 하나 때문에 커진 버퍼를 계속 붙잡지 않는다(Log4j2 재사용 메시지와 같은 상한)
+		if (sb.capacity() > Constants.MAX_REUSABLE_MESSAGE_SIZE) {
+			sb.setLength(Constants.MAX_REUSABLE_MESSAGE_SIZE);
+			sb.trimToSize();
+		}
+		sb.setLength(0);
+		SCRATCH.set(sb);
+	}
+}
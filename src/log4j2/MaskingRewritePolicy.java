@@ -0,0 +1,65 @@
+package log4j2;
+
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.rewrite.RewritePolicy;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+import core.KeywordBasedLogMaskingEngine;
+
+/**
+ * 이벤트 메시지를 마스킹한 이벤트로 바꾸는 RewritePolicy. 레이아웃을 바꿀 수 없는 appender(JSON 레이아웃, 원격 전송 등)용이다.
+ *
+ * <p>
+ * 마스킹할 것이 없으면 원래 이벤트를 그대로 넘기고, 있으면 포맷된 메시지를 마스킹한 {@link SimpleMessage}로
+ * 바꾼 복사본을 만든다(인자 목록은 넘기지 않는다). 이벤트를 복사하므로 garbage-free가 아니며,
+ * 할당 없이 쓰려면 {@link MaskingMessagePatternConverter}를 쓴다. 엔진은 그 컨버터와 공유한다.
+ * </p>
+ *
+ * <pre>{@code
+ * <Rewrite name="MASKED">
+ *     <MaskingRewritePolicy keyless="false"/>
+ *     <AppenderRef ref="JSON"/>
+ * </Rewrite>
+ * }</pre>
+ */
+@Plugin(name = "MaskingRewritePolicy", category = Core.CATEGORY_NAME, elementType = "rewritePolicy", printObject = true)
+public final class MaskingRewritePolicy implements RewritePolicy {
+
+	private final boolean keyless;
+
+	private MaskingRewritePolicy(boolean keyless) {
+		this.keyless = keyless;
+	}
+
+	/** Log4j2 플러그인 팩토리. keyless이면 key 없이 등장한 PII도 마스킹한다. */
+	@PluginFactory
+	public static MaskingRewritePolicy createPolicy(@PluginAttribute(value = "keyless", defaultBoolean = false) boolean keyless) {
+		return new MaskingRewritePolicy(keyless);
+	}
+
+	@Override
+	public LogEvent rewrite(LogEvent source) {
+		Message message = source.getMessage();
+		if (message == null) return source;
+
+		KeywordBasedLogMaskingEngine engine = MaskingMessagePatternConverter.engine();
+		String formatted = message.getFormattedMessage();
+		String masked = engine.mask(formatted);
+		// 설정 파일의 keyless=true는 engine.mask()에 이미 들어 있다
+		if (keyless && !engine.isKeylessDetection()) masked = engine.maskKeyless(masked);
+		if (masked == null || masked.equals(formatted)) return source;
+
+		return new Log4jLogEvent.Builder(source).setMessage(new SimpleMessage(masked)).build();
+	}
+
+	@Override
+	public String toString() {
+		return "MaskingRewritePolicy[keyless=" + keyless + "]";
+	}
+}
@@ -0,0 +1,153 @@
+package logback;
+
+import java.util.List;
+import java.util.Map;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+import strategy.masking.MaskingThrowableProxyConverter;
+import strategy.masking.PIIConverter;
+
+/**
+ * 마스킹이 끝난 메시지를 담은 이벤트 래퍼.
+ *
+ * <p>
+ * 메시지는 이미 포맷·마스킹된 문자열로 고정하고 인자 배열은 비워서,
+ * 하위 appender/layout이 원본 인자로 메시지를 다시 만들 수 없게 한다.
+ * MDC와 key-value pair도 마스킹된 것을 받을 수 있고, 예외는 메시지(cause·suppressed 포함)를 마스킹한
+ * proxy로 바꾼다({@link MaskingThrowableProxyConverter#maskProxy}). 그 외 값(marker 이름 등)은 원본 이벤트에 위임한다.
+ * </p>
+ */
+public final class MaskedLoggingEvent implements ILoggingEvent {
+
+    private final ILoggingEvent original;
+    private final String maskedMessage;
+    private final Map<String, String> maskedMdc;
+    private final List<KeyValuePair> maskedKeyValuePairs;
+    private final IThrowableProxy maskedThrowable;
+
+    public MaskedLoggingEvent(ILoggingEvent original, String maskedMessage) {
+        this(original, maskedMessage, original.getMDCPropertyMap(), original.getKeyValuePairs());
+    }
+
+    /** 예외 메시지는 현재 엔진({@link PIIConverter#engine()})으로 마스킹한다. */
+    public MaskedLoggingEvent(ILoggingEvent original, String maskedMessage,
+                              Map<String, String> maskedMdc, List<KeyValuePair> maskedKeyValuePairs) {
+        this(original, maskedMessage, maskedMdc, maskedKeyValuePairs,
+                MaskingThrowableProxyConverter.maskProxy(PIIConverter.engine(), original.getThrowableProxy()));
+    }
+
+    public MaskedLoggingEvent(ILoggingEvent original, String maskedMessage, Map<String, String> maskedMdc,
+                              List<KeyValuePair> maskedKeyValuePairs, IThrowableProxy maskedThrowable) {
+        this.original = original;
+        this.maskedMessage = maskedMessage;
+        this.maskedMdc = maskedMdc;
+        this.maskedKeyValuePairs = maskedKeyValuePairs;
+        this.maskedThrowable = maskedThrowable;
+    }
+
+    /** 마스킹 전 원본 이벤트. */
+    public ILoggingEvent original() {
+        return original;
+    }
+
+    @Override
+    public String getMessage() {
+        return maskedMessage;
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return null;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        return maskedMessage;
+    }
+
+    @Override
+    public String getThreadName() {
+        return original.getThreadName();
+    }
+
+    @Override
+    public Level getLevel() {
+        return original.getLevel();
+    }
+
+    @Override
+    public String getLoggerName() {
+        return original.getLoggerName();
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return original.getLoggerContextVO();
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return maskedThrowable;
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return original.getCallerData();
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return original.hasCallerData();
+    }
+
+    @Override
+    public List<Marker> getMarkerList() {
+        return original.getMarkerList();
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return maskedMdc;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Map<String, String> getMdc() {
+        return maskedMdc;
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return original.getTimeStamp();
+    }
+
+    @Override
+    public int getNanoseconds() {
+        return original.getNanoseconds();
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return original.getSequenceNumber();
+    }
+
+    @Override
+    public List<KeyValuePair> getKeyValuePairs() {
+        return maskedKeyValuePairs;
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        original.prepareForDeferredProcessing();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + getLevel() + "] " + maskedMessage;
+    }
+}
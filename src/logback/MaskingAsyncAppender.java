@@ -0,0 +1,346 @@
+package logback;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import core.FieldMasker;
+import core.KeywordBasedLogMaskingEngine;
+import strategy.masking.MaskingKeyValuePairConverter;
+import strategy.masking.MaskingThrowableProxyConverter;
+import strategy.masking.PIIConverter;
+import util.MpmcRingBuffer;
+
+/**
+ * 마스킹을 애플리케이션 스레드 밖으로 옮기는 비동기 appender.
+ *
+ * <p>
+ * 이벤트는 미리 할당한 락 없는 링 버퍼({@link MpmcRingBuffer})에 넣고,
+ * 전용 워커 스레드가 batchSize 단위로 꺼내 메시지·MDC·key-value pair·예외 메시지를 마스킹한 뒤
+ * {@link MaskedLoggingEvent}로 감싸 하위 appender에 넘긴다.
+ * 하위 appender에는 마스킹된 이벤트만 전달되며, 종료 시 남은 이벤트도 마스킹 후 전달한다.
+ * 워커가 2개 이상이면 이벤트 순서는 보장되지 않는다.
+ * </p>
+ *
+ * <p>
+ * 메시지는 {@link PIIConverter}의 로거·마커 규칙과 {@code %msg{arguments}}를 거치지 않고 포맷된 전체를 엔진으로 마스킹한다.
+ * 하위 layout은 평범한 {@code %msg}를 쓰면 되고, {@link PIIConverter} 등 마스킹 컨버터를 두어도
+ * {@link MaskedLoggingEvent}는 다시 마스킹하지 않고 그대로 출력한다.
+ * </p>
+ *
+ * <p>
+ * 버퍼가 가득 찼을 때의 처리(overflowPolicy):
+ * <ul>
+ *   <li>BLOCK: 자리가 날 때까지 호출 스레드가 대기(기본값)</li>
+ *   <li>DROP_DEBUG_INFO: INFO 이하 이벤트는 버리고, WARN 이상은 대기</li>
+ *   <li>MASK_INLINE: 호출 스레드에서 바로 마스킹해 하위 appender에 전달</li>
+ * </ul>
+ * </p>
+ *
+ * <pre>{@code
+ * <appender name="ASYNC" class="logback.MaskingAsyncAppender">
+ *     <queueSize>8192</queueSize>
+ *     <workerCount>1</workerCount>
+ *     <overflowPolicy>DROP_DEBUG_INFO</overflowPolicy>
+ *     <appender-ref ref="STDOUT" />
+ * </appender>
+ * }</pre>
+ */
+public class MaskingAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_DEBUG_INFO,
+        MASK_INLINE
+    }
+
+    public static final int DEFAULT_QUEUE_SIZE = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    /** 종료 시 워커가 남은 이벤트를 비우기를 기다리는 최대 시간(ms) */
+    public static final int DEFAULT_MAX_FLUSH_TIME = 1000;
+
+    /** 빈 버퍼에서 워커가 쉬는 시간 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    /** 가득 찬 버퍼에서 생산자가 쉬는 시간 */
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AppenderAttachableImpl<ILoggingEvent> aai = new AppenderAttachableImpl<>();
+    private int appenderCount;
+
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int workerCount = 1;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+    private boolean includeCallerData;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    private MpmcRingBuffer<ILoggingEvent> ringBuffer;
+    private Thread[] workers;
+    private volatile boolean draining;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder maskedInline = new LongAdder();
+    private final LongAdder maskingFailures = new LongAdder();
+
+    @Override
+    public void start() {
+        if (isStarted()) return;
+        if (appenderCount == 0) {
+            addError("No attached appenders found.");
+            return;
+        }
+        if (queueSize < 2 || workerCount < 1 || batchSize < 1) {
+            addError("Invalid queueSize/workerCount/batchSize: " + queueSize + "/" + workerCount + "/" + batchSize);
+            return;
+        }
+
+        ringBuffer = new MpmcRingBuffer<>(queueSize);
+        draining = false;
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            Thread t = new Thread(this::runWorker, "MaskingAsyncAppender-Worker-" + getName() + "-" + i);
+            t.setDaemon(true);
+            workers[i] = t;
+        }
+        super.start();
+        for (Thread t : workers) t.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) return;
+        super.stop(); // 이후 append 진입 차단
+
+        draining = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFlushTime);
+        for (Thread t : workers) {
+            LockSupport.unpark(t);
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) break;
+            try {
+                t.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // 워커를 기다린 뒤 한 번 더 비운다: 시간 안에 비우지 못한 이벤트, 워커가 끝난 뒤 들어온 이벤트도
+        // 원문으로 내보내지 않고 여기서 마스킹해 전달
+        int leftover = drainQueued();
+        if (leftover > 0) addInfo("Masked and flushed " + leftover + " queued events on the stopping thread.");
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) event.getCallerData();
+
+        // stop() 직전에 started 검사를 통과한 호출: 워커가 끝났을 수 있으므로 버퍼에 넣지 않고 바로 전달
+        if (draining) {
+            maskedInline.increment();
+            dispatch(event);
+            return;
+        }
+        if (ringBuffer.offer(event)) {
+            // 넣는 사이 종료가 시작됐으면 stop()의 마지막 비우기를 지났을 수 있으므로 직접 비운다
+            if (draining) drainQueued();
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case MASK_INLINE -> {
+                maskedInline.increment();
+                dispatch(event);
+            }
+            case DROP_DEBUG_INFO -> {
+                if (event.getLevel().toInt() <= Level.INFO_INT) {
+                    dropped.increment();
+                } else {
+                    putBlocking(event);
+                }
+            }
+            case BLOCK -> putBlocking(event);
+        }
+    }
+
+    /** 자리가 날 때까지 대기. 종료 중이거나 인터럽트되면 호출 스레드에서 마스킹해 전달한다(넣은 뒤 종료가 시작됐으면 직접 비운다). */
+    private void putBlocking(ILoggingEvent event) {
+        while (!ringBuffer.offer(event)) {
+            if (draining || Thread.currentThread().isInterrupted()) {
+                maskedInline.increment();
+                dispatch(event);
+                return;
+            }
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        if (draining) drainQueued();
+    }
+
+    private void runWorker() {
+        ILoggingEvent[] batch = new ILoggingEvent[batchSize];
+        ILoggingEvent[] masked = new ILoggingEvent[batchSize];
+        while (true) {
+            int n = ringBuffer.drainTo(batch, batchSize);
+            if (n == 0) {
+                if (draining) return;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            // 한 batch를 모두 마스킹한 뒤 한꺼번에 전달
+            for (int i = 0; i < n; i++) {
+                masked[i] = mask(batch[i]);
+                batch[i] = null;
+            }
+            for (int i = 0; i < n; i++) {
+                if (masked[i] != null) aai.appendLoopOnAppenders(masked[i]);
+                masked[i] = null;
+            }
+        }
+    }
+
+    /** 버퍼에 남은 이벤트를 호출 스레드에서 마스킹해 전달한다. 전달한 수를 반환. */
+    private int drainQueued() {
+        int n = 0;
+        ILoggingEvent e;
+        while ((e = ringBuffer.poll()) != null) {
+            dispatch(e);
+            n++;
+        }
+        return n;
+    }
+
+    private void dispatch(ILoggingEvent event) {
+        ILoggingEvent masked = mask(event);
+        if (masked != null) aai.appendLoopOnAppenders(masked);
+    }
+
+    /** 마스킹된 이벤트. 마스킹에 실패하면 원문을 내보내지 않도록 null(이벤트 폐기). */
+    private ILoggingEvent mask(ILoggingEvent event) {
+        try {
+            KeywordBasedLogMaskingEngine engine = PIIConverter.engine();
+            FieldMasker fields = engine.fieldMasker();
+            return new MaskedLoggingEvent(event, engine.mask(event.getFormattedMessage()),
+                    fields.maskAll(event.getMDCPropertyMap()),
+                    MaskingKeyValuePairConverter.maskPairs(fields, event.getKeyValuePairs()),
+                    MaskingThrowableProxyConverter.maskProxy(engine, event.getThrowableProxy()));
+        } catch (RuntimeException e) {
+            maskingFailures.increment();
+            addError("Failed to mask event; event dropped.", e);
+            return null;
+        }
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /** DROP_DEBUG_INFO 정책으로 버린 이벤트 수 */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /** 버퍼가 가득 차거나 종료 중이어서 호출 스레드에서 마스킹한 이벤트 수 */
+    public long getMaskedInlineCount() {
+        return maskedInline.sum();
+    }
+
+    /** 마스킹 중 예외로 폐기한 이벤트 수 */
+    public long getMaskingFailureCount() {
+        return maskingFailures.sum();
+    }
+
+    public int getNumberOfElementsInQueue() {
+        return ringBuffer == null ? 0 : ringBuffer.size();
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenderCount++;
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to MaskingAsyncAppender.");
+        aai.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return aai.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return aai.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return aai.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        aai.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return aai.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return aai.detachAppender(name);
+    }
+}
@@ -0,0 +1,107 @@
+package logback;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.EncoderBase;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.spi.ContextAware;
+import core.KeywordBasedLogMaskingEngine;
+import strategy.masking.PIIConverter;
+
+/**
+ * 다른 encoder가 만든 최종 UTF-8 바이트를 통째로 마스킹하는 encoder 래퍼.
+ *
+ * <p>
+ * {@code %msg}뿐 아니라 {@code %mdc}, {@code %X{...}}, 마커, 커스텀 컨버터 출력까지
+ * 레이아웃이 렌더링한 한 줄 전체가 대상이다. 바이트를 문자열로 디코딩하지 않고
+ * {@link core.KeywordBasedLogMaskingEngine#maskUtf8(byte[])}로 바로 훑으며(한글 key 포함),
+ * 작업 버퍼는 스레드별로 재사용하고, 마스킹할 것이 없으면 하위 encoder의 배열을 그대로 반환한다.
+ * </p>
+ *
+ * <p>
+ * 하위 encoder는 UTF-8로 인코딩해야 한다({@code <charset>UTF-8</charset>}).
+ * 다른 charset이면 시작 시 경고하며, ASCII key만 정상 동작한다.
+ * </p>
+ *
+ * <pre>{@code
+ * <appender name="FILE" class="ch.qos.logback.core.FileAppender">
+ *     <file>app.log</file>
+ *     <encoder class="logback.MaskingEncoder">
+ *         <keyless>true</keyless>
+ *         <encoder class="ch.qos.logback.classic.encoder.PatternLayoutEncoder">
+ *             <charset>UTF-8</charset>
+ *             <pattern>%d %-5level [%X{customerPhone}] %logger - %msg%n</pattern>
+ *         </encoder>
+ *     </encoder>
+ * </appender>
+ * }</pre>
+ */
+public class MaskingEncoder extends EncoderBase<ILoggingEvent> {
+
+    private Encoder<ILoggingEvent> encoder;
+    private boolean keyless;
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public boolean isKeyless() {
+        return keyless;
+    }
+
+    /** true이면 key 없이 등장한 PII도 마스킹한다. 기본 false(엔진 설정을 따른다). */
+    public void setKeyless(boolean keyless) {
+        this.keyless = keyless;
+    }
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No nested encoder was configured for MaskingEncoder \"" + getClass().getSimpleName() + "\"");
+            return;
+        }
+        if (encoder instanceof ContextAware && ((ContextAware) encoder).getContext() == null) {
+            ((ContextAware) encoder).setContext(getContext());
+        }
+        if (encoder instanceof LayoutWrappingEncoder) {
+            Charset charset = ((LayoutWrappingEncoder<?>) encoder).getCharset();
+            if (charset == null) charset = Charset.defaultCharset();
+            if (!StandardCharsets.UTF_8.equals(charset)) {
+                addWarn("Nested encoder charset is " + charset + "; MaskingEncoder expects UTF-8 (non-ASCII keys will not match)");
+            }
+        }
+        if (!encoder.isStarted()) encoder.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (encoder != null) encoder.stop();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return encoder.headerBytes();
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        byte[] bytes = encoder.encode(event);
+        if (bytes == null || bytes.length == 0) return bytes;
+        KeywordBasedLogMaskingEngine engine = PIIConverter.engine();
+        return engine.maskUtf8(bytes, keyless || engine.isKeylessDetection());
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return encoder.footerBytes();
+    }
+}
@@ -1,5 +1,9 @@
 package strategy.masking;
 
+import core.PiiType;
+import core.RangePiiMasker;
+import util.StringUtils;
+
 /**
  * 금융 계좌번호 마스킹을 담당하는 클래스.
  *
@@ -21,7 +25,7 @@ package strategy.masking;
  * 입력 문자열 탐지 및 로깅 처리는 외부 공통 로직에서 수행하는 것을 전제로 한다.
  * </p>
  */
-public class AccountNumber implements MaskConvertor {
+public class AccountNumber implements MaskConvertor, RangePiiMasker {
 
 	//싱글톤 패턴 적용
 	private static final AccountNumber INSTANCE = new AccountNumber();
@@ -32,6 +36,11 @@ public class AccountNumber implements MaskConvertor {
 		return INSTANCE;
 	}
 	
+	@Override
+	public PiiType type() {
+		return PiiType.ACCOUNT;
+	}
+
     /**
      * 계좌번호를 마스킹하여 반환한다.
      *
@@ -41,13 +50,23 @@ public class AccountNumber implements MaskConvertor {
 	@Override
     public String convert(String target) {
         if (target == null) return null;
+        return mask(target);
+    }
 
-        // 숫자만 추출하여 계좌번호 길이 판단
-        String digits = target.replaceAll("\\D", "");
-        int n = digits.length();
+    /**
+     * 구간의 숫자(ASCII 0-9) 위치만 마스킹해 out에 덧붙인다. 숫자를 먼저 세어 노출 구간을 정하고
+     * 한 번 더 훑으며 바로 써 넣으므로 숫자만 모은 중간 문자열을 만들지 않는다.
+     */
+    @Override
+    public boolean maskTo(CharSequence s, int start, int end, StringBuilder out) {
+        // 숫자만 세어 계좌번호 길이 판단
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            if (StringUtils.isAsciiDigit(s.charAt(i))) n++;
+        }
 
-        // 숫자가 없는 경우 원문 그대로 반환
-        if (n == 0) return target;
+        // 숫자가 없는 경우 원문 그대로
+        if (n == 0) return false;
 
         // 기본 정책: 앞 3자리 + 뒤 3자리 노출
         int prefix = 3, suffix = 3;
@@ -57,26 +76,19 @@ public class AccountNumber implements MaskConvertor {
             prefix = 0;
             suffix = Math.min(1, n);
         }
-
-        // 숫자 기준 마스킹 문자열 생성
-        String maskedDigits =
-                digits.substring(0, prefix)
-              + "*".repeat(n - prefix - suffix)
-              + digits.substring(n - suffix);
+        if (prefix + suffix == n) return false;
 
         // 원문 형식(구분자)을 유지하면서 숫자 위치만 마스킹
-        StringBuilder out = new StringBuilder(target.length());
         int di = 0;
-
-        for (int i = 0; i < target.length(); i++) {
-            char ch = target.charAt(i);
-            if (Character.isDigit(ch)) {
-                out.append(maskedDigits.charAt(di++));
+        for (int i = start; i < end; i++) {
+            char ch = s.charAt(i);
+            if (StringUtils.isAsciiDigit(ch)) {
+                out.append(di < prefix || di >= n - suffix ? ch : '*');
+                di++;
             } else {
                 out.append(ch);
             }
         }
-
-        return out.toString();
+        return true;
     }
 }
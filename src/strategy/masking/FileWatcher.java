@@ -0,0 +1,69 @@
+package strategy.masking;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 파일 하나가 만들어지거나 바뀌면 콜백을 호출하는 감시 데몬 스레드({@link ReloadableMaskingEngine}, {@link ReloadableSecretBlocklist} 공용).
+ * 저장 중 이어지는 이벤트는 {@value #DEBOUNCE_MILLIS}ms 동안 모아 한 번만 호출한다.
+ */
+final class FileWatcher {
+
+	/** 연속된 파일 이벤트(저장 중 여러 번 발생)를 한 번의 재적재로 묶는 대기 시간 */
+	static final long DEBOUNCE_MILLIS = 200;
+
+	private FileWatcher() {}
+
+	/**
+	 * target이 있는 디렉터리를 감시하기 시작한다. 반환한 WatchService를 닫으면 스레드가 끝난다.
+	 */
+	static WatchService start(Path target, String threadName, Runnable onChange) throws IOException {
+		WatchService ws = FileSystems.getDefault().newWatchService();
+		try {
+			target.getParent().register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException | RuntimeException e) {
+			ws.close();
+			throw e;
+		}
+
+		Path fileName = target.getFileName();
+		Thread t = new Thread(() -> loop(ws, fileName, onChange), threadName);
+		t.setDaemon(true);
+		t.start();
+		return ws;
+	}
+
+	private static void loop(WatchService ws, Path fileName, Runnable onChange) {
+		try {
+			while (true) {
+				if (!isRelevant(ws.take(), fileName)) continue;
+				// 저장 중 이어지는 이벤트를 흡수한 뒤 한 번만 호출
+				WatchKey more;
+				while ((more = ws.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+					isRelevant(more, fileName);
+				}
+				onChange.run();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// close()
+		}
+	}
+
+	private static boolean isRelevant(WatchKey key, Path fileName) {
+		boolean relevant = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) relevant = true;
+		}
+		key.reset();
+		return relevant;
+	}
+}
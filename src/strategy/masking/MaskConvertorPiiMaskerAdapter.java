@@ -6,6 +6,8 @@ import core.PiiType;
 /**
  * MaskConvertor 구현체를 PiiMasker 규약에 맞게 감싸서
  * KeywordBasedLogMaskingEngine에서 사용할 수 있게 한다.
+ * 내장 마스커는 {@link core.RangePiiMasker}를 직접 구현하므로 감쌀 필요가 없고,
+ * 문자열 API만 있는 외부 전략을 붙일 때 쓴다(value마다 문자열을 잘라 넘긴다).
  */
 public final class MaskConvertorPiiMaskerAdapter implements PiiMasker {
 
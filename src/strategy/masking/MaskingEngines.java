@@ -0,0 +1,169 @@
+package strategy.masking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import core.KeywordBasedLogMaskingEngine;
+import core.MaskingBudget;
+import core.PiiMasker;
+import core.PiiType;
+import dictionary.ForbiddenKeywordPolicy;
+import dictionary.PiiKeywordDictionary;
+
+/**
+ * 기본 구성의 마스킹 엔진을 만드는 정적 팩토리.
+ * PIIConverter, 배치 도구 등 엔진을 직접 조립하지 않는 진입점이 같은 구성을 쓰도록 한곳에 모은다.
+ */
+public final class MaskingEngines {
+
+	/** 클래스패스에서 먼저 찾는 키워드 사전 */
+	public static final String KEYWORDS_RESOURCE = "masking-keywords.properties";
+
+	private MaskingEngines() {}
+
+	/**
+	 * 기본 구성의 빌더: 클래스패스의 {@value #KEYWORDS_RESOURCE}가 있으면 그 설정({@link #builder(Properties)}),
+	 * 없거나 읽지 못하면 기본 사전·기본 금지 키(REDACT)·내장 마스커 4종(싱글톤).
+	 */
+	public static KeywordBasedLogMaskingEngine.Builder defaultBuilder() {
+        // Properties 파일 우선 로드 시도, 없으면 기본값 사용
+        try {
+            Properties props = loadResource(KEYWORDS_RESOURCE);
+            if (props != null) return builder(props);
+        } catch (Exception e) {
+            // Properties 파일 로드 실패 시 기본값 사용
+        }
+        return builtinBuilder();
+	}
+
+	/** 설정 파일 없이 쓰는 내장 구성: 기본 사전, 기본 금지 키(REDACT), 내장 마스커 4종. */
+	static KeywordBasedLogMaskingEngine.Builder builtinBuilder() {
+        ForbiddenKeywordPolicy forbidden = new ForbiddenKeywordPolicy(
+                ForbiddenKeywordPolicy.defaultForbiddenKeys(),
+                ForbiddenKeywordPolicy.Mode.REDACT
+        );
+
+        return KeywordBasedLogMaskingEngine.builder(PiiKeywordDictionary.defaultDictionary(), forbidden, defaultMaskers());
+	}
+
+	/**
+	 * properties 설정으로 만든 빌더. 사전 항목(type=alias,...) 외에 다음 key를 읽는다.
+	 * <ul>
+	 *   <li>{@code forbidden}: 콤마 구분 금지 키(없으면 기본 금지 키)</li>
+	 *   <li>{@code forbidden.mode}: REDACT | DROP_VALUE | PASS(없으면 REDACT)</li>
+	 *   <li>{@code keyless}: key 없는 PII 탐지 여부(없으면 false)</li>
+	 *   <li>{@code maskers}: 켤 마스커 타입 목록(예: {@code rrn,phone}, 없으면 4종 모두)</li>
+	 *   <li>{@code prescan}: 이 길이 이상인 줄에 구분자 prescan 적용(없으면 0, 끔)</li>
+	 *   <li>{@code budget.maxLength}, {@code budget.maxMillis}, {@code budget.policy}: 긴 줄 예산({@link MaskingBudget#fromProperties}, 없으면 예산 없음)</li>
+	 *   <li>{@code pseudonym}: 가명으로 바꿀 타입 목록(예: {@code phone,account}, {@link PseudonymMasker}).
+	 *       키는 {@code pseudonym.keyFile} 파일의 Base64 문자열로 준다(설정 파일에 키를 두지 않는다)</li>
+	 *   <li>{@code secrets.file}: 줄 어디에 나오든 치환할 비밀 값 목록 파일({@link ReloadableSecretBlocklist#shared(Path)}).
+	 *       파일이 바뀌면 엔진을 다시 만들지 않고 목록만 교체한다</li>
+	 * </ul>
+	 * 값이 잘못되면 예외를 던진다.
+	 */
+	public static KeywordBasedLogMaskingEngine.Builder builder(Properties props) {
+		List<PiiMasker> maskers = defaultMaskers();
+		String enabled = props.getProperty("maskers");
+		if (enabled != null) {
+			List<PiiType> types = types(enabled);
+			maskers = maskers.stream().filter(m -> types.contains(m.type())).toList();
+		}
+		List<PiiType> pseudonymTypes = types(props.getProperty("pseudonym"));
+		if (!pseudonymTypes.isEmpty()) {
+			byte[] key = readKey(props.getProperty("pseudonym.keyFile"));
+			maskers = maskers.stream()
+					.map(m -> pseudonymTypes.contains(m.type()) ? (PiiMasker) new PseudonymMasker(m, key) : m)
+					.toList();
+		}
+
+		Path secretsFile = secretsFile(props);
+
+		return KeywordBasedLogMaskingEngine.builder(
+						PiiKeywordDictionary.fromProperties(props),
+						ForbiddenKeywordPolicy.fromProperties(props),
+						maskers)
+				.keylessDetection(Boolean.parseBoolean(props.getProperty("keyless", "false").trim()))
+				.prescan(Integer.parseInt(props.getProperty("prescan", "0").trim()))
+				.budget(MaskingBudget.fromProperties(props))
+				.secrets(secretsFile == null ? null : ReloadableSecretBlocklist.shared(secretsFile));
+	}
+
+	/** 콤마 구분 PiiType 이름 목록. null이면 빈 목록. */
+	private static List<PiiType> types(String csv) {
+		List<PiiType> types = new ArrayList<>();
+		if (csv == null) return types;
+		for (String t : csv.split(",")) {
+			if (!t.isBlank()) types.add(PiiType.valueOf(t.trim().toUpperCase(Locale.ROOT)));
+		}
+		return types;
+	}
+
+	/** 가명이 켜져 있으면 키 파일 경로, 아니면 null. 재적재가 키 교체를 알아차리는 데 쓴다. */
+	static Path pseudonymKeyFile(Properties props) {
+		if (props == null || types(props.getProperty("pseudonym")).isEmpty()) return null;
+		String keyFile = props.getProperty("pseudonym.keyFile");
+		return keyFile == null || keyFile.isBlank() ? null : Path.of(keyFile.trim()).toAbsolutePath();
+	}
+
+	/** {@code secrets.file} 경로(지정하지 않았으면 null). */
+	static Path secretsFile(Properties props) {
+		String secretsFile = props == null ? null : props.getProperty("secrets.file");
+		return secretsFile == null || secretsFile.isBlank() ? null : Path.of(secretsFile.trim());
+	}
+
+	/** 가명 키 파일(Base64 한 줄)을 읽는다. */
+	private static byte[] readKey(String keyFile) {
+		if (keyFile == null || keyFile.isBlank()) {
+			throw new IllegalArgumentException("pseudonym requires pseudonym.keyFile");
+		}
+		try {
+			return Base64.getDecoder().decode(Files.readString(Path.of(keyFile.trim())).trim());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read pseudonym key file: " + keyFile, e);
+		}
+	}
+
+	/** 파일에서 설정을 읽는다(UTF-8, 한글 alias 허용). */
+	public static Properties loadProperties(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return loadProperties(in);
+		}
+	}
+
+	/** 클래스패스 리소스에서 설정을 읽는다. 리소스가 없으면 null. */
+	public static Properties loadResource(String classpathResource) throws IOException {
+		try (InputStream in = MaskingEngines.class.getClassLoader().getResourceAsStream(classpathResource)) {
+			return in == null ? null : loadProperties(in);
+		}
+	}
+
+	private static Properties loadProperties(InputStream in) throws IOException {
+		Properties props = new Properties();
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			props.load(reader);
+		}
+		return props;
+	}
+
+	/** 내장 마스커 4종(싱글톤 인스턴스 사용) */
+	public static List<PiiMasker> defaultMaskers() {
+        return List.of(
+                ResidentNumber.getInstance(),
+                PhoneNumber.getInstance(),
+                AccountNumber.getInstance(),
+                PrimaryAccountNumber.getInstance()
+        );
+	}
+}
@@ -0,0 +1,77 @@
+package strategy.masking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import core.FieldMasker;
+import logback.MaskedLoggingEvent;
+import org.slf4j.event.KeyValuePair;
+
+/**
+ * %kvp 를 대신해 SLF4J 2 key-value pair 값을 마스킹하는 Logback 컨버터.
+ *
+ * <p>
+ * 출력 형식과 옵션은 Logback {@code KeyValuePairConverter}와 같다
+ * ({@code key="value"}를 공백으로 구분, {@code %kvp{SINGLE}} / {@code %kvp{NONE}}로 따옴표 지정).
+ * value는 {@link FieldMasker}로 key별 판별 결과에 따라 바로 마스킹한다.
+ * </p>
+ *
+ * <pre>{@code
+ * <conversionRule conversionWord="kvp" converterClass="strategy.masking.MaskingKeyValuePairConverter" />
+ * }</pre>
+ */
+public class MaskingKeyValuePairConverter extends ClassicConverter {
+
+	private String quote = "\"";
+
+	@Override
+	public void start() {
+		String option = getFirstOption();
+		if (option != null) {
+			String o = option.trim();
+			if ("SINGLE".equalsIgnoreCase(o)) quote = "'";
+			else if ("NONE".equalsIgnoreCase(o)) quote = "";
+			else if (!"DOUBLE".equalsIgnoreCase(o)) addWarn("Unknown quote option [" + option + "], using DOUBLE");
+		}
+		super.start();
+	}
+
+	@Override
+	public String convert(ILoggingEvent event) {
+		List<KeyValuePair> pairs = event instanceof MaskedLoggingEvent
+				? event.getKeyValuePairs()
+				: maskPairs(PIIConverter.engine().fieldMasker(), event.getKeyValuePairs());
+		if (pairs == null || pairs.isEmpty()) return "";
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < pairs.size(); i++) {
+			KeyValuePair kvp = pairs.get(i);
+			if (i > 0) sb.append(' ');
+			sb.append(kvp.key).append('=').append(quote).append(kvp.value).append(quote);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * key-value pair 목록의 value를 마스킹. 바뀐 것이 없으면 입력 목록을 그대로 반환하고,
+	 * 있으면 바뀐 pair만 새 {@link KeyValuePair}(value는 문자열)로 바꾼 새 목록을 만든다.
+	 */
+	public static List<KeyValuePair> maskPairs(FieldMasker masker, List<KeyValuePair> pairs) {
+		if (pairs == null || pairs.isEmpty()) return pairs;
+
+		List<KeyValuePair> out = null;
+		for (int i = 0; i < pairs.size(); i++) {
+			KeyValuePair kvp = pairs.get(i);
+			if (kvp == null || kvp.value == null) continue;
+			String value = String.valueOf(kvp.value);
+			String masked = masker.mask(kvp.key, value);
+			if (masked != value) {
+				if (out == null) out = new ArrayList<>(pairs);
+				out.set(i, new KeyValuePair(kvp.key, masked));
+			}
+		}
+		return out == null ? pairs : out;
+	}
+}
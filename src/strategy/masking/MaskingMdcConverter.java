@@ -0,0 +1,69 @@
+package strategy.masking;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.util.OptionHelper;
+import core.FieldMasker;
+import logback.MaskedLoggingEvent;
+
+/**
+ * %X / %mdc 를 대신해 MDC 값을 마스킹하는 Logback 컨버터.
+ *
+ * <p>
+ * 출력 형식과 옵션은 Logback {@code MDCConverter}와 같다({@code %X{key:-default}}, 옵션 없으면 {@code k1=v1, k2=v2}).
+ * MDC는 이미 key와 value로 나뉘어 있으므로 파싱하지 않고, key별 판별 결과를 캐시해 둔
+ * {@link FieldMasker}로 value에 마스커를 바로 적용한다(예: {@code customerPhone}, {@code acctNo}).
+ * </p>
+ *
+ * <pre>{@code
+ * <conversionRule conversionWord="X" converterClass="strategy.masking.MaskingMdcConverter" />
+ * }</pre>
+ */
+public class MaskingMdcConverter extends ClassicConverter {
+
+	private String key;
+	private String defaultValue = "";
+
+	@Override
+	public void start() {
+		String[] keyInfo = OptionHelper.extractDefaultReplacement(getFirstOption());
+		key = keyInfo[0];
+		if (keyInfo[1] != null) defaultValue = keyInfo[1];
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		key = null;
+		super.stop();
+	}
+
+	@Override
+	public String convert(ILoggingEvent event) {
+		Map<String, String> mdc = event.getMDCPropertyMap();
+		if (mdc == null) return defaultValue;
+
+		// MaskingAsyncAppender가 넘긴 MDC는 이미 마스킹되어 있다
+		FieldMasker masker = event instanceof MaskedLoggingEvent ? null : PIIConverter.engine().fieldMasker();
+		if (key == null) return outputForAllKeys(masker, mdc);
+
+		String value = mdc.get(key);
+		if (value == null) return defaultValue;
+		return masker == null ? value : masker.mask(key, value);
+	}
+
+	/** masker가 null이면 value를 그대로 쓴다(이미 마스킹된 이벤트). */
+	private static String outputForAllKeys(FieldMasker masker, Map<String, String> mdc) {
+		StringBuilder sb = new StringBuilder();
+		Iterator<Map.Entry<String, String>> it = mdc.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, String> e = it.next();
+			sb.append(e.getKey()).append('=').append(masker == null ? e.getValue() : masker.mask(e.getKey(), e.getValue()));
+			if (it.hasNext()) sb.append(", ");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,193 @@
+package strategy.masking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import org.slf4j.Marker;
+
+/**
+ * 로거 이름 접두어·마커별 마스킹 방식.
+ *
+ * <p>
+ * {@link PIIConverter} 옵션으로 구성한다:
+ * {@code logger:<이름 접두어>=<방식>}, {@code marker:<마커 이름>=<방식>}
+ * (예: {@code %msg{logger:org.springframework=BYPASS, logger:com.acme.health=FORBIDDEN_ONLY, marker:AUDIT=FULL}}).
+ * 로거 접두어는 Logback 계층처럼 '.' 단위로 맞추고({@code com.acme}은 {@code com.acme.x}에 적용, {@code com.acmex}에는 아님)
+ * 가장 긴 접두어가 이긴다. {@code logger:ROOT}는 모든 로거의 기본값이다. 이벤트 마커에 규칙이 있으면 로거 규칙보다 우선한다.
+ * </p>
+ *
+ * <p>
+ * 로거별 결정은 처음 본 로거 이름에서 한 번만 계산해 캐시한다. Logback은 같은 로거의 이벤트에 같은 이름 인스턴스를 넘기므로
+ * 캐시는 이름의 (String에 저장된) 해시로 칸을 고르고 참조 비교를 먼저 하는 open addressing 표이며,
+ * 조회는 표 필드 하나와 칸 하나를 읽는 것으로 끝난다. 같은 이름의 다른 인스턴스는 equals로 찾아, 락을 잡거나 중복으로 넣지 않는다.
+ * 표는 쓸 때 복사(copy-on-write)하므로 읽기에 락이 없다.
+ * </p>
+ */
+public final class MaskingRoutes {
+
+	/** 이벤트 메시지 처리 방식 */
+	public enum Route {
+		/** 사전 key·금지 키·(옵션이면) key 없는 PII까지 모두 마스킹 */
+		FULL,
+		/** 금지 키 value만 치환({@link core.KeywordBasedLogMaskingEngine#maskForbiddenOnly(String)}) */
+		FORBIDDEN_ONLY,
+		/** 마스킹하지 않음 */
+		BYPASS
+	}
+
+	static final String LOGGER_PREFIX = "logger:";
+	static final String MARKER_PREFIX = "marker:";
+	static final String ROOT_LOGGER = "ROOT";
+
+	/** 캐시할 로거 이름 수 상한. 넘으면 캐시하지 않고 매번 규칙으로 계산한다 */
+	static final int MAX_CACHED_LOGGERS = 8192;
+
+	private final Route rootRoute;
+	/** 긴 접두어 순 */
+	private final String[] loggerPrefixes;
+	private final Route[] loggerRoutes;
+	/** 설정 순. 없으면 길이 0 */
+	private final String[] markerNames;
+	private final Route[] markerRoutes;
+
+	/** 로거 이름 → 방식 캐시. 길이는 2의 거듭제곱, 빈 칸은 null */
+	private volatile Slot[] slots = new Slot[64];
+	private int cachedLoggers; // this 잠금
+
+	private MaskingRoutes(Route rootRoute, List<String> prefixes, List<Route> routes, List<String> markers, List<Route> markerRoutes) {
+		this.rootRoute = rootRoute;
+		Integer[] order = new Integer[prefixes.size()];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> prefixes.get(b).length() - prefixes.get(a).length());
+		this.loggerPrefixes = new String[order.length];
+		this.loggerRoutes = new Route[order.length];
+		for (int i = 0; i < order.length; i++) {
+			loggerPrefixes[i] = prefixes.get(order[i]);
+			loggerRoutes[i] = routes.get(order[i]);
+		}
+		this.markerNames = markers.toArray(new String[0]);
+		this.markerRoutes = markerRoutes.toArray(new Route[0]);
+	}
+
+	/**
+	 * 컨버터 옵션 중 {@code logger:} / {@code marker:} 규칙을 읽는다. 규칙이 없으면 null(모두 FULL).
+	 *
+	 * @throws IllegalArgumentException 형식이 틀리거나 방식 이름을 모를 때
+	 */
+	public static MaskingRoutes fromOptions(List<String> options) {
+		if (options == null) return null;
+		Route root = Route.FULL;
+		List<String> prefixes = new ArrayList<>();
+		List<Route> routes = new ArrayList<>();
+		List<String> markers = new ArrayList<>();
+		List<Route> markerRoutes = new ArrayList<>();
+		boolean any = false;
+
+		for (String option : options) {
+			String o = option.trim();
+			boolean logger = o.regionMatches(true, 0, LOGGER_PREFIX, 0, LOGGER_PREFIX.length());
+			boolean marker = !logger && o.regionMatches(true, 0, MARKER_PREFIX, 0, MARKER_PREFIX.length());
+			if (!logger && !marker) continue;
+
+			int eq = o.lastIndexOf('=');
+			String name = eq < 0 ? "" : o.substring(logger ? LOGGER_PREFIX.length() : MARKER_PREFIX.length(), eq).trim();
+			if (name.isEmpty()) throw new IllegalArgumentException("Expected logger:<name>=<route> or marker:<name>=<route>: " + o);
+			Route route = Route.valueOf(o.substring(eq + 1).trim().toUpperCase(Locale.ROOT));
+			any = true;
+
+			if (marker) {
+				markers.add(name);
+				markerRoutes.add(route);
+			} else if (ROOT_LOGGER.equalsIgnoreCase(name)) {
+				root = route;
+			} else {
+				prefixes.add(name);
+				routes.add(route);
+			}
+		}
+		return any ? new MaskingRoutes(root, prefixes, routes, markers, markerRoutes) : null;
+	}
+
+	/** 이벤트의 처리 방식. 마커 규칙이 있으면 그것, 없으면 로거 규칙. */
+	public Route routeFor(ILoggingEvent event) {
+		if (markerNames.length != 0) {
+			List<Marker> eventMarkers = event.getMarkerList();
+			if (eventMarkers != null) {
+				for (int r = 0; r < markerNames.length; r++) {
+					for (Marker m : eventMarkers) {
+						if (m != null && m.contains(markerNames[r])) return markerRoutes[r];
+					}
+				}
+			}
+		}
+		return routeForLogger(event.getLoggerName());
+	}
+
+	/** 로거 이름별 처리 방식(캐시). */
+	public Route routeForLogger(String loggerName) {
+		if (loggerName == null) return rootRoute;
+		Slot[] table = slots;
+		int mask = table.length - 1;
+		for (int i = loggerName.hashCode() & mask; ; i = (i + 1) & mask) {
+			Slot s = table[i];
+			if (s == null) break;
+			if (s.name == loggerName || s.name.equals(loggerName)) return s.route;
+		}
+		return cache(loggerName, resolve(loggerName));
+	}
+
+	/** 캐시한 로거 이름 수. */
+	public synchronized int cachedLoggerCount() {
+		return cachedLoggers;
+	}
+
+	/** 가장 긴 일치 접두어의 방식. */
+	Route resolve(String loggerName) {
+		for (int i = 0; i < loggerPrefixes.length; i++) {
+			String prefix = loggerPrefixes[i];
+			if (loggerName.startsWith(prefix)
+					&& (loggerName.length() == prefix.length() || loggerName.charAt(prefix.length()) == '.')) {
+				return loggerRoutes[i];
+			}
+		}
+		return rootRoute;
+	}
+
+	private synchronized Route cache(String loggerName, Route route) {
+		if (cachedLoggers >= MAX_CACHED_LOGGERS) return route;
+		Slot[] table = slots;
+		// 표를 절반 이하로 채워 탐색을 짧게 유지한다
+		int length = (cachedLoggers + 1) * 2 > table.length ? table.length * 2 : table.length;
+		Slot[] next = new Slot[length];
+		for (Slot s : table) {
+			if (s != null) {
+				if (s.name.equals(loggerName)) return s.route; // 다른 스레드가 먼저 넣었다
+				insert(next, s);
+			}
+		}
+		insert(next, new Slot(loggerName, route));
+		cachedLoggers++;
+		slots = next;
+		return route;
+	}
+
+	private static void insert(Slot[] table, Slot slot) {
+		int mask = table.length - 1;
+		int i = slot.name.hashCode() & mask;
+		while (table[i] != null) i = (i + 1) & mask;
+		table[i] = slot;
+	}
+
+	private static final class Slot {
+		final String name;
+		final Route route;
+
+		Slot(String name, Route route) {
+			this.name = name;
+			this.route = route;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package strategy.masking;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import core.KeywordBasedLogMaskingEngine;
+import util.BoundedCache;
+
+/**
+ * %ex 를 대신해 예외 메시지를 마스킹하는 Logback 컨버터.
+ *
+ * <p>
+ * 렌더링은 {@link ThrowableProxyConverter}에 그대로 맡기고(길이 옵션, evaluator, 무시할 프레임 설정 포함),
+ * 결과에서 예외 자신·cause·suppressed 의 메시지 부분만 {@link KeywordBasedLogMaskingEngine#mask(String)}로 바꾼다.
+ * 스택 프레임 줄은 훑지 않는다. 엔진에 keyless 탐지가 켜져 있으면 메시지에도 적용된다.
+ * </p>
+ *
+ * <p>
+ * 재시도 폭주처럼 같은 예외가 반복해서 찍히는 경우를 위해 렌더링 결과를 예외 객체 identity 기준으로 캐시한다
+ * ({@link ThrowableProxy}면 원본 {@link Throwable}, 아니면 proxy 자신).
+ * 키는 약한 참조라 캐시가 예외를 붙잡아 두지 않으며, 캐시 크기에는 상한이 있다.
+ * </p>
+ *
+ * <p>
+ * 렌더링 전에 이벤트를 다른 appender로 넘기는 경우(비동기 appender)를 위해
+ * 같은 범위의 메시지를 마스킹한 proxy 사본도 만든다({@link #maskProxy}).
+ * </p>
+ *
+ * <pre>{@code
+ * <conversionRule conversionWord="mex" converterClass="strategy.masking.MaskingThrowableProxyConverter" />
+ * <pattern>%d %-5level %logger - %msg%n%mex</pattern>
+ * }</pre>
+ */
+public class MaskingThrowableProxyConverter extends ThrowableProxyConverter {
+
+	/** 렌더링 캐시 상한 */
+	static final int MAX_CACHED_THROWABLES = 256;
+
+	/** cause/suppressed 탐색 깊이 상한 */
+	private static final int MAX_DEPTH = 64;
+
+	private final BoundedCache<IdentityKey, Rendering> renderings = new BoundedCache<>(MAX_CACHED_THROWABLES);
+
+	/** 렌더링 캐시(히트/미스/제거 수 조회용). */
+	public BoundedCache<?, ?> renderingCache() {
+		return renderings;
+	}
+
+	@Override
+	protected String throwableProxyToString(IThrowableProxy tp) {
+		if (tp instanceof MaskedThrowableProxy) return super.throwableProxyToString(tp);
+		KeywordBasedLogMaskingEngine engine = PIIConverter.engine();
+		Object identity = tp instanceof ThrowableProxy && ((ThrowableProxy) tp).getThrowable() != null
+				? ((ThrowableProxy) tp).getThrowable()
+				: tp;
+		IdentityKey key = new IdentityKey(identity);
+
+		Rendering cached = renderings.get(key);
+		if (cached != null && cached.engine == engine) return cached.text;
+
+		String text = render(engine, tp);
+		renderings.put(key, new Rendering(engine, text));
+		return text;
+	}
+
+	/** 원래 렌더링에서 바뀌는 메시지만 렌더링 순서대로 찾아 치환한다. */
+	private String render(KeywordBasedLogMaskingEngine engine, IThrowableProxy tp) {
+		String rendered = super.throwableProxyToString(tp);
+
+		List<IThrowableProxy> order = new ArrayList<>();
+		collect(tp, order, Collections.newSetFromMap(new IdentityHashMap<>()), 0);
+
+		StringBuilder out = null;
+		int copied = 0;
+		int cursor = 0;
+		for (IThrowableProxy p : order) {
+			String message = p.getMessage();
+			if (message == null || message.isEmpty()) continue;
+
+			String header = p.getClassName() + ": " + message;
+			int at = rendered.indexOf(header, cursor);
+			if (at < 0) continue;
+			int messageStart = at + header.length() - message.length();
+			cursor = at + header.length();
+
+			String masked = engine.mask(message);
+			if (masked == null || masked.equals(message)) continue;
+
+			if (out == null) out = new StringBuilder(rendered.length() + 16);
+			out.append(rendered, copied, messageStart).append(masked);
+			copied = cursor;
+		}
+
+		if (out == null) return rendered;
+		return out.append(rendered, copied, rendered.length()).toString();
+	}
+
+	/**
+	 * 예외 자신·cause·suppressed 의 메시지를 {@link KeywordBasedLogMaskingEngine#mask(String)}로 바꾼 proxy 사본.
+	 * 스택 프레임은 원본을 공유하고, 순환 참조 표시와 공유된 cause는 그대로 유지한다.
+	 * 깊이 상한을 넘는 cause/suppressed 는 원문이 새지 않도록 잘라낸다.
+	 */
+	public static IThrowableProxy maskProxy(KeywordBasedLogMaskingEngine engine, IThrowableProxy tp) {
+		return copy(engine, tp, new IdentityHashMap<>(), 0);
+	}
+
+	private static IThrowableProxy copy(KeywordBasedLogMaskingEngine engine, IThrowableProxy tp,
+			Map<IThrowableProxy, MaskedThrowableProxy> copies, int depth) {
+		if (tp == null || depth > MAX_DEPTH) return null;
+		MaskedThrowableProxy done = copies.get(tp);
+		if (done != null) return done;
+
+		String message = tp.getMessage();
+		MaskedThrowableProxy masked = new MaskedThrowableProxy(tp,
+				message == null || message.isEmpty() ? message : engine.mask(message));
+		copies.put(tp, masked);
+		masked.cause = copy(engine, tp.getCause(), copies, depth + 1);
+		IThrowableProxy[] suppressed = tp.getSuppressed();
+		if (suppressed != null) {
+			List<IThrowableProxy> kept = new ArrayList<>(suppressed.length);
+			for (IThrowableProxy s : suppressed) {
+				IThrowableProxy c = copy(engine, s, copies, depth + 1);
+				if (c != null) kept.add(c);
+			}
+			masked.suppressed = kept.toArray(new IThrowableProxy[0]);
+		}
+		return masked;
+	}
+
+	/** ThrowableProxyConverter 출력 순서: 자신 → suppressed(재귀) → cause. 순환 참조는 한 번만. */
+	private static void collect(IThrowableProxy tp, List<IThrowableProxy> order, Set<IThrowableProxy> seen, int depth) {
+		if (tp == null || depth > MAX_DEPTH || tp.isCyclic() || !seen.add(tp)) return;
+		order.add(tp);
+		IThrowableProxy[] suppressed = tp.getSuppressed();
+		if (suppressed != null) {
+			for (IThrowableProxy s : suppressed) collect(s, order, seen, depth + 1);
+		}
+		collect(tp.getCause(), order, seen, depth + 1);
+	}
+
+	/** 메시지만 마스킹된 값으로 바꾼 proxy. 나머지는 원본에 위임한다. */
+	private static final class MaskedThrowableProxy implements IThrowableProxy {
+		private final IThrowableProxy original;
+		private final String message;
+		IThrowableProxy cause;
+		IThrowableProxy[] suppressed;
+
+		MaskedThrowableProxy(IThrowableProxy original, String message) {
+			this.original = original;
+			this.message = message;
+		}
+
+		@Override
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String getClassName() {
+			return original.getClassName();
+		}
+
+		@Override
+		public StackTraceElementProxy[] getStackTraceElementProxyArray() {
+			return original.getStackTraceElementProxyArray();
+		}
+
+		@Override
+		public int getCommonFrames() {
+			return original.getCommonFrames();
+		}
+
+		@Override
+		public IThrowableProxy getCause() {
+			return cause;
+		}
+
+		@Override
+		public IThrowableProxy[] getSuppressed() {
+			return suppressed;
+		}
+
+		@Override
+		public boolean isCyclic() {
+			return original.isCyclic();
+		}
+	}
+
+	/** 렌더링 결과와 그때 쓴 엔진(엔진이 바뀌면 다시 렌더링한다). */
+	private static final class Rendering {
+		final KeywordBasedLogMaskingEngine engine;
+		final String text;
+
+		Rendering(KeywordBasedLogMaskingEngine engine, String text) {
+			this.engine = engine;
+			this.text = text;
+		}
+	}
+
+	/** 객체 identity 로 비교하는 약한 참조 키. 참조가 사라진 키는 어떤 조회와도 일치하지 않고 제거를 기다린다. */
+	private static final class IdentityKey {
+		private final WeakReference<Object> ref;
+		private final int hash;
+
+		IdentityKey(Object referent) {
+			this.ref = new WeakReference<>(referent);
+			this.hash = System.identityHashCode(referent);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof IdentityKey)) return false;
+			Object referent = ref.get();
+			return referent != null && referent == ((IdentityKey) o).ref.get();
+		}
+	}
+}
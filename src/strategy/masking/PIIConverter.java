@@ -5,46 +5,204 @@ import java.util.List;
 import ch.qos.logback.classic.pattern.ClassicConverter;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import core.KeywordBasedLogMaskingEngine;
-import core.PiiMasker;
-import core.PiiType;
-import dictionary.ForbiddenKeywordPolicy;
-import dictionary.PiiKeywordDictionary;
+import core.MessageTemplate;
+import logback.MaskedLoggingEvent;
+import util.BoundedCache;
 
+/**
+ * %msg 를 마스킹하는 Logback 컨버터.
+ *
+ * <p>
+ * 옵션 없이 쓰면 포맷된 메시지 전체를 엔진으로 마스킹한다.
+ * {@code %msg{arguments}} 로 쓰면 SLF4J 템플릿({@code event.getMessage()})을 한 번 분석해 캐시하고,
+ * 이후에는 인자({@code event.getArgumentArray()})만 마스킹해 메시지를 만든다.
+ * 인자 단위로 결과를 확정할 수 없는 이벤트는 전체 메시지 마스킹으로 처리한다.
+ * {@code %msg{keyless}} 를 함께 주면 key 없이 등장한 PII도 마스킹한다
+ * (예: {@code %msg{arguments, keyless}}, {@link KeywordBasedLogMaskingEngine#maskKeyless(String)}).
+ * 설정 파일에 {@code keyless=true}가 있으면 옵션과 무관하게 모든 경로에서 key 없는 PII도 마스킹한다.
+ * </p>
+ *
+ * <p>
+ * 두 모드 모두, 템플릿별로 "리터럴만으로는 마스킹 대상 key가 생길 수 없는지"를 캐시해 둔다(negative cache).
+ * 그런 템플릿은 인자에 키워드가 없으면 마스킹 없이 포맷된 메시지를 그대로 반환한다.
+ * 캐시는 크기 상한이 있어 동적으로 만들어지는 템플릿이 많아도 무한히 커지지 않는다.
+ * </p>
+ *
+ * <p>
+ * 엔진에 값 차단 목록({@code secrets.file})이 있으면 키워드 없는 메시지도 비밀 값은 치환하고,
+ * 인자 단위 마스킹은 쓰지 않는다(비밀 값이 리터럴과 인자에 걸칠 수 있다).
+ * </p>
+ *
+ * <p>
+ * {@code logger:<접두어>=<방식>}, {@code marker:<이름>=<방식>} 옵션으로 로거·마커별로
+ * 전체 마스킹(FULL), 금지 키만(FORBIDDEN_ONLY), 통과(BYPASS)를 정할 수 있다({@link MaskingRoutes}).
+ * 로거별 결정은 캐시되므로 통과 로거의 이벤트는 마스킹 비용 없이 포맷된 메시지를 그대로 쓴다.
+ * </p>
+ *
+ * <p>
+ * 엔진은 {@link ReloadableMaskingEngine}이 관리하며 설정 파일이 바뀌면 통째로 교체된다.
+ * 호출마다 현재 엔진을 한 번 읽어 끝까지 그 엔진만 쓰고, 템플릿 캐시는 엔진별로 두어
+ * 교체 전 엔진으로 분석한 결과를 새 엔진에 쓰지 않는다.
+ * </p>
+ */
 public class PIIConverter extends ClassicConverter {
 
-	static final KeywordBasedLogMaskingEngine engine = createEngine();
-	
-	private static KeywordBasedLogMaskingEngine createEngine() {
-        // Properties 파일 우선 로드 시도, 없으면 기본값 사용
-        PiiKeywordDictionary dict;
-        try {
-            dict = PiiKeywordDictionary.fromProperties("masking-keywords.properties");
-        } catch (Exception e) {
-            // Properties 파일이 없거나 로드 실패 시 기본값 사용
-            dict = PiiKeywordDictionary.defaultDictionary();
-        }
-        
-        ForbiddenKeywordPolicy forbidden = new ForbiddenKeywordPolicy(
-                ForbiddenKeywordPolicy.defaultForbiddenKeys(),
-                ForbiddenKeywordPolicy.Mode.REDACT
-        );
-        
-        // 싱글톤 인스턴스 사용
-        List<PiiMasker> maskers = List.of(
-                new MaskConvertorPiiMaskerAdapter(PiiType.RRN, ResidentNumber.getInstance()),
-                new MaskConvertorPiiMaskerAdapter(PiiType.PHONE, PhoneNumber.getInstance()),
-                new MaskConvertorPiiMaskerAdapter(PiiType.ACCOUNT, AccountNumber.getInstance()),
-                new MaskConvertorPiiMaskerAdapter(PiiType.CARD, PrimaryAccountNumber.getInstance())
-        );
-        return new KeywordBasedLogMaskingEngine(dict, forbidden, maskers);
-    }
-	
+	private static final ReloadableMaskingEngine engines = ReloadableMaskingEngine.fromSystemProperty();
+
+	/** 인자 단위 마스킹 모드 옵션 값 */
+	static final String ARGUMENTS_OPTION = "arguments";
+
+	/** key 없는 PII 탐지 옵션 값 */
+	static final String KEYLESS_OPTION = "keyless";
+
+	/** 템플릿 캐시 상한 */
+	static final int MAX_CACHED_TEMPLATES = 4096;
+
+	/** 현재 엔진의 템플릿 캐시(엔진이 바뀌면 새로 만든다) */
+	private static volatile TemplateCaches caches = new TemplateCaches(null);
+
+	private boolean argumentMode;
+	private boolean keylessMode;
+	/** null이면 모든 이벤트 FULL */
+	private MaskingRoutes routes;
+
+	@Override
+	public void start() {
+		List<String> options = getOptionList();
+		if (options != null) {
+			for (String option : options) {
+				String o = option.trim();
+				if (ARGUMENTS_OPTION.equalsIgnoreCase(o)) argumentMode = true;
+				else if (KEYLESS_OPTION.equalsIgnoreCase(o)) keylessMode = true;
+			}
+		}
+		try {
+			routes = MaskingRoutes.fromOptions(options);
+		} catch (IllegalArgumentException e) {
+			// 잘못된 규칙으로 마스킹을 빼먹지 않도록 규칙 없이(모두 FULL) 시작한다
+			addError("Invalid masking route option, masking every logger: " + e.getMessage());
+			routes = null;
+		}
+		// 엔진 재적재·감시 실패는 Logback 상태로 알린다
+		engines.onError(this::addError);
+		super.start();
+	}
+
+	/** 로거·마커별 처리 방식(규칙이 없으면 null). */
+	public MaskingRoutes routes() {
+		return routes;
+	}
+
+	/** 이 컨버터가 쓰는 현재 마스킹 엔진(다른 Logback 연동 구성요소와 공유). */
+	public static KeywordBasedLogMaskingEngine engine() {
+		return engines.get();
+	}
+
+	/** 엔진 홀더(필요할 때 {@link ReloadableMaskingEngine#reload()}로 즉시 재적재). */
+	public static ReloadableMaskingEngine engines() {
+		return engines;
+	}
+
+	/** 현재 엔진의 키워드 없는 템플릿 캐시(히트/미스/제거 수 조회용). */
+	public static BoundedCache<String, Boolean> keywordFreeTemplateCache() {
+		return cachesFor(engine()).keywordFree;
+	}
+
 	@Override
 	public String convert(ILoggingEvent event) {
+		// MaskingAsyncAppender가 이미 마스킹한 메시지를 다시 마스킹하면 가린 값이 또 가려진다
+		if (event instanceof MaskedLoggingEvent) return event.getFormattedMessage();
+
+		MaskingRoutes r = routes;
+		if (r != null) {
+			switch (r.routeFor(event)) {
+				case BYPASS:
+					return event.getFormattedMessage();
+				case FORBIDDEN_ONLY:
+					return engine().maskForbiddenOnly(event.getFormattedMessage());
+				default:
+					break;
+			}
+		}
+
+		KeywordBasedLogMaskingEngine engine = engine();
+		String masked = maskKeyed(engine, cachesFor(engine), event);
+		// 설정 파일의 keyless=true는 engine.mask()에 이미 들어 있다
+		return keylessMode && !engine.isKeylessDetection() ? engine.maskKeyless(masked) : masked;
+	}
+
+	private static TemplateCaches cachesFor(KeywordBasedLogMaskingEngine engine) {
+		TemplateCaches c = caches;
+		if (c.engine != engine) {
+			// 교체 직후 여러 스레드가 동시에 만들 수 있으나 마지막 것이 남을 뿐 결과는 같다
+			c = new TemplateCaches(engine);
+			caches = c;
+		}
+		return c;
+	}
+
+	/** key=value 기준 마스킹 */
+	private String maskKeyed(KeywordBasedLogMaskingEngine engine, TemplateCaches caches, ILoggingEvent event) {
+		// 두 지름길은 engine.mask()를 거치지 않으므로, 엔진이 keyless이면 key 없는 PII 탐지를 따로 한다
+		if (isKeywordFree(engine, caches, event)) {
+			String masked = engine.maskSecrets(event.getFormattedMessage());
+			return engine.isKeylessDetection() ? engine.maskKeyless(masked) : masked;
+		}
+
+		if (argumentMode && !engine.hasSecrets()) {
+			String masked = maskArguments(engine, caches, event);
+			if (masked != null) return engine.isKeylessDetection() ? engine.maskKeyless(masked) : masked;
+		}
+
 		String originalMessage = event.getFormattedMessage();
 		String convertedMessage = engine.mask(originalMessage);
-		
+
 		return convertedMessage;
 	}
 
+	/** 템플릿이 키워드를 만들 수 없고, 인자에도 키워드가 없으면 true. */
+	private static boolean isKeywordFree(KeywordBasedLogMaskingEngine engine, TemplateCaches caches, ILoggingEvent event) {
+		String template = event.getMessage();
+		if (template == null) return false;
+
+		Boolean free = caches.keywordFree.get(template, t -> MessageTemplate.isKeywordFree(engine, t));
+		if (!free) return false;
+
+		Object[] args = event.getArgumentArray();
+		if (args == null) return true;
+		try {
+			for (Object arg : args) {
+				if (arg != null && arg.getClass().isArray()) return false;
+				CharSequence text = arg instanceof CharSequence ? (CharSequence) arg : String.valueOf(arg);
+				if (engine.mayContainKeyword(text)) return false;
+			}
+		} catch (RuntimeException e) {
+			// toString() 실패는 포맷 단계의 처리에 맡긴다
+			return false;
+		}
+		return true;
+	}
+
+	/** 템플릿 분석 결과로 인자만 마스킹. 확정할 수 없으면 null. */
+	private static String maskArguments(KeywordBasedLogMaskingEngine engine, TemplateCaches caches, ILoggingEvent event) {
+		String template = event.getMessage();
+		if (template == null) return null;
+
+		MessageTemplate plan = caches.templates.get(template, t -> MessageTemplate.analyze(engine, t));
+		return plan.format(event.getArgumentArray());
+	}
+
+	/** 엔진 하나에 묶인 템플릿 캐시. */
+	private static final class TemplateCaches {
+		final KeywordBasedLogMaskingEngine engine;
+		/** 템플릿 → 리터럴만으로는 마스킹 대상 key가 생길 수 없는지 */
+		final BoundedCache<String, Boolean> keywordFree = new BoundedCache<>(MAX_CACHED_TEMPLATES);
+		/** 템플릿 → 인자 단위 마스킹 분석 결과 */
+		final BoundedCache<String, MessageTemplate> templates = new BoundedCache<>(MAX_CACHED_TEMPLATES);
+
+		TemplateCaches(KeywordBasedLogMaskingEngine engine) {
+			this.engine = engine;
+		}
+	}
+
 }
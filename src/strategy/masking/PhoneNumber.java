@@ -1,8 +1,10 @@
 package strategy.masking;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+import core.PiiType;
+import core.RangePiiMasker;
+import util.StringUtils;
 
 /**
  * PhoneNumber masking utility.
@@ -22,7 +24,7 @@ import java.util.regex.Pattern;
  *  - 0311234567     -> 031-***-4567
  *  - 051-1234-5678  -> 051-****-5678
  */
-public class PhoneNumber implements MaskConvertor {
+public class PhoneNumber implements MaskConvertor, RangePiiMasker {
 
 	private static final PhoneNumber INSTANCE = new PhoneNumber();
 		
@@ -40,24 +42,15 @@ public class PhoneNumber implements MaskConvertor {
      *  - 02 (서울):      02 + (3~4) + (4)
      *  - 지역번호(2~3자리): 0XX 또는 0XXX (예: 031, 051, 064 등) + (3~4) + (4)
      *
-     * 구분자는 '-', ' ' 또는 없음
+     * 구분자는 '-', 공백 또는 없음
      *
      * 단어 경계(\b)는 하이픈 포함 시 애매할 수 있어
      * 앞/뒤가 숫자가 아닌 경우를 경계로 잡아 오탐을 줄임.
+     *
+     * 정규식으로는 (?<!\d)(01[016789]|02|0\d{2,3})[-\s]?(\d{3,4})[-\s]?(\d{4})(?!\d) 이며,
+     * 정규식 엔진 없이 같은 우선순위(대안 순서, 탐욕적 반복, 백트래킹)로 직접 훑는다({@link #matchAt}).
      */
-    private static final Pattern KOREA_PHONE_PATTERN = Pattern.compile(
-            "(?<!\\d)"                          // 앞이 숫자가 아니어야 함
-            + "("
-            + "01[016789]"                      // 휴대폰
-            + "|02"                              // 서울
-            + "|0\\d{2,3}"                       // 지역번호(031, 051, 064, 033, 042, 044 등)
-            + ")"
-            + "[-\\s]?"                          // 구분자 optional
-            + "(\\d{3,4})"                       // 중간 3~4자리
-            + "[-\\s]?"                          // 구분자 optional
-            + "(\\d{4})"                         // 마지막 4자리
-            + "(?!\\d)"                          // 뒤가 숫자가 아니어야 함
-    );
+    private static final String MOBILE_THIRD_DIGITS = "016789";
 
     private final Policy policy;
 
@@ -71,6 +64,11 @@ public class PhoneNumber implements MaskConvertor {
         this.policy = Objects.requireNonNull(policy, "policy must not be null");
     }
 
+    @Override
+    public PiiType type() {
+        return PiiType.PHONE;
+    }
+
     /**
      * MaskingRule 인터페이스 구현 메서드
      * - DefaultMasker/Builder가 이 메서드를 호출해서 전체 메시지에 룰을 적용함
@@ -78,52 +76,94 @@ public class PhoneNumber implements MaskConvertor {
     @Override
     public String convert(String target) {
         if (target == null) return null;
+        return mask(target);
+    }
 
-        // 정책이 "전화번호 출력 금지"라면, 탐지 시 통째로 [REDACTED] 처리
-        if (policy.mode == Mode.REDACT) {
-            return replaceAllMatches(target, policy.redactedToken);
-        }
-
-        // 기본: PARTIAL(부분 마스킹)
-        Matcher m = KOREA_PHONE_PATTERN.matcher(target);
-        StringBuffer sb = new StringBuffer();
-
-        while (m.find()) {
-            String areaOrMobile = m.group(1); // 010, 02, 031 ...
-            String mid = m.group(2);          // 1234 or 123
-            String last = m.group(3);         // 5678
-
-            String midMasked = repeat(policy.maskChar, mid.length());
-            String replacement = areaOrMobile + policy.separator + midMasked + policy.separator + last;
+    /**
+     * 구간 안의 모든 전화번호를 왼쪽부터 겹치지 않게 찾아 치환한다.
+     * - PARTIAL(기본): 국번 + 구분자 + 가운데 자리수만큼 마스킹 문자 + 구분자 + 끝 4자리
+     * - REDACT: "전화번호 출력 금지" 정책이면 탐지된 부분을 통째로 토큰으로 치환
+     */
+    @Override
+    public boolean maskTo(CharSequence s, int start, int end, StringBuilder out) {
+        int copied = start;
+        int i = start;
+        while (i < end) {
+            // 앞이 숫자가 아니어야 함(구간 시작은 경계)
+            int m = i == start || !StringUtils.isAsciiDigit(s.charAt(i - 1)) ? matchAt(s, i, end) : 0;
+            if (m == 0) {
+                i++;
+                continue;
+            }
 
-            // 정규식 치환 시 $ 같은 특수문자 안전 처리
-            m.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+            int areaLength = m & 0x7;         // 010, 02, 031 ...
+            int midStart = i + areaLength + (m >> 3 & 0x1);
+            int midLength = m >> 4 & 0x7;     // 1234 or 123
+            int lastStart = midStart + midLength + (m >> 7 & 0x1);
+            int matchEnd = lastStart + 4;     // 5678
+
+            out.append(s, copied, i);
+            if (policy.mode == Mode.REDACT) {
+                out.append(policy.redactedToken);
+            } else {
+                out.append(s, i, i + areaLength).append(policy.separator);
+                for (int k = 0; k < midLength; k++) out.append(policy.maskChar);
+                out.append(policy.separator).append(s, lastStart, matchEnd);
+            }
+            i = copied = matchEnd;
         }
-        m.appendTail(sb);
+        if (copied == start) return false;
 
-        return sb.toString();
+        out.append(s, copied, end);
+        return true;
     }
 
     /**
-     * 내부적으로 "모든 전화번호 매치 부분"을 특정 토큰으로 치환.
-     * (예: 개인정보는 저장은 하되 콘솔 출력은 안 하겠다 -> 출력용 정책에 REDACT 적용 가능)
+     * s[i..] 에서 시작하는 전화번호 매치. 없으면 0,
+     * 있으면 국번 길이 | 첫 구분자 여부 << 3 | 가운데 길이 << 4 | 둘째 구분자 여부 << 7.
+     * 국번 대안은 01[016789] → 02 → 0\d{3} → 0\d{2} 순서로 시도한다.
      */
-    private static String replaceAllMatches(String input, String token) {
-        Matcher m = KOREA_PHONE_PATTERN.matcher(input);
-        StringBuffer sb = new StringBuffer();
+    private static int matchAt(CharSequence s, int i, int end) {
+        if (s.charAt(i) != '0') return 0;
+        for (int alternative = 0; alternative < 4; alternative++) {
+            int areaLength = switch (alternative) {
+                case 0 -> i + 2 < end && s.charAt(i + 1) == '1'
+                        && MOBILE_THIRD_DIGITS.indexOf(s.charAt(i + 2)) >= 0 ? 3 : 0;
+                case 1 -> i + 1 < end && s.charAt(i + 1) == '2' ? 2 : 0;
+                case 2 -> StringUtils.isAsciiDigits(s, i + 1, end, 3) ? 4 : 0;
+                default -> StringUtils.isAsciiDigits(s, i + 1, end, 2) ? 3 : 0;
+            };
+            if (areaLength == 0) continue;
+
+            int rest = matchAfterArea(s, i + areaLength, end);
+            if (rest != 0) return areaLength | rest;
+        }
+        return 0;
+    }
 
-        while (m.find()) {
-            m.appendReplacement(sb, Matcher.quoteReplacement(token));
+    /** 국번 뒤: 구분자? + 가운데 4|3자리 + 구분자? + 끝 4자리 + 뒤가 숫자 아님. 구분자는 있는 쪽, 자리수는 긴 쪽부터. */
+    private static int matchAfterArea(CharSequence s, int p, int end) {
+        for (int sep1 = p < end && isSeparator(s.charAt(p)) ? 1 : 0; sep1 >= 0; sep1--) {
+            int midStart = p + sep1;
+            for (int midLength = 4; midLength >= 3; midLength--) {
+                if (!StringUtils.isAsciiDigits(s, midStart, end, midLength)) continue;
+
+                int q = midStart + midLength;
+                for (int sep2 = q < end && isSeparator(s.charAt(q)) ? 1 : 0; sep2 >= 0; sep2--) {
+                    int lastStart = q + sep2;
+                    if (StringUtils.isAsciiDigits(s, lastStart, end, 4)
+                            && (lastStart + 4 == end || !StringUtils.isAsciiDigit(s.charAt(lastStart + 4)))) {
+                        return sep1 << 3 | midLength << 4 | sep2 << 7;
+                    }
+                }
+            }
         }
-        m.appendTail(sb);
-        return sb.toString();
+        return 0;
     }
 
-    private static String repeat(char c, int n) {
-        if (n <= 0) return "";
-        StringBuilder b = new StringBuilder(n);
-        for (int i = 0; i < n; i++) b.append(c);
-        return b.toString();
+    /** [-\s] : 하이픈 또는 정규식 \s 공백 */
+    private static boolean isSeparator(char c) {
+        return c == '-' || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     /** 마스킹 동작 모드 */
@@ -1,6 +1,10 @@
 package strategy.masking;
 
-public class PrimaryAccountNumber implements MaskConvertor {
+import core.PiiType;
+import core.RangePiiMasker;
+import util.StringUtils;
+
+public class PrimaryAccountNumber implements MaskConvertor, RangePiiMasker {
 	
 	private static final PrimaryAccountNumber INSTANCE = new PrimaryAccountNumber();
 
@@ -10,7 +14,13 @@ public class PrimaryAccountNumber implements MaskConvertor {
 		return INSTANCE;
 	}
 
-	private static final String PAN_PATTERN = "(\\d{4}-\\d{2})\\d{2}-\\d{4}-(\\d{4})";
+	/** dddd-dddd-dddd-dddd */
+	private static final int PAN_LENGTH = 19;
+
+	@Override
+	public PiiType type() {
+		return PiiType.CARD;
+	}
 
 	/** PAN 문자열(16자리, 하이픈 포함)을 앞 6자리·뒤 4자리만 노출하도록 마스킹. */
 	@Override
@@ -18,6 +28,37 @@ public class PrimaryAccountNumber implements MaskConvertor {
 		if (target == null || target.isBlank()) {
 			return target;
 		}
-		return target.replaceAll(PAN_PATTERN, "$1**-****-$2");
+		return mask(target);
+	}
+
+	/**
+	 * 구간 안의 모든 PAN을 왼쪽부터 겹치지 않게 찾아 1234-56**-****-3456 형태로 바꾼다
+	 * (정규식 (\d{4}-\d{2})\d{2}-\d{4}-(\d{4}) 의 replaceAll 과 같은 결과).
+	 */
+	@Override
+	public boolean maskTo(CharSequence s, int start, int end, StringBuilder out) {
+		int copied = start;
+		int i = start;
+		while (i + PAN_LENGTH <= end) {
+			if (!isPanAt(s, i, end)) {
+				i++;
+				continue;
+			}
+			out.append(s, copied, i + 7).append("**-****-").append(s, i + 15, i + PAN_LENGTH);
+			i += PAN_LENGTH;
+			copied = i;
+		}
+		if (copied == start) return false;
+
+		out.append(s, copied, end);
+		return true;
+	}
+
+	private static boolean isPanAt(CharSequence s, int i, int end) {
+		return s.charAt(i + 4) == '-' && s.charAt(i + 9) == '-' && s.charAt(i + 14) == '-'
+				&& StringUtils.isAsciiDigits(s, i, end, 4)
+				&& StringUtils.isAsciiDigits(s, i + 5, end, 4)
+				&& StringUtils.isAsciiDigits(s, i + 10, end, 4)
+				&& StringUtils.isAsciiDigits(s, i + 15, end, 4);
 	}
 }
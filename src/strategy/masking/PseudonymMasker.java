@@ -0,0 +1,150 @@
+package strategy.masking;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Objects;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import core.PiiMasker;
+import core.PiiType;
+import util.BoundedCache;
+import util.StringUtils;
+
+/**
+ * 같은 값이면 항상 같은 가명으로 바꾸는 마스커(키 기반 HMAC).
+ *
+ * <p>
+ * 감싼 마스커의 결과 형식을 그대로 쓰되, 마스킹 문자('*') 자리를 값에서 유도한 문자로 채운다.
+ * 예) {@code 010-1234-5678 -> 010-KRDM-5678}, {@code 01012345678 -> 010-KRDM-5678} (채우는 문자는 키에 따라 다르다).
+ * 일반 마스킹보다 드러나는 자리는 늘지 않으면서, 같은 번호가 찍힌 줄끼리 묶어 볼 수 있다.
+ * </p>
+ *
+ * <ul>
+ *   <li>채우는 문자는 HMAC-SHA256(key, 타입 이름 + ':' + 값의 숫자만)의 4비트씩을 자음 16자로 바꾼 것이다.
+ *       구분자·표기만 다른 같은 번호는 같은 가명이 되고, 타입이 다르면 같은 숫자라도 가명이 다르다.</li>
+ *   <li>가명은 숫자를 쓰지 않으므로 key 없는 PII 탐지가 다시 마스킹하지 않고, 원래 값으로 오인되지 않는다.</li>
+ *   <li>키를 모르면 가명에서 값을 되돌리거나 값을 넣어 가명을 맞춰 볼 수 없다. 키를 바꾸면({@link #rotateKey(byte[])}) 이전 가명과는 연결되지 않는다.</li>
+ * </ul>
+ *
+ * <p>
+ * 자주 찍히는 값의 HMAC 계산을 줄이려고 값 → 가명을 크기 상한이 있는 캐시({@link BoundedCache})에 둔다.
+ * 반복되는 값은 캐시 조회 한 번으로 끝나며, 캐시는 키마다 따로 두어 키를 바꾼 뒤 이전 가명이 나오지 않는다.
+ * </p>
+ */
+public final class PseudonymMasker implements PiiMasker {
+
+	public static final String ALGORITHM = "HmacSHA256";
+
+	/** 가명 캐시 상한 기본값 */
+	public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+	/** 최소 키 길이(바이트) */
+	static final int MIN_KEY_LENGTH = 16;
+
+	/** 가명으로 채울 자리(감싼 마스커의 마스킹 문자) */
+	private static final char MASK_CHAR = '*';
+
+	/** 4비트 → 문자. 숫자와 모음(I, O 포함)을 빼 값이나 단어로 읽히지 않게 한다 */
+	private static final char[] ALPHABET = "BCDFGHJKLMNPQRST".toCharArray();
+
+	private final PiiMasker delegate;
+	private final int cacheSize;
+	private volatile KeyState state;
+
+	public PseudonymMasker(PiiMasker delegate, byte[] key) {
+		this(delegate, key, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param delegate 형식을 정하는 마스커. 마스킹 문자는 '*'여야 한다(내장 마스커 기본값)
+	 * @param key      HMAC 키(16바이트 이상). 복사해 두므로 호출 뒤 지워도 된다
+	 */
+	public PseudonymMasker(PiiMasker delegate, byte[] key, int cacheSize) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+		this.cacheSize = cacheSize;
+		this.state = new KeyState(key, cacheSize);
+	}
+
+	@Override
+	public PiiType type() {
+		return delegate.type();
+	}
+
+	@Override
+	public boolean supportsValue(String value) {
+		return delegate.supportsValue(value);
+	}
+
+	@Override
+	public String mask(String value) {
+		if (value == null) return null;
+		KeyState s = state;
+		return s.cache.get(value, v -> pseudonymize(s, v));
+	}
+
+	/** 키를 바꾼다. 이후 가명은 새 키로 만들고, 캐시도 새로 시작한다. */
+	public void rotateKey(byte[] key) {
+		state = new KeyState(key, cacheSize);
+	}
+
+	/** 현재 키의 가명 캐시(히트/미스/제거 수 조회용). */
+	public BoundedCache<String, String> cache() {
+		return state.cache;
+	}
+
+	private String pseudonymize(KeyState s, String value) {
+		String masked = delegate.mask(value);
+		if (masked == null) return value; // 처리할 수 없는 값: 바꾸지 않음
+		if (masked.indexOf(MASK_CHAR) < 0) return masked;
+
+		String digits = StringUtils.digitsOnly(value);
+		byte[] digest = s.digest(type().name() + ':' + (digits.isEmpty() ? value : digits));
+
+		char[] out = masked.toCharArray();
+		int nibble = 0;
+		for (int i = 0; i < out.length; i++) {
+			if (out[i] != MASK_CHAR) continue;
+			// 다이제스트(64자리분)보다 긴 마스킹 구간은 처음부터 다시 쓴다
+			int b = digest[(nibble >> 1) % digest.length];
+			out[i] = ALPHABET[(nibble & 1) == 0 ? (b >> 4) & 0xF : b & 0xF];
+			nibble++;
+		}
+		return new String(out);
+	}
+
+	/** 키 하나와 그 키로 만든 가명 캐시. */
+	private static final class KeyState {
+		final SecretKeySpec key;
+		final BoundedCache<String, String> cache;
+		/** Mac은 스레드 안전하지 않으므로 스레드마다 초기화해 둔다 */
+		final ThreadLocal<Mac> macs;
+
+		KeyState(byte[] key, int cacheSize) {
+			Objects.requireNonNull(key, "key must not be null");
+			if (key.length < MIN_KEY_LENGTH) {
+				throw new IllegalArgumentException("Pseudonym key must be at least " + MIN_KEY_LENGTH + " bytes: " + key.length);
+			}
+			this.key = new SecretKeySpec(key.clone(), ALGORITHM);
+			this.cache = new BoundedCache<>(cacheSize);
+			Mac first = newMac(); // 알고리즘/키 오류를 생성 시점에 드러낸다
+			this.macs = ThreadLocal.withInitial(this::newMac);
+			macs.set(first);
+		}
+
+		byte[] digest(String input) {
+			return macs.get().doFinal(input.getBytes(StandardCharsets.UTF_8));
+		}
+
+		private Mac newMac() {
+			try {
+				Mac mac = Mac.getInstance(ALGORITHM);
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package strategy.masking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import core.KeywordBasedLogMaskingEngine;
+import core.MaskingMetrics;
+
+/**
+ * 설정 파일(사전·금지 키·마스커 정책)이 바뀌면 엔진을 새로 만들어 교체하는 엔진 홀더.
+ *
+ * <p>
+ * 엔진은 불변 스냅샷이다. 재적재는 백그라운드(감시 스레드 또는 {@link #reload()} 호출 스레드)에서
+ * 새 엔진을 끝까지 만든 뒤 참조 하나를 원자적으로 바꿔 공개한다.
+ * 로깅 스레드는 {@link #get()}으로 volatile 읽기 한 번만 하므로 락을 잡지 않고,
+ * 만들다 만 설정을 볼 일도 없다. 설정이 잘못되면 기존 엔진을 그대로 쓰고 실패를 기록한다.
+ * </p>
+ *
+ * <p>
+ * 설정 형식은 {@link MaskingEngines#builder(Properties)} 참고. 파일을 지정하지 않으면
+ * 클래스패스의 {@value MaskingEngines#KEYWORDS_RESOURCE}를 쓰며, 리소스가 파일 시스템에 있으면 감시도 할 수 있다.
+ * 가명 키 파일({@code pseudonym.keyFile})도 변경 판단에 포함하고 함께 감시하므로, 키 파일만 바꿔도 키가 교체된다.
+ * </p>
+ *
+ * <p>
+ * 실패는 {@link #lastFailure()}에 남기고 {@link #onError(BiConsumer)}로 등록한 처리기에 넘긴다.
+ * {@code secrets.file} 목록({@link ReloadableSecretBlocklist})의 실패도 같은 처리기로 받는다.
+ * 표준 에러에는 쓰지 않으며, 알리는 방법(Logback 상태, Log4j2 StatusLogger 등)은 연동 계층이 정한다.
+ * </p>
+ */
+public final class ReloadableMaskingEngine implements Closeable {
+
+	/** 감시할 설정 파일 경로를 지정하는 시스템 프로퍼티(지정하면 PIIConverter가 시작 시 감시를 켠다) */
+	public static final String FILE_PROPERTY = "masking.keywords.file";
+
+	/** null이면 클래스패스 리소스 */
+	private final Path file;
+	private final Consumer<KeywordBasedLogMaskingEngine.Builder> customizer;
+	private final AtomicReference<KeywordBasedLogMaskingEngine> current = new AtomicReference<>();
+
+	/** 재적재끼리만 직렬화한다(로깅 스레드와는 무관) */
+	private final Object reloadLock = new Object();
+	private Properties loaded; // reloadLock 보호, 리소스가 없으면 null
+	private String loadedKey; // reloadLock 보호, 가명 키 파일 내용(가명을 안 쓰면 null)
+	private boolean initialized; // reloadLock 보호
+
+	private final AtomicLong reloads = new AtomicLong();
+	private volatile Exception lastFailure;
+	private volatile String lastFailureMessage;
+	private volatile BiConsumer<String, Exception> errorHandler;
+	private volatile ReloadableSecretBlocklist secrets; // 현재 설정의 secrets.file 홀더(없으면 null)
+	private WatchService watchService; // reloadLock 보호
+	private WatchService keyWatchService; // reloadLock 보호
+	private Path watchedKeyFile; // reloadLock 보호
+
+	/**
+	 * @param file       설정 파일. null이면 클래스패스 리소스
+	 * @param customizer 매 재적재마다 빌더에 적용할 추가 구성(리스너 등). null 가능
+	 */
+	public ReloadableMaskingEngine(Path file, Consumer<KeywordBasedLogMaskingEngine.Builder> customizer) {
+		this.file = file == null ? null : file.toAbsolutePath();
+		this.customizer = customizer == null ? b -> {} : customizer;
+		if (!reload()) {
+			// 첫 적재 실패: 로깅이 멈추지 않도록 내장 구성으로 시작하고, 설정이 고쳐지면 재적재로 교체
+			synchronized (reloadLock) {
+				current.set(build(null));
+				initialized = true;
+			}
+		}
+	}
+
+	/**
+	 * {@value #FILE_PROPERTY}가 있으면 그 파일을 감시하는 홀더, 없으면 클래스패스 리소스 홀더(감시 없음).
+	 * {@value MaskingMetrics#SAMPLE_RATE_PROPERTY}가 있으면 모든 엔진 스냅샷이 같은 {@link MaskingMetrics}를 쓴다.
+	 */
+	public static ReloadableMaskingEngine fromSystemProperty() {
+		MaskingMetrics metrics = null;
+		RuntimeException metricsFailure = null;
+		try {
+			metrics = MaskingMetrics.fromSystemProperties();
+		} catch (RuntimeException e) {
+			metricsFailure = e;
+		}
+		MaskingMetrics m = metrics;
+		Consumer<KeywordBasedLogMaskingEngine.Builder> customizer = m == null ? null : b -> b.metrics(m);
+
+		String path = System.getProperty(FILE_PROPERTY);
+		boolean watched = path != null && !path.isBlank();
+		ReloadableMaskingEngine engines = new ReloadableMaskingEngine(watched ? Path.of(path.trim()) : null, customizer);
+		if (metricsFailure != null) engines.fail("Invalid " + MaskingMetrics.SAMPLE_RATE_PROPERTY, metricsFailure);
+		if (m != null && m.registrationFailure() != null) {
+			engines.fail("Failed to register " + MaskingMetrics.OBJECT_NAME, m.registrationFailure());
+		}
+		if (!watched) return engines;
+
+		try {
+			engines.watch();
+		} catch (IOException | RuntimeException e) {
+			engines.fail("Failed to watch " + path, e);
+		}
+		return engines;
+	}
+
+	/** 현재 엔진 스냅샷. */
+	public KeywordBasedLogMaskingEngine get() {
+		return current.get();
+	}
+
+	/**
+	 * 설정(과 가명 키 파일)을 다시 읽어, 바뀌었으면 새 엔진으로 교체한다.
+	 *
+	 * @return 엔진을 교체했으면 true. 설정·키가 같거나 읽기/검증에 실패하면 false(기존 엔진 유지)
+	 */
+	public boolean reload() {
+		synchronized (reloadLock) {
+			try {
+				Properties props = file != null ? MaskingEngines.loadProperties(file)
+						: MaskingEngines.loadResource(MaskingEngines.KEYWORDS_RESOURCE);
+				Path keyFile = MaskingEngines.pseudonymKeyFile(props);
+				String key = keyFile == null ? null : Files.readString(keyFile);
+				if (initialized && Objects.equals(props, loaded) && Objects.equals(key, loadedKey)) return false;
+
+				KeywordBasedLogMaskingEngine engine = build(props);
+				Path secretsFile = MaskingEngines.secretsFile(props);
+				secrets = secretsFile == null ? null : ReloadableSecretBlocklist.shared(secretsFile).onError(this::report);
+				current.set(engine);
+				loaded = props;
+				loadedKey = key;
+				if (watchService != null) watchKey(keyFile);
+				if (initialized) reloads.incrementAndGet();
+				initialized = true;
+				lastFailure = null;
+				return true;
+			} catch (IOException | RuntimeException e) {
+				fail("Failed to reload masking configuration from " + source(), e);
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * 설정 파일 감시를 시작한다(데몬 스레드 하나). 파일이 만들어지거나 바뀌면 잠시 기다렸다가 {@link #reload()}한다.
+	 * 가명 키 파일도 감시하며, 설정에서 키 파일 경로가 바뀌면 새 경로로 옮긴다. 이미 감시 중이면 아무것도 하지 않는다.
+	 *
+	 * @throws IllegalStateException 클래스패스 리소스가 파일 시스템에 있지 않은 경우(jar 안 등)
+	 */
+	public ReloadableMaskingEngine watch() throws IOException {
+		synchronized (reloadLock) {
+			if (watchService != null) return this;
+
+			Path target = file != null ? file : resourceFile();
+			watchService = FileWatcher.start(target, "masking-config-watcher", this::reload);
+			watchKey(MaskingEngines.pseudonymKeyFile(loaded));
+			return this;
+		}
+	}
+
+	/** 감시를 멈춘다. 현재 엔진은 계속 쓸 수 있다. */
+	@Override
+	public void close() throws IOException {
+		synchronized (reloadLock) {
+			WatchService ws = watchService;
+			watchService = null;
+			watchKey(null);
+			if (ws != null) ws.close();
+		}
+	}
+
+	/** 가명 키 파일 감시를 keyFile로 맞춘다(null이면 끈다). reloadLock 안에서 호출. */
+	private void watchKey(Path keyFile) {
+		if (Objects.equals(keyFile, watchedKeyFile)) return;
+		try {
+			if (keyWatchService != null) keyWatchService.close();
+			keyWatchService = null;
+			watchedKeyFile = null;
+			if (keyFile != null) {
+				keyWatchService = FileWatcher.start(keyFile, "masking-key-watcher", this::reload);
+				watchedKeyFile = keyFile;
+			}
+		} catch (IOException | RuntimeException e) {
+			fail("Failed to watch " + keyFile, e);
+		}
+	}
+
+	/** 시작 후 엔진을 교체한 횟수. */
+	public long reloadCount() {
+		return reloads.get();
+	}
+
+	/** 마지막 재적재 실패 원인. 이후 성공했으면 null. */
+	public Exception lastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * 실패(재적재·감시·메트릭 설정·비밀 값 목록)를 받을 처리기를 등록한다. null이면 기록만 한다.
+	 * 등록 전에 난 실패가 남아 있으면 바로 한 번 넘긴다(정적 초기화 중 실패를 놓치지 않도록).
+	 */
+	public ReloadableMaskingEngine onError(BiConsumer<String, Exception> handler) {
+		errorHandler = handler;
+		Exception e = lastFailure;
+		if (handler != null && e != null) handler.accept(lastFailureMessage, e);
+		// 목록 홀더에 다시 이어 붙여 그쪽에 남은 실패도 새 처리기로 넘긴다
+		ReloadableSecretBlocklist s = secrets;
+		if (s != null) s.onError(this::report);
+		return this;
+	}
+
+	private KeywordBasedLogMaskingEngine build(Properties props) {
+		KeywordBasedLogMaskingEngine.Builder b = props == null
+				? MaskingEngines.builtinBuilder()
+				: MaskingEngines.builder(props);
+		customizer.accept(b);
+		return b.build();
+	}
+
+	private static Path resourceFile() {
+		URL url = MaskingEngines.class.getClassLoader().getResource(MaskingEngines.KEYWORDS_RESOURCE);
+		if (url == null || !"file".equals(url.getProtocol())) {
+			throw new IllegalStateException("Classpath resource is not a watchable file: " + url);
+		}
+		try {
+			return Path.of(url.toURI());
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException("Invalid resource location: " + url, e);
+		}
+	}
+
+	private String source() {
+		return file != null ? file.toString() : "classpath:" + MaskingEngines.KEYWORDS_RESOURCE;
+	}
+
+	private void fail(String message, Exception e) {
+		lastFailureMessage = message;
+		lastFailure = e;
+		report(message, e);
+	}
+
+	/** 처리기에만 넘긴다(비밀 값 목록 실패는 그 홀더의 lastFailure()에 남는다). */
+	private void report(String message, Exception e) {
+		BiConsumer<String, Exception> handler = errorHandler;
+		if (handler != null) handler.accept(message, e);
+	}
+}
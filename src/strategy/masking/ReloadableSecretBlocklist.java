@@ -0,0 +1,165 @@
+package strategy.masking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import core.SecretBlocklist;
+
+/**
+ * 파일에서 읽은 값 차단 목록({@link SecretBlocklist})을 들고 있다가, 파일이 바뀌면 새로 만들어 교체하는 홀더.
+ *
+ * <p>
+ * 수십만 개짜리 목록은 만드는 데 시간이 걸리므로 재적재는 감시 스레드(또는 {@link #reload()} 호출 스레드)에서
+ * 새 오토마톤을 끝까지 만든 뒤 참조 하나를 원자적으로 바꾼다. 엔진은 줄마다 {@link #get()}으로
+ * volatile 읽기 한 번만 하므로, 설정 엔진({@link ReloadableMaskingEngine})을 다시 만들지 않고도 목록만 바뀐다.
+ * 파일을 읽지 못하면 기존 목록을 그대로 쓰고 실패를 기록한다.
+ * 실패는 {@link ReloadableMaskingEngine}과 같이 {@link #onError(BiConsumer)} 처리기로 넘기며,
+ * 설정 엔진이 {@code secrets.file} 홀더에 자기 처리기를 이어 붙인다.
+ * </p>
+ *
+ * <p>
+ * 파일 형식은 {@link SecretBlocklist#open(Path)} 참고(한 줄에 값 하나인 UTF-8 텍스트 또는 저장한 오토마톤 이미지).
+ * 설정 파일의 {@code secrets.file}로 지정하면 {@link #shared(Path)}로 경로마다 홀더 하나를 공유하고 감시한다.
+ * </p>
+ */
+public final class ReloadableSecretBlocklist implements Supplier<SecretBlocklist>, Closeable {
+
+	/** 경로별 공유 홀더: 설정 엔진을 다시 만들어도 같은 목록을 다시 읽지 않는다 */
+	private static final ConcurrentHashMap<Path, ReloadableSecretBlocklist> SHARED = new ConcurrentHashMap<>();
+
+	private final Path file;
+	private final AtomicReference<SecretBlocklist> current = new AtomicReference<>();
+
+	/** 재적재끼리만 직렬화한다(로깅 스레드와는 무관) */
+	private final Object reloadLock = new Object();
+	private FileTime loadedModified; // reloadLock 보호
+	private long loadedSize; // reloadLock 보호
+
+	private final AtomicLong reloads = new AtomicLong();
+	private volatile Exception lastFailure;
+	private volatile String lastFailureMessage;
+	private volatile BiConsumer<String, Exception> errorHandler;
+	private volatile WatchService watchService;
+
+	/**
+	 * file을 읽어 목록을 만든다.
+	 *
+	 * @throws UncheckedIOException 처음 읽기에 실패한 경우(목록 없이 시작하지 않는다)
+	 */
+	public ReloadableSecretBlocklist(Path file) {
+		this.file = Objects.requireNonNull(file, "file must not be null").toAbsolutePath();
+		try {
+			load();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read secret blocklist " + this.file, e);
+		}
+	}
+
+	/**
+	 * 경로마다 하나씩 만들어 두는 홀더. 처음 만들 때 파일 감시도 시작한다(실패하면 감시 없이 쓴다).
+	 *
+	 * @throws UncheckedIOException 처음 읽기에 실패한 경우
+	 */
+	public static ReloadableSecretBlocklist shared(Path file) {
+		return SHARED.computeIfAbsent(file.toAbsolutePath().normalize(), p -> {
+			ReloadableSecretBlocklist secrets = new ReloadableSecretBlocklist(p);
+			try {
+				secrets.watch();
+			} catch (IOException | RuntimeException e) {
+				secrets.fail("Failed to watch " + p, e);
+			}
+			return secrets;
+		});
+	}
+
+	/** 현재 목록. */
+	@Override
+	public SecretBlocklist get() {
+		return current.get();
+	}
+
+	/**
+	 * 파일이 바뀌었으면(수정 시각·크기 기준) 다시 읽어 교체한다.
+	 *
+	 * @return 교체했으면 true. 바뀌지 않았거나 읽기에 실패하면 false(기존 목록 유지)
+	 */
+	public boolean reload() {
+		try {
+			if (!load()) return false;
+			reloads.incrementAndGet();
+			lastFailure = null;
+			return true;
+		} catch (IOException | RuntimeException e) {
+			fail("Failed to reload secret blocklist from " + file, e);
+			return false;
+		}
+	}
+
+	/** 파일 감시를 시작한다(데몬 스레드 하나). 이미 감시 중이면 아무것도 하지 않는다. */
+	public synchronized ReloadableSecretBlocklist watch() throws IOException {
+		if (watchService == null) watchService = FileWatcher.start(file, "masking-secrets-watcher", this::reload);
+		return this;
+	}
+
+	/** 감시를 멈춘다. 현재 목록은 계속 쓸 수 있다. */
+	@Override
+	public synchronized void close() throws IOException {
+		WatchService ws = watchService;
+		watchService = null;
+		if (ws != null) ws.close();
+	}
+
+	/** 시작 후 목록을 교체한 횟수. */
+	public long reloadCount() {
+		return reloads.get();
+	}
+
+	/** 마지막 재적재 실패 원인. 이후 성공했으면 null. */
+	public Exception lastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * 실패(재적재·감시)를 받을 처리기를 등록한다. null이면 기록만 한다.
+	 * 등록 전에 난 실패가 남아 있으면 바로 한 번 넘긴다.
+	 */
+	public ReloadableSecretBlocklist onError(BiConsumer<String, Exception> handler) {
+		errorHandler = handler;
+		Exception e = lastFailure;
+		if (handler != null && e != null) handler.accept(lastFailureMessage, e);
+		return this;
+	}
+
+	/** 바뀌었으면 읽어 교체하고 true. */
+	private boolean load() throws IOException {
+		synchronized (reloadLock) {
+			BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+			if (current.get() != null && attrs.lastModifiedTime().equals(loadedModified) && attrs.size() == loadedSize) {
+				return false;
+			}
+			current.set(SecretBlocklist.open(file));
+			loadedModified = attrs.lastModifiedTime();
+			loadedSize = attrs.size();
+			return true;
+		}
+	}
+
+	private void fail(String message, Exception e) {
+		lastFailureMessage = message;
+		lastFailure = e;
+		BiConsumer<String, Exception> handler = errorHandler;
+		if (handler != null) handler.accept(message, e);
+	}
+}
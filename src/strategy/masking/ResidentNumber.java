@@ -1,6 +1,10 @@
 package strategy.masking;
 
-public class ResidentNumber implements MaskConvertor {
+import core.PiiType;
+import core.RangePiiMasker;
+import util.StringUtils;
+
+public class ResidentNumber implements MaskConvertor, RangePiiMasker {
 
     private final String replacement = "******";
 
@@ -13,17 +17,26 @@ public class ResidentNumber implements MaskConvertor {
         return INSTANCE;
     }
 
+    @Override
+    public PiiType type() {
+        return PiiType.RRN;
+    }
+
     @Override
     public String convert(String target) {
         if (target == null || target.isBlank()) {
             return target;
         }
+        return mask(target);
+    }
 
-        // "950101-1234567" 형태의 주민번호를 "950101-1******"로 마스킹
-        if (target.matches("\\d{6}-\\d{7}")) {
-            return target.substring(0, 8) + replacement;
-        }
+    /** "950101-1234567" 형태(\d{6}-\d{7} 전체 일치)의 주민번호를 "950101-1******"로 마스킹. */
+    @Override
+    public boolean maskTo(CharSequence s, int start, int end, StringBuilder out) {
+        if (end - start != 14 || s.charAt(start + 6) != '-') return false;
+        if (!StringUtils.isAsciiDigits(s, start, end, 6) || !StringUtils.isAsciiDigits(s, start + 7, end, 7)) return false;
 
-        return target;
+        out.append(s, start, start + 8).append(replacement);
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package test;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+import log4j2.MaskingMessagePatternConverter;
+import log4j2.MaskingRewritePolicy;
+
+/**
+ * Log4j2 연동 구성요소(패턴 컨버터, RewritePolicy)를 설정 파일 없이 직접 구성해 검증하는 테스트.
+ * main() 실행 시 모든 케이스를 돌리고, 실패 시 AssertionError로 종료한다.
+ */
+public class Log4j2IntegrationTest {
+
+    public static void main(String[] args) {
+        int passed = 0;
+
+        passed += patternLayoutMasksMessage();
+        passed += converterDoesNotAllocatePerEvent();
+        passed += rewritePolicyReplacesOnlyChangedEvents();
+
+        System.out.println("OK: " + passed + "개 케이스 통과");
+    }
+
+    /** 플러그인으로 등록된 %maskedMsg 가 인자를 포함한 메시지를 마스킹하고, 나머지 패턴은 그대로여야 한다. */
+    private static int patternLayoutMasksMessage() {
+        PatternLayout layout = PatternLayout.newBuilder()
+                .withConfiguration(new DefaultConfiguration())
+                .withPattern("[%level] %maskedMsg | %mm{keyless}")
+                .build();
+
+        String masked = layout.toSerializable(event(new ParameterizedMessage(
+                "transfer mobile: {}, card={} pwd={} tel 010-2222-3333", "010-9999-8888", "1234-5678-1234-5678", "tiger")));
+        String plain = layout.toSerializable(event(new SimpleMessage("batch done count=3")));
+
+        String keyed = "transfer mobile: 010-****-8888, card=1234-56**-****-5678 pwd=<REDACTED> tel 010-2222-3333";
+        String keyless = "transfer mobile: 010-****-8888, card=1234-56**-****-5678 pwd=<REDACTED> tel 010-****-3333";
+        if (!("[INFO] " + keyed + " | " + keyless).equals(masked)
+                || !"[INFO] batch done count=3 | batch done count=3".equals(plain)) {
+            throw new AssertionError("Log4j2 패턴 컨버터 마스킹 실패: " + masked + " / " + plain);
+        }
+        return 1;
+    }
+
+    /** 작업 버퍼가 자리 잡은 뒤에는 이벤트마다 할당 없이 레이아웃 버퍼에 마스킹 결과를 써야 한다. */
+    private static int converterDoesNotAllocatePerEvent() {
+        MaskingMessagePatternConverter converter = MaskingMessagePatternConverter.newInstance(null, new String[0]);
+        LogEvent[] events = new LogEvent[64];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = event(new ParameterizedMessage("transfer mobile: {}, account={} seq={} status={}",
+                    "010-9999-" + (1000 + i), "110-123-" + (100000 + i), i, "OK"));
+        }
+        StringBuilder out = new StringBuilder(256);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = Long.MAX_VALUE;
+        int rounds = 200_000;
+        // 첫 바퀴는 워밍업(클래스 적재, JIT). 이후는 가장 적은 바퀴로 판단한다: 이벤트마다 할당하면 모든 바퀴에 드러나고,
+        // 같은 JVM의 다른 모듈 테스트가 일으킨 역최적화 같은 일회성 할당은 걸러진다
+        for (int pass = 0; pass < 4; pass++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < rounds; i++) {
+                out.setLength(0);
+                converter.format(events[i & (events.length - 1)], out);
+            }
+            long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+            if (pass > 0) allocated = Math.min(allocated, bytes);
+        }
+
+        if (!out.toString().equals("transfer mobile: 010-****-1063, account=110-***-***063 seq=63 status=OK")) {
+            throw new AssertionError("garbage-free 경로 마스킹 결과 오류: " + out);
+        }
+        // 측정 자체(MXBean 호출)의 몇 바이트만 허용
+        if (allocated > 4096) {
+            throw new AssertionError("이벤트마다 할당 발생: " + allocated + " bytes / " + rounds + " events");
+        }
+        return 1;
+    }
+
+    /** 바뀔 것이 없는 이벤트는 그대로, 바뀐 이벤트는 마스킹된 메시지의 복사본이어야 한다. */
+    private static int rewritePolicyReplacesOnlyChangedEvents() {
+        MaskingRewritePolicy policy = MaskingRewritePolicy.createPolicy(false);
+        LogEvent plain = event(new SimpleMessage("health ok"));
+        LogEvent sensitive = event(new ParameterizedMessage("login phone={} otp={}", "010-1234-5678", "123456"));
+
+        LogEvent rewritten = policy.rewrite(sensitive);
+        if (policy.rewrite(plain) != plain
+                || !"login phone=010-****-5678 otp=<REDACTED>".equals(rewritten.getMessage().getFormattedMessage())
+                || rewritten.getLevel() != Level.INFO || !"test.log4j2".equals(rewritten.getLoggerName())) {
+            throw new AssertionError("RewritePolicy 마스킹 실패: " + rewritten.getMessage().getFormattedMessage());
+        }
+        return 1;
+    }
+
+    private static LogEvent event(Message message) {
+        return Log4jLogEvent.newBuilder()
+                .setLoggerName("test.log4j2")
+                .setLevel(Level.INFO)
+                .setMessage(message)
+                .build();
+    }
+}
@@ -1,13 +1,51 @@
 package test;
 
+import batch.BatchMaskingTool;
+import core.FieldMasker;
+import core.JsonMasker;
+import core.JsonPathRules;
 import core.KeywordBasedLogMaskingEngine;
+import core.MaskingBudget;
+import core.MaskingMetrics;
+import core.MaskingWriter;
+import core.MessageTemplate;
 import core.PiiMasker;
 import core.PiiType;
+import core.SecretBlocklist;
+import dictionary.CompiledKeyIndex;
 import dictionary.ForbiddenKeywordPolicy;
 import dictionary.PiiKeywordDictionary;
 import strategy.masking.*;
+import util.BoundedCache;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * 로그 파싱 및 마스킹이 기대대로 동작하는지 검증하는 테스트.
@@ -69,6 +107,204 @@ public class LogMaskingTest {
                 "level=INFO msg=started",
                 "PII가 아닌 key는 미변경");
 
+        // ---- 구분자 앞뒤 공백·따옴표·종료 문자 ----
+        passed += expect(engine,
+                "req(phone = \"010-1234-5678\", acct='123-456-789012')",
+                "req(phone = \"010-****-5678\", acct='123-***-***012')",
+                "따옴표 value와 괄호 종료");
+
+        // ---- 치환이 없으면 원본 인스턴스 그대로 반환 ----
+        String untouched = "order=42 status=SHIPPED";
+        if (engine.mask(untouched) == untouched) {
+            passed++;
+        } else {
+            throw new AssertionError("치환 없는 입력은 원본 인스턴스 반환");
+        }
+
+        // ---- 키워드 사전 pre-filter: 키워드 없는 줄은 fast path ----
+        long before = engine.fastPathLineCount();
+        engine.mask("order 1234 shipped in 35 ms");
+        if (engine.fastPathLineCount() == before + 1) {
+            passed++;
+        } else {
+            throw new AssertionError("키워드 없는 줄은 fast path 카운트 증가");
+        }
+
+        // ---- 한글 alias key ----
+        KeywordBasedLogMaskingEngine hangulEngine = new KeywordBasedLogMaskingEngine(
+                new PiiKeywordDictionary(Map.of("휴대폰", PiiType.PHONE)),
+                new ForbiddenKeywordPolicy(Set.of("비밀번호"), ForbiddenKeywordPolicy.Mode.REDACT),
+                List.of(new MaskConvertorPiiMaskerAdapter(PiiType.PHONE, new PhoneNumber())));
+        passed += expect(hangulEngine,
+                "고객 휴대폰: 010-1234-5678 비밀번호=abcd",
+                "고객 휴대폰: 010-****-5678 비밀번호=<REDACTED>",
+                "한글 key 매칭");
+
+        // ---- 대규모 alias 색인: 구간 조회 ----
+        Map<String, PiiType> manyAliases = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) manyAliases.put("custField" + i, PiiType.ACCOUNT);
+        CompiledKeyIndex index = CompiledKeyIndex.compile(
+                new PiiKeywordDictionary(manyAliases),
+                new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), null));
+        String line = "x CUSTFIELD19999=1 PWD=2 custField20000=3";
+        if (index.typeOf(index.lookup(line, 2, 16)) == PiiType.ACCOUNT
+                && index.isForbidden(index.lookup(line, 19, 22))
+                && index.lookup(line, 25, 39) == CompiledKeyIndex.NOT_FOUND) {
+            passed++;
+        } else {
+            throw new AssertionError("CompiledKeyIndex 구간 조회");
+        }
+
+        // ---- 템플릿 분석 후 인자만 마스킹 ----
+        MessageTemplate template = MessageTemplate.analyze(engine, "mobile: {}, card={} (user {})");
+        String formatted = template.format(new Object[] {"010-9999-8888", "1234-5678-1234-5678", "pwd=abc"});
+        if ("mobile: 010-****-8888, card=1234-56**-****-5678 (user pwd=<REDACTED>)".equals(formatted)
+                && MessageTemplate.analyze(engine, "{}={}").format(new Object[] {"phone", "010-1234-5678"}) == null) {
+            passed++;
+        } else {
+            throw new AssertionError("템플릿 인자 마스킹 실패: " + formatted);
+        }
+
+        // ---- 키워드를 만들 수 없는 템플릿 판별 ----
+        if (MessageTemplate.isKeywordFree(engine, "order {} shipped in {} ms")
+                && !MessageTemplate.isKeywordFree(engine, "mobile: {}")
+                && !MessageTemplate.isKeywordFree(engine, "pho{}")
+                && !MessageTemplate.isKeywordFree(engine, "order {}{}")) {
+            passed++;
+        } else {
+            throw new AssertionError("키워드 없는 템플릿 판별");
+        }
+
+        // ---- 크기 상한 캐시 ----
+        BoundedCache<String, Integer> cache = new BoundedCache<>(64);
+        for (int i = 0; i < 1_000; i++) cache.put("template-" + i, i);
+        cache.get("template-999");
+        cache.get("missing");
+        if (cache.size() <= 64 && cache.evictionCount() >= 936
+                && cache.hitCount() + cache.missCount() == 2) {
+            passed++;
+        } else {
+            throw new AssertionError("BoundedCache 상한/카운터: size=" + cache.size());
+        }
+
+        // ---- JSON 본문: 멤버 이름으로 판별, 문자열 안의 구분자 무시 ----
+        String json = "{\"user\":{\"Phone\":\"010-1234-5678\",\"memo\":\"a, b} c\"},"
+                + "\"card\":[\"1234-5678-1234-5678\", \"1111-2222-3333-4444\"],"
+                + "\"password\":{\"old\":\"x\",\"new\":[1,2]},\"pin\":1234,\"n\":null}";
+        String maskedJson = engine.maskJson(json);
+        String expectedJson = "{\"user\":{\"Phone\":\"010-****-5678\",\"memo\":\"a, b} c\"},"
+                + "\"card\":[\"1234-56**-****-5678\", \"1111-22**-****-4444\"],"
+                + "\"password\":\"<REDACTED>\",\"pin\":\"<REDACTED>\",\"n\":null}";
+        if (expectedJson.equals(maskedJson)) {
+            passed++;
+        } else {
+            throw new AssertionError("JSON 마스킹 실패: " + maskedJson);
+        }
+
+        // ---- JSON 경로 규칙 / 이스케이프 / 변경 없음 / 잘린 본문 ----
+        JsonMasker pathMasker = engine.jsonMasker(JsonPathRules.builder()
+                .mask("$.items[*].ref", PiiType.ACCOUNT)
+                .forbid("$.meta.sig")
+                .build());
+        String plainJson = "{\"order\": 42, \"tags\": [\"a\", \"b\"]}";
+        String pathJson = pathMasker.mask(
+                "{\"items\":[{\"ref\":\"123-456-789012\"}],\"meta\":{\"sig\":\"abc\"},\"mobile\":\"010\\u002d9999-8888\"}");
+        if ("{\"items\":[{\"ref\":\"123-***-***012\"}],\"meta\":{\"sig\":\"<REDACTED>\"},\"mobile\":\"010-****-8888\"}".equals(pathJson)
+                && engine.maskJson(plainJson) == plainJson
+                && "{\"phone\":\"010-****-5678\", pwd=<REDACTED>".equals(engine.maskJson("{\"phone\":\"010-1234-5678\", pwd=abc"))) {
+            passed++;
+        } else {
+            throw new AssertionError("JSON 경로 규칙/복구 실패: " + pathJson);
+        }
+
+        // ---- JSON: 이름 없는 string 값 안의 key=value, 긴 값/잘린 본문 스트리밍 ----
+        String memoJson = engine.maskJson("{\"memo\":\"call phone=010-1234-5678 pwd=abc\",\"note\":\"say \\\"pwd=x\\\"\\n\"}");
+        String longJson = engine.maskJson("{\"memo\":\"" + "x".repeat(5000) + " phone=010-1234-5678\"}");
+        String longKeyedJson = engine.maskJson("{\"phone\":\"010-1234-5678 " + "x".repeat(4100) + "\",\"n\":1}");
+        StringWriter streamedJson = new StringWriter();
+        try {
+            engine.jsonMasker(JsonPathRules.builder().build())
+                    .mask(new StringReader("{\"a\":1, " + "y".repeat(20000) + " pwd=abc phone=010-1234-5678"), streamedJson);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if ("{\"memo\":\"call phone=010-****-5678 pwd=<REDACTED>\",\"note\":\"say \\\"pwd=<REDACTED>\\n\"}".equals(memoJson)
+                && ("{\"memo\":\"" + "x".repeat(5000) + " phone=010-****-5678\"}").equals(longJson)
+                && "{\"phone\":\"<REDACTED>\",\"n\":1}".equals(longKeyedJson)
+                && streamedJson.toString().equals("{\"a\":1, " + "y".repeat(20000) + " pwd=<REDACTED> phone=010-****-5678")) {
+            passed++;
+        } else {
+            throw new AssertionError("JSON 문자열 내용 마스킹 실패: " + memoJson);
+        }
+
+        // ---- key 없는 PII: 단일 DFA + Luhn/주민번호 검증 숫자 ----
+        KeywordBasedLogMaskingEngine keylessEngine = KeywordBasedLogMaskingEngine.builder(
+                        PiiKeywordDictionary.defaultDictionary(),
+                        new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), ForbiddenKeywordPolicy.Mode.REDACT),
+                        List.of(new MaskConvertorPiiMaskerAdapter(PiiType.RRN, new ResidentNumber()),
+                                new MaskConvertorPiiMaskerAdapter(PiiType.PHONE, new PhoneNumber()),
+                                new MaskConvertorPiiMaskerAdapter(PiiType.ACCOUNT, new AccountNumber()),
+                                new MaskConvertorPiiMaskerAdapter(PiiType.CARD, new PrimaryAccountNumber())))
+                .keylessDetection(true)
+                .build();
+        passed += expect(keylessEngine,
+                "고객 연락처 010-1234-5678 확인, 주민 900101-1234568 / 900101-1234567, "
+                        + "카드 4111-1111-1111-1111 / 1234-5678-1234-5678, 계좌 123-456-789012, 일자 2024-01-15 pwd=x",
+                "고객 연락처 010-****-5678 확인, 주민 900101-1****** / 900101-1234567, "
+                        + "카드 4111-11**-****-1111 / 1234-5678-1234-5678, 계좌 123-***-***012, 일자 2024-01-15 pwd=<REDACTED>",
+                "key 없는 PII 탐지");
+
+        // ---- 구조화 필드(MDC·key-value pair): 파싱 없이 key별 판별 결과로 마스킹 ----
+        FieldMasker fields = engine.fieldMasker();
+        Map<String, String> mdc = new LinkedHashMap<>();
+        mdc.put("traceId", "abc-123");
+        mdc.put("customerPhone", "010-1234-5678");
+        mdc.put("acctNo", "110-123-456789");
+        mdc.put("user.pin_code", "0000");
+        Map<String, String> maskedMdc = fields.maskAll(mdc);
+        Map<String, String> plainMdc = Map.of("traceId", "abc-123", "telemetry", "010-1234-5678");
+        if ("{traceId=abc-123, customerPhone=010-****-5678, acctNo=110-***-***789, user.pin_code=<REDACTED>}".equals(maskedMdc.toString())
+                && "010-1234-5678".equals(mdc.get("customerPhone"))
+                && fields.maskAll(plainMdc) == plainMdc
+                && fields.isSensitive("CARD_NUMBER") && !fields.isSensitive("cardinality")) {
+            passed++;
+        } else {
+            throw new AssertionError("구조화 필드 마스킹 실패: " + maskedMdc);
+        }
+
+        // ---- 범위 마스커: 내장 마스커는 구간을 버퍼에 바로 쓰고, 문자열 어댑터 경로와 결과가 같다 ----
+        passed += rangeMaskers(engine);
+
+        // ---- 긴 줄 prescan: 구분자/숫자 묶음 위치에서 출발해도 전진 스캔과 같은 결과 ----
+        passed += prescan();
+
+        // ---- 긴 줄 예산: 조각 단위 마스킹은 줄 전체와 같고, 넘는 부분은 정책대로(원문 PII 노출 없음) ----
+        passed += budget();
+
+        // ---- 가명: 같은 값은 표기와 무관하게 같은 가명, 키가 바뀌면 다른 가명, 반복 값은 캐시 ----
+        passed += pseudonym();
+
+        // ---- 값 차단 목록: key와 무관하게 비밀 값 치환, 모든 경로 동일, 이미지 저장/매핑, 파일 교체 ----
+        passed += secretBlocklist();
+
+        // ---- 쿼리·폼·헤더: '&'에서 끝나는 value, 인코딩 유지 마스킹, 헤더 이름 판별, 모든 경로 동일 ----
+        passed += httpFormats();
+
+        // ---- 청크 스트리밍: 경계에 걸친 key=value, 분할과 무관하게 mask(String)과 동일 ----
+        passed += streamingChunks(engine, keylessEngine);
+
+        // ---- UTF-8 바이트 마스킹: mask(String) 결과를 인코딩한 것과 동일, 변경 없으면 같은 배열 ----
+        passed += utf8Bytes(engine, keylessEngine, hangulEngine);
+
+        // ---- 지표: 타입별/금지 키별 건수, 키워드 없는 줄, 표본 지연 시간, MBean ----
+        passed += metrics();
+
+        // ---- 설정 재적재: 원자적 엔진 교체, 잘못된 설정은 기존 엔진 유지, 파일 감시 ----
+        passed += hotReload();
+
+        // ---- 배치 도구: 작은 청크로 줄 경계 분할, 일반/gzip 입출력 ----
+        passed += batchRoundTrip(engine);
+
         // ---- null ----
         if (engine.mask(null) == null) {
             passed++;
@@ -96,6 +332,647 @@ public class LogMaskingTest {
         return new KeywordBasedLogMaskingEngine(dict, forbidden, maskers);
     }
 
+    private static int rangeMaskers(KeywordBasedLogMaskingEngine adapterEngine) {
+        KeywordBasedLogMaskingEngine rangeEngine = KeywordBasedLogMaskingEngine.builder(
+                PiiKeywordDictionary.defaultDictionary(),
+                new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), ForbiddenKeywordPolicy.Mode.REDACT),
+                MaskingEngines.defaultMaskers()).build();
+        String[] lines = {
+                "req(phone = \"010-1234-5678\", acct='123-456-789012') pwd : x",
+                "phone=01012345678/0311234567 card=1234-5678-1234-56789-1111-2222-3333-4444",
+                "residentNo='950101-1234567' residentNo=950101-12345678 account=12 account=1-2-3-4",
+                "mobile: 010-9999-8888, x==y phone= card=\"\" phone=\"",
+        };
+        for (String line : lines) {
+            if (!adapterEngine.mask(line).equals(rangeEngine.mask(line))) {
+                throw new AssertionError("범위 마스커/어댑터 결과 불일치: " + rangeEngine.mask(line));
+            }
+            // 버퍼에 바로 쓰는 경로(Log4j2 연동)도 같은 결과
+            StringBuilder appended = new StringBuilder("> ");
+            rangeEngine.maskTo("[" + line + "]", 1, line.length() + 1, appended);
+            if (!appended.toString().equals("> " + rangeEngine.mask(line))) {
+                throw new AssertionError("maskTo 결과 불일치: " + appended);
+            }
+        }
+
+        // 구간만 처리하고, 바뀔 것이 없으면 버퍼를 건드리지 않는다
+        StringBuilder out = new StringBuilder("> ");
+        String line = "tel 010-1234-5678 / acct 123-456-789012";
+        boolean phone = PhoneNumber.getInstance().maskTo(line, 4, 17, out);
+        boolean none = AccountNumber.getInstance().maskTo(line, 0, 3, out);
+        String unchanged = "phone=unknown card=n/a";
+        if (phone && !none && "> 010-****-5678".equals(out.toString())
+                && rangeEngine.mask(unchanged) == unchanged
+                && "950101-1******".equals(ResidentNumber.getInstance().convert("950101-1234567"))
+                && "x 1234-56**-****-3456".equals(PrimaryAccountNumber.getInstance().mask("x 1234-5678-9012-3456"))) {
+            return 1;
+        }
+        throw new AssertionError("범위 마스커 구간 처리 실패: " + out);
+    }
+
+    private static int prescan() {
+        KeywordBasedLogMaskingEngine plain = MaskingEngines.defaultBuilder().keylessDetection(true).build();
+        KeywordBasedLogMaskingEngine prescan = MaskingEngines.defaultBuilder().keylessDetection(true).prescan(32).build();
+        String[] pieces = {"phone = 010-1234-5678 ", "a:b:c=pwd ", "x==y, ", "acct='123-456-789012') ", "주민 900101-1234568 ",
+                "data=QUJDRA== ", "key : ", "4111-1111-1111-1111 ", "휴대폰=01012345678\t", "seq:0000123456789 ", "=phone=010-1234-5678"};
+        Random random = new Random(11);
+        for (int round = 0; round < 300; round++) {
+            StringBuilder line = new StringBuilder();
+            int target = round % 10 == 0 ? 3000 : 40 + random.nextInt(200);
+            while (line.length() < target) line.append(pieces[random.nextInt(pieces.length)]);
+            String s = line.toString();
+            if (!plain.mask(s).equals(prescan.mask(s))) {
+                throw new AssertionError("prescan 결과 불일치: " + prescan.mask(s) + " / " + plain.mask(s));
+            }
+        }
+        // 기준보다 짧은 줄은 전진 스캔
+        if ("phone=010-****-5678".equals(prescan.mask("phone=010-1234-5678"))) {
+            return 1;
+        }
+        throw new AssertionError("짧은 줄 마스킹 실패");
+    }
+
+    private static int budget() {
+        KeywordBasedLogMaskingEngine plain = MaskingEngines.defaultBuilder().keylessDetection(true).build();
+        KeywordBasedLogMaskingEngine chunked = MaskingEngines.defaultBuilder().keylessDetection(true)
+                .budget(MaskingBudget.builder().chunkLength(64).build()).build();
+        String[] pieces = {"phone = 010-1234-5678, ", "req(acct='123-456-789012') ", "주민 900101-1234568 ", "[card=4111-1111-1111-1111] ",
+                "{pwd: x}, ", "payload=QUJDRA ", "휴대폰=01012345678,", "a,b),c"};
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder line = new StringBuilder();
+            int target = 40 + random.nextInt(600);
+            while (line.length() < target) line.append(pieces[random.nextInt(pieces.length)]);
+            String s = line.toString();
+            if (!plain.mask(s).equals(chunked.mask(s))) {
+                throw new AssertionError("조각 마스킹 결과 불일치: " + chunked.mask(s) + " / " + plain.mask(s));
+            }
+        }
+
+        // 헤더 value는 ','·')'를 넘어 줄 끝까지이므로 조각으로 나눠도 줄 전체와 같아야 한다
+        KeywordBasedLogMaskingEngine tiny = MaskingEngines.defaultBuilder().keylessDetection(true)
+                .budget(MaskingBudget.builder().chunkLength(16).build()).build();
+        String[] headerLines = {
+                "X-Password: abc,defghij klmnop",
+                "hdr\nX-Customer-Phone: (010) 1234-5678 and 010-1234-5678",
+                "GET /a?phone=010-1234-5678&x=1, (ok)\nX-Auth-Pin: 12,34\nX-Account-No: 110-123-456789 retry=1, done",
+                "headers={X-Auth-Pin: 1234, X-Request-Id: abc} (a)X-Customer-Phone: 010-1234-5678, end",
+                "line one, phone=010-1234-5678\nINFO X-Customer-Phone: 010-1234-5678 (retry), pwd\n= tiger",
+        };
+        for (String h : headerLines) {
+            if (!plain.mask(h).equals(tiny.mask(h))) {
+                throw new AssertionError("헤더 줄 조각 마스킹 결과 불일치: " + tiny.mask(h) + " / " + plain.mask(h));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) sb.append("phone=010-1234-5678, ");
+        String huge = sb.toString(); // 1050자. 최대 200자 안의 마지막 경계는 188(',' 바로 뒤의 공백 앞)
+        String head = plain.mask(huge.substring(0, 188));
+
+        MaskingMetrics metrics = new MaskingMetrics(1);
+        KeywordBasedLogMaskingEngine truncate = MaskingEngines.defaultBuilder().metrics(metrics)
+                .budget(MaskingBudget.builder().maxScanLength(200).chunkLength(64).build()).build();
+        String truncated = truncate.mask(huge);
+
+        KeywordBasedLogMaskingEngine redact = MaskingEngines.defaultBuilder()
+                .budget(MaskingBudget.builder().maxScanLength(200).chunkLength(64)
+                        .oversizePolicy(MaskingBudget.OversizePolicy.REDACT_REMAINDER).build()).build();
+        String redacted = redact.mask(huge);
+
+        Map<Long, String> deferred = new ConcurrentHashMap<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        MaskingBudget background = MaskingBudget.builder().maxScanLength(200).chunkLength(64)
+                .oversizePolicy(MaskingBudget.OversizePolicy.BACKGROUND)
+                .backgroundSink((id, line) -> {
+                    deferred.put(id, line);
+                    delivered.countDown();
+                }).build();
+        String placeholder = MaskingEngines.defaultBuilder().budget(background).build().mask(huge);
+        try {
+            if (!delivered.await(5, TimeUnit.SECONDS)) throw new AssertionError("백그라운드 마스킹 미전달");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        } finally {
+            background.close();
+        }
+
+        // sink가 실패하면 실패 처리기로 넘기고 센다
+        Map<Long, RuntimeException> failures = new ConcurrentHashMap<>();
+        CountDownLatch failed = new CountDownLatch(1);
+        MaskingBudget failing = MaskingBudget.builder().maxScanLength(200).chunkLength(64)
+                .oversizePolicy(MaskingBudget.OversizePolicy.BACKGROUND)
+                .backgroundSink((id, line) -> {
+                    throw new IllegalStateException("sink down");
+                })
+                .backgroundFailureHandler((id, e) -> {
+                    failures.put(id, e);
+                    failed.countDown();
+                }).build();
+        MaskingEngines.defaultBuilder().budget(failing).build().mask(huge);
+        try {
+            if (!failed.await(5, TimeUnit.SECONDS) || failing.failedDeliveries() != 1
+                    || !"sink down".equals(failures.get(1L).getMessage())) {
+                throw new AssertionError("백그라운드 전달 실패 처리 오류: " + failures);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        } finally {
+            failing.close();
+        }
+
+        // UTF-8 경로도 같은 예산을 따른다
+        byte[] utf8 = truncate.maskUtf8(huge.getBytes(StandardCharsets.UTF_8), false);
+
+        // 설정 파일의 budget.* key(대소문자 섞인 표기 그대로)로도 같은 예산이 구성된다
+        String configured;
+        MaskingBudget fromFile;
+        try {
+            Path config = Files.createTempFile("masking-budget", ".properties");
+            Files.writeString(config, "PHONE=phone\nbudget.maxLength=200\nbudget.maxMillis=1000\nbudget.policy=redact_remainder\n");
+            Properties props = MaskingEngines.loadProperties(config);
+            Files.delete(config);
+            fromFile = MaskingBudget.fromProperties(props);
+            configured = MaskingEngines.builder(props).build().mask(huge);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (fromFile.oversizePolicy() != MaskingBudget.OversizePolicy.REDACT_REMAINDER || !configured.equals(redact.mask(huge))) {
+            throw new AssertionError("설정 파일 예산 구성 실패: " + configured);
+        }
+
+        if (truncated.equals(head + " ...[truncated 862 chars]")
+                && redacted.length() == huge.length() && redacted.startsWith(head) && !redacted.contains("1234")
+                && placeholder.equals(head + " ...[masking deferred id=1, 862 chars]")
+                && plain.mask(huge).equals(deferred.get(1L))
+                && truncated.equals(new String(utf8, StandardCharsets.UTF_8))
+                && metrics.getOversizedByPolicy().get("TRUNCATE") == 2
+                && truncate.mask("phone=010-1234-5678").equals("phone=010-****-5678")) {
+            return 1;
+        }
+        throw new AssertionError("예산 초과 처리 실패: " + truncated + " / " + redacted + " / " + placeholder);
+    }
+
+    private static int pseudonym() {
+        byte[] key = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        PseudonymMasker phone = new PseudonymMasker(PhoneNumber.getInstance(), key);
+        PseudonymMasker account = new PseudonymMasker(AccountNumber.getInstance(), key);
+        KeywordBasedLogMaskingEngine engine = KeywordBasedLogMaskingEngine.builder(
+                PiiKeywordDictionary.defaultDictionary(),
+                new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), ForbiddenKeywordPolicy.Mode.REDACT),
+                List.of(phone, account, ResidentNumber.getInstance())).keylessDetection(true).build();
+
+        String a = engine.mask("phone=010-1234-5678");
+        String b = engine.mask("mobile: 01012345678");
+        String c = engine.mask("phone=010-1234-9999");
+        String acct = engine.mask("acct=110-123-456789");
+        String token = a.substring("phone=".length());
+        if (!token.matches("010-[B-T]{4}-5678") || !b.equals("mobile: " + token)
+                || c.substring("phone=".length(), "phone=".length() + 8).equals(token.substring(0, 8))
+                || !acct.matches("acct=110-[B-T]{3}-[B-T]{3}789")
+                || phone.cache().hitCount() != 0 || !engine.mask("phone=010-1234-5678").equals(a)
+                || phone.cache().hitCount() != 1) {
+            throw new AssertionError("가명 마스킹 실패: " + a + " / " + b + " / " + c + " / " + acct);
+        }
+
+        // 키를 바꾸면 같은 값도 다른 가명(이전 캐시를 쓰지 않는다), 짧은 키는 거부
+        phone.rotateKey("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII));
+        String rotated = engine.mask("phone=010-1234-5678");
+        try {
+            new PseudonymMasker(PhoneNumber.getInstance(), new byte[8]);
+            throw new AssertionError("짧은 키 허용");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        Properties props = new Properties();
+        props.setProperty("pseudonym", "phone");
+        try {
+            MaskingEngines.builder(props);
+            throw new AssertionError("가명 키 파일 없이 구성됨");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        if (rotated.equals(a) || !rotated.matches("phone=010-[B-T]{4}-5678") || phone.cache().size() != 1) {
+            throw new AssertionError("가명 키 교체 실패: " + rotated);
+        }
+
+        // 키 파일·예산 설정 key(대소문자 섞임)는 사전 항목으로 읽지 않는다
+        String configured;
+        try {
+            Path keyFile = Files.createTempFile("pseudonym", ".key");
+            Files.writeString(keyFile, java.util.Base64.getEncoder().encodeToString(key));
+            props.setProperty("pseudonym.keyFile", keyFile.toString());
+            props.setProperty("budget.maxLength", "4096");
+            props.setProperty("PHONE", "phone");
+            configured = MaskingEngines.builder(props).build().mask("phone=010-1234-5678");
+            Files.delete(keyFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!configured.equals(a)) {
+            throw new AssertionError("가명 설정 파일 구성 실패: " + configured);
+        }
+
+        // 설정 파일은 그대로 두고 키 파일만 바꿔도 재적재가 새 키로 엔진을 만든다
+        try {
+            Path dir = Files.createTempDirectory("pseudonym-rotate");
+            Path keyFile = dir.resolve("pseudonym.key");
+            Path config = dir.resolve("masking-keywords.properties");
+            Files.writeString(keyFile, java.util.Base64.getEncoder().encodeToString(key));
+            Files.writeString(config, "PHONE=phone\npseudonym=phone\npseudonym.keyFile=" + keyFile + "\n");
+            ReloadableMaskingEngine engines = new ReloadableMaskingEngine(config, null);
+            String before = engines.get().mask("phone=010-1234-5678");
+            boolean unchanged = !engines.reload();
+            Files.writeString(keyFile, java.util.Base64.getEncoder().encodeToString(
+                    "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII)));
+            boolean swapped = engines.reload();
+            String after = engines.get().mask("phone=010-1234-5678");
+            Files.delete(config);
+            Files.delete(keyFile);
+            Files.delete(dir);
+            if (!before.equals(a) || !unchanged || !swapped || !after.equals(rotated) || engines.reloadCount() != 1) {
+                throw new AssertionError("가명 키 파일 교체 미반영: " + before + " / " + after);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return 1;
+    }
+
+    private static int secretBlocklist() {
+        List<String> values = new java.util.ArrayList<>(List.of("tok_ABC123", "ABC123XYZ", "VIP0001", "4111-1111-1111-1111", "홍길동VIP", "p=q"));
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) values.add("sk_" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+        SecretBlocklist secrets = SecretBlocklist.build(values);
+        MaskingMetrics metrics = new MaskingMetrics(0);
+        KeywordBasedLogMaskingEngine engine = MaskingEngines.defaultBuilder().secrets(() -> secrets).metrics(metrics).build();
+
+        String line = "user=VIP0001 token tok_ABC123XYZ end card=4111-1111-1111-1111 phone=010-1234-5678 고객 홍길동VIP " + values.get(50_000);
+        String expected = "user=<REDACTED> token <REDACTED> end card=<REDACTED> phone=010-****-5678 고객 <REDACTED> <REDACTED>";
+        String plain = "batch done count=3 VIP000 tok_ABC12";
+        String masked = engine.mask(line);
+        if (!expected.equals(masked) || engine.mask(plain) != plain || secrets.size() != values.size()
+                || metrics.getSecretsRedacted() != 5 || secrets.offHeapBytes() <= 0) {
+            throw new AssertionError("값 차단 목록 치환 실패: " + masked + " / " + secrets);
+        }
+        // JSON string 값(이스케이프 해제본)에도 적용된다
+        String secretJson = engine.maskJson("{\"note\":\"tok_ABC123XYZ\",\"phone\":\"VIP0001\",\"acct\":\"x\\u0056IP0001\",\"n\":7}");
+        String plainJson = "{\"note\":\"VIP000\"}";
+        if (!"{\"note\":\"<REDACTED>\",\"phone\":\"<REDACTED>\",\"acct\":\"x<REDACTED>\",\"n\":7}".equals(secretJson)
+                || engine.maskJson(plainJson) != plainJson) {
+            throw new AssertionError("JSON 값 차단 실패: " + secretJson);
+        }
+        // 값 안의 구분자도 key=value 파싱 전에 치환된다, 금지 키만 모드에도 적용
+        if (!"a <REDACTED>, pwd=<REDACTED> phone=010-1234-5678".equals(engine.maskForbiddenOnly("a p=q, pwd=VIP0001 phone=010-1234-5678"))) {
+            throw new AssertionError("금지 키만 모드 값 차단 실패");
+        }
+
+        // maskTo, UTF-8, 스트리밍(1~3자 청크)도 mask(String)과 같다
+        String[] lines = {line, plain, "x=tok_ABC123XYZVIP0001y", "VIP0001", "card=\"4111-1111-1111-1111\"", "tok_ABC12" + "3XYZ"};
+        try {
+            for (String l : lines) {
+                String want = engine.mask(l);
+                StringBuilder out = new StringBuilder("> ");
+                engine.maskTo(l, 0, l.length(), out);
+                String utf8 = new String(engine.maskUtf8(l.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+                StringWriter streamed = new StringWriter();
+                MaskingWriter writer = engine.maskingWriter(streamed);
+                for (int pos = 0; pos < l.length(); ) {
+                    int end = Math.min(l.length(), pos + 1 + random.nextInt(3));
+                    writer.write(l, pos, end - pos);
+                    pos = end;
+                }
+                writer.finish();
+                if (!("> " + want).equals(out.toString()) || !want.equals(utf8) || !want.equals(streamed.toString())) {
+                    throw new AssertionError("값 차단 경로 불일치: " + want + " / " + out + " / " + utf8 + " / " + streamed);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // 저장한 이미지는 매핑해 그대로 쓰고, 파일을 바꾸면 목록만 교체된다
+        try {
+            Path image = Files.createTempFile("secrets", ".bin");
+            secrets.save(image);
+            SecretBlocklist mapped = SecretBlocklist.open(image);
+            Path text = Files.createTempFile("secrets", ".txt");
+            Files.writeString(text, "VIP0001\n\nABC-9\n");
+            ReloadableSecretBlocklist holder = new ReloadableSecretBlocklist(text);
+            KeywordBasedLogMaskingEngine reloading = MaskingEngines.defaultBuilder().secrets(holder).build();
+            String before = reloading.mask("id=ABC-9 vip=VIP0001 new=NEW-7");
+            Files.writeString(text, "NEW-7\n");
+            boolean swapped = holder.reload();
+            String after = reloading.mask("id=ABC-9 vip=VIP0001 new=NEW-7");
+            boolean unchanged = !holder.reload();
+            Files.delete(image);
+            Files.delete(text);
+            List<String> reported = new ArrayList<>();
+            holder.onError((message, e) -> reported.add(message));
+            boolean failed = !holder.reload() && holder.lastFailure() != null && reported.size() == 1
+                    && holder.get().redact("NEW-7").equals(SecretBlocklist.REPLACEMENT);
+            if (!failed) throw new AssertionError("값 차단 목록 재적재 실패 처리 오류: " + reported);
+            if (!mapped.redact(line).equals(secrets.redact(line)) || mapped.offHeapBytes() != secrets.offHeapBytes()
+                    || !before.equals("id=<REDACTED> vip=<REDACTED> new=NEW-7") || !swapped
+                    || !after.equals("id=ABC-9 vip=VIP0001 new=<REDACTED>") || holder.reloadCount() != 1 || !unchanged) {
+                throw new AssertionError("값 차단 목록 이미지/교체 실패: " + before + " / " + after);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return 1;
+    }
+
+    private static int httpFormats() {
+        KeywordBasedLogMaskingEngine engine = KeywordBasedLogMaskingEngine.builder(
+                PiiKeywordDictionary.defaultDictionary(),
+                new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), ForbiddenKeywordPolicy.Mode.REDACT),
+                MaskingEngines.defaultMaskers()).build();
+        Map<String, String> cases = new LinkedHashMap<>();
+        cases.put("GET /api/transfer?phone=010-1234-5678&acct=110-123-456789&amount=5000 200 12ms",
+                "GET /api/transfer?phone=010-****-5678&acct=110-***-***789&amount=5000 200 12ms");
+        cases.put("POST /login body=phone=010%2D1234%2D5678&pwd=tiger&next=%2Fhome",
+                "POST /login body=phone=010%2D****%2D5678&pwd=<REDACTED>&next=%2Fhome");
+        cases.put("GET /q?tel=010+1234+5678&card=1234%2d5678%2d1234%2d5678#top",
+                "GET /q?tel=010+****+5678&card=1234%2d56**%2d****%2d5678#top");
+        cases.put("X-Customer-Phone: 010-1234-5678\r\nX-Request-Id: abc\r\nX-Account-No: 110-123-456789 retry=1\r\nX-Auth-Pin: 12 34",
+                "X-Customer-Phone: 010-****-5678\r\nX-Request-Id: abc\r\nX-Account-No: 110-***-***789 retry=1\r\nX-Auth-Pin: <REDACTED>");
+        cases.put("discount=5% phone=010-1234-5678 q=a&b", "discount=5% phone=010-****-5678 q=a&b");
+        cases.put("req headers X-Customer-Phone: 010-1234-5678", "req headers X-Customer-Phone: 010-****-5678");
+        cases.put("INFO X-Customer-Phone: 010-1234-5678", "INFO X-Customer-Phone: 010-****-5678");
+        cases.put("headers={X-Auth-Pin: 1234, X-Account-No: 110-123-456789,X-Request-Id: abc} done",
+                "headers={X-Auth-Pin: <REDACTED>, X-Account-No: 110-***-***789,X-Request-Id: abc} done");
+        cases.put("INFO Content-Type: text/plain user=bob", "INFO Content-Type: text/plain user=bob");
+
+        for (Map.Entry<String, String> c : cases.entrySet()) {
+            String line = c.getKey();
+            String masked = engine.mask(line);
+            StringBuilder to = new StringBuilder("> ");
+            engine.maskTo(line, 0, line.length(), to);
+            String utf8 = new String(engine.maskUtf8(line.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+            if (!c.getValue().equals(masked) || !("> " + masked).equals(to.toString()) || !masked.equals(utf8)) {
+                throw new AssertionError("쿼리·헤더 형식 마스킹 실패: " + masked + " / " + to + " / " + utf8);
+            }
+        }
+
+        // 금지 키만: 인코딩된 PII는 그대로, 금지 키 value는 '&' 앞까지만
+        String forbiddenOnly = engine.maskForbiddenOnly("/cb?phone=010%2D1234%2D5678&otp=123456&state=ok");
+        // 인자가 쿼리 형식이면 인자 단위 마스킹을 포기하고 전체 메시지로 되돌아간다
+        MessageTemplate template = MessageTemplate.analyze(engine, "callback url={} status={}");
+        if (!"/cb?phone=010%2D1234%2D5678&otp=<REDACTED>&state=ok".equals(forbiddenOnly)
+                || template.format(new Object[] {"/cb?phone=010-1234-5678", "OK"}) != null
+                || template.format(new Object[] {"/cb", "OK"}) == null
+                || MessageTemplate.analyze(engine, "GET /cb?phone={}&otp={}").isArgumentMaskable()) {
+            throw new AssertionError("쿼리 형식 금지 키/템플릿 처리 실패: " + forbiddenOnly);
+        }
+        return 1;
+    }
+
+    private static int streamingChunks(KeywordBasedLogMaskingEngine... engines) {
+        String[] payloads = {
+                "phone=010-1234-5678",
+                "req(phone = \"010-1234-5678\", acct='123-456-789012') pwd : x\ncard=1234-5678-1234-5678",
+                "user=john pwd=abc123 role=admin mobile: 010-9999-8888, x==y phone=",
+                "고객 연락처 010-1234-5678 확인, 주민 900101-1234568 (phone=01012345678)",
+        };
+        Random random = new Random(42);
+        try {
+            for (KeywordBasedLogMaskingEngine e : engines) {
+                for (String payload : payloads) {
+                    for (int round = 0; round < 50; round++) {
+                        StringWriter out = new StringWriter();
+                        MaskingWriter writer = e.maskingWriter(out);
+                        int pos = 0;
+                        while (pos < payload.length()) {
+                            int end = Math.min(payload.length(), pos + 1 + random.nextInt(6));
+                            if (round % 2 == 0) writer.append(payload, pos, end);
+                            else writer.write(payload.toCharArray(), pos, end - pos);
+                            pos = end;
+                        }
+                        writer.finish();
+                        if (!e.mask(payload).equals(out.toString())) {
+                            throw new AssertionError("스트리밍 결과 불일치: " + out + " / " + e.mask(payload));
+                        }
+                    }
+                }
+            }
+            StringWriter out = new StringWriter();
+            MaskingWriter writer = engines[0].maskingWriter(out);
+            writer.write("phone=010-12");
+            writer.write("34-5678");
+            writer.finish();
+            if (!"phone=010-****-5678".equals(out.toString())) {
+                throw new AssertionError("청크 경계 value 마스킹 실패: " + out);
+            }
+            return 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int utf8Bytes(KeywordBasedLogMaskingEngine... engines) {
+        String[] lines = {
+                "phone=010-1234-5678",
+                "고객 휴대폰: 010-1234-5678 비밀번호=abcd, 메모=확인요망 card=1234-5678-1234-5678",
+                "req(phone = \"010-1234-5678\", acct='123-456-789012') pwd : 비밀 x==y mobile=",
+                "고객 연락처 010-1234-5678 확인, 주민 900101-1234568 😀 pin=1234",
+                "이름=홍길동 nothing to mask here",
+        };
+        for (KeywordBasedLogMaskingEngine e : engines) {
+            for (String line : lines) {
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                byte[] masked = e.maskUtf8(bytes);
+                String expected = e.mask(line);
+                if (!expected.equals(new String(masked, StandardCharsets.UTF_8))) {
+                    throw new AssertionError("UTF-8 마스킹 불일치: expected=\"" + expected
+                            + "\" actual=\"" + new String(masked, StandardCharsets.UTF_8) + "\"");
+                }
+                if (expected.equals(line) != (masked == bytes)) {
+                    throw new AssertionError("UTF-8 마스킹: 변경 없을 때만 입력 배열을 그대로 반환해야 함: " + line);
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static int metrics() {
+        MaskingMetrics metrics = new MaskingMetrics(1);
+        KeywordBasedLogMaskingEngine metered = KeywordBasedLogMaskingEngine.builder(
+                        PiiKeywordDictionary.defaultDictionary(),
+                        new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), ForbiddenKeywordPolicy.Mode.REDACT),
+                        MaskingEngines.defaultMaskers())
+                .metrics(metrics)
+                .build();
+
+        metered.mask("nothing to see here");
+        metered.mask("phone=010-1234-5678 pwd=x mobile: 010-9999-8888 " + "x".repeat(300));
+        metered.jsonMasker(JsonPathRules.builder().forbid("$.sig").build()).mask("{\"sig\":\"a\",\"otp\":\"1\"}");
+        metered.fieldMasker().mask("user.pin_code", "0000");
+
+        long histogramTotal = 0;
+        for (long[] row : metrics.getLatencyHistogramByLineLength().values()) for (long n : row) histogramTotal += n;
+        if (metrics.getLines() != 2 || metrics.getLinesWithoutKeyword() != 1
+                || metrics.maskedCount(PiiType.PHONE) != 2 || metrics.getSampledLines() != 2 || histogramTotal != 2
+                || !Map.of("pwd", 1L, "otp", 1L, "pin", 1L, "(path)", 1L).equals(metrics.getForbiddenByKey())) {
+            throw new AssertionError("지표 집계 오류: lines=" + metrics.getLines() + " forbidden=" + metrics.getForbiddenByKey()
+                    + " masked=" + metrics.getMaskedByType());
+        }
+
+        try {
+            ObjectName name = metrics.registerMBean();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Object lines = server.getAttribute(name, "Lines");
+            server.setAttribute(name, new Attribute("LatencySampleRate", 0));
+            metered.mask("phone=010-1234-5678");
+            server.unregisterMBean(name);
+            if (!Long.valueOf(2).equals(lines) || metrics.getLines() != 3 || metrics.getSampledLines() != 2) {
+                throw new AssertionError("MBean 조회/표본 비율 변경 실패: " + lines);
+            }
+
+            // 시스템 프로퍼티 경로는 등록 결과를 예외 대신 registrationFailure()로 알린다
+            System.setProperty(MaskingMetrics.SAMPLE_RATE_PROPERTY, "4");
+            MaskingMetrics fromProperties;
+            try {
+                fromProperties = MaskingMetrics.fromSystemProperties();
+            } finally {
+                System.clearProperty(MaskingMetrics.SAMPLE_RATE_PROPERTY);
+            }
+            boolean registered = server.isRegistered(name);
+            if (registered) server.unregisterMBean(name);
+            if (fromProperties.registrationFailure() != null || !registered || fromProperties.getLatencySampleRate() != 4) {
+                throw new AssertionError("시스템 프로퍼티 지표 등록 실패: " + fromProperties.registrationFailure());
+            }
+        } catch (JMException e) {
+            throw new AssertionError(e);
+        }
+        return 1;
+    }
+
+    private static int hotReload() {
+        try {
+            Path file = Files.createTempDirectory("masking-reload").resolve("masking-keywords.properties");
+            Files.writeString(file, "phone=phone\n");
+            try (ReloadableMaskingEngine engines = new ReloadableMaskingEngine(file, null)) {
+                KeywordBasedLogMaskingEngine before = engines.get();
+                String line = "hp=010-1234-5678 secret=tiger pwd=x";
+                if (!line.equals(before.mask(line).replace("pwd=<REDACTED>", "pwd=x")) || engines.reload()) {
+                    throw new AssertionError("재적재 전 엔진/변경 없는 재적재 오류: " + before.mask(line));
+                }
+
+                Files.writeString(file, "phone=phone,hp\nforbidden=secret\nforbidden.mode=DROP_VALUE\n");
+                if (!engines.reload() || engines.get() == before
+                        || !"hp=010-****-5678 secret= pwd=x".equals(engines.get().mask(line))
+                        || !line.equals(before.mask(line).replace("pwd=<REDACTED>", "pwd=x"))) {
+                    throw new AssertionError("재적재 후 엔진 교체 실패: " + engines.get().mask(line));
+                }
+
+                KeywordBasedLogMaskingEngine good = engines.get();
+                Files.writeString(file, "phone=hp\nnotatype=x\n");
+                if (engines.reload() || engines.get() != good || engines.lastFailure() == null) {
+                    throw new AssertionError("잘못된 설정으로 엔진이 교체됨");
+                }
+                // 등록 전 실패는 등록할 때 한 번, 이후 실패는 그때그때 받는다
+                Exception first = engines.lastFailure();
+                List<Exception> reported = new ArrayList<>();
+                engines.onError((message, e) -> reported.add(e));
+                engines.reload();
+                if (reported.size() != 2 || reported.get(0) != first || reported.get(1) != engines.lastFailure()) {
+                    throw new AssertionError("재적재 실패 처리기 호출 오류: " + reported);
+                }
+                engines.onError(null);
+
+                engines.watch();
+                Files.writeString(file, "card=card\nphone=hp,mobile\n");
+                long deadline = System.nanoTime() + 10_000_000_000L;
+                while (engines.reloadCount() < 2 && System.nanoTime() < deadline) Thread.sleep(20);
+                if (!"mobile=010-****-5678".equals(engines.get().mask("mobile=010-1234-5678")) || engines.lastFailure() != null) {
+                    throw new AssertionError("파일 감시 재적재 실패: reloads=" + engines.reloadCount());
+                }
+            }
+            return 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+
+    private static int batchRoundTrip(KeywordBasedLogMaskingEngine engine) {
+        try {
+            StringBuilder input = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 300; i++) {
+                String line = switch (i % 3) {
+                    case 0 -> "i=" + i + " phone=010-1234-5678 고객 조회";
+                    case 1 -> "i=" + i + " pwd=secret" + i;
+                    default -> "i=" + i + " nothing to mask here";
+                };
+                input.append(line).append('\n');
+                expected.append(engine.mask(line)).append('\n');
+            }
+            input.append("tail card=1234-5678-1234-5678"); // 마지막 줄은 개행 없음
+            expected.append("tail card=1234-56**-****-5678");
+
+            Path dir = Files.createTempDirectory("batch-masking");
+            Path plain = Files.writeString(dir.resolve("in.log"), input);
+            Path gz = dir.resolve("in.log.gz");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+                out.write(input.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            BatchMaskingTool tool = new BatchMaskingTool(4, 100, StandardCharsets.UTF_8, false);
+            BatchMaskingTool.Result r1 = tool.run(plain, dir.resolve("out.log"));
+            tool.run(gz, dir.resolve("out.log.gz"));
+
+            String out1 = Files.readString(dir.resolve("out.log"));
+            String out2;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(dir.resolve("out.log.gz")))) {
+                out2 = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (!expected.toString().equals(out1) || !out1.equals(out2)
+                    || r1.maskedCount(PiiType.PHONE) != 100 || r1.maskedCount(PiiType.CARD) != 1
+                    || r1.forbiddenCount() != 100) {
+                throw new AssertionError("배치 도구 결과 불일치: " + r1.summary());
+            }
+
+            // 바뀌지 않은 줄은 디코딩할 수 없는 바이트까지 그대로, '\n'으로 나눌 수 없는 문자셋은 거부
+            byte[] rawBytes = {'r', 'a', 'w', (byte) 0xff, (byte) 0xfe, ' ', 'b', 'y', 't', 'e', 's', '\n'};
+            java.io.ByteArrayOutputStream mixed = new java.io.ByteArrayOutputStream();
+            mixed.writeBytes("phone=010-1234-5678\n".getBytes(StandardCharsets.UTF_8));
+            mixed.writeBytes(rawBytes);
+            Path binary = Files.write(dir.resolve("raw.log"), mixed.toByteArray());
+            tool.run(binary, dir.resolve("raw-out.log"));
+            java.io.ByteArrayOutputStream wantBytes = new java.io.ByteArrayOutputStream();
+            wantBytes.writeBytes("phone=010-****-5678\n".getBytes(StandardCharsets.UTF_8));
+            wantBytes.writeBytes(rawBytes);
+            if (!java.util.Arrays.equals(wantBytes.toByteArray(), Files.readAllBytes(dir.resolve("raw-out.log")))) {
+                throw new AssertionError("바뀌지 않은 줄의 원래 바이트가 보존되지 않음");
+            }
+            try {
+                new BatchMaskingTool(1, 100, StandardCharsets.UTF_16, false);
+                throw new AssertionError("ASCII 호환이 아닌 문자셋 허용");
+            } catch (IllegalArgumentException expectedError) {
+                // ok
+            }
+
+            // 출력이 입력과 같은 파일이면(경로 표기가 달라도) 비우기 전에 거부한다
+            try {
+                tool.run(plain, dir.resolve(".").resolve("in.log"));
+                throw new AssertionError("입력 파일에 덮어쓰기 허용");
+            } catch (IllegalArgumentException expectedError) {
+                if (!Files.readString(plain).equals(input.toString())) {
+                    throw new AssertionError("거부 전에 입력 파일이 비워짐");
+                }
+            }
+            return 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private static int expect(KeywordBasedLogMaskingEngine engine, String input, String expected, String label) {
         String actual = engine.mask(input);
         if (!expected.equals(actual)) {
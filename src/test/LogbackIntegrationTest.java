@@ -0,0 +1,438 @@
+package test;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.read.ListAppender;
+import logback.MaskingAsyncAppender;
+import logback.MaskingEncoder;
+import org.slf4j.MDC;
+import org.slf4j.MarkerFactory;
+import strategy.masking.MaskingKeyValuePairConverter;
+import strategy.masking.MaskingMdcConverter;
+import strategy.masking.MaskingRoutes;
+import strategy.masking.MaskingThrowableProxyConverter;
+import strategy.masking.PIIConverter;
+import strategy.masking.ReloadableMaskingEngine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Logback 연동 구성요소(appender 등)를 LoggerContext를 직접 구성해 검증하는 테스트.
+ * main() 실행 시 모든 케이스를 돌리고, 실패 시 AssertionError로 종료한다.
+ */
+public class LogbackIntegrationTest {
+
+    public static void main(String[] args) throws Exception {
+        int passed = 0;
+
+        // PIIConverter 엔진은 처음 쓰일 때 설정 파일을 정하므로 맨 앞에서 돌린다
+        passed += converterHonoursKeylessProperty();
+        passed += asyncAppenderMasksEveryEvent(MaskingAsyncAppender.OverflowPolicy.BLOCK, 8192);
+        passed += asyncAppenderMasksEveryEvent(MaskingAsyncAppender.OverflowPolicy.MASK_INLINE, 4);
+        passed += encoderMasksRenderedLine();
+        passed += throwableConverterMasksMessages();
+        passed += asyncAppenderMasksThrowable();
+        passed += asyncAppenderStopWhileLogging();
+        passed += mdcAndKeyValueConvertersMaskValues();
+        passed += convertersRoutePerLoggerAndMarker();
+        passed += convertersPassMaskedEventsThrough();
+
+        System.out.println("OK: " + passed + "개 케이스 통과");
+    }
+
+    /**
+     * 설정 파일에만 keyless=true가 있어도(패턴 옵션 없이) 키워드 없는 메시지와 인자 단위 마스킹 경로 모두
+     * key 없는 PII를 마스킹해야 한다. 끝나면 keyless를 뺀 설정으로 재적재해 이후 케이스는 기본 설정으로 돈다.
+     */
+    private static int converterHonoursKeylessProperty() throws IOException {
+        Path config = Files.createTempFile("masking-keyless", ".properties");
+        String base;
+        try (InputStream in = PIIConverter.class.getClassLoader().getResourceAsStream("masking-keywords.properties")) {
+            base = new String(in.readAllBytes(), StandardCharsets.ISO_8859_1);
+        }
+        Files.writeString(config, base + "\nkeyless=true\n", StandardCharsets.ISO_8859_1);
+        String previous = System.setProperty(ReloadableMaskingEngine.FILE_PROPERTY, config.toString());
+        try {
+            LoggerContext context = new LoggerContext();
+            ListAppender<ILoggingEvent> sink = new ListAppender<>();
+            sink.setContext(context);
+            sink.start();
+            Logger logger = context.getLogger("test.keyless");
+            logger.addAppender(sink);
+            logger.info("고객 연락처 {} 확인", "010-1234-5678");
+            logger.info("고객 연락처 010-1234-5678 확인");
+            logger.info("mobile: {}, 연락처 {}", "010-9999-8888", "010-1234-5678");
+
+            String[] expected = {"고객 연락처 010-****-5678 확인", "고객 연락처 010-****-5678 확인", "mobile: 010-****-8888, 연락처 010-****-5678"};
+            for (List<String> options : List.of(List.<String>of(), List.of("arguments"))) {
+                PIIConverter converter = new PIIConverter();
+                converter.setContext(context);
+                converter.setOptionList(options);
+                converter.start();
+                for (int i = 0; i < expected.length; i++) {
+                    String actual = converter.convert(sink.list.get(i));
+                    if (!expected[i].equals(actual)) {
+                        throw new AssertionError("설정 파일 keyless 미적용 " + options + " #" + i + ": " + actual);
+                    }
+                }
+                converter.stop();
+            }
+
+            Files.writeString(config, base, StandardCharsets.ISO_8859_1);
+            if (!PIIConverter.engines().reload() || PIIConverter.engine().isKeylessDetection()) {
+                throw new AssertionError("기본 설정으로 재적재 실패");
+            }
+            PIIConverter.engines().close();
+        } finally {
+            if (previous == null) System.clearProperty(ReloadableMaskingEngine.FILE_PROPERTY);
+            else System.setProperty(ReloadableMaskingEngine.FILE_PROPERTY, previous);
+            Files.deleteIfExists(config);
+        }
+        return 1;
+    }
+
+    /** 여러 스레드가 동시에 로깅해도 하위 appender에는 마스킹된 이벤트만, 빠짐없이 도착해야 한다. */
+    private static int asyncAppenderMasksEveryEvent(MaskingAsyncAppender.OverflowPolicy policy, int queueSize)
+            throws InterruptedException {
+        LoggerContext context = new LoggerContext();
+        ListAppender<ILoggingEvent> sink = new ListAppender<>();
+        sink.setContext(context);
+        sink.start();
+
+        MaskingAsyncAppender async = new MaskingAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(queueSize);
+        async.setWorkerCount(2);
+        async.setBatchSize(16);
+        async.setOverflowPolicy(policy);
+        async.addAppender(sink);
+        async.start();
+
+        Logger logger = context.getLogger("test.async");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+
+        int threads = 4, perThread = 2_000;
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    logger.info("transfer mobile: {}, card={} seq={}", "010-9999-8888", "1234-5678-1234-5678", i);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread p : producers) p.join();
+        async.stop();
+
+        int expected = threads * perThread;
+        if (sink.list.size() != expected) {
+            throw new AssertionError(policy + ": 전달된 이벤트 수 expected=" + expected + " actual=" + sink.list.size());
+        }
+        for (ILoggingEvent e : sink.list) {
+            String msg = e.getFormattedMessage();
+            if (msg.contains("9999") || msg.contains("5678-1234") || e.getArgumentArray() != null) {
+                throw new AssertionError(policy + ": 마스킹되지 않은 이벤트 전달: " + msg);
+            }
+        }
+        return 1;
+    }
+
+    /** 레이아웃이 렌더링한 줄 전체(MDC 포함)가 마스킹되어야 하고, 바뀔 것이 없는 줄은 하위 encoder 출력 그대로여야 한다. */
+    private static int encoderMasksRenderedLine() {
+        LoggerContext context = new LoggerContext();
+        PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+        pattern.setContext(context);
+        pattern.setCharset(StandardCharsets.UTF_8);
+        pattern.setPattern("[%X] %msg%n");
+
+        MaskingEncoder encoder = new MaskingEncoder();
+        encoder.setContext(context);
+        encoder.setEncoder(pattern);
+        encoder.start();
+
+        Logger logger = context.getLogger("test.encoder");
+        ListAppender<ILoggingEvent> sink = new ListAppender<>();
+        sink.setContext(context);
+        sink.start();
+        logger.setAdditive(false);
+        logger.addAppender(sink);
+
+        // MDC는 이벤트를 처음 읽을 때 복사되므로 값이 남아 있는 동안 인코딩한다
+        String masked;
+        MDC.put("phone", "010-1234-5678");
+        try {
+            logger.info("고객 조회 card={}", "1234-5678-1234-5678");
+            masked = new String(encoder.encode(sink.list.get(0)), StandardCharsets.UTF_8);
+        } finally {
+            MDC.remove("phone");
+        }
+        logger.info("배치 완료 count=3");
+
+        if (!"[phone=010-****-5678] 고객 조회 card=1234-56**-****-5678".equals(masked.strip())) {
+            throw new AssertionError("MaskingEncoder 렌더링 줄 마스킹 실패: " + masked);
+        }
+        String plain = new String(encoder.encode(sink.list.get(1)), StandardCharsets.UTF_8);
+        if (!"[] 배치 완료 count=3".equals(plain.strip())) {
+            throw new AssertionError("MaskingEncoder 변경 없는 줄 훼손: " + plain);
+        }
+        encoder.stop();
+        return 1;
+    }
+
+    /** 예외·cause·suppressed 메시지는 마스킹되고 스택 프레임은 그대로여야 하며, 같은 예외의 반복 출력은 캐시에서 나와야 한다. */
+    private static int throwableConverterMasksMessages() {
+        LoggerContext context = new LoggerContext();
+        MaskingThrowableProxyConverter converter = new MaskingThrowableProxyConverter();
+        converter.setContext(context);
+        converter.start();
+
+        Logger logger = context.getLogger("test.throwable");
+        ListAppender<ILoggingEvent> sink = new ListAppender<>();
+        sink.setContext(context);
+        sink.start();
+        logger.setAdditive(false);
+        logger.addAppender(sink);
+
+        IllegalStateException root = new IllegalStateException("transfer failed",
+                new IllegalArgumentException("invalid account=110-123-456789"));
+        root.addSuppressed(new RuntimeException("rollback pwd=tiger phone: 010-1234-5678"));
+        logger.error("retry", root);
+        logger.error("retry", root);
+
+        String first = converter.convert(sink.list.get(0));
+        String second = converter.convert(sink.list.get(1));
+        if (first.contains("123-456789") || first.contains("tiger") || first.contains("1234-5678")
+                || !first.contains("account=110-***-***789") || !first.contains("pwd=<REDACTED>")
+                || !first.contains("phone: 010-****-5678") || !first.contains("IllegalStateException: transfer failed")
+                || !first.contains("at test.LogbackIntegrationTest.throwableConverterMasksMessages")) {
+            throw new AssertionError("예외 메시지 마스킹 실패:\n" + first);
+        }
+        if (!first.equals(second) || converter.renderingCache().hitCount() != 1) {
+            throw new AssertionError("같은 예외 렌더링이 캐시되지 않음: hits=" + converter.renderingCache().hitCount());
+        }
+        converter.stop();
+        return 1;
+    }
+
+    /** 비동기 appender가 넘기는 이벤트의 예외 proxy도 자신·cause·suppressed 메시지가 마스킹되어 있어야 한다. */
+    private static int asyncAppenderMasksThrowable() {
+        LoggerContext context = new LoggerContext();
+        ListAppender<ILoggingEvent> sink = new ListAppender<>();
+        sink.setContext(context);
+        sink.start();
+
+        MaskingAsyncAppender async = new MaskingAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.addAppender(sink);
+        async.start();
+
+        Logger logger = context.getLogger("test.async.throwable");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+
+        IllegalStateException root = new IllegalStateException("transfer failed phone=010-1234-5678",
+                new IllegalArgumentException("invalid account=110-123-456789"));
+        root.addSuppressed(new RuntimeException("rollback pwd=tiger"));
+        logger.error("retry", root);
+        async.stop();
+
+        IThrowableProxy proxy = sink.list.get(0).getThrowableProxy();
+        String rendered = ThrowableProxyUtil.asString(proxy);
+        if (rendered.contains("1234-5678") || rendered.contains("123-456789") || rendered.contains("tiger")
+                || !"transfer failed phone=010-****-5678".equals(proxy.getMessage())
+                || !"invalid account=110-***-***789".equals(proxy.getCause().getMessage())
+                || !"rollback pwd=<REDACTED>".equals(proxy.getSuppressed()[0].getMessage())
+                || !rendered.contains("at test.LogbackIntegrationTest.asyncAppenderMasksThrowable")) {
+            throw new AssertionError("비동기 appender 예외 마스킹 실패:\n" + rendered);
+        }
+        return 1;
+    }
+
+    /** 로깅 중에 stop()해도 버퍼에 남는 이벤트가 없어야 하고, 전달된 이벤트는 모두 마스킹되어 있어야 한다. */
+    private static int asyncAppenderStopWhileLogging() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            LoggerContext context = new LoggerContext();
+            ListAppender<ILoggingEvent> sink = new ListAppender<>();
+            sink.setContext(context);
+            sink.start();
+
+            MaskingAsyncAppender async = new MaskingAsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC");
+            async.setQueueSize(64);
+            async.setWorkerCount(2);
+            async.setMaxFlushTime(50);
+            async.addAppender(sink);
+            async.start();
+
+            Logger logger = context.getLogger("test.async.stop");
+            logger.setAdditive(false);
+            logger.addAppender(async);
+
+            Thread[] producers = new Thread[4];
+            for (int t = 0; t < producers.length; t++) {
+                producers[t] = new Thread(() -> {
+                    for (int i = 0; i < 2_000; i++) logger.info("stop race phone={}", "010-9999-8888");
+                });
+                producers[t].start();
+            }
+            Thread.sleep(1);
+            async.stop();
+            for (Thread p : producers) p.join();
+
+            if (async.getNumberOfElementsInQueue() != 0) {
+                throw new AssertionError("종료 후 버퍼에 남은 이벤트: " + async.getNumberOfElementsInQueue());
+            }
+            synchronized (sink.list) {
+                for (ILoggingEvent e : sink.list) {
+                    if (e.getFormattedMessage().contains("9999")) {
+                        throw new AssertionError("종료 중 마스킹되지 않은 이벤트 전달: " + e.getFormattedMessage());
+                    }
+                }
+            }
+        }
+        return 1;
+    }
+
+    /** MDC·key-value pair 값은 key 판별 결과대로 마스킹되고, 출력 형식은 Logback 기본 컨버터와 같아야 한다. */
+    private static int mdcAndKeyValueConvertersMaskValues() {
+        LoggerContext context = new LoggerContext();
+        MaskingMdcConverter allMdc = new MaskingMdcConverter();
+        MaskingMdcConverter oneMdc = new MaskingMdcConverter();
+        oneMdc.setOptionList(List.of("acctNo"));
+        MaskingKeyValuePairConverter kvp = new MaskingKeyValuePairConverter();
+        for (ClassicConverter c : List.of(allMdc, oneMdc, kvp)) {
+            c.setContext(context);
+            c.start();
+        }
+
+        Logger logger = context.getLogger("test.fields");
+        ListAppender<ILoggingEvent> sink = new ListAppender<>();
+        sink.setContext(context);
+        sink.start();
+        logger.setAdditive(false);
+        logger.addAppender(sink);
+
+        String all, one;
+        MDC.put("acctNo", "110-123-456789");
+        try {
+            logger.atInfo().addKeyValue("customerPhone", "010-1234-5678").addKeyValue("otp", 123456)
+                    .addKeyValue("orderId", 42).log("order placed");
+            all = allMdc.convert(sink.list.get(0));
+            one = oneMdc.convert(sink.list.get(0));
+        } finally {
+            MDC.remove("acctNo");
+        }
+        String pairs = kvp.convert(sink.list.get(0));
+
+        if (!"acctNo=110-***-***789".equals(all) || !"110-***-***789".equals(one)
+                || !"customerPhone=\"010-****-5678\" otp=\"<REDACTED>\" orderId=\"42\"".equals(pairs)) {
+            throw new AssertionError("MDC/kvp 마스킹 실패: " + all + " | " + one + " | " + pairs);
+        }
+        return 1;
+    }
+
+    /** 로거 접두어·마커 규칙대로 전체 마스킹/금지 키만/통과하고, 로거별 결정은 캐시되어야 한다. */
+    private static int convertersRoutePerLoggerAndMarker() {
+        LoggerContext context = new LoggerContext();
+        PIIConverter converter = new PIIConverter();
+        converter.setContext(context);
+        converter.setOptionList(List.of("arguments", "logger:com.acme.health=FORBIDDEN_ONLY",
+                "logger:org.framework=BYPASS", "logger:org.framework.payment=FULL", "marker:AUDIT=FULL"));
+        converter.start();
+
+        ListAppender<ILoggingEvent> sink = new ListAppender<>();
+        sink.setContext(context);
+        sink.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.addAppender(sink);
+
+        String message = "check phone={} pwd={}";
+        context.getLogger("com.acme.health.Probe").info(message, "010-1234-5678", "tiger");
+        context.getLogger("org.framework.Boot").info(message, "010-1234-5678", "tiger");
+        context.getLogger("org.framework.payment.Gateway").info(message, "010-1234-5678", "tiger");
+        context.getLogger("org.frameworkx.Other").info(message, "010-1234-5678", "tiger");
+        context.getLogger("org.framework.Boot").info(MarkerFactory.getMarker("AUDIT"), message, "010-1234-5678", "tiger");
+
+        String[] expected = {
+                "check phone=010-1234-5678 pwd=<REDACTED>",
+                "check phone=010-1234-5678 pwd=tiger",
+                "check phone=010-****-5678 pwd=<REDACTED>",
+                "check phone=010-****-5678 pwd=<REDACTED>",
+                "check phone=010-****-5678 pwd=<REDACTED>",
+        };
+        for (int i = 0; i < expected.length; i++) {
+            String actual = converter.convert(sink.list.get(i));
+            if (!expected[i].equals(actual)) {
+                throw new AssertionError("로거/마커 라우팅 실패 #" + i + ": " + actual);
+            }
+        }
+
+        MaskingRoutes routes = converter.routes();
+        String name = sink.list.get(1).getLoggerName();
+        int cached = routes.cachedLoggerCount();
+        for (int i = 0; i < 100; i++) routes.routeForLogger(new String(name));
+        if (routes.cachedLoggerCount() != cached || routes.routeForLogger(new String(name)) != MaskingRoutes.Route.BYPASS
+                || routes.routeForLogger(name) != MaskingRoutes.Route.BYPASS
+                || routes.routeForLogger(name) != routes.routeForLogger(name)
+                || routes.routeForLogger("com.acme.healthz") != MaskingRoutes.Route.FULL
+                || MaskingRoutes.fromOptions(List.of("arguments", "keyless")) != null) {
+            throw new AssertionError("로거 라우팅 결정 오류");
+        }
+        converter.stop();
+        return 1;
+    }
+
+    /** 비동기 appender 뒤의 layout에 마스킹 컨버터를 두어도 이미 마스킹된 값을 다시 가리면 안 된다. */
+    private static int convertersPassMaskedEventsThrough() {
+        LoggerContext context = new LoggerContext();
+        PIIConverter message = new PIIConverter();
+        MaskingMdcConverter mdc = new MaskingMdcConverter();
+        MaskingKeyValuePairConverter kvp = new MaskingKeyValuePairConverter();
+        for (ClassicConverter c : List.of(message, mdc, kvp)) {
+            c.setContext(context);
+            c.start();
+        }
+
+        ListAppender<ILoggingEvent> sink = new ListAppender<>();
+        sink.setContext(context);
+        sink.start();
+        MaskingAsyncAppender async = new MaskingAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.addAppender(sink);
+        async.start();
+
+        Logger logger = context.getLogger("test.async.layout");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+        MDC.put("acctNo", "123-456-789012");
+        try {
+            logger.atInfo().addKeyValue("customerPhone", "010-1234-5678").log("transfer acct={}", "123-456-789012");
+        } finally {
+            MDC.remove("acctNo");
+        }
+        async.stop();
+
+        ILoggingEvent event = sink.list.get(0);
+        String m = message.convert(event), x = mdc.convert(event), p = kvp.convert(event);
+        if (!"transfer acct=123-***-***012".equals(m) || !"acctNo=123-***-***012".equals(x)
+                || !"customerPhone=\"010-****-5678\"".equals(p)) {
+            throw new AssertionError("마스킹된 이벤트 재마스킹: " + m + " | " + x + " | " + p);
+        }
+        return 1;
+    }
+}
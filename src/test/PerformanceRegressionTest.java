@@ -0,0 +1,403 @@
+package test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import core.KeywordBasedLogMaskingEngine;
+import core.MaskingBudget;
+import core.MaskingWriter;
+import core.PiiMasker;
+import core.PiiType;
+import core.RangePiiMasker;
+import dictionary.ForbiddenKeywordPolicy;
+import dictionary.PiiKeywordDictionary;
+import strategy.masking.AccountNumber;
+import strategy.masking.MaskingEngines;
+import strategy.masking.PhoneNumber;
+import strategy.masking.PrimaryAccountNumber;
+import strategy.masking.ResidentNumber;
+
+/**
+ * 생성한 금융 로그 말뭉치로 최적화 경로의 결과·할당량·처리량을 검증하는 회귀 테스트.
+ * main() 실행 시 모든 케이스를 돌리고, 실패 시 AssertionError로 종료한다.
+ *
+ * <ul>
+ *   <li>차등 검사: 엔진의 모든 key=value 경로(mask, prescan, 예산 조각, maskTo, maskUtf8, MaskingWriter)를
+ *       정규식으로 구현한 참조 엔진({@link RegexReference})과 줄마다 비교한다.</li>
+ *   <li>할당 예산: 경로·마스커별 줄(값)당 할당 바이트를 {@code ThreadMXBean} 스레드 할당 카운터로 재서 예산과 비교한다.</li>
+ *   <li>처리량 예산: {@code mask(String)}의 초당 줄 수가 하한 아래면 실패한다.</li>
+ * </ul>
+ *
+ * 예산은 시스템 프로퍼티로 바꿀 수 있다(0이면 그 항목은 검사하지 않음):
+ * {@code -Dmasking.perf.<항목>.maxBytes=...}, {@code -Dmasking.perf.minLinesPerSecond=...}, 말뭉치는 {@code -Dmasking.perf.seed=...}.
+ */
+public class PerformanceRegressionTest {
+
+    static final String PROPERTY_PREFIX = "masking.perf.";
+
+    private static final int LINES = 20_000;
+    private static final int VALUES = 4_096;
+
+    /**
+     * 항목별 기본 할당 예산(바이트/줄 또는 바이트/값). 현재 구현 측정값의 약 1.5배다.
+     * maskTo 경로는 할당이 없어야 하므로 MXBean 측정 오차만 허용한다.
+     */
+    private static final Map<String, Long> DEFAULT_MAX_BYTES = new LinkedHashMap<>();
+    static {
+        DEFAULT_MAX_BYTES.put("engine.mask", 900L);
+        DEFAULT_MAX_BYTES.put("engine.maskKeyless", 1400L);
+        DEFAULT_MAX_BYTES.put("engine.maskTo", 8L);
+        DEFAULT_MAX_BYTES.put("engine.maskUtf8", 640L);
+        DEFAULT_MAX_BYTES.put("phone.mask", 180L);
+        DEFAULT_MAX_BYTES.put("phone.maskTo", 8L);
+        DEFAULT_MAX_BYTES.put("account.mask", 180L);
+        DEFAULT_MAX_BYTES.put("account.maskTo", 8L);
+        DEFAULT_MAX_BYTES.put("rrn.mask", 180L);
+        DEFAULT_MAX_BYTES.put("rrn.maskTo", 8L);
+        DEFAULT_MAX_BYTES.put("card.mask", 200L);
+        DEFAULT_MAX_BYTES.put("card.maskTo", 8L);
+    }
+
+    /** 기본 처리량 하한(줄/초). 느린 CI 장비에서도 넘도록 낮게 잡고, 배포 장비에서는 프로퍼티로 올린다 */
+    private static final long DEFAULT_MIN_LINES_PER_SECOND = 50_000;
+
+    public static void main(String[] args) {
+        long seed = Long.getLong(PROPERTY_PREFIX + "seed", 20240601L);
+        String[] lines = FinancialLogCorpus.lines(new Random(seed), LINES);
+        int passed = 0;
+
+        KeywordBasedLogMaskingEngine engine = engineBuilder().build();
+        RegexReference reference = new RegexReference(PiiKeywordDictionary.defaultDictionary(),
+                new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), ForbiddenKeywordPolicy.Mode.REDACT));
+
+        // ---- 차등 검사: 최적화 경로 = 정규식 참조 구현 ----
+        passed += differential(engine, reference, lines, seed);
+
+        // ---- 할당 예산 ----
+        passed += allocationBudgets(engine, lines, new Random(seed));
+
+        // ---- 처리량 예산 ----
+        passed += throughputBudget(engine, lines);
+
+        System.out.println("OK: " + passed + "개 케이스 통과");
+    }
+
+    private static KeywordBasedLogMaskingEngine.Builder engineBuilder() {
+        return KeywordBasedLogMaskingEngine.builder(
+                PiiKeywordDictionary.defaultDictionary(),
+                new ForbiddenKeywordPolicy(ForbiddenKeywordPolicy.defaultForbiddenKeys(), ForbiddenKeywordPolicy.Mode.REDACT),
+                MaskingEngines.defaultMaskers());
+    }
+
+    private static int differential(KeywordBasedLogMaskingEngine engine, RegexReference reference, String[] lines, long seed) {
+        KeywordBasedLogMaskingEngine prescan = engineBuilder().prescan(1).build();
+        KeywordBasedLogMaskingEngine chunked = engineBuilder().budget(MaskingBudget.builder().chunkLength(48).build()).build();
+
+        StringBuilder expectedStream = new StringBuilder();
+        StringBuilder appended = new StringBuilder(256);
+        for (String line : lines) {
+            String expected = reference.mask(line);
+            check("mask", line, expected, engine.mask(line));
+            check("prescan", line, expected, prescan.mask(line));
+            check("budget chunks", line, expected, chunked.mask(line));
+
+            appended.setLength(0);
+            engine.maskTo(line, 0, line.length(), appended);
+            check("maskTo", line, expected, appended.toString());
+
+            byte[] utf8 = engine.maskUtf8(line.getBytes(StandardCharsets.UTF_8));
+            check("maskUtf8", line, expected, new String(utf8, StandardCharsets.UTF_8));
+
+            expectedStream.append(expected).append('\n');
+        }
+
+        // 스트리밍: 줄 경계와 무관한 임의 크기 청크
+        StringBuilder input = new StringBuilder();
+        for (String line : lines) input.append(line).append('\n');
+        StringWriter sink = new StringWriter();
+        Random random = new Random(seed);
+        try (MaskingWriter writer = engine.maskingWriter(sink)) {
+            for (int pos = 0; pos < input.length(); ) {
+                int end = Math.min(input.length(), pos + 1 + random.nextInt(300));
+                writer.write(input.substring(pos, end));
+                pos = end;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!expectedStream.toString().contentEquals(sink.getBuffer())) {
+            throw new AssertionError("MaskingWriter 결과가 참조 구현과 다름");
+        }
+        return 1;
+    }
+
+    private static void check(String path, String line, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new AssertionError(path + " 결과가 참조 구현과 다름\n  line:     " + line
+                    + "\n  expected: " + expected + "\n  actual:   " + actual);
+        }
+    }
+
+    private static int allocationBudgets(KeywordBasedLogMaskingEngine engine, String[] lines, Random random) {
+        KeywordBasedLogMaskingEngine keyless = engineBuilder().keylessDetection(true).build();
+        byte[][] utf8 = new byte[lines.length][];
+        for (int i = 0; i < lines.length; i++) utf8[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+        StringBuilder out = new StringBuilder(1024);
+
+        Map<String, Double> measured = new LinkedHashMap<>();
+        measured.put("engine.mask", bytesPerOp(lines.length, i -> engine.mask(lines[i])));
+        measured.put("engine.maskKeyless", bytesPerOp(lines.length, i -> keyless.mask(lines[i])));
+        measured.put("engine.maskTo", bytesPerOp(lines.length, i -> {
+            out.setLength(0);
+            engine.maskTo(lines[i], 0, lines[i].length(), out);
+        }));
+        measured.put("engine.maskUtf8", bytesPerOp(lines.length, i -> engine.maskUtf8(utf8[i])));
+
+        maskerBytes(measured, "phone", PhoneNumber.getInstance(), FinancialLogCorpus.values(random, VALUES, FinancialLogCorpus::phone), out);
+        maskerBytes(measured, "account", AccountNumber.getInstance(), FinancialLogCorpus.values(random, VALUES, FinancialLogCorpus::account), out);
+        maskerBytes(measured, "rrn", ResidentNumber.getInstance(), FinancialLogCorpus.values(random, VALUES, FinancialLogCorpus::rrn), out);
+        maskerBytes(measured, "card", PrimaryAccountNumber.getInstance(), FinancialLogCorpus.values(random, VALUES, FinancialLogCorpus::card), out);
+
+        List<String> exceeded = new ArrayList<>();
+        for (Map.Entry<String, Double> e : measured.entrySet()) {
+            long budget = Long.getLong(PROPERTY_PREFIX + e.getKey() + ".maxBytes", DEFAULT_MAX_BYTES.get(e.getKey()));
+            System.out.printf(Locale.ROOT, "  alloc %-20s %8.1f B/op (budget %d)%n", e.getKey(), e.getValue(), budget);
+            if (budget > 0 && e.getValue() > budget) exceeded.add(e.getKey() + "=" + Math.round(e.getValue()) + " > " + budget);
+        }
+        if (!exceeded.isEmpty()) throw new AssertionError("할당 예산 초과: " + exceeded);
+        return 1;
+    }
+
+    private static void maskerBytes(Map<String, Double> measured, String name, RangePiiMasker masker, String[] values, StringBuilder out) {
+        measured.put(name + ".mask", bytesPerOp(values.length, i -> masker.mask(values[i])));
+        measured.put(name + ".maskTo", bytesPerOp(values.length, i -> {
+            out.setLength(0);
+            masker.maskTo(values[i], 0, values[i].length(), out);
+        }));
+    }
+
+    /** 워밍업 두 바퀴 뒤 세 번째 바퀴에서 연산 하나당 할당 바이트. */
+    private static double bytesPerOp(int ops, IntOp op) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = 0;
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < ops; i++) op.run(i);
+            allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        return (double) allocated / ops;
+    }
+
+    private static int throughputBudget(KeywordBasedLogMaskingEngine engine, String[] lines) {
+        long floor = Long.getLong(PROPERTY_PREFIX + "minLinesPerSecond", DEFAULT_MIN_LINES_PER_SECOND);
+        int sink = 0;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) { // 가장 빠른 바퀴로 판단해 일시적인 GC·스케줄링 잡음을 줄인다
+            long start = System.nanoTime();
+            for (String line : lines) sink += engine.mask(line).length();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double linesPerSecond = lines.length * 1e9 / best;
+        System.out.printf(Locale.ROOT, "  throughput engine.mask %,.0f lines/s (floor %,d, checksum %d)%n", linesPerSecond, floor, sink);
+        if (floor > 0 && linesPerSecond < floor) {
+            throw new AssertionError("처리량 예산 미달: " + Math.round(linesPerSecond) + " lines/s < " + floor);
+        }
+        return 1;
+    }
+
+    @FunctionalInterface
+    private interface IntOp {
+        void run(int i);
+    }
+
+    /**
+     * 정규식으로 쓴 key=value 마스킹 참조 구현. 최적화 전 엔진과 마스커의 정규식을 그대로 쓴다.
+     * 단, 따옴표는 벗겼을 때만 다시 씌우고 key는 대소문자를 구분하지 않는다(현재 엔진의 규칙).
+     */
+    static final class RegexReference {
+        private static final Pattern KV = Pattern.compile("(?i)([a-z0-9_\\-가-힣]+)\\s*(=|:)\\s*([^\\s,\\)\\]\\}]+)");
+        private static final Pattern PHONE = Pattern.compile("(?<!\\d)(01[016789]|02|0\\d{2,3})[-\\s]?(\\d{3,4})[-\\s]?(\\d{4})(?!\\d)");
+        private static final Pattern RRN = Pattern.compile("\\d{6}-\\d{7}");
+        private static final Pattern CARD = Pattern.compile("(\\d{4}-\\d{2})\\d{2}-\\d{4}-(\\d{4})");
+
+        private final Map<String, PiiType> keys;
+        private final Set<String> forbidden;
+        private final ForbiddenKeywordPolicy.Mode mode;
+
+        RegexReference(PiiKeywordDictionary dict, ForbiddenKeywordPolicy forbidden) {
+            this.keys = dict.mappings();
+            this.forbidden = forbidden.forbiddenKeys();
+            this.mode = forbidden.mode();
+        }
+
+        String mask(String line) {
+            Matcher m = KV.matcher(line);
+            StringBuilder out = new StringBuilder();
+            int copied = 0;
+            while (m.find()) {
+                String key = m.group(1).toLowerCase(Locale.ROOT);
+                String token = m.group(3);
+                String replacement;
+                if (forbidden.contains(key)) {
+                    replacement = switch (mode) {
+                        case REDACT -> "<REDACTED>";
+                        case DROP_VALUE -> "";
+                        case PASS -> token;
+                    };
+                } else {
+                    PiiType type = keys.get(key);
+                    if (type == null) continue;
+                    boolean quoted = token.length() >= 2 && (token.charAt(0) == '"' || token.charAt(0) == '\'')
+                            && token.charAt(token.length() - 1) == token.charAt(0);
+                    String value = quoted ? token.substring(1, token.length() - 1) : token;
+                    if (value.isBlank()) continue;
+                    String masked = maskValue(type, value);
+                    replacement = quoted ? token.charAt(0) + masked + token.charAt(0) : masked;
+                }
+                out.append(line, copied, m.start(3)).append(replacement);
+                copied = m.end(3);
+            }
+            return out.append(line, copied, line.length()).toString();
+        }
+
+        static String maskValue(PiiType type, String value) {
+            return switch (type) {
+                case RRN -> RRN.matcher(value).matches() ? value.substring(0, 8) + "******" : value;
+                case PHONE -> PHONE.matcher(value).replaceAll(r -> r.group(1) + "-" + "*".repeat(r.group(2).length()) + "-" + r.group(3));
+                case CARD -> CARD.matcher(value).replaceAll("$1**-****-$2");
+                case ACCOUNT -> account(value);
+            };
+        }
+
+        private static String account(String value) {
+            String digits = value.replaceAll("[^0-9]", "");
+            int n = digits.length();
+            if (n == 0) return value;
+            int prefix = 3, suffix = 3;
+            if (n <= prefix + suffix) {
+                prefix = 0;
+                suffix = Math.min(1, n);
+            }
+            String maskedDigits = digits.substring(0, prefix) + "*".repeat(n - prefix - suffix) + digits.substring(n - suffix);
+            StringBuilder out = new StringBuilder(value.length());
+            int di = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                out.append(c >= '0' && c <= '9' ? maskedDigits.charAt(di++) : c);
+            }
+            return out.toString();
+        }
+    }
+
+    /** 시드로 재현되는 국내 금융 서비스 로그 줄과 PII 값. 정상 값과 경계·오형식 값을 섞는다. */
+    static final class FinancialLogCorpus {
+        private static final String[] PHONE_KEYS = {"phone", "mobile", "tel", "contact", "msisdn", "PHONE", "Mobile"};
+        private static final String[] ACCOUNT_KEYS = {"account", "acct", "accountNo", "withdrawAccount", "depositAccount", "ACCT"};
+        private static final String[] RRN_KEYS = {"rrn", "residentNo", "jumin", "ssn_kr", "RESIDENTNO"};
+        private static final String[] CARD_KEYS = {"card", "cardNo", "cardNumber", "pan", "CARD"};
+        private static final String[] SERVICES = {"TransferService", "CustomerService", "CardAuthService", "LoanService", "AuthFilter", "BatchJob"};
+        private static final String[] MERCHANTS = {"스타벅스 강남점", "GS25 역삼점", "쿠팡", "배달의민족", "교보문고 광화문점"};
+        private static final String[] NAMES = {"홍길동", "김철수", "이영희", "박민수", "최지우"};
+
+        static String[] lines(Random r, int n) {
+            String[] lines = new String[n];
+            for (int i = 0; i < n; i++) lines[i] = line(r, i);
+            return lines;
+        }
+
+        static String[] values(Random r, int n, java.util.function.Function<Random, String> generator) {
+            String[] values = new String[n];
+            for (int i = 0; i < n; i++) values[i] = generator.apply(r);
+            return values;
+        }
+
+        private static String line(Random r, int seq) {
+            String head = String.format(Locale.ROOT, "2024-06-01 09:%02d:%02d.%03d [%s] %-5s %s - ", seq / 3600 % 60, seq / 60 % 60, seq % 1000,
+                    "http-nio-8080-exec-" + (1 + r.nextInt(16)), r.nextInt(10) == 0 ? "WARN" : "INFO", pick(r, SERVICES));
+            return head + switch (r.nextInt(10)) {
+                case 0 -> "이체 요청 txId=TX" + r.nextInt(1_000_000) + " " + pick(r, ACCOUNT_KEYS) + sep(r) + account(r)
+                        + " amount=" + r.nextInt(5_000_000) + "원 " + pick(r, PHONE_KEYS) + sep(r) + phone(r);
+                case 1 -> "고객 조회 name=" + pick(r, NAMES) + ", " + pick(r, RRN_KEYS) + sep(r) + rrn(r)
+                        + ", " + pick(r, PHONE_KEYS) + sep(r) + quoted(r, phone(r));
+                case 2 -> "카드 승인 " + pick(r, CARD_KEYS) + sep(r) + quoted(r, card(r)) + " 승인번호=" + (10_000_000 + r.nextInt(90_000_000))
+                        + " 가맹점=" + pick(r, MERCHANTS);
+                case 3 -> "로그인 실패 userId=user" + r.nextInt(10_000) + " pwd=" + Long.toHexString(r.nextLong())
+                        + " otp : " + (100_000 + r.nextInt(900_000)) + " ip=10.0." + r.nextInt(256) + "." + r.nextInt(256);
+                case 4 -> "response(code=200, body={" + pick(r, ACCOUNT_KEYS) + "='" + account(r) + "', "
+                        + pick(r, CARD_KEYS) + "=" + card(r) + "})";
+                case 5 -> "대출 심사 요청 applicant=" + pick(r, NAMES) + " " + pick(r, RRN_KEYS) + "=" + rrn(r)
+                        + " " + pick(r, PHONE_KEYS) + "=" + phone(r) + "/" + phone(r);
+                case 6 -> "malformed " + pick(r, PHONE_KEYS) + "== " + pick(r, PHONE_KEYS) + "= , " + pick(r, CARD_KEYS) + "=\"\" "
+                        + pick(r, ACCOUNT_KEYS) + "=12 " + pick(r, RRN_KEYS) + "=" + rrn(r) + "9 " + pick(r, PHONE_KEYS) + "=\"";
+                case 7 -> "휴대폰=" + phone(r) + " 계좌=" + account(r) + " 메모: 고객 요청으로 " + pick(r, PHONE_KEYS) + "_old=" + phone(r) + " 변경";
+                default -> "정산 배치 완료 count=" + r.nextInt(100_000) + " elapsed=" + r.nextInt(10_000) + "ms status=OK";
+            };
+        }
+
+        private static String pick(Random r, String[] values) {
+            return values[r.nextInt(values.length)];
+        }
+
+        private static String sep(Random r) {
+            return switch (r.nextInt(4)) {
+                case 0 -> "=";
+                case 1 -> ": ";
+                case 2 -> " = ";
+                default -> ":";
+            };
+        }
+
+        private static String quoted(Random r, String value) {
+            return switch (r.nextInt(3)) {
+                case 0 -> "\"" + value + "\"";
+                case 1 -> "'" + value + "'";
+                default -> value;
+            };
+        }
+
+        static String phone(Random r) {
+            String mid = r.nextBoolean() ? String.format("%04d", r.nextInt(10_000)) : String.format("%03d", r.nextInt(1_000));
+            String last = String.format("%04d", r.nextInt(10_000));
+            String area = switch (r.nextInt(5)) {
+                case 0, 1 -> "010";
+                case 2 -> "02";
+                case 3 -> "031";
+                default -> "0" + (10 + r.nextInt(90)); // 형식상 맞지만 없는 국번도 섞는다
+            };
+            return switch (r.nextInt(4)) {
+                case 0 -> area + mid + last;
+                case 1 -> area + " " + mid + "-" + last;
+                default -> area + "-" + mid + "-" + last;
+            };
+        }
+
+        static String account(Random r) {
+            return switch (r.nextInt(4)) {
+                case 0 -> "110-" + (100 + r.nextInt(900)) + "-" + (100_000 + r.nextInt(900_000));
+                case 1 -> "1002-" + (100 + r.nextInt(900)) + "-" + (100_000 + r.nextInt(900_000));
+                case 2 -> (100 + r.nextInt(900)) + "-" + (10 + r.nextInt(90)) + "-" + (100_000 + r.nextInt(900_000));
+                default -> Long.toString(10_000_000_000L + (r.nextLong() & Long.MAX_VALUE) % 90_000_000_000L);
+            };
+        }
+
+        static String rrn(Random r) {
+            return String.format("%02d%02d%02d-%d%06d", r.nextInt(100), 1 + r.nextInt(12), 1 + r.nextInt(28), 1 + r.nextInt(4), r.nextInt(1_000_000));
+        }
+
+        static String card(Random r) {
+            return String.format("%04d-%04d-%04d-%04d", r.nextInt(10_000), r.nextInt(10_000), r.nextInt(10_000), r.nextInt(10_000));
+        }
+    }
+}
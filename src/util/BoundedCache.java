@@ -0,0 +1,119 @@
+package util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 크기 상한이 있는 동시성 캐시.
+ *
+ * <p>
+ * 조회는 ConcurrentHashMap 조회 한 번이며, 상한을 넘으면 CLOCK(second chance) 방식으로
+ * 최근에 조회되지 않은 항목부터 제거한다. 제거는 한 스레드만 수행하고, 다른 스레드는
+ * 기다리지 않고 지나간다(잠시 상한을 조금 넘을 수 있음).
+ * 로깅 경로에서 쓰므로 조회/저장 시 락을 기다리지 않는다.
+ * </p>
+ */
+public final class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Entry<V>> map;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<Map.Entry<K, Entry<V>>> clockHand; // evictionLock 보호
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /** 캐시된 값. 없으면 null. */
+    public V get(K key) {
+        Entry<V> e = map.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (!e.referenced) e.referenced = true;
+        hits.increment();
+        return e.value;
+    }
+
+    /** 캐시된 값, 없으면 계산해서 저장 후 반환. 계산은 락 밖에서 하므로 중복 계산될 수 있다. */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V v = get(key);
+        if (v != null) return v;
+        v = Objects.requireNonNull(loader.apply(key));
+        put(key, v);
+        return v;
+    }
+
+    public void put(K key, V value) {
+        map.put(key, new Entry<>(value));
+        if (map.size() > maxSize) evict();
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) return;
+        try {
+            // 한 바퀴에 참조 비트를 모두 지우므로 최대 두 바퀴 안에 상한 아래로 내려간다
+            int budget = map.size() * 2 + 1;
+            while (map.size() > maxSize && budget-- > 0) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = map.entrySet().iterator();
+                    if (!clockHand.hasNext()) break;
+                }
+                Map.Entry<K, Entry<V>> candidate = clockHand.next();
+                Entry<V> e = candidate.getValue();
+                if (e.referenced) {
+                    e.referenced = false;
+                } else if (map.remove(candidate.getKey(), e)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        volatile boolean referenced;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+}
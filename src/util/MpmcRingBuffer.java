@@ -0,0 +1,105 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 미리 할당한 고정 크기 배열 위의 락 없는 다중 생산자/다중 소비자 큐.
+ *
+ * <p>
+ * 슬롯마다 시퀀스 번호를 두는 방식(D. Vyukov의 bounded MPMC queue)이다.
+ * 생산자/소비자는 각각 tail/head 카운터 CAS 한 번으로 슬롯을 차지하고,
+ * 슬롯 시퀀스의 release 저장 → acquire 읽기로 원소를 넘긴다.
+ * 가득 차면 {@link #offer(Object)}는 기다리지 않고 false를 반환한다.
+ * </p>
+ */
+public final class MpmcRingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /** @param capacity 2의 거듭제곱으로 올림된다 */
+    public MpmcRingBuffer(int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("capacity must be >= 2: " + capacity);
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    /** 원소를 넣는다. 가득 차 있으면 false. */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) (pos & mask);
+            long dif = sequences.get(idx) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[idx] = e;
+                    sequences.setRelease(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** 원소 하나를 꺼낸다. 비어 있으면 null. */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int idx = (int) (pos & mask);
+            long dif = sequences.get(idx) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = (E) slots[idx];
+                    slots[idx] = null;
+                    sequences.setRelease(idx, pos + slots.length);
+                    return e;
+                }
+                pos = head.get();
+            } else if (dif < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /** 최대 max개를 batch[0..]에 꺼내 담고 꺼낸 개수를 반환한다. */
+    public int drainTo(E[] batch, int max) {
+        int n = 0;
+        int limit = Math.min(max, batch.length);
+        while (n < limit) {
+            E e = poll();
+            if (e == null) break;
+            batch[n++] = e;
+        }
+        return n;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /** 대략적인 원소 수(동시 변경 중에는 근사값). */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
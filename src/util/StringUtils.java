@@ -27,6 +27,29 @@ public final class StringUtils {
     /** 숫자가 아닌 문자 제거. */
     public static String digitsOnly(String s) {
         if (s == null) return "";
-        return s.replaceAll("\\D", "");
+        StringBuilder b = null;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (isAsciiDigit(c)) {
+                if (b != null) b.append(c);
+            } else if (b == null) {
+                b = new StringBuilder(n).append(s, 0, i);
+            }
+        }
+        return b == null ? s : b.toString();
+    }
+
+    /** 정규식 \d 와 같은 ASCII 숫자 [0-9]. */
+    public static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** s[from, from + n) 이 모두 ASCII 숫자인지(end를 넘으면 false). */
+    public static boolean isAsciiDigits(CharSequence s, int from, int end, int n) {
+        if (from + n > end) return false;
+        for (int i = from; i < from + n; i++) {
+            if (!isAsciiDigit(s.charAt(i))) return false;
+        }
+        return true;
     }
 }